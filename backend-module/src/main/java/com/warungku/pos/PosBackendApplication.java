@@ -1,9 +1,12 @@
 package com.warungku.pos;
 
+import com.warungku.pos.core.tenant.TenantAwareRepository;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 
 @SpringBootApplication
+@EnableJpaRepositories(repositoryBaseClass = TenantAwareRepository.class)
 public class PosBackendApplication {
     public static void main(String[] args) {
         SpringApplication.run(PosBackendApplication.class, args);
@@ -0,0 +1,10 @@
+package com.warungku.pos.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+    // Enables @Async on the application task executor (virtual threads when spring.threads.virtual.enabled)
+}
@@ -0,0 +1,46 @@
+package com.warungku.pos.controller;
+
+import com.warungku.pos.entity.ProductImage;
+import com.warungku.pos.service.ProductImageService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Image Controller.
+ * Serves product images from the content-addressed store.
+ */
+@RestController
+@RequestMapping("/api/images")
+@RequiredArgsConstructor
+public class ImageController {
+    
+    // The bytes behind a hash never change, so clients may keep them for good
+    private static final CacheControl CACHE_FOREVER = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable();
+    
+    private final ProductImageService productImageService;
+    
+    @GetMapping("/{hash}")
+    public ResponseEntity<byte[]> getImage(
+            @PathVariable String hash,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = "\"" + hash + "\"";
+        if (ifNoneMatch != null && (ifNoneMatch.contains(etag) || ifNoneMatch.trim().equals("*"))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CACHE_FOREVER).build();
+        }
+        
+        ProductImage image = productImageService.getImage(hash);
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CACHE_FOREVER)
+                .contentType(MediaType.parseMediaType(image.getContentType()))
+                .contentLength(image.getSizeBytes())
+                .body(image.getData());
+    }
+}
@@ -48,8 +48,10 @@ public class ProductController {
     }
     
     @GetMapping("/search")
-    public ResponseEntity<ApiResponse<List<ProductDto>>> searchProducts(@RequestParam String q) {
-        return ResponseEntity.ok(ApiResponse.success(productService.searchProducts(q)));
+    public ResponseEntity<ApiResponse<Page<ProductDto>>> searchProducts(
+            @RequestParam String q,
+            @PageableDefault(size = 20) Pageable pageable) {
+        return ResponseEntity.ok(ApiResponse.success(productService.searchProducts(q, pageable)));
     }
     
     @GetMapping("/barcode/{barcode}")
@@ -57,6 +59,11 @@ public class ProductController {
         return ResponseEntity.ok(ApiResponse.success(productService.getProductByBarcode(barcode)));
     }
     
+    @GetMapping("/sku/{sku}")
+    public ResponseEntity<ApiResponse<ProductDto>> getProductBySku(@PathVariable String sku) {
+        return ResponseEntity.ok(ApiResponse.success(productService.getProductBySku(sku)));
+    }
+    
     @GetMapping("/low-stock")
     // @PreAuthorize("hasRole('ADMIN')") // TODO: Enable in production
     public ResponseEntity<ApiResponse<List<ProductDto>>> getLowStockProducts() {
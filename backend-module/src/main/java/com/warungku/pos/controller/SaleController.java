@@ -1,20 +1,34 @@
 package com.warungku.pos.controller;
 
 import com.warungku.pos.dto.ApiResponse;
+import com.warungku.pos.dto.CursorPage;
 import com.warungku.pos.dto.sale.CreateSaleRequest;
+import com.warungku.pos.dto.sale.OfflineSaleRequest;
+import com.warungku.pos.dto.sale.OfflineSaleResponse;
+import com.warungku.pos.dto.sale.SaleQuoteResponse;
 import com.warungku.pos.dto.sale.SaleResponse;
+import com.warungku.pos.dto.sale.SaleSummaryResponse;
+import com.warungku.pos.service.OfflineSaleService;
+import com.warungku.pos.service.SaleQuoteService;
 import com.warungku.pos.service.SaleService;
+import com.warungku.pos.service.export.DayRange;
+import com.warungku.pos.service.export.ExportFormat;
+import com.warungku.pos.service.export.SaleExporter;
+import com.warungku.pos.service.idempotency.IdempotencyService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Sales Controller - POS Transaction Endpoints
@@ -25,21 +39,26 @@ import java.util.Map;
 public class SaleController {
 
     private final SaleService saleService;
+    private final OfflineSaleService offlineSaleService;
+    private final SaleQuoteService saleQuoteService;
+    private final IdempotencyService idempotencyService;
+    private final SaleExporter saleExporter;
 
     /**
-     * Get all sales with pagination
+     * Get sales newest first - pass nextCursor back as cursor for the next page
      */
     @GetMapping
-    public ResponseEntity<ApiResponse<Page<SaleResponse>>> getSales(
-            @PageableDefault(size = 20) Pageable pageable) {
-        return ResponseEntity.ok(ApiResponse.success(saleService.getSales(pageable)));
+    public ResponseEntity<ApiResponse<CursorPage<SaleSummaryResponse>>> getSales(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CursorPage.DEFAULT_SIZE) int size) {
+        return ResponseEntity.ok(ApiResponse.success(saleService.getSales(cursor, size)));
     }
 
     /**
      * Get today's sales
      */
     @GetMapping("/today")
-    public ResponseEntity<ApiResponse<List<SaleResponse>>> getTodaySales() {
+    public ResponseEntity<ApiResponse<List<SaleSummaryResponse>>> getTodaySales() {
         return ResponseEntity.ok(ApiResponse.success(saleService.getTodaySales()));
     }
 
@@ -60,14 +79,68 @@ public class SaleController {
     }
 
     /**
-     * Create new sale (checkout)
+     * Export sales line by line for a range of days as CSV (default, gzipped when the client accepts it)
+     * or XLSX (Admin only; the plan must include export)
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public void exportSales(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = ExportFormat.of(format, ExportFormat.CSV, ExportFormat.XLSX);
+        DayRange days = new DayRange(from, to);
+        response.setContentType(exportFormat.contentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"sales-" + from + "-to-" + to + "." + exportFormat.extension() + "\"");
+
+        // XLSX is a zip already; gzip would only cost CPU
+        if (exportFormat == ExportFormat.CSV && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            GZIPOutputStream gzip = new GZIPOutputStream(response.getOutputStream(), 64 * 1024);
+            saleExporter.export(days, exportFormat, gzip);
+            gzip.finish();
+        } else {
+            saleExporter.export(days, exportFormat, response.getOutputStream());
+        }
+    }
+
+    /**
+     * Create new sale (checkout) - retries with the same Idempotency-Key get the first response back
      */
     @PostMapping
-    public ResponseEntity<ApiResponse<SaleResponse>> createSale(@Valid @RequestBody CreateSaleRequest request) {
-        SaleResponse response = saleService.createSale(request);
+    public ResponseEntity<ApiResponse<SaleResponse>> createSale(
+            @Valid @RequestBody CreateSaleRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        SaleResponse response = idempotencyService.execute("sales", idempotencyKey, request, SaleResponse.class,
+                () -> saleService.createSale(request));
         return ResponseEntity.ok(ApiResponse.success("Sale completed successfully", response));
     }
 
+    /**
+     * Price a cart without selling it - totals match what checkout would charge, plus warnings
+     */
+    @PostMapping("/quote")
+    public ResponseEntity<ApiResponse<SaleQuoteResponse>> quoteSale(@Valid @RequestBody CreateSaleRequest request) {
+        return ResponseEntity.ok(ApiResponse.success(saleQuoteService.quote(request)));
+    }
+
+    /**
+     * Upload sales recorded offline - one result per sale; sales already uploaded are skipped
+     */
+    @PostMapping("/offline")
+    public ResponseEntity<ApiResponse<OfflineSaleResponse>> ingestOfflineSales(
+            @Valid @RequestBody OfflineSaleRequest request) {
+        OfflineSaleResponse response = offlineSaleService.ingest(request);
+        return ResponseEntity.ok(ApiResponse.success(
+                String.format("%d sales created, %d duplicates, %d failed",
+                        response.getCreated(), response.getDuplicates(), response.getFailed()),
+                response));
+    }
+
     /**
      * Void sale (Admin only)
      */
@@ -1,8 +1,11 @@
 package com.warungku.pos.controller;
 
+import com.warungku.pos.core.tenant.TenantContext;
 import com.warungku.pos.dto.ApiResponse;
 import com.warungku.pos.dto.report.DailySalesReport;
+import com.warungku.pos.exception.BadRequestException;
 import com.warungku.pos.service.ReportService;
+import com.warungku.pos.service.SalesRollupService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
@@ -22,6 +25,7 @@ import java.util.List;
 public class SalesReportController {
 
     private final ReportService reportService;
+    private final SalesRollupService salesRollupService;
 
     /**
      * Get daily sales report
@@ -50,4 +54,18 @@ public class SalesReportController {
     public ResponseEntity<ApiResponse<DailySalesReport>> getTodayReport() {
         return ResponseEntity.ok(ApiResponse.success(reportService.getDailySalesReport(LocalDate.now())));
     }
+
+    /**
+     * Rebuild report rollups from raw sales for a date range
+     */
+    @PostMapping("/rollups/rebuild")
+    public ResponseEntity<ApiResponse<Void>> rebuildRollups(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new BadRequestException("'to' must not be before 'from'");
+        }
+        salesRollupService.rebuild(TenantContext.getTenantId(), from, to);
+        return ResponseEntity.ok(ApiResponse.success("Sales rollups rebuilt", null));
+    }
 }
@@ -1,23 +1,27 @@
 package com.warungku.pos.controller;
 
 import com.warungku.pos.dto.ApiResponse;
+import com.warungku.pos.dto.CursorPage;
 import com.warungku.pos.dto.ProductDto;
 import com.warungku.pos.entity.StockMovement;
 import com.warungku.pos.entity.enums.MovementType;
-import com.warungku.pos.repository.StockMovementRepository;
 import com.warungku.pos.service.StockService;
+import com.warungku.pos.service.export.DayRange;
+import com.warungku.pos.service.export.ExportFormat;
+import com.warungku.pos.service.export.StockMovementExporter;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
-import java.util.List;
+import java.io.IOException;
+import java.time.LocalDate;
 
 /**
  * Stock Management Controller
@@ -29,7 +33,7 @@ import java.util.List;
 public class StockController {
 
     private final StockService stockService;
-    private final StockMovementRepository stockMovementRepository;
+    private final StockMovementExporter stockMovementExporter;
 
     /**
      * Adjust stock for a product
@@ -57,27 +61,34 @@ public class StockController {
     }
 
     /**
-     * Get stock movements for a product
+     * Get stock movements for a product, newest first - pass nextCursor back as cursor for the next page
      */
     @GetMapping("/movements/{productId}")
-    public ResponseEntity<ApiResponse<Page<StockMovement>>> getMovements(
+    public ResponseEntity<ApiResponse<CursorPage<StockMovement>>> getMovements(
             @PathVariable Long productId,
-            @PageableDefault(size = 20) Pageable pageable) {
-        return ResponseEntity.ok(ApiResponse.success(
-                stockMovementRepository.findByProductIdOrderByMovementDateDesc(productId, pageable)
-        ));
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CursorPage.DEFAULT_SIZE) int size) {
+        return ResponseEntity.ok(ApiResponse.success(stockService.getMovements(productId, cursor, size)));
     }
 
     /**
-     * Get all stock movements
+     * Stream stock movements, oldest first, as NDJSON (default) or CSV - optionally for one product,
+     * one movement type and a range of days
      */
     @GetMapping("/movements")
-    public ResponseEntity<ApiResponse<List<StockMovement>>> getAllMovements(
-            @RequestParam(required = false) MovementType type) {
-        List<StockMovement> movements = type != null
-                ? stockMovementRepository.findByMovementType(type)
-                : stockMovementRepository.findAll();
-        return ResponseEntity.ok(ApiResponse.success(movements));
+    public void exportMovements(
+            @RequestParam(required = false) Long productId,
+            @RequestParam(required = false) MovementType type,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "ndjson") String format,
+            HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = ExportFormat.of(format, ExportFormat.NDJSON, ExportFormat.CSV);
+        DayRange days = new DayRange(from, to);
+        response.setContentType(exportFormat.contentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"stock-movements." + exportFormat.extension() + "\"");
+        stockMovementExporter.export(productId, type, days, exportFormat, response.getOutputStream());
     }
 
     @Data
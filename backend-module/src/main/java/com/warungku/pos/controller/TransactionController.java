@@ -1,14 +1,13 @@
 package com.warungku.pos.controller;
 
 import com.warungku.pos.dto.ApiResponse;
+import com.warungku.pos.dto.CursorPage;
 import com.warungku.pos.dto.CreateTransactionRequest;
 import com.warungku.pos.dto.TransactionDto;
 import com.warungku.pos.service.TransactionService;
+import com.warungku.pos.service.idempotency.IdempotencyService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.web.PageableDefault;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -25,11 +24,13 @@ import java.util.List;
 public class TransactionController {
     
     private final TransactionService transactionService;
+    private final IdempotencyService idempotencyService;
     
     @GetMapping
-    public ResponseEntity<ApiResponse<Page<TransactionDto>>> getTransactions(
-            @PageableDefault(size = 20) Pageable pageable) {
-        return ResponseEntity.ok(ApiResponse.success(transactionService.getTransactions(pageable)));
+    public ResponseEntity<ApiResponse<CursorPage<TransactionDto>>> getTransactions(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CursorPage.DEFAULT_SIZE) int size) {
+        return ResponseEntity.ok(ApiResponse.success(transactionService.getTransactions(cursor, size)));
     }
     
     @GetMapping("/today")
@@ -49,9 +50,11 @@ public class TransactionController {
     
     @PostMapping
     public ResponseEntity<ApiResponse<TransactionDto>> createTransaction(
-            @Valid @RequestBody CreateTransactionRequest request) {
+            @Valid @RequestBody CreateTransactionRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
         return ResponseEntity.ok(ApiResponse.success("Transaction created", 
-                transactionService.createTransaction(request)));
+                idempotencyService.execute("transactions", idempotencyKey, request, TransactionDto.class,
+                        () -> transactionService.createTransaction(request))));
     }
     
     @PostMapping("/{id}/cancel")
@@ -0,0 +1,15 @@
+package com.warungku.pos.core.migration;
+
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Makes JPA start after {@link SchemaMigrator}, so Hibernate validates the migrated schema.
+ */
+@Component
+public class EntityManagerFactoryDependsOnSchemaMigrator extends EntityManagerFactoryDependsOnPostProcessor {
+
+    public EntityManagerFactoryDependsOnSchemaMigrator() {
+        super(SchemaMigrator.class);
+    }
+}
@@ -0,0 +1,223 @@
+package com.warungku.pos.core.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Applies the versioned SQL scripts under {@code classpath:db/migration} at startup, before JPA
+ * validates the schema. Scripts are named {@code V<version>__<description>.sql} and run once each,
+ * in version order. Applied scripts are recorded in {@code schema_migrations} with a checksum, and
+ * startup stops if an applied script has since been edited: changes go into a new version.
+ * <p>
+ * A database that already has tables but no history, i.e. one created by {@code ddl-auto: update},
+ * is baselined: V1 is recorded as applied without running it, and later versions run as usual. It is
+ * first compared with V1: it must have every table V1 creates and none that a later version creates,
+ * otherwise startup stops rather than run scripts against a schema they were not written for.
+ * MySQL commits DDL statement by statement, so a script that fails part way is not recorded and
+ * must be made to run cleanly on the partly migrated schema. Start one instance first when
+ * deploying a new version, so that only one instance migrates.
+ */
+@Slf4j
+@Component
+public class SchemaMigrator implements InitializingBean {
+
+    static final String HISTORY_TABLE = "schema_migrations";
+
+    private static final String LOCATION = "classpath:db/migration/V*__*.sql";
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+    private static final Pattern CREATE_TABLE = Pattern.compile("(?i)\\bcreate\\s+table\\s+(?:if\\s+not\\s+exists\\s+)?(\\w+)");
+    // Present in every database the application has created
+    private static final String BASELINE_MARKER_TABLE = "outlets";
+
+    private final DataSource dataSource;
+
+    public SchemaMigrator(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws SQLException, IOException {
+        migrate();
+    }
+
+    /**
+     * @return the number of scripts run
+     */
+    public int migrate() throws SQLException, IOException {
+        List<Migration> migrations = findMigrations();
+        try (Connection connection = dataSource.getConnection()) {
+            boolean baseline = !tableExists(connection, HISTORY_TABLE) && tableExists(connection, BASELINE_MARKER_TABLE);
+            if (baseline) {
+                checkBaseline(connection, migrations);
+            }
+            createHistoryTable(connection);
+            Map<Integer, String> applied = appliedChecksums(connection);
+
+            int run = 0;
+            for (Migration migration : migrations) {
+                String checksum = applied.get(migration.version());
+                if (checksum != null) {
+                    if (!checksum.equals(migration.checksum())) {
+                        throw new IllegalStateException("Migration " + migration.name()
+                                + " was changed after it was applied; add a new version instead");
+                    }
+                    continue;
+                }
+                if (baseline && migration.version() == 1) {
+                    log.info("Baselining existing schema at {}", migration.name());
+                    record(connection, migration, true);
+                    continue;
+                }
+                log.info("Applying schema migration {}", migration.name());
+                ScriptUtils.executeSqlScript(connection, new EncodedResource(migration.script(), StandardCharsets.UTF_8));
+                record(connection, migration, false);
+                run++;
+            }
+            log.info("Schema is at version {}; {} migrations applied",
+                    migrations.isEmpty() ? 0 : migrations.get(migrations.size() - 1).version(), run);
+            return run;
+        }
+    }
+
+    private static List<Migration> findMigrations() throws IOException {
+        TreeMap<Integer, Migration> byVersion = new TreeMap<>();
+        for (Resource script : new PathMatchingResourcePatternResolver().getResources(LOCATION)) {
+            Matcher name = SCRIPT_NAME.matcher(String.valueOf(script.getFilename()));
+            if (!name.matches()) {
+                throw new IllegalStateException("Migration script name must be V<version>__<description>.sql: "
+                        + script.getFilename());
+            }
+            Migration migration = new Migration(Integer.parseInt(name.group(1)), name.group(2).replace('_', ' '),
+                    checksum(script), script);
+            Migration clash = byVersion.put(migration.version(), migration);
+            if (clash != null) {
+                throw new IllegalStateException("Two migration scripts for version " + migration.version()
+                        + ": " + clash.name() + " and " + migration.name());
+            }
+        }
+        return new ArrayList<>(byVersion.values());
+    }
+
+    /**
+     * Checks that an existing schema is the one V1 describes, by the tables V1 and later versions create.
+     */
+    private static void checkBaseline(Connection connection, List<Migration> migrations) throws SQLException, IOException {
+        List<String> missing = new ArrayList<>();
+        List<String> unexpected = new ArrayList<>();
+        for (Migration migration : migrations) {
+            for (String table : createdTables(migration.script())) {
+                boolean exists = tableExists(connection, table);
+                if (migration.version() == 1 && !exists) {
+                    missing.add(table);
+                } else if (migration.version() > 1 && exists) {
+                    unexpected.add(table);
+                }
+            }
+        }
+        if (!missing.isEmpty() || !unexpected.isEmpty()) {
+            throw new IllegalStateException("Existing schema without " + HISTORY_TABLE + " does not match V1"
+                    + (missing.isEmpty() ? "" : "; missing tables " + missing)
+                    + (unexpected.isEmpty() ? "" : "; has tables of later versions " + unexpected)
+                    + ". Bring it to V1 before starting, or migrate it by hand and record the versions applied");
+        }
+    }
+
+    private static List<String> createdTables(Resource script) throws IOException {
+        List<String> tables = new ArrayList<>();
+        try (InputStream in = script.getInputStream()) {
+            Matcher create = CREATE_TABLE.matcher(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            while (create.find()) {
+                tables.add(create.group(1));
+            }
+        }
+        return tables;
+    }
+
+    private static String checksum(Resource script) throws IOException {
+        try (InputStream in = script.getInputStream()) {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(in.readAllBytes()));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static boolean tableExists(Connection connection, String table) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        for (String name : new String[]{table, table.toUpperCase()}) {
+            try (ResultSet tables = metaData.getTables(connection.getCatalog(), null, name, new String[]{"TABLE"})) {
+                if (tables.next()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void createHistoryTable(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS " + HISTORY_TABLE + " ("
+                    + "version INT NOT NULL PRIMARY KEY, "
+                    + "description VARCHAR(200) NOT NULL, "
+                    + "checksum VARCHAR(64) NOT NULL, "
+                    + "baseline BOOLEAN NOT NULL, "
+                    + "applied_at DATETIME NOT NULL)");
+        }
+    }
+
+    private static Map<Integer, String> appliedChecksums(Connection connection) throws SQLException {
+        Map<Integer, String> applied = new TreeMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT version, checksum FROM " + HISTORY_TABLE)) {
+            while (rows.next()) {
+                applied.put(rows.getInt(1), rows.getString(2));
+            }
+        }
+        return applied;
+    }
+
+    private static void record(Connection connection, Migration migration, boolean baseline) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO " + HISTORY_TABLE
+                + " (version, description, checksum, baseline, applied_at) VALUES (?, ?, ?, ?, ?)")) {
+            insert.setInt(1, migration.version());
+            insert.setString(2, migration.description());
+            insert.setString(3, migration.checksum());
+            insert.setBoolean(4, baseline);
+            insert.setTimestamp(5, Timestamp.valueOf(LocalDateTime.now()));
+            insert.executeUpdate();
+        }
+    }
+
+    private record Migration(int version, String description, String checksum, Resource script) {
+
+        String name() {
+            return script.getFilename();
+        }
+    }
+}
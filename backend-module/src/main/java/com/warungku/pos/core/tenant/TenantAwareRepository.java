@@ -0,0 +1,33 @@
+package com.warungku.pos.core.tenant;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+
+import java.util.Optional;
+
+/**
+ * Repository base class that extends tenant scoping to primary-key loads.
+ * <p>
+ * Hibernate filters only apply to queries, so {@code findById} - a session lookup - would
+ * return another tenant's row. Here such a row is reported as absent, the same as a query
+ * would, whenever a tenant is set.
+ */
+public class TenantAwareRepository<T, ID> extends SimpleJpaRepository<T, ID> {
+    
+    public TenantAwareRepository(JpaEntityInformation<T, ?> entityInformation, EntityManager entityManager) {
+        super(entityInformation, entityManager);
+    }
+    
+    @Override
+    public Optional<T> findById(ID id) {
+        return super.findById(id).filter(TenantAwareRepository::belongsToCurrentTenant);
+    }
+    
+    private static boolean belongsToCurrentTenant(Object entity) {
+        Long tenantId = TenantContext.getTenantId();
+        return tenantId == null
+                || !(entity instanceof TenantAware tenantAware)
+                || tenantId.equals(tenantAware.getTenantId());
+    }
+}
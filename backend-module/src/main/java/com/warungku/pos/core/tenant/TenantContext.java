@@ -40,4 +40,33 @@ public final class TenantContext {
     public static boolean hasTenant() {
         return CURRENT_TENANT.get() != null;
     }
+    
+    /**
+     * Wraps the task so it runs with the caller's tenant and user, on whichever thread executes it.
+     * The executing thread's own context is restored afterwards, so pooled threads never keep it.
+     */
+    public static Runnable wrap(Runnable task) {
+        Long tenantId = getTenantId();
+        Long userId = getUserId();
+        return () -> {
+            Long previousTenant = getTenantId();
+            Long previousUser = getUserId();
+            CURRENT_TENANT.set(tenantId);
+            CURRENT_USER.set(userId);
+            try {
+                task.run();
+            } finally {
+                restore(CURRENT_TENANT, previousTenant);
+                restore(CURRENT_USER, previousUser);
+            }
+        };
+    }
+    
+    private static void restore(ThreadLocal<Long> holder, Long value) {
+        if (value == null) {
+            holder.remove();
+        } else {
+            holder.set(value);
+        }
+    }
 }
@@ -0,0 +1,41 @@
+package com.warungku.pos.core.tenant;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.orm.jpa.AbstractEntityManagerFactoryBean;
+import org.springframework.stereotype.Component;
+
+/**
+ * Enables the Hibernate tenant filter once per session, when the session is opened.
+ * <p>
+ * Registered as the entity manager initializer of the JPA factory, so every entity manager -
+ * per request or per transaction - starts scoped to the tenant in {@link TenantContext} at that
+ * moment. Sessions opened without a tenant (schedulers, startup jobs) stay unscoped.
+ */
+@Slf4j
+@Component
+public class TenantSessionInitializer implements BeanPostProcessor {
+    
+    public static final String TENANT_FILTER_NAME = "tenantFilter";
+    public static final String TENANT_PARAMETER = "tenantId";
+    
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof AbstractEntityManagerFactoryBean factoryBean) {
+            factoryBean.setEntityManagerInitializer(TenantSessionInitializer::enableTenantFilter);
+        }
+        return bean;
+    }
+    
+    static void enableTenantFilter(EntityManager entityManager) {
+        Long tenantId = TenantContext.getTenantId();
+        if (tenantId != null) {
+            log.debug("Opening session for tenant_id: {}", tenantId);
+            entityManager.unwrap(Session.class)
+                    .enableFilter(TENANT_FILTER_NAME)
+                    .setParameter(TENANT_PARAMETER, tenantId);
+        }
+    }
+}
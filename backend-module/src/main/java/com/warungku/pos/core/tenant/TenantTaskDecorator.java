@@ -0,0 +1,17 @@
+package com.warungku.pos.core.tenant;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Carries the submitting thread's tenant context into {@code @Async} tasks.
+ * Picked up by the auto-configured application task executor, platform or virtual threads alike.
+ */
+@Component
+public class TenantTaskDecorator implements TaskDecorator {
+    
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        return TenantContext.wrap(runnable);
+    }
+}
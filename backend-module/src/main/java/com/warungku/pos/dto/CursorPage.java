@@ -0,0 +1,80 @@
+package com.warungku.pos.dto;
+
+import com.warungku.pos.exception.BadRequestException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a newest-first list, read by seeking past the last row of the previous page rather
+ * than by offset, so deep pages cost the same as the first and no count query is needed.
+ * {@code nextCursor} is an opaque token to pass back as {@code cursor}; it is null on the last page.
+ */
+@Data
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 100;
+
+    private List<T> items;
+    private String nextCursor;
+    private boolean hasMore;
+
+    /**
+     * Page request for one row more than {@code size}, the extra row telling whether there is a next page.
+     */
+    public static Pageable limit(int size) {
+        if (size < 1 || size > MAX_SIZE) {
+            throw new BadRequestException("Page size must be between 1 and " + MAX_SIZE);
+        }
+        return PageRequest.of(0, size + 1);
+    }
+
+    /**
+     * Builds the page from rows read with {@link #limit(int)}, keyed by {@code keyOf} for the next cursor.
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, Cursor> keyOf) {
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null, false);
+        }
+        List<T> items = rows.subList(0, size);
+        return new CursorPage<>(items, keyOf.apply(items.get(size - 1)).encode(), true);
+    }
+
+    /**
+     * Position after a row in (date, id) descending order.
+     */
+    public record Cursor(LocalDateTime date, Long id) {
+
+        public String encode() {
+            String key = date + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * @return the decoded cursor, or null for the first page
+         */
+        public static Cursor decode(String token) {
+            if (token == null || token.isBlank()) {
+                return null;
+            }
+            try {
+                String key = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                int separator = key.indexOf('|');
+                return new Cursor(LocalDateTime.parse(key.substring(0, separator)),
+                        Long.valueOf(key.substring(separator + 1)));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+                throw new BadRequestException("Invalid cursor");
+            }
+        }
+    }
+}
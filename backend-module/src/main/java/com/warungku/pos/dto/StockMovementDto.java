@@ -0,0 +1,34 @@
+package com.warungku.pos.dto;
+
+import com.warungku.pos.entity.enums.MovementType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stock movement with its product and author flattened in, read as a projection so listing
+ * movements loads no entities or lazy associations.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockMovementDto {
+    private Long id;
+    private LocalDateTime movementDate;
+    private MovementType movementType;
+    private Long productId;
+    private String productSku;
+    private String productName;
+    private Integer quantity;
+    private Integer stockBefore;
+    private Integer stockAfter;
+    private String referenceType;
+    private Long referenceId;
+    private String notes;
+    private Long createdById;
+    private String createdByName;
+}
@@ -0,0 +1,40 @@
+package com.warungku.pos.dto.sale;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Sales a terminal queued while offline, replayed in one call when it reconnects.
+ */
+@Data
+public class OfflineSaleRequest {
+
+    @NotEmpty(message = "At least one sale is required")
+    @Size(max = 1000, message = "At most 1000 sales per call")
+    private List<@Valid @NotNull OfflineSale> sales;
+
+    /**
+     * A checkout as sent to {@code POST /api/sales}, plus the terminal's id for it and when it happened.
+     */
+    @Data
+    @EqualsAndHashCode(callSuper = true)
+    @ToString(callSuper = true)
+    public static class OfflineSale extends CreateSaleRequest {
+
+        @NotBlank(message = "Client ID is required")
+        @Size(max = 64, message = "Client ID must not exceed 64 characters")
+        private String clientId;
+
+        @NotNull(message = "Client timestamp is required")
+        private LocalDateTime clientTimestamp;
+    }
+}
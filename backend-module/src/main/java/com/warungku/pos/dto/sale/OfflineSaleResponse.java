@@ -0,0 +1,41 @@
+package com.warungku.pos.dto.sale;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of an offline sale upload, one result per submitted sale in request order.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OfflineSaleResponse {
+
+    private int created;
+    private int duplicates;
+    private int failed;
+    private List<Result> results;
+
+    public enum Status {
+        CREATED,
+        DUPLICATE,
+        FAILED
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Result {
+        private String clientId;
+        private Status status;
+        private Long saleId;
+        private String receiptNumber;
+        private String message;
+    }
+}
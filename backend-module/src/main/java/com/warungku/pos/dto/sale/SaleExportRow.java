@@ -0,0 +1,38 @@
+package com.warungku.pos.dto.sale;
+
+import com.warungku.pos.entity.enums.PaymentMethod;
+import com.warungku.pos.entity.enums.SaleStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One sale line with its sale header repeated, as the sales export writes it; read as a projection
+ * so exporting loads no entities.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SaleExportRow {
+
+    private Long saleId;
+    private String receiptNumber;
+    private LocalDateTime saleDate;
+    private SaleStatus status;
+    private PaymentMethod paymentMethod;
+    private String cashierName;
+    private String customerName;
+    private BigDecimal saleSubtotal;
+    private BigDecimal saleDiscount;
+    private BigDecimal saleTax;
+    private BigDecimal grandTotal;
+    private String productSku;
+    private String productName;
+    private Integer quantity;
+    private BigDecimal unitPrice;
+    private BigDecimal itemDiscount;
+    private BigDecimal itemSubtotal;
+}
@@ -0,0 +1,48 @@
+package com.warungku.pos.dto.sale;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Totals a cart would be sold at right now, with warnings for whatever would stop the sale.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SaleQuoteResponse {
+
+    private BigDecimal subtotal;
+    private BigDecimal taxRate;
+    private BigDecimal taxAmount;
+    private BigDecimal discountAmount;
+    private BigDecimal discountPercent;
+    private BigDecimal grandTotal;
+    private BigDecimal amountPaid;
+    private BigDecimal changeAmount;
+    private int totalItems;
+    private List<Line> items;
+    // Empty when createSale would accept the cart as it is
+    private List<String> warnings;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Line {
+        private Long productId;
+        private String productSku;
+        private String productName;
+        private BigDecimal unitPrice;
+        private Integer quantity;
+        private BigDecimal discountAmount;
+        private BigDecimal subtotal;
+        // Stock in the catalog; null when the product is unknown
+        private Integer available;
+    }
+}
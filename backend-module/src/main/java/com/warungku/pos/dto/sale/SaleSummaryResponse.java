@@ -0,0 +1,38 @@
+package com.warungku.pos.dto.sale;
+
+import com.warungku.pos.entity.enums.PaymentMethod;
+import com.warungku.pos.entity.enums.PaymentStatus;
+import com.warungku.pos.entity.enums.SaleStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Sale header for list endpoints, read in one query without loading items.
+ * See {@link SaleResponse} for a single sale with its items.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SaleSummaryResponse {
+
+    private Long id;
+    private String receiptNumber;
+    private LocalDateTime saleDate;
+    private BigDecimal subtotal;
+    private BigDecimal taxAmount;
+    private BigDecimal discountAmount;
+    private BigDecimal grandTotal;
+    private PaymentMethod paymentMethod;
+    private PaymentStatus paymentStatus;
+    private SaleStatus status;
+    private String customerName;
+    private Long cashierId;
+    private String cashierName;
+    private Long totalItems;
+}
@@ -0,0 +1,44 @@
+package com.warungku.pos.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+import java.time.LocalDate;
+
+/**
+ * A tenant's month of sales and stock movements that was moved out of the live tables into the
+ * archive files. Rows written to the month after it was archived stay live.
+ */
+@Entity
+@Table(name = "archived_months", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_archived_month", columnNames = {"tenant_id", "month_start"})
+})
+@Getter
+@Setter
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedMonth extends BaseEntity {
+
+    @Column(name = "tenant_id", nullable = false)
+    private Long tenantId;
+
+    // First day of the month
+    @Column(name = "month_start", nullable = false)
+    private LocalDate monthStart;
+
+    // Sale lines written to the archive
+    @Column(name = "sale_rows", nullable = false)
+    private Long saleRows;
+
+    @Column(name = "movement_rows", nullable = false)
+    private Long movementRows;
+
+    // Highest ids archived; rows of the month that were not written are left live
+    @Column(name = "last_sale_id")
+    private Long lastSaleId;
+
+    @Column(name = "last_movement_id")
+    private Long lastMovementId;
+}
@@ -5,7 +5,7 @@ import lombok.*;
 import lombok.experimental.SuperBuilder;
 import org.hibernate.annotations.Filter;
 
-import static com.warungku.pos.core.tenant.TenantAspect.TENANT_FILTER_NAME;
+import static com.warungku.pos.core.tenant.TenantSessionInitializer.TENANT_FILTER_NAME;
 
 /**
  * Category entity - tenant-scoped.
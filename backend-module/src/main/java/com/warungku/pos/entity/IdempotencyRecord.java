@@ -0,0 +1,45 @@
+package com.warungku.pos.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stored outcome of a request sent with an {@code Idempotency-Key}: the response body replayed to
+ * retries of the same request until the record expires. Swept by expiry across all tenants.
+ */
+@Entity
+@Table(name = "idempotency_keys", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_idempotency_key", columnNames = {"tenant_id", "scope", "idempotency_key"})
+}, indexes = {
+    @Index(name = "idx_idempotency_expires", columnList = "expires_at")
+})
+@Getter
+@Setter
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord extends BaseEntity {
+
+    @Column(name = "tenant_id", nullable = false)
+    private Long tenantId;
+
+    // The endpoint the key was used on, e.g. "sales"
+    @Column(nullable = false, length = 50)
+    private String scope;
+
+    @Column(name = "idempotency_key", nullable = false, length = 100)
+    private String idempotencyKey;
+
+    // SHA-256 of the request body, so a key reused for a different request is refused
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    @Column(name = "response_body", nullable = false, columnDefinition = "MEDIUMTEXT")
+    private String responseBody;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,55 @@
+package com.warungku.pos.entity;
+
+import com.warungku.pos.entity.enums.OutboxEventStatus;
+import com.warungku.pos.entity.enums.OutboxEventType;
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+import java.time.LocalDateTime;
+
+/**
+ * A side effect of a committed change, written in the same transaction and carried out later by
+ * the outbox dispatcher. Events are dispatched in id order per tenant and deleted once handled.
+ */
+@Entity
+@Table(name = "outbox_events", indexes = {
+    @Index(name = "idx_outbox_tenant_status", columnList = "tenant_id, status, id"),
+    @Index(name = "idx_outbox_status_created", columnList = "status, created_at")
+})
+@Getter
+@Setter
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent extends BaseEntity {
+
+    @Column(name = "tenant_id", nullable = false)
+    private Long tenantId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 30)
+    private OutboxEventType eventType;
+
+    // Id of the changed row, e.g. the sale
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private OutboxEventStatus status = OutboxEventStatus.PENDING;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+}
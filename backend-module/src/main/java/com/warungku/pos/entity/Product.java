@@ -7,14 +7,15 @@ import org.hibernate.annotations.Filter;
 
 import java.math.BigDecimal;
 
-import static com.warungku.pos.core.tenant.TenantAspect.TENANT_FILTER_NAME;
+import static com.warungku.pos.core.tenant.TenantSessionInitializer.TENANT_FILTER_NAME;
 
 /**
  * Product entity - tenant-scoped.
  */
 @Entity
 @Table(name = "products", indexes = {
-    @Index(name = "idx_product_sku", columnList = "sku"),
+    @Index(name = "idx_product_tenant_sku", columnList = "tenant_id, sku"),
+    @Index(name = "idx_product_tenant_barcode", columnList = "tenant_id, barcode"),
     @Index(name = "idx_product_tenant", columnList = "tenant_id"),
     @Index(name = "idx_product_category", columnList = "category_id")
 })
@@ -41,7 +42,9 @@ public class Product extends TenantBaseEntity {
     @Column(precision = 12, scale = 2)
     private BigDecimal costPrice;
     
-    @Column(nullable = false)
+    // Inserted with the product, then changed only by the atomic updates in ProductRepository;
+    // saving the entity never writes back a stock level read earlier
+    @Column(nullable = false, updatable = false)
     @Builder.Default
     private Integer stock = 0;
     
@@ -49,9 +52,14 @@ public class Product extends TenantBaseEntity {
     @Builder.Default
     private Integer minStock = 5;
     
-    @Column(columnDefinition = "MEDIUMTEXT")
+    // External URL or /api/images/{hash}; the bytes live in ProductImage
+    @Column(length = 500)
     private String image;
     
+    // Base64 data URL left from before the image store; moved into it at startup, then cleared
+    @Column(name = "inline_image", columnDefinition = "MEDIUMTEXT")
+    private String inlineImage;
+    
     private String barcode;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,42 @@
+package com.warungku.pos.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+import org.hibernate.annotations.Filter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static com.warungku.pos.core.tenant.TenantSessionInitializer.TENANT_FILTER_NAME;
+
+/**
+ * Quantity and revenue of completed sales per tenant, day and product.
+ */
+@Entity
+@Table(name = "product_daily_rollups", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_product_rollup_bucket", columnNames = {"tenant_id", "bucket_date", "product_id"})
+})
+@Filter(name = TENANT_FILTER_NAME)
+@Getter
+@Setter
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductDailyRollup extends TenantBaseEntity {
+
+    @Column(name = "bucket_date", nullable = false)
+    private LocalDate bucketDate;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "product_name", nullable = false)
+    private String productName;
+
+    @Column(nullable = false)
+    private Long quantity;
+
+    @Column(nullable = false, precision = 16, scale = 2)
+    private BigDecimal revenue;
+}
@@ -0,0 +1,34 @@
+package com.warungku.pos.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+/**
+ * Product image bytes, stored once per distinct content and addressed by their SHA-256 hash.
+ * Products only keep the URL of their image, so catalog queries never read image bytes.
+ */
+@Entity
+@Table(name = "product_images", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_product_image_hash", columnNames = "hash")
+})
+@Getter
+@Setter
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImage extends BaseEntity {
+
+    @Column(nullable = false, length = 64)
+    private String hash;
+
+    @Column(name = "content_type", nullable = false, length = 50)
+    private String contentType;
+
+    @Column(name = "size_bytes", nullable = false)
+    private Integer sizeBytes;
+
+    @Lob
+    @Column(nullable = false, columnDefinition = "MEDIUMBLOB")
+    private byte[] data;
+}
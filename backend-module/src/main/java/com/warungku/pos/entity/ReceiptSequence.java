@@ -0,0 +1,32 @@
+package com.warungku.pos.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+import java.time.LocalDate;
+
+/**
+ * Highest receipt number reserved per tenant and business day.
+ * Application nodes reserve numbers from here in blocks so they never hand out the same receipt.
+ */
+@Entity
+@Table(name = "receipt_sequences", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_receipt_seq_tenant_day", columnNames = {"tenant_id", "business_date"})
+})
+@Getter
+@Setter
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReceiptSequence extends BaseEntity {
+
+    @Column(name = "tenant_id", nullable = false)
+    private Long tenantId;
+
+    @Column(name = "business_date", nullable = false)
+    private LocalDate businessDate;
+
+    @Column(name = "last_number", nullable = false)
+    private Long lastNumber;
+}
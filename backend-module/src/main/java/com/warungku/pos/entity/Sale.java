@@ -13,14 +13,15 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
-import static com.warungku.pos.core.tenant.TenantAspect.TENANT_FILTER_NAME;
+import static com.warungku.pos.core.tenant.TenantSessionInitializer.TENANT_FILTER_NAME;
 
 @Entity
 @Table(name = "sales", indexes = {
-    @Index(name = "idx_sale_tenant", columnList = "tenant_id"),
     @Index(name = "idx_sale_receipt", columnList = "receipt_number"),
-    @Index(name = "idx_sale_date", columnList = "sale_date"),
-    @Index(name = "idx_sale_status", columnList = "status")
+    @Index(name = "idx_sale_tenant_date_id", columnList = "tenant_id, sale_date, id"),
+    @Index(name = "idx_sale_tenant_status_date", columnList = "tenant_id, status, sale_date")
+}, uniqueConstraints = {
+    @UniqueConstraint(name = "uk_sale_tenant_client", columnNames = {"tenant_id", "client_id"})
 })
 @Filter(name = TENANT_FILTER_NAME)
 @Getter
@@ -36,6 +37,10 @@ public class Sale extends TenantBaseEntity {
     @Column(name = "sale_date", nullable = false)
     private LocalDateTime saleDate;
 
+    // Id generated by the terminal for sales recorded offline; null for sales made online
+    @Column(name = "client_id", length = 64)
+    private String clientId;
+
     @Column(nullable = false, precision = 14, scale = 2)
     private BigDecimal subtotal;
 
@@ -79,6 +84,11 @@ public class Sale extends TenantBaseEntity {
     @Builder.Default
     private SaleStatus status = SaleStatus.COMPLETED;
 
+    // Whether the sale is counted in the report rollups; only SalesRollupService changes it
+    @Column(name = "rolled_up", nullable = false, updatable = false)
+    @Builder.Default
+    private Boolean rolledUp = false;
+
     @Column(length = 500)
     private String notes;
 
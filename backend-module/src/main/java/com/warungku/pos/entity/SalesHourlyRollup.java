@@ -0,0 +1,55 @@
+package com.warungku.pos.entity;
+
+import com.warungku.pos.entity.enums.PaymentMethod;
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+import org.hibernate.annotations.Filter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static com.warungku.pos.core.tenant.TenantSessionInitializer.TENANT_FILTER_NAME;
+
+/**
+ * Completed-sale totals per tenant, hour, payment method and cashier.
+ * Kept up to date as deltas by SaleService; rebuilt from raw sales by SalesRollupService.
+ */
+@Entity
+@Table(name = "sales_hourly_rollups", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_sales_rollup_bucket",
+            columnNames = {"tenant_id", "bucket_date", "bucket_hour", "payment_method", "cashier_id"})
+})
+@Filter(name = TENANT_FILTER_NAME)
+@Getter
+@Setter
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesHourlyRollup extends TenantBaseEntity {
+
+    @Column(name = "bucket_date", nullable = false)
+    private LocalDate bucketDate;
+
+    @Column(name = "bucket_hour", nullable = false)
+    private Integer bucketHour;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payment_method", nullable = false, length = 20)
+    private PaymentMethod paymentMethod;
+
+    @Column(name = "cashier_id", nullable = false)
+    private Long cashierId;
+
+    @Column(name = "sale_count", nullable = false)
+    private Long saleCount;
+
+    @Column(name = "grand_total", nullable = false, precision = 16, scale = 2)
+    private BigDecimal grandTotal;
+
+    @Column(name = "tax_amount", nullable = false, precision = 16, scale = 2)
+    private BigDecimal taxAmount;
+
+    @Column(name = "discount_amount", nullable = false, precision = 16, scale = 2)
+    private BigDecimal discountAmount;
+}
@@ -8,14 +8,14 @@ import org.hibernate.annotations.Filter;
 
 import java.time.LocalDateTime;
 
-import static com.warungku.pos.core.tenant.TenantAspect.TENANT_FILTER_NAME;
+import static com.warungku.pos.core.tenant.TenantSessionInitializer.TENANT_FILTER_NAME;
 
 @Entity
 @Table(name = "stock_movements", indexes = {
-    @Index(name = "idx_stock_tenant", columnList = "tenant_id"),
     @Index(name = "idx_stock_product", columnList = "product_id"),
-    @Index(name = "idx_stock_date", columnList = "movement_date"),
-    @Index(name = "idx_stock_type", columnList = "movement_type")
+    @Index(name = "idx_stock_type", columnList = "movement_type"),
+    @Index(name = "idx_stock_tenant_date_id", columnList = "tenant_id, movement_date, id"),
+    @Index(name = "idx_stock_tenant_product_date_id", columnList = "tenant_id, product_id, movement_date, id")
 })
 @Filter(name = TENANT_FILTER_NAME)
 @Getter
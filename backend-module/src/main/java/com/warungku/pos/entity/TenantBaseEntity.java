@@ -1,8 +1,8 @@
 package com.warungku.pos.entity;
 
 import com.warungku.pos.core.tenant.TenantAware;
-import com.warungku.pos.core.tenant.TenantAspect;
 import com.warungku.pos.core.tenant.TenantEntityListener;
+import com.warungku.pos.core.tenant.TenantSessionInitializer;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -23,11 +23,11 @@ import org.hibernate.annotations.ParamDef;
 @MappedSuperclass
 @EntityListeners(TenantEntityListener.class)
 @FilterDef(
-    name = TenantAspect.TENANT_FILTER_NAME,
-    parameters = @ParamDef(name = TenantAspect.TENANT_PARAMETER, type = Long.class),
+    name = TenantSessionInitializer.TENANT_FILTER_NAME,
+    parameters = @ParamDef(name = TenantSessionInitializer.TENANT_PARAMETER, type = Long.class),
     defaultCondition = "tenant_id = :tenantId"
 )
-@Filter(name = TenantAspect.TENANT_FILTER_NAME)
+@Filter(name = TenantSessionInitializer.TENANT_FILTER_NAME)
 public abstract class TenantBaseEntity extends BaseEntity implements TenantAware {
     
     @Column(name = "tenant_id", nullable = false)
@@ -11,7 +11,7 @@ import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 
-import static com.warungku.pos.core.tenant.TenantAspect.TENANT_FILTER_NAME;
+import static com.warungku.pos.core.tenant.TenantSessionInitializer.TENANT_FILTER_NAME;
 
 /**
  * Transaction entity - tenant-scoped.
@@ -20,7 +20,8 @@ import static com.warungku.pos.core.tenant.TenantAspect.TENANT_FILTER_NAME;
 @Table(name = "transactions", indexes = {
     @Index(name = "idx_trx_tenant", columnList = "tenant_id"),
     @Index(name = "idx_trx_invoice", columnList = "invoice_number"),
-    @Index(name = "idx_trx_date", columnList = "created_at")
+    @Index(name = "idx_trx_date", columnList = "created_at"),
+    @Index(name = "idx_trx_tenant_created_id", columnList = "tenant_id, created_at, id")
 })
 @Filter(name = TENANT_FILTER_NAME)
 @Getter
@@ -0,0 +1,6 @@
+package com.warungku.pos.entity.enums;
+
+public enum OutboxEventStatus {
+    PENDING,    // Waiting to be dispatched, possibly after a failed attempt
+    FAILED      // Gave up after the maximum attempts; kept for inspection
+}
@@ -0,0 +1,7 @@
+package com.warungku.pos.entity.enums;
+
+public enum OutboxEventType {
+    SALE_CREATED,   // Sale completed at the till
+    SALE_VOIDED,    // Completed sale voided
+    SALE_REFUNDED   // Completed sale refunded
+}
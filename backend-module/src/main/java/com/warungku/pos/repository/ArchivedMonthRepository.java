@@ -0,0 +1,21 @@
+package com.warungku.pos.repository;
+
+import com.warungku.pos.entity.ArchivedMonth;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ArchivedMonthRepository extends JpaRepository<ArchivedMonth, Long> {
+
+    boolean existsByTenantIdAndMonthStart(Long tenantId, LocalDate monthStart);
+
+    // First days of a tenant's archived months, oldest first; null ends leave the range open
+    @Query("SELECT a.monthStart FROM ArchivedMonth a WHERE a.tenantId = :tenantId " +
+           "AND (:from IS NULL OR a.monthStart >= :from) AND (:to IS NULL OR a.monthStart <= :to) " +
+           "ORDER BY a.monthStart")
+    List<LocalDate> findMonths(Long tenantId, LocalDate from, LocalDate to);
+}
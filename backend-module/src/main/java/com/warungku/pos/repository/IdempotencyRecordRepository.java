@@ -0,0 +1,21 @@
+package com.warungku.pos.repository;
+
+import com.warungku.pos.entity.IdempotencyRecord;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    Optional<IdempotencyRecord> findByTenantIdAndScopeAndIdempotencyKey(Long tenantId, String scope, String idempotencyKey);
+
+    // One sweep batch; deleted by id so each batch stays a short transaction
+    @Query("SELECT r.id FROM IdempotencyRecord r WHERE r.expiresAt < :now ORDER BY r.expiresAt")
+    List<Long> findExpiredIds(LocalDateTime now, Pageable pageable);
+}
@@ -0,0 +1,37 @@
+package com.warungku.pos.repository;
+
+import com.warungku.pos.entity.OutboxEvent;
+import com.warungku.pos.entity.enums.OutboxEventStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Tenants with pending events, except those whose oldest pending event is waiting out a retry
+    @Query("SELECT DISTINCT e.tenantId FROM OutboxEvent e WHERE e.status = :status AND e.tenantId NOT IN " +
+           "(SELECT b.tenantId FROM OutboxEvent b WHERE b.status = :status AND b.nextAttemptAt > :now)")
+    List<Long> findDispatchableTenants(OutboxEventStatus status, LocalDateTime now);
+
+    List<OutboxEvent> findByTenantIdAndStatusOrderByIdAsc(Long tenantId, OutboxEventStatus status, Pageable pageable);
+
+    // count, oldest createdAt
+    @Query("SELECT COUNT(e), MIN(e.createdAt) FROM OutboxEvent e WHERE e.status = :status")
+    List<Object[]> findBacklog(OutboxEventStatus status);
+
+    // Claims an event by deleting it in the handler's transaction; 0 when another instance took it first
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.id = :id AND e.status = :status")
+    int claim(Long id, OutboxEventStatus status);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = :status, e.attempts = :attempts, e.nextAttemptAt = :nextAttemptAt, " +
+           "e.lastError = :lastError WHERE e.id = :id")
+    int recordFailure(Long id, OutboxEventStatus status, int attempts, LocalDateTime nextAttemptAt, String lastError);
+}
@@ -0,0 +1,38 @@
+package com.warungku.pos.repository;
+
+import com.warungku.pos.entity.ProductDailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ProductDailyRollupRepository extends JpaRepository<ProductDailyRollup, Long> {
+
+    @Modifying
+    @Query(value = "INSERT INTO product_daily_rollups (tenant_id, bucket_date, product_id, product_name, " +
+                   "quantity, revenue, created_at, updated_at) " +
+                   "VALUES (:tenantId, :bucketDate, :productId, :productName, :quantity, :revenue, " +
+                   "CURRENT_TIMESTAMP, CURRENT_TIMESTAMP) " +
+                   "ON DUPLICATE KEY UPDATE quantity = quantity + :quantity, revenue = revenue + :revenue, " +
+                   "product_name = :productName, updated_at = CURRENT_TIMESTAMP",
+           nativeQuery = true)
+    void addDelta(Long tenantId, LocalDate bucketDate, Long productId, String productName,
+                  long quantity, BigDecimal revenue);
+
+    @Modifying
+    @Query("DELETE FROM ProductDailyRollup r WHERE r.tenantId = :tenantId AND r.bucketDate BETWEEN :from AND :to")
+    int deleteRange(Long tenantId, LocalDate from, LocalDate to);
+
+    /**
+     * Rollup rows in the same shape as SaleItemRepository.aggregateProductsByDate.
+     */
+    @Query("SELECT r.bucketDate, r.productId, r.productName, r.quantity, r.revenue " +
+           "FROM ProductDailyRollup r " +
+           "WHERE r.tenantId = :tenantId AND r.bucketDate BETWEEN :from AND :to AND r.quantity > 0")
+    List<Object[]> findBuckets(Long tenantId, LocalDate from, LocalDate to);
+}
@@ -0,0 +1,15 @@
+package com.warungku.pos.repository;
+
+import com.warungku.pos.entity.ProductImage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ProductImageRepository extends JpaRepository<ProductImage, Long> {
+
+    Optional<ProductImage> findByHash(String hash);
+
+    boolean existsByHash(String hash);
+}
@@ -4,9 +4,11 @@ import com.warungku.pos.entity.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,16 +21,45 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT p FROM Product p WHERE p.isActive = true")
     Page<Product> findAllActive(Pageable pageable);
     
+    // Scoped explicitly so catalogs can be loaded outside a request, e.g. when warming the cache
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category WHERE p.tenantId = :tenantId AND p.isActive = true")
+    List<Product> findActiveByTenant(Long tenantId);
+    
+    @Query("SELECT COUNT(p) FROM Product p WHERE p.tenantId = :tenantId AND p.isActive = true")
+    long countActiveByTenant(Long tenantId);
+    
     @Query("SELECT p FROM Product p WHERE p.category.id = :categoryId AND p.isActive = true")
     List<Product> findByCategoryId(Long categoryId);
     
-    @Query("SELECT p FROM Product p WHERE LOWER(p.name) LIKE LOWER(CONCAT('%', :query, '%')) OR p.sku LIKE CONCAT('%', :query, '%')")
-    List<Product> search(String query);
+    // Fallback for requests without a cached catalog; tenant-scoped by the filter and always paged
+    @Query("SELECT p FROM Product p WHERE p.isActive = true AND (LOWER(p.name) LIKE LOWER(CONCAT('%', :query, '%')) OR p.sku LIKE CONCAT('%', :query, '%'))")
+    Page<Product> search(String query, Pageable pageable);
     
     Optional<Product> findBySku(String sku);
     
     Optional<Product> findByBarcode(String barcode);
     
+    // Products whose image is still a base64 data URL waiting to be moved into the image store
+    @Query("SELECT p.id FROM Product p WHERE p.inlineImage IS NOT NULL")
+    List<Long> findIdsWithInlineImage();
+    
     @Query("SELECT p FROM Product p WHERE p.stock <= p.minStock AND p.isActive = true")
     List<Product> findLowStock();
+    
+    // Atomic stock updates - the affected row count tells whether the change was applied
+    @Modifying
+    @Query("UPDATE Product p SET p.stock = p.stock - :quantity WHERE p.id = :id AND p.stock >= :quantity")
+    int decrementStock(Long id, int quantity);
+    
+    @Modifying
+    @Query("UPDATE Product p SET p.stock = p.stock + :quantity WHERE p.id = :id")
+    int incrementStock(Long id, int quantity);
+    
+    // Sets an absolute level only while stock is still what the caller read, so a concurrent sale is not overwritten
+    @Modifying
+    @Query("UPDATE Product p SET p.stock = :newStock WHERE p.id = :id AND p.stock = :expected")
+    int setStock(Long id, int expected, int newStock);
+    
+    @Query("SELECT p.id, p.stock FROM Product p WHERE p.id IN :ids")
+    List<Object[]> findStockByIds(Collection<Long> ids);
 }
@@ -0,0 +1,21 @@
+package com.warungku.pos.repository;
+
+import com.warungku.pos.entity.ReceiptSequence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+
+@Repository
+public interface ReceiptSequenceRepository extends JpaRepository<ReceiptSequence, Long> {
+
+    @Modifying
+    @Query("UPDATE ReceiptSequence r SET r.lastNumber = r.lastNumber + :blockSize " +
+           "WHERE r.tenantId = :tenantId AND r.businessDate = :businessDate")
+    int advance(Long tenantId, LocalDate businessDate, long blockSize);
+
+    @Query("SELECT r.lastNumber FROM ReceiptSequence r WHERE r.tenantId = :tenantId AND r.businessDate = :businessDate")
+    Long findLastNumber(Long tenantId, LocalDate businessDate);
+}
@@ -2,10 +2,12 @@ package com.warungku.pos.repository;
 
 import com.warungku.pos.entity.SaleItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -26,4 +28,20 @@ public interface SaleItemRepository extends JpaRepository<SaleItem, Long> {
            "GROUP BY si.product.id, si.productName " +
            "ORDER BY SUM(si.subtotal) DESC")
     List<Object[]> getTopRevenueProducts(LocalDateTime start, LocalDateTime end);
+
+    /**
+     * Quantity and revenue per product and day of a tenant's completed sales that are marked rolled
+     * up: day, productId, productName, quantity, revenue.
+     */
+    @Query("SELECT CAST(s.saleDate AS LocalDate), si.product.id, si.productName, SUM(si.quantity), SUM(si.subtotal) " +
+           "FROM SaleItem si JOIN si.sale s " +
+           "WHERE s.tenantId = :tenantId AND s.saleDate BETWEEN :start AND :end AND s.status = 'COMPLETED' " +
+           "AND s.rolledUp = true " +
+           "GROUP BY CAST(s.saleDate AS LocalDate), si.product.id, si.productName")
+    List<Object[]> aggregateProductsByDate(Long tenantId, LocalDateTime start, LocalDateTime end);
+
+    // Archiving - drops the items of archived sales, see SaleRepository#deleteArchived
+    @Modifying
+    @Query("DELETE FROM SaleItem si WHERE si.sale.id IN :saleIds")
+    int deleteArchived(Collection<Long> saleIds);
 }
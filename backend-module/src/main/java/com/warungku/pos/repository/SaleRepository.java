@@ -1,27 +1,82 @@
 package com.warungku.pos.repository;
 
+import com.warungku.pos.dto.sale.SaleExportRow;
+import com.warungku.pos.dto.sale.SaleSummaryResponse;
 import com.warungku.pos.entity.Sale;
 import com.warungku.pos.entity.enums.SaleStatus;
-import org.springframework.data.domain.Page;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface SaleRepository extends JpaRepository<Sale, Long> {
 
-    Optional<Sale> findByReceiptNumber(String receiptNumber);
+    int EXPORT_FETCH_SIZE = 1000;
+
+    // Single sale with cashier and items in one query
+    @EntityGraph(attributePaths = {"cashier", "items"})
+    Optional<Sale> findWithItemsById(Long id);
 
-    Page<Sale> findAllByOrderBySaleDateDesc(Pageable pageable);
+    @EntityGraph(attributePaths = {"cashier", "items"})
+    Optional<Sale> findByReceiptNumber(String receiptNumber);
 
-    @Query("SELECT s FROM Sale s WHERE s.saleDate BETWEEN :start AND :end ORDER BY s.saleDate DESC")
-    List<Sale> findBySaleDateBetween(LocalDateTime start, LocalDateTime end);
+    // Sale lists - header, cashier name and item count per row, without loading items
+    String SUMMARY_SELECT = "SELECT new com.warungku.pos.dto.sale.SaleSummaryResponse(" +
+           "s.id, s.receiptNumber, s.saleDate, s.subtotal, s.taxAmount, s.discountAmount, s.grandTotal, " +
+           "s.paymentMethod, s.paymentStatus, s.status, s.customerName, c.id, c.name, " +
+           "(SELECT COALESCE(SUM(i.quantity), 0L) FROM SaleItem i WHERE i.sale = s)) " +
+           "FROM Sale s JOIN s.cashier c ";
+
+    // Keyset pages, newest first; (saleDate, id) seeks along idx_sale_tenant_date_id. The redundant
+    // saleDate <= bound on later pages gives the planner a range on that index, which the OR alone does not
+    @Query(SUMMARY_SELECT + "ORDER BY s.saleDate DESC, s.id DESC")
+    List<SaleSummaryResponse> findSummaries(Pageable limit);
+
+    @Query(SUMMARY_SELECT + "WHERE s.saleDate <= :saleDate AND (s.saleDate < :saleDate OR s.id < :id) " +
+           "ORDER BY s.saleDate DESC, s.id DESC")
+    List<SaleSummaryResponse> findSummariesBefore(LocalDateTime saleDate, Long id, Pageable limit);
+
+    @Query(SUMMARY_SELECT + "WHERE s.saleDate BETWEEN :start AND :end ORDER BY s.saleDate DESC")
+    List<SaleSummaryResponse> findSummariesBetween(LocalDateTime start, LocalDateTime end);
+
+    /**
+     * Sales export: one row per sale line of the tenant's sales in [from, until), in sale order,
+     * read through a JDBC cursor in batches of {@link #EXPORT_FETCH_SIZE} rows. Must be consumed
+     * inside a transaction.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE))
+    @Query("SELECT new com.warungku.pos.dto.sale.SaleExportRow(s.id, s.receiptNumber, s.saleDate, s.status, " +
+           "s.paymentMethod, c.name, s.customerName, s.subtotal, s.discountAmount, s.taxAmount, s.grandTotal, " +
+           "i.productSku, i.productName, i.quantity, i.unitPrice, i.discountAmount, i.subtotal) " +
+           "FROM SaleItem i JOIN i.sale s JOIN s.cashier c " +
+           "WHERE s.tenantId = :tenantId AND s.saleDate >= :from AND s.saleDate < :until " +
+           "ORDER BY s.saleDate, s.id, i.id")
+    Stream<SaleExportRow> streamExport(Long tenantId, LocalDateTime from, LocalDateTime until);
+
+    // Archiving - oldest sale date per tenant before a date: tenantId, saleDate
+    @Query("SELECT s.tenantId, MIN(s.saleDate) FROM Sale s WHERE s.saleDate < :before GROUP BY s.tenantId")
+    List<Object[]> findOldestSaleDates(LocalDateTime before);
+
+    // Archiving - drops the sales written to the archive, by id; their items must be deleted first
+    @Modifying
+    @Query("DELETE FROM Sale s WHERE s.tenantId = :tenantId AND s.id IN :ids")
+    int deleteArchived(Long tenantId, Collection<Long> ids);
+
+    // Offline ingest - which of these terminal ids are already stored, with their sale id and receipt
+    @Query("SELECT s.clientId, s.id, s.receiptNumber FROM Sale s WHERE s.clientId IN :clientIds")
+    List<Object[]> findByClientIds(Collection<String> clientIds);
 
     @Query("SELECT s FROM Sale s WHERE s.status = :status ORDER BY s.saleDate DESC")
     List<Sale> findByStatus(SaleStatus status);
@@ -29,33 +84,30 @@ public interface SaleRepository extends JpaRepository<Sale, Long> {
     @Query("SELECT s FROM Sale s WHERE s.cashier.id = :cashierId AND s.saleDate BETWEEN :start AND :end")
     List<Sale> findByCashierAndDateRange(Long cashierId, LocalDateTime start, LocalDateTime end);
 
-    // Report queries
-    @Query("SELECT COALESCE(SUM(s.grandTotal), 0) FROM Sale s WHERE s.saleDate BETWEEN :start AND :end AND s.status = 'COMPLETED'")
-    BigDecimal sumGrandTotalByDateRange(LocalDateTime start, LocalDateTime end);
-
-    @Query("SELECT COUNT(s) FROM Sale s WHERE s.saleDate BETWEEN :start AND :end AND s.status = 'COMPLETED'")
-    Long countByDateRange(LocalDateTime start, LocalDateTime end);
+    // Rollups - marks a sale as counted or not, unless it already is; returns 0 if nothing changed
+    @Modifying
+    @Query("UPDATE Sale s SET s.rolledUp = :rolledUp WHERE s.id = :id AND s.rolledUp <> :rolledUp")
+    int markRolledUp(Long id, boolean rolledUp);
 
-    @Query("SELECT COALESCE(SUM(s.taxAmount), 0) FROM Sale s WHERE s.saleDate BETWEEN :start AND :end AND s.status = 'COMPLETED'")
-    BigDecimal sumTaxByDateRange(LocalDateTime start, LocalDateTime end);
+    // Rollups - marks a tenant's completed sales in a date range as counted and the others as not
+    @Modifying
+    @Query("UPDATE Sale s SET s.rolledUp = CASE WHEN s.status = 'COMPLETED' THEN true ELSE false END " +
+           "WHERE s.tenantId = :tenantId AND s.saleDate BETWEEN :start AND :end")
+    int markRangeRolledUp(Long tenantId, LocalDateTime start, LocalDateTime end);
 
-    @Query("SELECT COALESCE(SUM(s.discountAmount), 0) FROM Sale s WHERE s.saleDate BETWEEN :start AND :end AND s.status = 'COMPLETED'")
-    BigDecimal sumDiscountByDateRange(LocalDateTime start, LocalDateTime end);
-
-    @Query("SELECT s.paymentMethod, COUNT(s), SUM(s.grandTotal) FROM Sale s " +
-           "WHERE s.saleDate BETWEEN :start AND :end AND s.status = 'COMPLETED' " +
-           "GROUP BY s.paymentMethod")
-    List<Object[]> getPaymentMethodStats(LocalDateTime start, LocalDateTime end);
-
-    @Query("SELECT HOUR(s.saleDate) as hour, COUNT(s), SUM(s.grandTotal) FROM Sale s " +
-           "WHERE s.saleDate BETWEEN :start AND :end AND s.status = 'COMPLETED' " +
-           "GROUP BY HOUR(s.saleDate) ORDER BY hour")
-    List<Object[]> getHourlySales(LocalDateTime start, LocalDateTime end);
-
-    @Query("SELECT s.cashier.id, s.cashier.name, COUNT(s), SUM(s.grandTotal) FROM Sale s " +
-           "WHERE s.saleDate BETWEEN :start AND :end AND s.status = 'COMPLETED' " +
-           "GROUP BY s.cashier.id, s.cashier.name")
-    List<Object[]> getCashierPerformance(LocalDateTime start, LocalDateTime end);
+    // Report queries
+    /**
+     * One row per (day, hour, payment method, cashier) bucket of a tenant's completed sales that
+     * are marked rolled up: day, hour, paymentMethod, cashierId, cashierName, count, grandTotal,
+     * tax, discount.
+     */
+    @Query("SELECT CAST(s.saleDate AS LocalDate), HOUR(s.saleDate), s.paymentMethod, c.id, c.name, " +
+           "COUNT(s), SUM(s.grandTotal), SUM(s.taxAmount), COALESCE(SUM(s.discountAmount), 0) " +
+           "FROM Sale s JOIN s.cashier c " +
+           "WHERE s.tenantId = :tenantId AND s.saleDate BETWEEN :start AND :end AND s.status = 'COMPLETED' " +
+           "AND s.rolledUp = true " +
+           "GROUP BY CAST(s.saleDate AS LocalDate), HOUR(s.saleDate), s.paymentMethod, c.id, c.name")
+    List<Object[]> aggregateSalesByDate(Long tenantId, LocalDateTime start, LocalDateTime end);
 
     @Query("SELECT COUNT(s) FROM Sale s WHERE DATE(s.saleDate) = CURRENT_DATE")
     Long countTodaySales();
@@ -0,0 +1,40 @@
+package com.warungku.pos.repository;
+
+import com.warungku.pos.entity.SalesHourlyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface SalesHourlyRollupRepository extends JpaRepository<SalesHourlyRollup, Long> {
+
+    @Modifying
+    @Query(value = "INSERT INTO sales_hourly_rollups (tenant_id, bucket_date, bucket_hour, payment_method, cashier_id, " +
+                   "sale_count, grand_total, tax_amount, discount_amount, created_at, updated_at) " +
+                   "VALUES (:tenantId, :bucketDate, :bucketHour, :paymentMethod, :cashierId, " +
+                   ":saleCount, :grandTotal, :taxAmount, :discountAmount, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP) " +
+                   "ON DUPLICATE KEY UPDATE sale_count = sale_count + :saleCount, grand_total = grand_total + :grandTotal, " +
+                   "tax_amount = tax_amount + :taxAmount, discount_amount = discount_amount + :discountAmount, " +
+                   "updated_at = CURRENT_TIMESTAMP",
+           nativeQuery = true)
+    void addDelta(Long tenantId, LocalDate bucketDate, int bucketHour, String paymentMethod, Long cashierId,
+                  long saleCount, BigDecimal grandTotal, BigDecimal taxAmount, BigDecimal discountAmount);
+
+    @Modifying
+    @Query("DELETE FROM SalesHourlyRollup r WHERE r.tenantId = :tenantId AND r.bucketDate BETWEEN :from AND :to")
+    int deleteRange(Long tenantId, LocalDate from, LocalDate to);
+
+    /**
+     * Rollup buckets in the same shape as SaleRepository.aggregateSalesByDate.
+     */
+    @Query("SELECT r.bucketDate, r.bucketHour, r.paymentMethod, r.cashierId, u.name, " +
+           "r.saleCount, r.grandTotal, r.taxAmount, r.discountAmount " +
+           "FROM SalesHourlyRollup r LEFT JOIN User u ON u.id = r.cashierId " +
+           "WHERE r.tenantId = :tenantId AND r.bucketDate BETWEEN :from AND :to AND r.saleCount > 0")
+    List<Object[]> findBuckets(Long tenantId, LocalDate from, LocalDate to);
+}
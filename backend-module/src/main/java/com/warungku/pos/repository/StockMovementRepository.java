@@ -1,24 +1,63 @@
 package com.warungku.pos.repository;
 
+import com.warungku.pos.dto.StockMovementDto;
 import com.warungku.pos.entity.StockMovement;
 import com.warungku.pos.entity.enums.MovementType;
-import org.springframework.data.domain.Page;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
 
+    int FEED_FETCH_SIZE = 500;
+
     List<StockMovement> findByProductIdOrderByMovementDateDesc(Long productId);
 
-    Page<StockMovement> findByProductIdOrderByMovementDateDesc(Long productId, Pageable pageable);
+    // Keyset pages, newest first; (movementDate, id) seeks along idx_stock_tenant_product_date_id
+    @Query("SELECT sm FROM StockMovement sm WHERE sm.product.id = :productId ORDER BY sm.movementDate DESC, sm.id DESC")
+    List<StockMovement> findByProductIdOrderByMovementDateDescIdDesc(Long productId, Pageable limit);
+
+    @Query("SELECT sm FROM StockMovement sm WHERE sm.product.id = :productId " +
+           "AND sm.movementDate <= :movementDate AND (sm.movementDate < :movementDate OR sm.id < :id) " +
+           "ORDER BY sm.movementDate DESC, sm.id DESC")
+    List<StockMovement> findPageBefore(Long productId, LocalDateTime movementDate, Long id, Pageable limit);
+
+    /**
+     * Movement feed, oldest first, as projections read through a JDBC cursor in batches of
+     * {@link #FEED_FETCH_SIZE} rows; null filters are ignored. Must be consumed inside a transaction.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + FEED_FETCH_SIZE))
+    @Query("SELECT new com.warungku.pos.dto.StockMovementDto(sm.id, sm.movementDate, sm.movementType, " +
+           "p.id, p.sku, p.name, sm.quantity, sm.stockBefore, sm.stockAfter, sm.referenceType, sm.referenceId, " +
+           "sm.notes, u.id, u.name) " +
+           "FROM StockMovement sm JOIN sm.product p LEFT JOIN sm.createdBy u " +
+           "WHERE (:productId IS NULL OR p.id = :productId) " +
+           "AND (:type IS NULL OR sm.movementType = :type) " +
+           "AND (:from IS NULL OR sm.movementDate >= :from) " +
+           "AND (:until IS NULL OR sm.movementDate < :until) " +
+           "ORDER BY sm.movementDate, sm.id")
+    Stream<StockMovementDto> streamFeed(Long productId, MovementType type, LocalDateTime from, LocalDateTime until);
+
+    // Archiving - oldest movement date per tenant before a date: tenantId, movementDate
+    @Query("SELECT sm.tenantId, MIN(sm.movementDate) FROM StockMovement sm WHERE sm.movementDate < :before " +
+           "GROUP BY sm.tenantId")
+    List<Object[]> findOldestMovementDates(LocalDateTime before);
 
-    List<StockMovement> findByMovementType(MovementType movementType);
+    // Archiving - drops the movements written to the archive, by id
+    @Modifying
+    @Query("DELETE FROM StockMovement sm WHERE sm.tenantId = :tenantId AND sm.id IN :ids")
+    int deleteArchived(Long tenantId, Collection<Long> ids);
 
     @Query("SELECT sm FROM StockMovement sm WHERE sm.movementDate BETWEEN :start AND :end ORDER BY sm.movementDate DESC")
     List<StockMovement> findByDateRange(LocalDateTime start, LocalDateTime end);
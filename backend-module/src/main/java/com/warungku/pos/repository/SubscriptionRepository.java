@@ -16,6 +16,9 @@ public interface SubscriptionRepository extends JpaRepository<Subscription, Long
 
     Optional<Subscription> findByTenantId(Long tenantId);
 
+    @Query("SELECT s FROM Subscription s JOIN FETCH s.plan WHERE s.tenantId = :tenantId")
+    Optional<Subscription> findWithPlanByTenantId(Long tenantId);
+
     Optional<Subscription> findByTenantIdAndStatusIn(Long tenantId, List<SubscriptionStatus> statuses);
 
     @Query("SELECT s FROM Subscription s WHERE s.tenantId = :tenantId AND (s.status = 'ACTIVE' OR s.status = 'TRIAL')")
@@ -38,4 +41,13 @@ public interface SubscriptionRepository extends JpaRepository<Subscription, Long
     @Modifying
     @Query("UPDATE Subscription s SET s.transactionsThisMonth = 0 WHERE s.status IN ('ACTIVE', 'TRIAL')")
     void resetMonthlyTransactionCounts();
+
+    @Query("SELECT s.transactionsThisMonth FROM Subscription s WHERE s.tenantId = :tenantId")
+    Optional<Integer> findTransactionsThisMonth(Long tenantId);
+
+    // Batched write of the usage meter - transactions are added as a delta, counts are absolute
+    @Modifying
+    @Query("UPDATE Subscription s SET s.transactionsThisMonth = s.transactionsThisMonth + :transactions, " +
+            "s.productsUsed = :products, s.usersUsed = :users WHERE s.tenantId = :tenantId")
+    int updateUsage(Long tenantId, int transactions, int products, int users);
 }
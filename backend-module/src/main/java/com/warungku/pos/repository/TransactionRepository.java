@@ -2,7 +2,6 @@ package com.warungku.pos.repository;
 
 import com.warungku.pos.entity.Transaction;
 import com.warungku.pos.entity.enums.TransactionStatus;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -18,7 +17,12 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     
     Optional<Transaction> findByInvoiceNumber(String invoiceNumber);
     
-    Page<Transaction> findAllByOrderByCreatedAtDesc(Pageable pageable);
+    // Keyset pages, newest first; (createdAt, id) seeks along idx_trx_tenant_created_id
+    List<Transaction> findAllByOrderByCreatedAtDescIdDesc(Pageable limit);
+
+    @Query("SELECT t FROM Transaction t WHERE t.createdAt <= :createdAt AND (t.createdAt < :createdAt OR t.id < :id) " +
+           "ORDER BY t.createdAt DESC, t.id DESC")
+    List<Transaction> findPageBefore(LocalDateTime createdAt, Long id, Pageable limit);
     
     @Query("SELECT t FROM Transaction t WHERE t.createdAt BETWEEN :start AND :end ORDER BY t.createdAt DESC")
     List<Transaction> findByDateRange(LocalDateTime start, LocalDateTime end);
@@ -17,4 +17,7 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmailAndActive(String email);
     
     boolean existsByEmail(String email);
+    
+    @Query("SELECT COUNT(u) FROM User u WHERE u.tenantId = :tenantId AND u.isActive = true")
+    long countActiveByTenant(Long tenantId);
 }
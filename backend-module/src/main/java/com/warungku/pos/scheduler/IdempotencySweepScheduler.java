@@ -0,0 +1,24 @@
+package com.warungku.pos.scheduler;
+
+import com.warungku.pos.service.idempotency.IdempotencyService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodic cleanup of expired idempotency keys
+ */
+@Component
+@RequiredArgsConstructor
+public class IdempotencySweepScheduler {
+
+    private final IdempotencyService idempotencyService;
+
+    /**
+     * Delete expired keys in batches - runs every idempotency.sweep.interval
+     */
+    @Scheduled(fixedDelayString = "${idempotency.sweep.interval:300000}", initialDelayString = "${idempotency.sweep.interval:300000}")
+    public void sweep() {
+        idempotencyService.sweepExpired();
+    }
+}
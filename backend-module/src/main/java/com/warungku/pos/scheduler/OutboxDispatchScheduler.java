@@ -0,0 +1,24 @@
+package com.warungku.pos.scheduler;
+
+import com.warungku.pos.service.outbox.OutboxDispatcher;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodic sweep of the outbox for retries and events not dispatched on commit
+ */
+@Component
+@RequiredArgsConstructor
+public class OutboxDispatchScheduler {
+
+    private final OutboxDispatcher outboxDispatcher;
+
+    /**
+     * Dispatch pending outbox events - runs every outbox.poll-interval
+     */
+    @Scheduled(fixedDelayString = "${outbox.poll-interval:1000}", initialDelayString = "${outbox.poll-interval:1000}")
+    public void dispatch() {
+        outboxDispatcher.dispatch();
+    }
+}
@@ -0,0 +1,29 @@
+package com.warungku.pos.scheduler;
+
+import com.warungku.pos.service.archive.SalesArchiver;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Scheduled archiving of closed months of sales and stock movements
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SalesArchiveScheduler {
+
+    private final SalesArchiver salesArchiver;
+
+    /**
+     * Archive the oldest closed months of every outlet - runs on archive.cron, daily at 4 AM by default,
+     * after the rollup rebuild
+     */
+    @Scheduled(cron = "${archive.cron:0 0 4 * * *}")
+    public void archiveClosedMonths() {
+        log.info("Archiving closed months of sales and stock movements...");
+        int archived = salesArchiver.archiveClosedMonths();
+        log.info("Archiving completed: {} months archived.", archived);
+    }
+}
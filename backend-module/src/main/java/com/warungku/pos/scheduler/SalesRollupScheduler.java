@@ -0,0 +1,45 @@
+package com.warungku.pos.scheduler;
+
+import com.warungku.pos.entity.Outlet;
+import com.warungku.pos.repository.OutletRepository;
+import com.warungku.pos.service.SalesRollupService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Scheduled rebuild of sales rollups from raw sales
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SalesRollupScheduler {
+
+    private final OutletRepository outletRepository;
+    private final SalesRollupService salesRollupService;
+
+    /**
+     * Recompute yesterday's rollups for every outlet - runs daily at 3 AM.
+     * Corrects any drift between the deltas and the raw sales once the day is closed.
+     */
+    @Scheduled(cron = "0 0 3 * * *")
+    public void rebuildYesterday() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        log.info("Rebuilding sales rollups for {}...", yesterday);
+
+        int rebuilt = 0;
+        for (Outlet outlet : outletRepository.findAll()) {
+            try {
+                salesRollupService.rebuild(outlet.getId(), yesterday, yesterday);
+                rebuilt++;
+            } catch (Exception e) {
+                log.error("Failed to rebuild sales rollups for tenant {}: {}", outlet.getId(), e.getMessage());
+            }
+        }
+
+        log.info("Sales rollup rebuild completed for {} outlets.", rebuilt);
+    }
+}
@@ -8,6 +8,8 @@ import com.warungku.pos.entity.subscription.SubscriptionStatus;
 import com.warungku.pos.repository.InvoiceRepository;
 import com.warungku.pos.repository.OutletRepository;
 import com.warungku.pos.repository.SubscriptionRepository;
+import com.warungku.pos.service.subscription.EntitlementCache;
+import com.warungku.pos.service.subscription.UsageMeter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -28,6 +30,8 @@ public class SubscriptionScheduler {
     private final SubscriptionRepository subscriptionRepository;
     private final OutletRepository outletRepository;
     private final InvoiceRepository invoiceRepository;
+    private final EntitlementCache entitlementCache;
+    private final UsageMeter usageMeter;
 
     private static final int GRACE_PERIOD_DAYS = 3;
 
@@ -45,6 +49,7 @@ public class SubscriptionScheduler {
         for (Subscription subscription : expiredTrials) {
             subscription.setStatus(SubscriptionStatus.EXPIRED);
             subscriptionRepository.save(subscription);
+            entitlementCache.invalidate(subscription.getTenantId());
 
             // Deactivate tenant
             deactivateTenant(subscription.getTenantId());
@@ -73,6 +78,7 @@ public class SubscriptionScheduler {
             subscription.setStatus(SubscriptionStatus.PAST_DUE);
             subscription.setEndDate(now.plusDays(GRACE_PERIOD_DAYS));
             subscriptionRepository.save(subscription);
+            entitlementCache.invalidate(subscription.getTenantId());
 
             log.info("Subscription past due for tenant {}, grace period until {}", 
                     subscription.getTenantId(), 
@@ -86,6 +92,7 @@ public class SubscriptionScheduler {
         for (Subscription subscription : pastDueExpired) {
             subscription.setStatus(SubscriptionStatus.EXPIRED);
             subscriptionRepository.save(subscription);
+            entitlementCache.invalidate(subscription.getTenantId());
 
             deactivateTenant(subscription.getTenantId());
 
@@ -123,10 +130,10 @@ public class SubscriptionScheduler {
      * Reset monthly transaction counts - runs on 1st of every month
      */
     @Scheduled(cron = "0 0 0 1 * *")
-    @Transactional
     public void resetMonthlyTransactionCounts() {
         log.info("Resetting monthly transaction counts...");
-        subscriptionRepository.resetMonthlyTransactionCounts();
+        usageMeter.resetMonth();
+        entitlementCache.invalidateAll();
         log.info("Monthly transaction counts reset completed.");
     }
 
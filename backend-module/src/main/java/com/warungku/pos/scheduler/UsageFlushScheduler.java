@@ -0,0 +1,24 @@
+package com.warungku.pos.scheduler;
+
+import com.warungku.pos.service.subscription.UsageMeter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodic write-back of the in-memory usage counters
+ */
+@Component
+@RequiredArgsConstructor
+public class UsageFlushScheduler {
+
+    private final UsageMeter usageMeter;
+
+    /**
+     * Flush metered usage to the subscriptions table - runs every usage.meter.flush-interval
+     */
+    @Scheduled(fixedDelayString = "${usage.meter.flush-interval:30000}", initialDelayString = "${usage.meter.flush-interval:30000}")
+    public void flush() {
+        usageMeter.flush();
+    }
+}
@@ -54,8 +54,10 @@ public class SecurityConfig {
                 .requestMatchers("/api/billing/webhook").permitAll()
                 .requestMatchers("/api/products/**").permitAll() // TODO: Remove in production
                 .requestMatchers("/api/categories/**").permitAll() // TODO: Remove in production
+                .requestMatchers(HttpMethod.GET, "/api/images/**").permitAll() // content-addressed, loaded by <img> without a token
                 .requestMatchers("/error").permitAll()
                 .requestMatchers("/actuator/health").permitAll()
+                .requestMatchers("/actuator/**").hasRole("SUPERADMIN")
                 
                 // Admin only endpoints
                 .requestMatchers("/api/admin/**").hasAnyRole("SUPERADMIN", "ADMIN")
@@ -15,7 +15,7 @@ import java.util.Set;
 
 /**
  * Interceptor to check subscription status before processing requests.
- * Blocks transaction APIs if subscription is expired.
+ * Blocks transaction APIs if subscription is expired, and exports if the plan does not include them.
  * SUPERADMIN bypasses all subscription checks.
  */
 @Slf4j
@@ -68,10 +68,16 @@ public class SubscriptionInterceptor implements HandlerInterceptor {
             try {
                 subscriptionService.checkSubscriptionActive();
                 
-                // Also check transaction limit for sales endpoints
-                if (path.startsWith("/api/sales") && "POST".equalsIgnoreCase(request.getMethod())) {
+                // Also check transaction limit for sales endpoints; quotes sell nothing
+                if (path.startsWith("/api/sales") && !path.startsWith("/api/sales/quote")
+                        && "POST".equalsIgnoreCase(request.getMethod())) {
                     subscriptionService.checkTransactionLimit();
                 }
+
+                // Exports are a plan feature
+                if (path.endsWith("/export")) {
+                    subscriptionService.checkFeatureExport();
+                }
             } catch (Exception e) {
                 log.warn("Subscription check failed for tenant {}: {}", 
                         TenantContext.getTenantId(), e.getMessage());
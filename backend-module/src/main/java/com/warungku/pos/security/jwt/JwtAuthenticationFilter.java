@@ -56,39 +56,34 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             final String jwt = authHeader.substring(BEARER_PREFIX.length());
             
-            if (jwtService.isTokenValid(jwt)) {
-                final String username = jwtService.extractUsername(jwt);
-                final Long userId = jwtService.extractUserId(jwt);
-                final Long tenantId = jwtService.extractTenantId(jwt);
-                final String role = jwtService.extractRole(jwt);
+            final VerifiedToken token = jwtService.verify(jwt).orElse(null);
+            
+            if (token != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+                // Set tenant context for data filtering
+                TenantContext.setTenantId(token.tenantId());
+                TenantContext.setUserId(token.userId());
+                
+                // Create user principal with tenant info
+                UserPrincipal principal = UserPrincipal.builder()
+                        .id(token.userId())
+                        .email(token.username())
+                        .tenantId(token.tenantId())
+                        .role(token.role())
+                        .build();
+                
+                // Create authentication token
+                List<SimpleGrantedAuthority> authorities = List.of(
+                        new SimpleGrantedAuthority("ROLE_" + token.role())
+                );
+                
+                UsernamePasswordAuthenticationToken authToken = 
+                        new UsernamePasswordAuthenticationToken(principal, null, authorities);
+                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                
+                SecurityContextHolder.getContext().setAuthentication(authToken);
                 
-                if (SecurityContextHolder.getContext().getAuthentication() == null) {
-                    // Set tenant context for data filtering
-                    TenantContext.setTenantId(tenantId);
-                    TenantContext.setUserId(userId);
-                    
-                    // Create user principal with tenant info
-                    UserPrincipal principal = UserPrincipal.builder()
-                            .id(userId)
-                            .email(username)
-                            .tenantId(tenantId)
-                            .role(role)
-                            .build();
-                    
-                    // Create authentication token
-                    List<SimpleGrantedAuthority> authorities = List.of(
-                            new SimpleGrantedAuthority("ROLE_" + role)
-                    );
-                    
-                    UsernamePasswordAuthenticationToken authToken = 
-                            new UsernamePasswordAuthenticationToken(principal, null, authorities);
-                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
-                    
-                    log.debug("Authenticated user: {} with role: {} for tenant: {}", 
-                            username, role, tenantId);
-                }
+                log.debug("Authenticated user: {} with role: {} for tenant: {}", 
+                        token.username(), token.role(), token.tenantId());
             }
         } catch (Exception e) {
             log.error("Cannot set user authentication: {}", e.getMessage());
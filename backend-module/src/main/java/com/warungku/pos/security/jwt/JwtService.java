@@ -3,20 +3,27 @@ package com.warungku.pos.security.jwt;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Service for JWT token generation and validation.
  * Tokens contain user_id, tenant_id, and role for multi-tenant access control.
+ * Each token is parsed and verified once, then served from a cache until it expires.
  */
 @Slf4j
 @Service
@@ -31,25 +38,58 @@ public class JwtService {
     @Value("${jwt.refresh-expiration}")
     private long refreshExpiration;
     
-    public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
-    }
+    @Value("${jwt.cache.max-entries:10000}")
+    private int cacheMaxEntries;
     
-    public Long extractUserId(String token) {
-        return extractClaim(token, claims -> claims.get("user_id", Long.class));
-    }
+    private SecretKey signInKey;
+    private JwtParser parser;
     
-    public Long extractTenantId(String token) {
-        return extractClaim(token, claims -> claims.get("tenant_id", Long.class));
-    }
+    // Verified tokens by SHA-256 digest of the token, so raw bearer tokens are not kept in memory
+    private final Map<String, VerifiedToken> verifiedTokens = new ConcurrentHashMap<>();
     
-    public String extractRole(String token) {
-        return extractClaim(token, claims -> claims.get("role", String.class));
+    @PostConstruct
+    void init() {
+        byte[] keyBytes = Decoders.BASE64.decode(java.util.Base64.getEncoder().encodeToString(secretKey.getBytes()));
+        signInKey = Keys.hmacShaKeyFor(keyBytes);
+        parser = Jwts.parser().verifyWith(signInKey).build();
     }
     
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    /**
+     * Checks signature and expiry of a token and returns its claims; empty when the token is invalid.
+     * Tokens seen before are answered from a bounded cache until they expire, so repeat requests
+     * from the same terminal skip the signature check and claim parsing.
+     */
+    public Optional<VerifiedToken> verify(String token) {
+        String digest = digest(token);
+        Instant now = Instant.now();
+        VerifiedToken cached = verifiedTokens.get(digest);
+        if (cached != null) {
+            if (!cached.isExpired(now)) {
+                return Optional.of(cached);
+            }
+            verifiedTokens.remove(digest, cached);
+            return Optional.empty();
+        }
+        
+        VerifiedToken verified;
+        try {
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            if (claims.getExpiration() == null) {
+                log.warn("Invalid JWT token: no expiration");
+                return Optional.empty();
+            }
+            verified = new VerifiedToken(
+                    claims.getSubject(),
+                    claims.get("user_id", Long.class),
+                    claims.get("tenant_id", Long.class),
+                    claims.get("role", String.class),
+                    claims.getExpiration().toInstant());
+        } catch (JwtException | IllegalArgumentException e) {
+            log.warn("Invalid JWT token: {}", e.getMessage());
+            return Optional.empty();
+        }
+        cache(digest, verified, now);
+        return Optional.of(verified);
     }
     
     public String generateToken(Long userId, Long tenantId, String role, String username) {
@@ -74,43 +114,31 @@ public class JwtService {
                 .subject(subject)
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSignInKey(), Jwts.SIG.HS256)
+                .signWith(signInKey, Jwts.SIG.HS256)
                 .compact();
     }
     
-    public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
-    }
-    
-    public boolean isTokenValid(String token) {
-        try {
-            extractAllClaims(token);
-            return !isTokenExpired(token);
-        } catch (JwtException e) {
-            log.warn("Invalid JWT token: {}", e.getMessage());
-            return false;
+    private void cache(String digest, VerifiedToken token, Instant now) {
+        if (verifiedTokens.size() >= cacheMaxEntries) {
+            verifiedTokens.values().removeIf(cached -> cached.isExpired(now));
+            if (verifiedTokens.size() >= cacheMaxEntries) {
+                // Still full of live tokens: verify this one again next time rather than evict
+                return;
+            }
         }
+        verifiedTokens.put(digest, token);
     }
     
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    int cachedTokens() {
+        return verifiedTokens.size();
     }
     
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
-    }
-    
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSignInKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-    }
-    
-    private SecretKey getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(java.util.Base64.getEncoder().encodeToString(secretKey.getBytes()));
-        return Keys.hmacShaKeyFor(keyBytes);
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 }
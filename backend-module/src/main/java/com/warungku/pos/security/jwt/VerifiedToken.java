@@ -0,0 +1,13 @@
+package com.warungku.pos.security.jwt;
+
+import java.time.Instant;
+
+/**
+ * Claims of a JWT whose signature and expiry have been checked.
+ */
+public record VerifiedToken(String username, Long userId, Long tenantId, String role, Instant expiresAt) {
+
+    boolean isExpired(Instant now) {
+        return !expiresAt.isAfter(now);
+    }
+}
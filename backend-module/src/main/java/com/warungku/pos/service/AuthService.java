@@ -11,6 +11,8 @@ import com.warungku.pos.exception.NotFoundException;
 import com.warungku.pos.repository.OutletRepository;
 import com.warungku.pos.repository.UserRepository;
 import com.warungku.pos.security.jwt.JwtService;
+import com.warungku.pos.security.jwt.VerifiedToken;
+import com.warungku.pos.service.subscription.UsageMeter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -30,6 +32,8 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
+    private final SubscriptionService subscriptionService;
+    private final UsageMeter usageMeter;
     
     @Value("${jwt.expiration}")
     private long jwtExpiration;
@@ -42,6 +46,7 @@ public class AuthService {
         
         Outlet outlet = outletRepository.findById(request.getTenantId())
                 .orElseThrow(() -> new NotFoundException("Outlet", request.getTenantId()));
+        subscriptionService.checkUserLimit(outlet.getId());
         
         User user = User.builder()
                 .name(request.getName())
@@ -54,6 +59,7 @@ public class AuthService {
                 .build();
         
         user = userRepository.save(user);
+        usageMeter.recordUsers(outlet.getId(), 1);
         log.info("New user registered: {} for tenant: {}", user.getEmail(), user.getTenantId());
         
         return generateAuthResponse(user);
@@ -73,11 +79,9 @@ public class AuthService {
     }
     
     public AuthResponse refreshToken(String refreshToken) {
-        if (!jwtService.isTokenValid(refreshToken)) {
-            throw new BadRequestException("Invalid refresh token");
-        }
-        
-        String email = jwtService.extractUsername(refreshToken);
+        String email = jwtService.verify(refreshToken)
+                .map(VerifiedToken::username)
+                .orElseThrow(() -> new BadRequestException("Invalid refresh token"));
         User user = userRepository.findByEmailAndActive(email)
                 .orElseThrow(() -> new NotFoundException("User not found"));
         
@@ -0,0 +1,234 @@
+package com.warungku.pos.service;
+
+import com.warungku.pos.core.tenant.TenantContext;
+import com.warungku.pos.dto.sale.OfflineSaleRequest;
+import com.warungku.pos.dto.sale.OfflineSaleRequest.OfflineSale;
+import com.warungku.pos.dto.sale.OfflineSaleResponse;
+import com.warungku.pos.dto.sale.OfflineSaleResponse.Result;
+import com.warungku.pos.dto.sale.OfflineSaleResponse.Status;
+import com.warungku.pos.entity.Outlet;
+import com.warungku.pos.entity.Product;
+import com.warungku.pos.entity.Sale;
+import com.warungku.pos.entity.User;
+import com.warungku.pos.exception.BadRequestException;
+import com.warungku.pos.exception.NotFoundException;
+import com.warungku.pos.repository.OutletRepository;
+import com.warungku.pos.repository.SaleRepository;
+import com.warungku.pos.repository.UserRepository;
+import com.warungku.pos.service.subscription.UsageMeter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Ingests sales that terminals recorded while offline.
+ * <p>
+ * Sales are processed in chunks, one transaction each: the chunk's client ids are looked up once
+ * so sales already stored are skipped before any pricing, its products are loaded in one query,
+ * stock is decremented once per product and sales and movements are inserted together. If a chunk
+ * fails as a whole - e.g. stock sold online in the meantime - its sales are retried one by one, so
+ * one bad sale does not reject its neighbours.
+ * <p>
+ * Unlike checkout, which leaves stock movements, rollups and usage to the outbox, a chunk records
+ * them in its own transaction. Nobody is waiting at a till for an upload, and handling the chunk's
+ * sales as one set of queries is what makes large uploads cheap; one event per sale would load each
+ * sale back on its own. The consumers see the same result as from {@link SaleEventHandler}, only
+ * earlier: the sales are counted when the chunk commits, and later voids and refunds of them still
+ * go through the outbox behind that commit.
+ */
+@Slf4j
+@Service
+public class OfflineSaleService {
+
+    // Terminal clocks drift; sales dated further ahead than this are rejected
+    private static final Duration MAX_CLOCK_SKEW = Duration.ofMinutes(5);
+
+    private final SaleService saleService;
+    private final SaleRepository saleRepository;
+    private final UserRepository userRepository;
+    private final OutletRepository outletRepository;
+    private final ReceiptNumberGenerator receiptNumberGenerator;
+    private final StockService stockService;
+    private final SalesRollupService salesRollupService;
+    private final UsageMeter usageMeter;
+    private final SubscriptionService subscriptionService;
+    private final TransactionTemplate chunkTx;
+    private final int chunkSize;
+
+    public OfflineSaleService(SaleService saleService,
+                              SaleRepository saleRepository,
+                              UserRepository userRepository,
+                              OutletRepository outletRepository,
+                              ReceiptNumberGenerator receiptNumberGenerator,
+                              StockService stockService,
+                              SalesRollupService salesRollupService,
+                              UsageMeter usageMeter,
+                              SubscriptionService subscriptionService,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${sales.offline.chunk-size:50}") int chunkSize) {
+        this.saleService = saleService;
+        this.saleRepository = saleRepository;
+        this.userRepository = userRepository;
+        this.outletRepository = outletRepository;
+        this.receiptNumberGenerator = receiptNumberGenerator;
+        this.stockService = stockService;
+        this.salesRollupService = salesRollupService;
+        this.usageMeter = usageMeter;
+        this.subscriptionService = subscriptionService;
+        this.chunkTx = new TransactionTemplate(transactionManager);
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    public OfflineSaleResponse ingest(OfflineSaleRequest request) {
+        List<OfflineSale> sales = request.getSales();
+        Result[] results = new Result[sales.size()];
+
+        // A client id repeated within the upload is only ingested once
+        Set<String> seen = new HashSet<>();
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < sales.size(); i++) {
+            String clientId = sales.get(i).getClientId();
+            if (seen.add(clientId)) {
+                pending.add(i);
+            } else {
+                results[i] = result(clientId, Status.DUPLICATE, null, "Repeated in this upload");
+            }
+        }
+
+        for (int from = 0; from < pending.size(); from += chunkSize) {
+            List<Integer> chunk = pending.subList(from, Math.min(from + chunkSize, pending.size()));
+            try {
+                chunkTx.executeWithoutResult(status -> ingestChunk(sales, chunk, results));
+            } catch (RuntimeException e) {
+                log.warn("Offline sale chunk of {} failed, retrying one by one: {}", chunk.size(), e.getMessage());
+                for (Integer index : chunk) {
+                    try {
+                        chunkTx.executeWithoutResult(status -> ingestChunk(sales, List.of(index), results));
+                    } catch (RuntimeException single) {
+                        results[index] = result(sales.get(index).getClientId(), Status.FAILED, null, single.getMessage());
+                    }
+                }
+            }
+        }
+
+        Map<Status, Long> counts = Arrays.stream(results)
+                .collect(Collectors.groupingBy(Result::getStatus, Collectors.counting()));
+        log.info("Offline sales ingested for tenant {}: {} created, {} duplicates, {} failed",
+                TenantContext.getTenantId(), counts.getOrDefault(Status.CREATED, 0L),
+                counts.getOrDefault(Status.DUPLICATE, 0L), counts.getOrDefault(Status.FAILED, 0L));
+
+        return OfflineSaleResponse.builder()
+                .created(counts.getOrDefault(Status.CREATED, 0L).intValue())
+                .duplicates(counts.getOrDefault(Status.DUPLICATE, 0L).intValue())
+                .failed(counts.getOrDefault(Status.FAILED, 0L).intValue())
+                .results(Arrays.asList(results))
+                .build();
+    }
+
+    /**
+     * Stores the sales at the given indexes in the current transaction and records their results.
+     * A sale that cannot be priced fails on its own; a failing write fails the whole chunk.
+     */
+    private void ingestChunk(List<OfflineSale> sales, List<Integer> indexes, Result[] results) {
+        Long tenantId = TenantContext.getTenantId();
+        Long userId = TenantContext.getUserId();
+        User cashier = userRepository.findById(userId)
+                .orElseThrow(() -> new NotFoundException("User", userId));
+        Outlet outlet = outletRepository.findById(tenantId)
+                .orElseThrow(() -> new NotFoundException("Outlet", tenantId));
+        BigDecimal taxRate = SaleService.taxRate(outlet);
+
+        // Sales stored by an earlier upload are reported as they were, without pricing them again
+        Map<String, Object[]> stored = new HashMap<>();
+        for (Object[] row : saleRepository.findByClientIds(indexes.stream().map(i -> sales.get(i).getClientId()).toList())) {
+            stored.put((String) row[0], row);
+        }
+
+        Set<Long> productIds = new HashSet<>();
+        for (Integer index : indexes) {
+            if (!stored.containsKey(sales.get(index).getClientId())) {
+                sales.get(index).getItems().forEach(item -> productIds.add(item.getProductId()));
+            }
+        }
+        Map<Long, Product> products = saleService.loadProducts(productIds);
+
+        LocalDateTime latest = LocalDateTime.now().plus(MAX_CLOCK_SKEW);
+        Map<Long, Integer> requested = new HashMap<>();
+        List<Integer> accepted = new ArrayList<>();
+        List<Sale> created = new ArrayList<>();
+        for (Integer index : indexes) {
+            OfflineSale offline = sales.get(index);
+            Object[] row = stored.get(offline.getClientId());
+            if (row != null) {
+                results[index] = result(offline.getClientId(), Status.DUPLICATE, (Long) row[1], (String) row[2], null);
+                continue;
+            }
+            if (offline.getClientTimestamp().isAfter(latest)) {
+                results[index] = result(offline.getClientId(), Status.FAILED, null, "Client timestamp is in the future");
+                continue;
+            }
+
+            // Price against the stock left by the sales accepted before it in this chunk
+            Map<Long, Integer> attempt = new HashMap<>(requested);
+            try {
+                Sale sale = saleService.buildSale(offline, cashier, taxRate, products, attempt);
+                sale.setClientId(offline.getClientId());
+                sale.setSaleDate(offline.getClientTimestamp());
+                sale.setReceiptNumber(receiptNumberGenerator.generate(offline.getClientTimestamp().toLocalDate()));
+                created.add(sale);
+                accepted.add(index);
+                requested = attempt;
+            } catch (BadRequestException | NotFoundException e) {
+                results[index] = result(offline.getClientId(), Status.FAILED, null, e.getMessage());
+            }
+        }
+        if (created.isEmpty()) {
+            return;
+        }
+
+        // The upload passed the plan check as one request; every sale stored counts. A chunk that does
+        // not fit is retried one by one, so the sales that still fit are stored and the rest fail
+        subscriptionService.checkTransactionLimit(created.size());
+        saleRepository.saveAll(created);
+        stockService.reduceStock(created.stream()
+                .map(sale -> new StockService.StockBatch(SaleService.toStockLines(sale), sale.getId(),
+                        "Offline sale: " + sale.getReceiptNumber()))
+                .toList(), cashier, "SALE");
+        // Side effects in the chunk's transaction rather than the outbox, see the class comment
+        created.forEach(salesRollupService::recordSale);
+        usageMeter.recordTransactions(tenantId, created.size());
+
+        for (int i = 0; i < created.size(); i++) {
+            Sale sale = created.get(i);
+            results[accepted.get(i)] = result(sale.getClientId(), Status.CREATED, sale.getId(), sale.getReceiptNumber(), null);
+        }
+    }
+
+    private static Result result(String clientId, Status status, Long saleId, String message) {
+        return result(clientId, status, saleId, null, message);
+    }
+
+    private static Result result(String clientId, Status status, Long saleId, String receiptNumber, String message) {
+        return Result.builder()
+                .clientId(clientId)
+                .status(status)
+                .saleId(saleId)
+                .receiptNumber(receiptNumber)
+                .message(message)
+                .build();
+    }
+}
@@ -0,0 +1,44 @@
+package com.warungku.pos.service;
+
+import com.warungku.pos.exception.NotFoundException;
+import com.warungku.pos.repository.OutletRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Effective tax rate per outlet, for pricing without a database round trip. Rates are reloaded
+ * once they are {@code ttl} old; outlets have no tax rate editing path to invalidate from.
+ */
+@Component
+public class OutletTaxRateCache {
+
+    private final OutletRepository outletRepository;
+    private final long ttlNanos;
+    private final ConcurrentMap<Long, Entry> rates = new ConcurrentHashMap<>();
+
+    public OutletTaxRateCache(OutletRepository outletRepository,
+                              @Value("${catalog.outlet.tax-rate-ttl:60s}") Duration ttl) {
+        this.outletRepository = outletRepository;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    public BigDecimal get(Long tenantId) {
+        Entry entry = rates.get(tenantId);
+        if (entry == null || System.nanoTime() - entry.loadedAt() >= ttlNanos) {
+            BigDecimal rate = outletRepository.findById(tenantId)
+                    .map(SaleService::taxRate)
+                    .orElseThrow(() -> new NotFoundException("Outlet", tenantId));
+            entry = new Entry(rate, System.nanoTime());
+            rates.put(tenantId, entry);
+        }
+        return entry.rate();
+    }
+
+    private record Entry(BigDecimal rate, long loadedAt) {
+    }
+}
@@ -0,0 +1,162 @@
+package com.warungku.pos.service;
+
+import com.warungku.pos.entity.ProductImage;
+import com.warungku.pos.exception.BadRequestException;
+import com.warungku.pos.exception.NotFoundException;
+import com.warungku.pos.repository.ProductImageRepository;
+import com.warungku.pos.repository.ProductRepository;
+import com.warungku.pos.service.catalog.ProductCatalogCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed store for product images.
+ * <p>
+ * Uploaded images arrive as base64 data URLs; their bytes are stored once per SHA-256 hash in
+ * product_images and the product keeps only {@code /api/images/{hash}}. External URLs are kept
+ * as they are.
+ */
+@Slf4j
+@Service
+public class ProductImageService {
+
+    public static final String URL_PREFIX = "/api/images/";
+
+    private static final Pattern DATA_URL = Pattern.compile("^data:([a-zA-Z0-9.+/-]+);base64,(.*)$", Pattern.DOTALL);
+    private static final Pattern HASH = Pattern.compile("^[0-9a-f]{64}$");
+    private static final Set<String> CONTENT_TYPES = Set.of("image/png", "image/jpeg", "image/webp", "image/gif");
+    private static final int MAX_URL_LENGTH = 500;
+
+    private final ProductImageRepository productImageRepository;
+    private final ProductRepository productRepository;
+    private final ProductCatalogCache productCatalogCache;
+    private final TransactionTemplate storeTx;
+    private final TransactionTemplate migrationTx;
+    private final int maxBytes;
+
+    public ProductImageService(ProductImageRepository productImageRepository,
+                               ProductRepository productRepository,
+                               ProductCatalogCache productCatalogCache,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${product.image.max-bytes:2097152}") int maxBytes) {
+        this.productImageRepository = productImageRepository;
+        this.productRepository = productRepository;
+        this.productCatalogCache = productCatalogCache;
+        this.storeTx = new TransactionTemplate(transactionManager);
+        this.storeTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.migrationTx = new TransactionTemplate(transactionManager);
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Turns the image value sent by a client into what the product stores: data URLs are
+     * moved to the store and replaced by their URL, blank values clear the image.
+     */
+    public String resolve(String image) {
+        if (image == null || image.isBlank()) {
+            return null;
+        }
+        Matcher dataUrl = DATA_URL.matcher(image);
+        if (dataUrl.matches()) {
+            return URL_PREFIX + store(dataUrl.group(1).toLowerCase(), decode(dataUrl.group(2)));
+        }
+        if (image.length() > MAX_URL_LENGTH) {
+            throw new BadRequestException("Image URL must not exceed " + MAX_URL_LENGTH + " characters");
+        }
+        return image;
+    }
+
+    public ProductImage getImage(String hash) {
+        if (!HASH.matcher(hash).matches()) {
+            throw new NotFoundException("Image not found: " + hash);
+        }
+        return productImageRepository.findByHash(hash)
+                .orElseThrow(() -> new NotFoundException("Image not found: " + hash));
+    }
+
+    /**
+     * Moves images still stored inline on products into the store, one product per transaction.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateInlineImages() {
+        List<Long> productIds = productRepository.findIdsWithInlineImage();
+        if (productIds.isEmpty()) {
+            return;
+        }
+        int migrated = 0;
+        for (Long productId : productIds) {
+            try {
+                migrationTx.executeWithoutResult(status -> productRepository.findById(productId).ifPresent(product -> {
+                    product.setImage(resolve(product.getInlineImage()));
+                    product.setInlineImage(null);
+                    productCatalogCache.put(productRepository.save(product));
+                }));
+                migrated++;
+            } catch (Exception e) {
+                log.error("Failed to migrate inline image of product {}: {}", productId, e.getMessage());
+            }
+        }
+        log.info("Moved {} inline product images to the image store.", migrated);
+    }
+
+    /**
+     * Stores the bytes unless an image with the same content exists. Runs in its own transaction,
+     * so a concurrent upload of the same image is harmless.
+     */
+    private String store(String contentType, byte[] data) {
+        if (!CONTENT_TYPES.contains(contentType)) {
+            throw new BadRequestException("Unsupported image type: " + contentType);
+        }
+        if (data.length > maxBytes) {
+            throw new BadRequestException("Image must not exceed " + maxBytes / 1024 + " KB");
+        }
+        String hash = sha256(data);
+        if (productImageRepository.existsByHash(hash)) {
+            return hash;
+        }
+        try {
+            storeTx.executeWithoutResult(status -> productImageRepository.save(ProductImage.builder()
+                    .hash(hash)
+                    .contentType(contentType)
+                    .sizeBytes(data.length)
+                    .data(data)
+                    .build()));
+        } catch (DataIntegrityViolationException e) {
+            // Same content stored concurrently - the existing row serves both
+            log.debug("Image {} was stored concurrently", hash);
+        }
+        return hash;
+    }
+
+    private static byte[] decode(String base64) {
+        try {
+            return Base64.getMimeDecoder().decode(base64);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Image is not valid base64");
+        }
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -4,29 +4,43 @@ import com.warungku.pos.dto.ProductDto;
 import com.warungku.pos.entity.Category;
 import com.warungku.pos.entity.Product;
 import com.warungku.pos.exception.BadRequestException;
+import com.warungku.pos.exception.ConflictException;
 import com.warungku.pos.exception.NotFoundException;
 import com.warungku.pos.repository.CategoryRepository;
 import com.warungku.pos.repository.ProductRepository;
+import com.warungku.pos.service.catalog.ProductCatalogCache;
+import com.warungku.pos.service.subscription.UsageMeter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class ProductService {
     
+    private static final int MAX_SEARCH_PAGE_SIZE = 50;
+    
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
+    private final ProductCatalogCache productCatalogCache;
+    private final ProductImageService productImageService;
+    private final SubscriptionService subscriptionService;
+    private final UsageMeter usageMeter;
     
     public List<ProductDto> getAllProducts() {
-        return productRepository.findAllActive().stream()
-                .map(ProductDto::fromEntity)
-                .toList();
+        return productCatalogCache.getActiveProducts()
+                .orElseGet(() -> productRepository.findAllActive().stream()
+                        .map(ProductDto::fromEntity)
+                        .toList());
     }
     
     public Page<ProductDto> getProducts(Pageable pageable) {
@@ -41,21 +55,37 @@ public class ProductService {
     }
     
     public List<ProductDto> getProductsByCategory(Long categoryId) {
-        return productRepository.findByCategoryId(categoryId).stream()
-                .map(ProductDto::fromEntity)
-                .toList();
+        return productCatalogCache.getActiveProductsByCategory(categoryId)
+                .orElseGet(() -> productRepository.findByCategoryId(categoryId).stream()
+                        .map(ProductDto::fromEntity)
+                        .toList());
     }
     
-    public List<ProductDto> searchProducts(String query) {
-        return productRepository.search(query).stream()
-                .map(ProductDto::fromEntity)
-                .toList();
+    /**
+     * Ranked search over the tenant's catalog index; only requests without a cached catalog
+     * fall back to a paged LIKE query. Page size is capped at {@value #MAX_SEARCH_PAGE_SIZE}.
+     */
+    public Page<ProductDto> searchProducts(String query, Pageable pageable) {
+        PageRequest page = PageRequest.of(pageable.getPageNumber(), Math.min(pageable.getPageSize(), MAX_SEARCH_PAGE_SIZE));
+        return productCatalogCache.search(query)
+                .map(matches -> slice(matches, page))
+                .orElseGet(() -> productRepository.search(query, page.withSort(Sort.by("name")))
+                        .map(ProductDto::fromEntity));
     }
     
     public ProductDto getProductByBarcode(String barcode) {
-        Product product = productRepository.findByBarcode(barcode)
-                .orElseThrow(() -> new NotFoundException("Product not found with barcode: " + barcode));
-        return ProductDto.fromEntity(product);
+        // Scanner path: served from the catalog index, the database only sees codes it does not hold
+        return productCatalogCache.findByBarcode(barcode)
+                .orElseGet(() -> productRepository.findByBarcode(barcode)
+                        .map(ProductDto::fromEntity)
+                        .orElseThrow(() -> new NotFoundException("Product not found with barcode: " + barcode)));
+    }
+    
+    public ProductDto getProductBySku(String sku) {
+        return productCatalogCache.findBySku(sku)
+                .orElseGet(() -> productRepository.findBySku(sku)
+                        .map(ProductDto::fromEntity)
+                        .orElseThrow(() -> new NotFoundException("Product not found with SKU: " + sku)));
     }
     
     @Transactional
@@ -63,6 +93,7 @@ public class ProductService {
         if (productRepository.findBySku(dto.getSku()).isPresent()) {
             throw new BadRequestException("SKU already exists: " + dto.getSku());
         }
+        subscriptionService.checkProductLimit();
         
         Product product = Product.builder()
                 .name(dto.getName())
@@ -71,7 +102,7 @@ public class ProductService {
                 .price(dto.getPrice())
                 .stock(dto.getStock() != null ? dto.getStock() : 0)
                 .minStock(dto.getMinStock() != null ? dto.getMinStock() : 5)
-                .image(dto.getImage())
+                .image(productImageService.resolve(dto.getImage()))
                 .barcode(dto.getBarcode())
                 .isActive(true)
                 .build();
@@ -83,6 +114,8 @@ public class ProductService {
         }
         
         product = productRepository.save(product);
+        productCatalogCache.put(product);
+        usageMeter.recordProducts(product.getTenantId(), 1);
         return ProductDto.fromEntity(product);
     }
     
@@ -90,15 +123,20 @@ public class ProductService {
     public ProductDto updateProduct(Long id, ProductDto dto) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Product", id));
+        boolean wasActive = Boolean.TRUE.equals(product.getIsActive());
         
         if (dto.getName() != null) product.setName(dto.getName());
         if (dto.getDescription() != null) product.setDescription(dto.getDescription());
         if (dto.getPrice() != null) product.setPrice(dto.getPrice());
-        if (dto.getStock() != null) product.setStock(dto.getStock());
         if (dto.getMinStock() != null) product.setMinStock(dto.getMinStock());
-        if (dto.getImage() != null) product.setImage(dto.getImage());
+        if (dto.getImage() != null) product.setImage(productImageService.resolve(dto.getImage()));
         if (dto.getBarcode() != null) product.setBarcode(dto.getBarcode());
-        if (dto.getIsActive() != null) product.setIsActive(dto.getIsActive());
+        if (dto.getIsActive() != null) {
+            if (dto.getIsActive() && !wasActive) {
+                subscriptionService.checkProductLimit();
+            }
+            product.setIsActive(dto.getIsActive());
+        }
         
         if (dto.getCategoryId() != null) {
             Category category = categoryRepository.findById(dto.getCategoryId())
@@ -106,7 +144,20 @@ public class ProductService {
             product.setCategory(category);
         }
         
+        // Stock is not written by save(); a changed level goes through the same guarded update as adjustments
+        if (dto.getStock() != null && !dto.getStock().equals(product.getStock())) {
+            if (productRepository.setStock(id, product.getStock(), dto.getStock()) == 0) {
+                throw new ConflictException("Stock of '" + product.getName() + "' changed meanwhile; reload and try again");
+            }
+            product.setStock(dto.getStock());
+            productCatalogCache.updateStock(product.getTenantId(), Map.of(id, dto.getStock()));
+        }
+        
         product = productRepository.save(product);
+        productCatalogCache.put(product);
+        if (Boolean.TRUE.equals(product.getIsActive()) != wasActive) {
+            usageMeter.recordProducts(product.getTenantId(), wasActive ? -1 : 1);
+        }
         return ProductDto.fromEntity(product);
     }
     
@@ -114,8 +165,13 @@ public class ProductService {
     public void deleteProduct(Long id) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Product", id));
+        boolean wasActive = Boolean.TRUE.equals(product.getIsActive());
         product.setIsActive(false);
         productRepository.save(product);
+        productCatalogCache.put(product);
+        if (wasActive) {
+            usageMeter.recordProducts(product.getTenantId(), -1);
+        }
     }
     
     @Transactional
@@ -123,13 +179,16 @@ public class ProductService {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Product", id));
         
-        int newStock = product.getStock() + quantity;
-        if (newStock < 0) {
-            throw new BadRequestException("Insufficient stock. Available: " + product.getStock());
+        // Applied as a delta, so units sold meanwhile are kept
+        int updated = quantity < 0
+                ? productRepository.decrementStock(id, -quantity)
+                : productRepository.incrementStock(id, quantity);
+        if (updated == 0) {
+            throw new BadRequestException("Insufficient stock. Available: " + currentStock(id));
         }
         
-        product.setStock(newStock);
-        product = productRepository.save(product);
+        product.setStock(currentStock(id));
+        productCatalogCache.updateStock(product.getTenantId(), Map.of(id, product.getStock()));
         return ProductDto.fromEntity(product);
     }
     
@@ -138,4 +197,17 @@ public class ProductService {
                 .map(ProductDto::fromEntity)
                 .toList();
     }
+    
+    private int currentStock(Long id) {
+        return productRepository.findStockByIds(List.of(id)).stream()
+                .map(row -> (Integer) row[1])
+                .findFirst()
+                .orElse(0);
+    }
+    
+    private static Page<ProductDto> slice(List<ProductDto> matches, Pageable page) {
+        int from = (int) Math.min(page.getOffset(), matches.size());
+        int to = Math.min(from + page.getPageSize(), matches.size());
+        return new PageImpl<>(matches.subList(from, to), page, matches.size());
+    }
 }
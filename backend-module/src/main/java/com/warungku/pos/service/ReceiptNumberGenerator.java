@@ -1,46 +1,193 @@
 package com.warungku.pos.service;
 
 import com.warungku.pos.core.tenant.TenantContext;
+import com.warungku.pos.entity.ReceiptSequence;
+import com.warungku.pos.repository.ReceiptSequenceRepository;
 import com.warungku.pos.repository.SaleRepository;
-import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Issues receipt numbers in the form INV-{tenant}-{yyyyMMdd}-{sequence}.
+ * Each tenant and day has its own counter, so tills of different outlets never contend.
+ * With a positive block size, numbers are reserved in blocks from receipt_sequences
+ * so several application nodes can issue receipts for the same tenant without colliding.
+ */
+@Slf4j
 @Service
-@RequiredArgsConstructor
 public class ReceiptNumberGenerator {
 
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+    // How long an earlier day's counter is kept once unused; far longer than an upload holds numbers
+    // it has not committed
+    private static final long STALE_AFTER_NANOS = Duration.ofMinutes(10).toNanos();
+
     private final SaleRepository saleRepository;
-    private final AtomicLong counter = new AtomicLong(0);
-    private String lastDate = "";
+    private final ReceiptSequenceRepository receiptSequenceRepository;
+    private final TransactionTemplate reservationTx;
+    private final long blockSize;
+    private final ConcurrentMap<SequenceKey, Allocator> allocators = new ConcurrentHashMap<>();
+
+    public ReceiptNumberGenerator(SaleRepository saleRepository,
+                                  ReceiptSequenceRepository receiptSequenceRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${receipt.sequence.block-size:0}") long blockSize) {
+        this.saleRepository = saleRepository;
+        this.receiptSequenceRepository = receiptSequenceRepository;
+        this.reservationTx = new TransactionTemplate(transactionManager);
+        this.reservationTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.blockSize = blockSize;
+    }
+
+    public String generate() {
+        return generate(LocalDate.now());
+    }
 
-    public synchronized String generate() {
-        String today = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
+    /**
+     * A receipt number from the sequence of the given business day, e.g. the day an offline sale was made.
+     */
+    public String generate(LocalDate day) {
         Long tenantId = TenantContext.getTenantId();
-        String prefix = String.format("INV-%d-%s-", tenantId != null ? tenantId : 0, today);
-
-        // Reset counter if date changed
-        if (!today.equals(lastDate)) {
-            lastDate = today;
-            
-            // Get last receipt number from database
-            String lastReceipt = saleRepository.findLastReceiptNumberByPrefix(prefix);
-            if (lastReceipt != null) {
+        SequenceKey key = new SequenceKey(tenantId != null ? tenantId : 0, day);
+
+        Allocator allocator = allocators.get(key);
+        if (allocator == null) {
+            LocalDate today = LocalDate.now();
+            if (day.equals(today)) {
+                // First receipt of the day for this tenant: drop counters of previous days, except those
+                // still in use, e.g. by an offline upload whose receipts are not committed yet. Re-seeding
+                // those from the stored receipts would issue the upload's numbers again
+                long now = System.nanoTime();
+                allocators.values().removeIf(stale -> stale.key.day().isBefore(today)
+                        && now - stale.lastUsed > STALE_AFTER_NANOS);
+            }
+            // Not computeIfAbsent: the first block is opened on first use, outside the map's bin lock
+            Allocator created = new Allocator(key);
+            Allocator raced = allocators.putIfAbsent(key, created);
+            allocator = raced != null ? raced : created;
+        }
+
+        allocator.lastUsed = System.nanoTime();
+        return String.format("%s%04d", key.prefix(), allocator.next());
+    }
+
+    /**
+     * Opens the first block of numbers for a tenant and day.
+     */
+    private Block openBlock(SequenceKey key) {
+        if (blockSize <= 0) {
+            // Single node: continue after the highest receipt already stored
+            return new Block(lastIssuedReceipt(key), Long.MAX_VALUE);
+        }
+        return reserveBlock(key);
+    }
+
+    /**
+     * Reserves the next block of numbers in its own transaction, so the row lock
+     * is released before the sale that asked for it commits.
+     */
+    private Block reserveBlock(SequenceKey key) {
+        long last;
+        try {
+            last = reservationTx.execute(status -> advanceOrCreate(key));
+        } catch (DataIntegrityViolationException e) {
+            // Another node created today's row first; take the next block from it
+            last = reservationTx.execute(status -> advanceOrCreate(key));
+        }
+        log.debug("Reserved receipt numbers {}..{} for {}", last - blockSize + 1, last, key.prefix());
+        return new Block(last - blockSize, last);
+    }
+
+    private long advanceOrCreate(SequenceKey key) {
+        if (receiptSequenceRepository.advance(key.tenantId(), key.day(), blockSize) > 0) {
+            return receiptSequenceRepository.findLastNumber(key.tenantId(), key.day());
+        }
+        long last = lastIssuedReceipt(key) + blockSize;
+        receiptSequenceRepository.saveAndFlush(ReceiptSequence.builder()
+                .tenantId(key.tenantId())
+                .businessDate(key.day())
+                .lastNumber(last)
+                .build());
+        return last;
+    }
+
+    private long lastIssuedReceipt(SequenceKey key) {
+        String lastReceipt = saleRepository.findLastReceiptNumberByPrefix(key.prefix());
+        if (lastReceipt == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(lastReceipt.substring(lastReceipt.lastIndexOf("-") + 1));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private record SequenceKey(long tenantId, LocalDate day) {
+
+        String prefix() {
+            return String.format("INV-%d-%s-", tenantId, day.format(DATE_FORMAT));
+        }
+    }
+
+    /**
+     * Numbers (start, last] handed out with a single atomic increment.
+     */
+    private static final class Block {
+        private final AtomicLong current;
+        private final long last;
+
+        Block(long start, long last) {
+            this.current = new AtomicLong(start);
+            this.last = last;
+        }
+    }
+
+    private final class Allocator {
+        private final SequenceKey key;
+        // A lock rather than synchronized: reserving hits the database and must not pin a virtual thread
+        private final ReentrantLock reserveLock = new ReentrantLock();
+        // Null until the first number is asked for
+        private volatile Block block;
+        private volatile long lastUsed = System.nanoTime();
+
+        Allocator(SequenceKey key) {
+            this.key = key;
+        }
+
+        long next() {
+            while (true) {
+                Block current = block;
+                if (current != null) {
+                    long number = current.current.incrementAndGet();
+                    if (number <= current.last) {
+                        return number;
+                    }
+                }
+                // No block yet or block exhausted: one thread opens or reserves the next, the others
+                // retry on it
+                reserveLock.lock();
                 try {
-                    String numPart = lastReceipt.substring(lastReceipt.lastIndexOf("-") + 1);
-                    counter.set(Long.parseLong(numPart));
-                } catch (Exception e) {
-                    counter.set(0);
+                    if (block == current) {
+                        block = current == null ? openBlock(key) : reserveBlock(key);
+                    }
+                } finally {
+                    reserveLock.unlock();
                 }
-            } else {
-                counter.set(0);
             }
         }
-
-        long nextNum = counter.incrementAndGet();
-        return String.format("%s%04d", prefix, nextNum);
     }
 }
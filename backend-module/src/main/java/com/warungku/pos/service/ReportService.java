@@ -1,8 +1,9 @@
 package com.warungku.pos.service;
 
+import com.warungku.pos.core.tenant.TenantContext;
 import com.warungku.pos.dto.report.DailySalesReport;
-import com.warungku.pos.repository.SaleItemRepository;
-import com.warungku.pos.repository.SaleRepository;
+import com.warungku.pos.repository.ProductDailyRollupRepository;
+import com.warungku.pos.repository.SalesHourlyRollupRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -10,121 +11,152 @@ import org.springframework.stereotype.Service;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ReportService {
 
-    private final SaleRepository saleRepository;
-    private final SaleItemRepository saleItemRepository;
+    private static final int TOP_PRODUCTS_LIMIT = 10;
+
+    private final SalesHourlyRollupRepository salesHourlyRollupRepository;
+    private final ProductDailyRollupRepository productDailyRollupRepository;
 
     public DailySalesReport getDailySalesReport(LocalDate date) {
-        LocalDateTime start = date.atStartOfDay();
-        LocalDateTime end = date.atTime(LocalTime.MAX);
-
-        // Basic stats
-        BigDecimal totalRevenue = saleRepository.sumGrandTotalByDateRange(start, end);
-        BigDecimal totalTax = saleRepository.sumTaxByDateRange(start, end);
-        BigDecimal totalDiscount = saleRepository.sumDiscountByDateRange(start, end);
-        Long transactionCount = saleRepository.countByDateRange(start, end);
-
-        if (totalRevenue == null) totalRevenue = BigDecimal.ZERO;
-        if (totalTax == null) totalTax = BigDecimal.ZERO;
-        if (totalDiscount == null) totalDiscount = BigDecimal.ZERO;
-        if (transactionCount == null) transactionCount = 0L;
-
-        BigDecimal netRevenue = totalRevenue.subtract(totalTax);
-        BigDecimal avgTransaction = transactionCount > 0
-                ? totalRevenue.divide(BigDecimal.valueOf(transactionCount), 2, RoundingMode.HALF_UP)
-                : BigDecimal.ZERO;
-
-        // Payment method stats
-        List<DailySalesReport.PaymentMethodStat> paymentStats = new ArrayList<>();
-        List<Object[]> paymentData = saleRepository.getPaymentMethodStats(start, end);
-        for (Object[] row : paymentData) {
-            BigDecimal methodTotal = (BigDecimal) row[2];
-            BigDecimal percentage = totalRevenue.compareTo(BigDecimal.ZERO) > 0
-                    ? methodTotal.multiply(BigDecimal.valueOf(100)).divide(totalRevenue, 2, RoundingMode.HALF_UP)
-                    : BigDecimal.ZERO;
+        return getSalesReports(date, date).get(0);
+    }
 
-            paymentStats.add(DailySalesReport.PaymentMethodStat.builder()
-                    .method(row[0].toString())
-                    .count((Long) row[1])
-                    .total(methodTotal)
-                    .percentage(percentage)
-                    .build());
+    public List<DailySalesReport> getWeeklySalesReport(LocalDate startDate) {
+        return getSalesReports(startDate, startDate.plusDays(6));
+    }
+
+    /**
+     * Builds one report per day from the sales rollups, so the cost depends on the
+     * number of hourly buckets and products rather than on the number of sales.
+     */
+    public List<DailySalesReport> getSalesReports(LocalDate from, LocalDate to) {
+        Long tenantId = TenantContext.getTenantId();
+
+        Map<LocalDate, DayAccumulator> days = new LinkedHashMap<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            days.put(day, new DayAccumulator());
         }
 
-        // Hourly sales
-        List<DailySalesReport.HourlyStat> hourlyStats = new ArrayList<>();
-        List<Object[]> hourlyData = saleRepository.getHourlySales(start, end);
-        for (Object[] row : hourlyData) {
-            Integer hour = (Integer) row[0];
-            hourlyStats.add(DailySalesReport.HourlyStat.builder()
-                    .hour(hour)
-                    .timeRange(String.format("%02d:00 - %02d:59", hour, hour))
-                    .count((Long) row[1])
-                    .total((BigDecimal) row[2])
-                    .build());
+        // day, hour, paymentMethod, cashierId, cashierName, count, grandTotal, tax, discount
+        for (Object[] row : salesHourlyRollupRepository.findBuckets(tenantId, from, to)) {
+            DayAccumulator day = days.get((LocalDate) row[0]);
+            if (day != null) {
+                day.addSales(((Number) row[1]).intValue(), row[2].toString(), (Long) row[3], (String) row[4],
+                        (Long) row[5], (BigDecimal) row[6], (BigDecimal) row[7], (BigDecimal) row[8]);
+            }
         }
 
-        // Top products
-        List<DailySalesReport.TopProduct> topProducts = new ArrayList<>();
-        List<Object[]> productData = saleItemRepository.getTopSellingProducts(start, end);
-        int limit = Math.min(10, productData.size());
-        for (int i = 0; i < limit; i++) {
-            Object[] row = productData.get(i);
-            topProducts.add(DailySalesReport.TopProduct.builder()
-                    .productId((Long) row[0])
-                    .productName((String) row[1])
-                    .quantitySold(((Long) row[2]).intValue())
-                    .revenue((BigDecimal) row[3])
-                    .build());
+        // day, productId, productName, quantity, revenue
+        for (Object[] row : productDailyRollupRepository.findBuckets(tenantId, from, to)) {
+            DayAccumulator day = days.get((LocalDate) row[0]);
+            if (day != null) {
+                day.addProduct((Long) row[1], (String) row[2], ((Number) row[3]).intValue(), (BigDecimal) row[4]);
+            }
         }
 
-        // Cashier performance
-        List<DailySalesReport.CashierStat> cashierStats = new ArrayList<>();
-        List<Object[]> cashierData = saleRepository.getCashierPerformance(start, end);
-        for (Object[] row : cashierData) {
-            cashierStats.add(DailySalesReport.CashierStat.builder()
-                    .cashierId((Long) row[0])
-                    .cashierName((String) row[1])
-                    .transactionCount((Long) row[2])
-                    .totalSales((BigDecimal) row[3])
+        List<DailySalesReport> reports = new ArrayList<>(days.size());
+        days.forEach((date, day) -> reports.add(day.toReport(date)));
+        return reports;
+    }
+
+    /**
+     * Folds the grouped rows of one day into the totals and breakdowns of its report.
+     */
+    private static class DayAccumulator {
+        private BigDecimal totalRevenue = BigDecimal.ZERO;
+        private BigDecimal totalTax = BigDecimal.ZERO;
+        private BigDecimal totalDiscount = BigDecimal.ZERO;
+        private long transactionCount;
+        private int totalItemsSold;
+        private final Map<String, DailySalesReport.PaymentMethodStat> paymentMethods = new LinkedHashMap<>();
+        private final Map<Integer, DailySalesReport.HourlyStat> hours = new TreeMap<>();
+        private final Map<Long, DailySalesReport.CashierStat> cashiers = new LinkedHashMap<>();
+        private final List<DailySalesReport.TopProduct> products = new ArrayList<>();
+
+        void addSales(int hour, String method, Long cashierId, String cashierName,
+                      long count, BigDecimal grandTotal, BigDecimal tax, BigDecimal discount) {
+            totalRevenue = totalRevenue.add(grandTotal);
+            totalTax = totalTax.add(tax);
+            totalDiscount = totalDiscount.add(discount);
+            transactionCount += count;
+
+            DailySalesReport.PaymentMethodStat payment = paymentMethods.computeIfAbsent(method, m ->
+                    DailySalesReport.PaymentMethodStat.builder().method(m).count(0L).total(BigDecimal.ZERO).build());
+            payment.setCount(payment.getCount() + count);
+            payment.setTotal(payment.getTotal().add(grandTotal));
+
+            DailySalesReport.HourlyStat hourly = hours.computeIfAbsent(hour, h ->
+                    DailySalesReport.HourlyStat.builder()
+                            .hour(h)
+                            .timeRange(String.format("%02d:00 - %02d:59", h, h))
+                            .count(0L)
+                            .total(BigDecimal.ZERO)
+                            .build());
+            hourly.setCount(hourly.getCount() + count);
+            hourly.setTotal(hourly.getTotal().add(grandTotal));
+
+            DailySalesReport.CashierStat cashier = cashiers.computeIfAbsent(cashierId, id ->
+                    DailySalesReport.CashierStat.builder()
+                            .cashierId(id)
+                            .cashierName(cashierName)
+                            .transactionCount(0L)
+                            .totalSales(BigDecimal.ZERO)
+                            .build());
+            cashier.setTransactionCount(cashier.getTransactionCount() + count);
+            cashier.setTotalSales(cashier.getTotalSales().add(grandTotal));
+        }
+
+        void addProduct(Long productId, String productName, int quantity, BigDecimal revenue) {
+            totalItemsSold += quantity;
+            products.add(DailySalesReport.TopProduct.builder()
+                    .productId(productId)
+                    .productName(productName)
+                    .quantitySold(quantity)
+                    .revenue(revenue)
                     .build());
         }
 
-        // Calculate total items sold
-        int totalItemsSold = topProducts.stream()
-                .mapToInt(DailySalesReport.TopProduct::getQuantitySold)
-                .sum();
-
-        return DailySalesReport.builder()
-                .reportDate(date)
-                .totalRevenue(totalRevenue)
-                .totalTax(totalTax)
-                .totalDiscount(totalDiscount)
-                .netRevenue(netRevenue)
-                .transactionCount(transactionCount)
-                .averageTransaction(avgTransaction)
-                .totalItemsSold(totalItemsSold)
-                .paymentMethods(paymentStats)
-                .hourlySales(hourlyStats)
-                .topProducts(topProducts)
-                .cashierPerformance(cashierStats)
-                .build();
-    }
+        DailySalesReport toReport(LocalDate date) {
+            BigDecimal avgTransaction = transactionCount > 0
+                    ? totalRevenue.divide(BigDecimal.valueOf(transactionCount), 2, RoundingMode.HALF_UP)
+                    : BigDecimal.ZERO;
 
-    public List<DailySalesReport> getWeeklySalesReport(LocalDate startDate) {
-        List<DailySalesReport> reports = new ArrayList<>();
-        for (int i = 0; i < 7; i++) {
-            reports.add(getDailySalesReport(startDate.plusDays(i)));
+            for (DailySalesReport.PaymentMethodStat payment : paymentMethods.values()) {
+                payment.setPercentage(totalRevenue.compareTo(BigDecimal.ZERO) > 0
+                        ? payment.getTotal().multiply(BigDecimal.valueOf(100)).divide(totalRevenue, 2, RoundingMode.HALF_UP)
+                        : BigDecimal.ZERO);
+            }
+
+            List<DailySalesReport.TopProduct> topProducts = products.stream()
+                    .sorted(Comparator.comparing(DailySalesReport.TopProduct::getQuantitySold).reversed())
+                    .limit(TOP_PRODUCTS_LIMIT)
+                    .toList();
+
+            return DailySalesReport.builder()
+                    .reportDate(date)
+                    .totalRevenue(totalRevenue)
+                    .totalTax(totalTax)
+                    .totalDiscount(totalDiscount)
+                    .netRevenue(totalRevenue.subtract(totalTax))
+                    .transactionCount(transactionCount)
+                    .averageTransaction(avgTransaction)
+                    .totalItemsSold(totalItemsSold)
+                    .paymentMethods(new ArrayList<>(paymentMethods.values()))
+                    .hourlySales(new ArrayList<>(hours.values()))
+                    .topProducts(topProducts)
+                    .cashierPerformance(new ArrayList<>(cashiers.values()))
+                    .build();
         }
-        return reports;
     }
 }
@@ -0,0 +1,86 @@
+package com.warungku.pos.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.warungku.pos.entity.OutboxEvent;
+import com.warungku.pos.entity.Sale;
+import com.warungku.pos.entity.User;
+import com.warungku.pos.entity.enums.MovementType;
+import com.warungku.pos.entity.enums.OutboxEventType;
+import com.warungku.pos.exception.NotFoundException;
+import com.warungku.pos.repository.SaleRepository;
+import com.warungku.pos.repository.UserRepository;
+import com.warungku.pos.service.outbox.OutboxEventHandler;
+import com.warungku.pos.service.subscription.UsageMeter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Secondary effects of sales, carried out from the outbox after checkout has returned:
+ * the stock movement ledger, the report rollups and the plan usage counters.
+ */
+@Component
+@RequiredArgsConstructor
+public class SaleEventHandler implements OutboxEventHandler {
+
+    private final SaleRepository saleRepository;
+    private final UserRepository userRepository;
+    private final StockService stockService;
+    private final SalesRollupService salesRollupService;
+    private final UsageMeter usageMeter;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public Set<OutboxEventType> eventTypes() {
+        return EnumSet.of(OutboxEventType.SALE_CREATED, OutboxEventType.SALE_VOIDED, OutboxEventType.SALE_REFUNDED);
+    }
+
+    @Override
+    public void handle(OutboxEvent event) {
+        Payload payload = read(event.getPayload());
+        Sale sale = saleRepository.findWithItemsById(event.getAggregateId())
+                .orElseThrow(() -> new NotFoundException("Sale", event.getAggregateId()));
+        User user = payload.userId() != null ? userRepository.findById(payload.userId()).orElse(null) : null;
+        StockService.StockBatch batch = new StockService.StockBatch(SaleService.toStockLines(sale), sale.getId(), payload.notes());
+
+        switch (event.getEventType()) {
+            case SALE_CREATED -> {
+                stockService.recordMovements(batch, payload.stockAfter(), MovementType.SALE, user, "SALE", event.getCreatedAt());
+                salesRollupService.recordSale(sale);
+                usageMeter.recordTransactions(sale.getTenantId(), 1);
+            }
+            case SALE_VOIDED -> {
+                stockService.recordMovements(batch, payload.stockAfter(), MovementType.RETURN, user, "VOID", event.getCreatedAt());
+                salesRollupService.reverseSale(sale);
+                usageMeter.recordTransactions(sale.getTenantId(), -1);
+            }
+            case SALE_REFUNDED -> {
+                stockService.recordMovements(batch, payload.stockAfter(), MovementType.RETURN, user, "REFUND", event.getCreatedAt());
+                salesRollupService.reverseSale(sale);
+            }
+            default -> throw new IllegalStateException("Unexpected sale event " + event.getEventType());
+        }
+    }
+
+    private Payload read(String json) {
+        try {
+            return objectMapper.readValue(json, Payload.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot read sale event payload", e);
+        }
+    }
+
+    /**
+     * What the event's handling needs beyond the sale itself.
+     *
+     * @param userId     who made the change, recorded on the movements
+     * @param stockAfter stock per product read back right after the change's stock update
+     * @param notes      notes for the movements, e.g. the receipt number and void reason
+     */
+    public record Payload(Long userId, Map<Long, Integer> stockAfter, String notes) {
+    }
+}
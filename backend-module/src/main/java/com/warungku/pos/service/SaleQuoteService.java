@@ -0,0 +1,106 @@
+package com.warungku.pos.service;
+
+import com.warungku.pos.core.tenant.TenantContext;
+import com.warungku.pos.dto.ProductDto;
+import com.warungku.pos.dto.sale.CreateSaleRequest;
+import com.warungku.pos.dto.sale.SaleQuoteResponse;
+import com.warungku.pos.entity.enums.PaymentMethod;
+import com.warungku.pos.service.catalog.ProductCatalogCache;
+import com.warungku.pos.service.pricing.PricingEngine;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prices a cart the way {@link SaleService#createSale} would, from the cached catalog and outlet
+ * tax rate. Nothing is written and no transaction is opened; whatever would make the sale fail is
+ * reported as a warning instead, and lines for unknown products are left out of the totals.
+ */
+@Service
+@RequiredArgsConstructor
+public class SaleQuoteService {
+
+    private final ProductCatalogCache productCatalogCache;
+    private final OutletTaxRateCache outletTaxRateCache;
+
+    public SaleQuoteResponse quote(CreateSaleRequest request) {
+        BigDecimal taxRate = outletTaxRateCache.get(TenantContext.getTenantId());
+        List<SaleQuoteResponse.Line> lines = new ArrayList<>(request.getItems().size());
+        List<String> warnings = new ArrayList<>();
+        Map<Long, Integer> requested = new HashMap<>();
+        long subtotal = 0;
+        int totalItems = 0;
+
+        for (CreateSaleRequest.SaleItemRequest itemReq : request.getItems()) {
+            ProductDto product = productCatalogCache.findById(itemReq.getProductId()).orElse(null);
+            if (product == null) {
+                warnings.add("Product not found with id: " + itemReq.getProductId());
+                lines.add(SaleQuoteResponse.Line.builder()
+                        .productId(itemReq.getProductId())
+                        .quantity(itemReq.getQuantity())
+                        .build());
+                continue;
+            }
+
+            // Same check and message as checkout, against the same running total per product
+            int totalRequested = requested.merge(product.getId(), itemReq.getQuantity(), Integer::sum);
+            if (product.getStock() < totalRequested) {
+                warnings.add(String.format("Insufficient stock for '%s'. Available: %d, Requested: %d",
+                        product.getName(), product.getStock(), totalRequested));
+            }
+
+            long itemDiscount = PricingEngine.toMinor(itemReq.getDiscountAmount());
+            long itemSubtotal = PricingEngine.lineSubtotal(
+                    PricingEngine.toMinor(product.getPrice()), itemReq.getQuantity(), itemDiscount);
+            lines.add(SaleQuoteResponse.Line.builder()
+                    .productId(product.getId())
+                    .productSku(product.getSku())
+                    .productName(product.getName())
+                    .unitPrice(product.getPrice())
+                    .quantity(itemReq.getQuantity())
+                    .discountAmount(PricingEngine.toAmount(itemDiscount))
+                    .subtotal(PricingEngine.toAmount(itemSubtotal))
+                    .available(product.getStock())
+                    .build());
+            subtotal = Math.addExact(subtotal, itemSubtotal);
+            totalItems += itemReq.getQuantity();
+        }
+
+        PricingEngine.Totals totals = PricingEngine.totals(subtotal,
+                PricingEngine.toMinor(request.getDiscountAmount()),
+                PricingEngine.toPercentUnits(request.getDiscountPercent()),
+                PricingEngine.toRateUnits(taxRate));
+
+        BigDecimal amountPaid = PricingEngine.toAmount(totals.grandTotal());
+        BigDecimal changeAmount = BigDecimal.ZERO;
+        if (request.getPaymentMethod() == PaymentMethod.CASH) {
+            long paid = PricingEngine.toMinor(request.getAmountPaid());
+            amountPaid = request.getAmountPaid() != null ? PricingEngine.toAmount(paid) : null;
+            if (request.getAmountPaid() == null || paid < totals.grandTotal()) {
+                warnings.add("Amount paid must be >= grand total for cash payment");
+                changeAmount = null;
+            } else {
+                changeAmount = PricingEngine.toAmount(paid - totals.grandTotal());
+            }
+        }
+
+        return SaleQuoteResponse.builder()
+                .subtotal(PricingEngine.toAmount(totals.subtotal()))
+                .taxRate(taxRate)
+                .taxAmount(PricingEngine.toAmount(totals.taxAmount()))
+                .discountAmount(PricingEngine.toAmount(totals.discount()))
+                .discountPercent(request.getDiscountPercent() != null ? request.getDiscountPercent() : BigDecimal.ZERO)
+                .grandTotal(PricingEngine.toAmount(totals.grandTotal()))
+                .amountPaid(amountPaid)
+                .changeAmount(changeAmount)
+                .totalItems(totalItems)
+                .items(lines)
+                .warnings(warnings)
+                .build();
+    }
+}
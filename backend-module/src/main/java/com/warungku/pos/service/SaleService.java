@@ -1,28 +1,35 @@
 package com.warungku.pos.service;
 
 import com.warungku.pos.core.tenant.TenantContext;
+import com.warungku.pos.dto.CursorPage;
 import com.warungku.pos.dto.sale.CreateSaleRequest;
 import com.warungku.pos.dto.sale.SaleResponse;
+import com.warungku.pos.dto.sale.SaleSummaryResponse;
 import com.warungku.pos.entity.*;
+import com.warungku.pos.entity.enums.OutboxEventType;
 import com.warungku.pos.entity.enums.PaymentMethod;
 import com.warungku.pos.entity.enums.PaymentStatus;
 import com.warungku.pos.entity.enums.SaleStatus;
 import com.warungku.pos.exception.BadRequestException;
 import com.warungku.pos.exception.NotFoundException;
 import com.warungku.pos.repository.*;
+import com.warungku.pos.service.outbox.OutboxPublisher;
+import com.warungku.pos.service.pricing.PricingEngine;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -35,16 +42,20 @@ public class SaleService {
     private final OutletRepository outletRepository;
     private final ReceiptNumberGenerator receiptNumberGenerator;
     private final StockService stockService;
+    private final OutboxPublisher outboxPublisher;
 
     private static final BigDecimal DEFAULT_TAX_RATE = new BigDecimal("0.10");
 
-    public Page<SaleResponse> getSales(Pageable pageable) {
-        return saleRepository.findAllByOrderBySaleDateDesc(pageable)
-                .map(SaleResponse::fromEntity);
+    public CursorPage<SaleSummaryResponse> getSales(String cursor, int size) {
+        CursorPage.Cursor after = CursorPage.Cursor.decode(cursor);
+        List<SaleSummaryResponse> rows = after == null
+                ? saleRepository.findSummaries(CursorPage.limit(size))
+                : saleRepository.findSummariesBefore(after.date(), after.id(), CursorPage.limit(size));
+        return CursorPage.of(rows, size, sale -> new CursorPage.Cursor(sale.getSaleDate(), sale.getId()));
     }
 
     public SaleResponse getSale(Long id) {
-        Sale sale = saleRepository.findById(id)
+        Sale sale = saleRepository.findWithItemsById(id)
                 .orElseThrow(() -> new NotFoundException("Sale", id));
         return SaleResponse.fromEntity(sale);
     }
@@ -55,12 +66,10 @@ public class SaleService {
         return SaleResponse.fromEntity(sale);
     }
 
-    public List<SaleResponse> getTodaySales() {
+    public List<SaleSummaryResponse> getTodaySales() {
         LocalDateTime start = LocalDate.now().atStartOfDay();
         LocalDateTime end = LocalDate.now().atTime(LocalTime.MAX);
-        return saleRepository.findBySaleDateBetween(start, end).stream()
-                .map(SaleResponse::fromEntity)
-                .toList();
+        return saleRepository.findSummariesBetween(start, end);
     }
 
     @Transactional
@@ -74,103 +83,22 @@ public class SaleService {
         Outlet outlet = outletRepository.findById(tenantId)
                 .orElseThrow(() -> new NotFoundException("Outlet", tenantId));
 
-        BigDecimal taxRate = outlet.getTaxRate() != null ? outlet.getTaxRate() : DEFAULT_TAX_RATE;
-
-        // Create sale
-        Sale sale = Sale.builder()
-                .receiptNumber(receiptNumberGenerator.generate())
-                .saleDate(LocalDateTime.now())
-                .taxRate(taxRate)
-                .paymentMethod(request.getPaymentMethod())
-                .paymentStatus(PaymentStatus.PAID)
-                .status(SaleStatus.COMPLETED)
-                .notes(request.getNotes())
-                .customerName(request.getCustomerName())
-                .customerPhone(request.getCustomerPhone())
-                .cashier(cashier)
-                .tenantId(tenantId)
-                .build();
-
-        BigDecimal subtotal = BigDecimal.ZERO;
-
-        // Process items
-        for (CreateSaleRequest.SaleItemRequest itemReq : request.getItems()) {
-            Product product = productRepository.findById(itemReq.getProductId())
-                    .orElseThrow(() -> new NotFoundException("Product", itemReq.getProductId()));
-
-            // Validate stock
-            if (product.getStock() < itemReq.getQuantity()) {
-                throw new BadRequestException(
-                        String.format("Insufficient stock for '%s'. Available: %d, Requested: %d",
-                                product.getName(), product.getStock(), itemReq.getQuantity()));
-            }
-
-            BigDecimal itemDiscount = itemReq.getDiscountAmount() != null ? itemReq.getDiscountAmount() : BigDecimal.ZERO;
-            BigDecimal itemSubtotal = product.getPrice()
-                    .multiply(BigDecimal.valueOf(itemReq.getQuantity()))
-                    .subtract(itemDiscount);
-
-            SaleItem saleItem = SaleItem.builder()
-                    .product(product)
-                    .productSku(product.getSku())
-                    .productName(product.getName())
-                    .unitPrice(product.getPrice())
-                    .quantity(itemReq.getQuantity())
-                    .discountAmount(itemDiscount)
-                    .subtotal(itemSubtotal)
-                    .notes(itemReq.getNotes())
-                    .build();
-
-            sale.addItem(saleItem);
-            subtotal = subtotal.add(itemSubtotal);
-        }
-
-        // Calculate totals
-        BigDecimal discountAmount = request.getDiscountAmount() != null ? request.getDiscountAmount() : BigDecimal.ZERO;
-        BigDecimal discountPercent = request.getDiscountPercent() != null ? request.getDiscountPercent() : BigDecimal.ZERO;
-
-        // Apply percentage discount if provided
-        if (discountPercent.compareTo(BigDecimal.ZERO) > 0) {
-            discountAmount = discountAmount.add(
-                    subtotal.multiply(discountPercent).divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP)
-            );
-        }
-
-        BigDecimal afterDiscount = subtotal.subtract(discountAmount);
-        BigDecimal taxAmount = afterDiscount.multiply(taxRate).setScale(2, RoundingMode.HALF_UP);
-        BigDecimal grandTotal = afterDiscount.add(taxAmount);
-
-        sale.setSubtotal(subtotal);
-        sale.setDiscountAmount(discountAmount);
-        sale.setDiscountPercent(discountPercent);
-        sale.setTaxAmount(taxAmount);
-        sale.setGrandTotal(grandTotal);
+        // Load every product on the cart in one query
+        Map<Long, Product> products = loadProducts(request.getItems().stream()
+                .map(CreateSaleRequest.SaleItemRequest::getProductId)
+                .collect(Collectors.toSet()));
 
-        // Handle payment
-        if (request.getPaymentMethod() == PaymentMethod.CASH) {
-            if (request.getAmountPaid() == null || request.getAmountPaid().compareTo(grandTotal) < 0) {
-                throw new BadRequestException("Amount paid must be >= grand total for cash payment");
-            }
-            sale.setAmountPaid(request.getAmountPaid());
-            sale.setChangeAmount(request.getAmountPaid().subtract(grandTotal));
-        } else {
-            sale.setAmountPaid(grandTotal);
-            sale.setChangeAmount(BigDecimal.ZERO);
-        }
+        Sale sale = buildSale(request, cashier, taxRate(outlet), products, new HashMap<>());
+        sale.setReceiptNumber(receiptNumberGenerator.generate());
+        sale.setSaleDate(LocalDateTime.now());
 
         // Save sale
         sale = saleRepository.save(sale);
 
-        // Reduce stock for each item
-        for (SaleItem item : sale.getItems()) {
-            stockService.reduceStock(
-                    item.getProduct().getId(),
-                    item.getQuantity(),
-                    "SALE",
-                    sale.getId(),
-                    "Sale: " + sale.getReceiptNumber()
-            );
-        }
+        // Only the stock decrement runs at the till; movements, rollups and usage follow from the outbox
+        Map<Long, Integer> stockAfter = stockService.decrementStock(toStockLines(sale));
+        outboxPublisher.publish(OutboxEventType.SALE_CREATED, sale.getId(),
+                new SaleEventHandler.Payload(userId, stockAfter, "Sale: " + sale.getReceiptNumber()));
 
         log.info("Sale created: {} with {} items, total: {}",
                 sale.getReceiptNumber(), sale.getTotalItems(), sale.getGrandTotal());
@@ -180,7 +108,7 @@ public class SaleService {
 
     @Transactional
     public SaleResponse voidSale(Long id, String reason) {
-        Sale sale = saleRepository.findById(id)
+        Sale sale = saleRepository.findWithItemsById(id)
                 .orElseThrow(() -> new NotFoundException("Sale", id));
 
         if (sale.getStatus() != SaleStatus.COMPLETED) {
@@ -188,15 +116,9 @@ public class SaleService {
         }
 
         // Restore stock
-        for (SaleItem item : sale.getItems()) {
-            stockService.restoreStock(
-                    item.getProduct().getId(),
-                    item.getQuantity(),
-                    "VOID",
-                    sale.getId(),
-                    "Void sale: " + sale.getReceiptNumber() + " - " + reason
-            );
-        }
+        Map<Long, Integer> stockAfter = stockService.incrementStock(toStockLines(sale));
+        outboxPublisher.publish(OutboxEventType.SALE_VOIDED, sale.getId(), new SaleEventHandler.Payload(
+                TenantContext.getUserId(), stockAfter, "Void sale: " + sale.getReceiptNumber() + " - " + reason));
 
         sale.setStatus(SaleStatus.VOIDED);
         sale.setPaymentStatus(PaymentStatus.REFUNDED);
@@ -210,7 +132,7 @@ public class SaleService {
 
     @Transactional
     public SaleResponse refundSale(Long id, String reason) {
-        Sale sale = saleRepository.findById(id)
+        Sale sale = saleRepository.findWithItemsById(id)
                 .orElseThrow(() -> new NotFoundException("Sale", id));
 
         if (sale.getStatus() != SaleStatus.COMPLETED) {
@@ -218,15 +140,9 @@ public class SaleService {
         }
 
         // Restore stock
-        for (SaleItem item : sale.getItems()) {
-            stockService.restoreStock(
-                    item.getProduct().getId(),
-                    item.getQuantity(),
-                    "REFUND",
-                    sale.getId(),
-                    "Refund: " + sale.getReceiptNumber() + " - " + reason
-            );
-        }
+        Map<Long, Integer> stockAfter = stockService.incrementStock(toStockLines(sale));
+        outboxPublisher.publish(OutboxEventType.SALE_REFUNDED, sale.getId(), new SaleEventHandler.Payload(
+                TenantContext.getUserId(), stockAfter, "Refund: " + sale.getReceiptNumber() + " - " + reason));
 
         sale.setStatus(SaleStatus.REFUNDED);
         sale.setPaymentStatus(PaymentStatus.REFUNDED);
@@ -237,4 +153,103 @@ public class SaleService {
 
         return SaleResponse.fromEntity(sale);
     }
+
+    /**
+     * Prices a cart into an unsaved sale with its items and totals; receipt number and sale date are
+     * left to the caller. {@code requested} accumulates quantities per product, so several carts
+     * checked against the same loaded products cannot together exceed their stock.
+     */
+    Sale buildSale(CreateSaleRequest request, User cashier, BigDecimal taxRate,
+                   Map<Long, Product> products, Map<Long, Integer> requested) {
+        // Create sale
+        Sale sale = Sale.builder()
+                .taxRate(taxRate)
+                .paymentMethod(request.getPaymentMethod())
+                .paymentStatus(PaymentStatus.PAID)
+                .status(SaleStatus.COMPLETED)
+                .notes(request.getNotes())
+                .customerName(request.getCustomerName())
+                .customerPhone(request.getCustomerPhone())
+                .cashier(cashier)
+                .tenantId(TenantContext.getTenantId())
+                .build();
+
+        long subtotal = 0;
+
+        // Process items
+        for (CreateSaleRequest.SaleItemRequest itemReq : request.getItems()) {
+            Product product = products.get(itemReq.getProductId());
+            if (product == null) {
+                throw new NotFoundException("Product", itemReq.getProductId());
+            }
+
+            // Fail fast on the loaded snapshot; StockService applies the authoritative conditional decrement
+            int totalRequested = requested.merge(product.getId(), itemReq.getQuantity(), Integer::sum);
+            if (product.getStock() < totalRequested) {
+                throw new BadRequestException(
+                        String.format("Insufficient stock for '%s'. Available: %d, Requested: %d",
+                                product.getName(), product.getStock(), totalRequested));
+            }
+
+            long itemDiscount = PricingEngine.toMinor(itemReq.getDiscountAmount());
+            long itemSubtotal = PricingEngine.lineSubtotal(
+                    PricingEngine.toMinor(product.getPrice()), itemReq.getQuantity(), itemDiscount);
+
+            SaleItem saleItem = SaleItem.builder()
+                    .product(product)
+                    .productSku(product.getSku())
+                    .productName(product.getName())
+                    .unitPrice(product.getPrice())
+                    .quantity(itemReq.getQuantity())
+                    .discountAmount(PricingEngine.toAmount(itemDiscount))
+                    .subtotal(PricingEngine.toAmount(itemSubtotal))
+                    .notes(itemReq.getNotes())
+                    .build();
+
+            sale.addItem(saleItem);
+            subtotal = Math.addExact(subtotal, itemSubtotal);
+        }
+
+        // Calculate totals
+        PricingEngine.Totals totals = PricingEngine.totals(subtotal,
+                PricingEngine.toMinor(request.getDiscountAmount()),
+                PricingEngine.toPercentUnits(request.getDiscountPercent()),
+                PricingEngine.toRateUnits(taxRate));
+
+        sale.setSubtotal(PricingEngine.toAmount(totals.subtotal()));
+        sale.setDiscountAmount(PricingEngine.toAmount(totals.discount()));
+        sale.setDiscountPercent(request.getDiscountPercent() != null ? request.getDiscountPercent() : BigDecimal.ZERO);
+        sale.setTaxAmount(PricingEngine.toAmount(totals.taxAmount()));
+        sale.setGrandTotal(PricingEngine.toAmount(totals.grandTotal()));
+
+        // Handle payment
+        if (request.getPaymentMethod() == PaymentMethod.CASH) {
+            long amountPaid = PricingEngine.toMinor(request.getAmountPaid());
+            if (request.getAmountPaid() == null || amountPaid < totals.grandTotal()) {
+                throw new BadRequestException("Amount paid must be >= grand total for cash payment");
+            }
+            sale.setAmountPaid(PricingEngine.toAmount(amountPaid));
+            sale.setChangeAmount(PricingEngine.toAmount(amountPaid - totals.grandTotal()));
+        } else {
+            sale.setAmountPaid(sale.getGrandTotal());
+            sale.setChangeAmount(BigDecimal.ZERO);
+        }
+
+        return sale;
+    }
+
+    static BigDecimal taxRate(Outlet outlet) {
+        return outlet.getTaxRate() != null ? outlet.getTaxRate() : DEFAULT_TAX_RATE;
+    }
+
+    Map<Long, Product> loadProducts(Set<Long> productIds) {
+        return productRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+    }
+
+    static List<StockService.StockLine> toStockLines(Sale sale) {
+        return sale.getItems().stream()
+                .map(item -> new StockService.StockLine(item.getProduct(), item.getQuantity()))
+                .toList();
+    }
 }
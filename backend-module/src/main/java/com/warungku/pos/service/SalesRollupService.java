@@ -0,0 +1,158 @@
+package com.warungku.pos.service;
+
+import com.warungku.pos.entity.ProductDailyRollup;
+import com.warungku.pos.entity.Sale;
+import com.warungku.pos.entity.SaleItem;
+import com.warungku.pos.entity.SalesHourlyRollup;
+import com.warungku.pos.entity.enums.PaymentMethod;
+import com.warungku.pos.exception.BadRequestException;
+import com.warungku.pos.repository.ArchivedMonthRepository;
+import com.warungku.pos.repository.ProductDailyRollupRepository;
+import com.warungku.pos.repository.SaleItemRepository;
+import com.warungku.pos.repository.SaleRepository;
+import com.warungku.pos.repository.SalesHourlyRollupRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintains the hourly sales and daily product rollups that reports read from.
+ * <p>
+ * Each sale carries a mark saying whether it is counted. Deltas only apply when they flip the mark,
+ * and a rebuild sets the marks of the sales it counts, so a sale's outbox event that is handled
+ * after a rebuild already counted or excluded it changes nothing.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SalesRollupService {
+
+    private final SalesHourlyRollupRepository salesHourlyRollupRepository;
+    private final ProductDailyRollupRepository productDailyRollupRepository;
+    private final SaleRepository saleRepository;
+    private final SaleItemRepository saleItemRepository;
+    private final ArchivedMonthRepository archivedMonthRepository;
+
+    /**
+     * Adds a completed sale to the rollups of its sale date, unless it is already counted.
+     */
+    @Transactional
+    public void recordSale(Sale sale) {
+        if (saleRepository.markRolledUp(sale.getId(), true) > 0) {
+            applyDelta(sale, 1);
+        }
+    }
+
+    /**
+     * Takes a voided or refunded sale back out of the rollups of its original sale date, unless it
+     * is not counted.
+     */
+    @Transactional
+    public void reverseSale(Sale sale) {
+        if (saleRepository.markRolledUp(sale.getId(), false) > 0) {
+            applyDelta(sale, -1);
+        }
+    }
+
+    /**
+     * Recomputes a tenant's rollups for a date range from raw sales. Marking the range's sales first
+     * locks them until the rebuild commits, so their pending events wait and then find them counted;
+     * sales committed after that are left to their events.
+     * Archived months are refused: their raw sales are gone, so their rollups are kept as they are.
+     */
+    @Transactional
+    public void rebuild(Long tenantId, LocalDate from, LocalDate to) {
+        List<LocalDate> archived = archivedMonthRepository.findMonths(tenantId, from.withDayOfMonth(1), to);
+        if (!archived.isEmpty()) {
+            throw new BadRequestException("Rollups of archived months cannot be rebuilt: " + archived);
+        }
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.atTime(LocalTime.MAX);
+
+        saleRepository.markRangeRolledUp(tenantId, start, end);
+        salesHourlyRollupRepository.deleteRange(tenantId, from, to);
+        productDailyRollupRepository.deleteRange(tenantId, from, to);
+
+        // day, hour, paymentMethod, cashierId, cashierName, count, grandTotal, tax, discount
+        List<SalesHourlyRollup> buckets = saleRepository.aggregateSalesByDate(tenantId, start, end).stream()
+                .<SalesHourlyRollup>map(row -> SalesHourlyRollup.builder()
+                        .tenantId(tenantId)
+                        .bucketDate((LocalDate) row[0])
+                        .bucketHour(((Number) row[1]).intValue())
+                        .paymentMethod((PaymentMethod) row[2])
+                        .cashierId((Long) row[3])
+                        .saleCount((Long) row[5])
+                        .grandTotal((BigDecimal) row[6])
+                        .taxAmount((BigDecimal) row[7])
+                        .discountAmount((BigDecimal) row[8])
+                        .build())
+                .toList();
+        salesHourlyRollupRepository.saveAll(buckets);
+
+        // day, productId, productName, quantity, revenue
+        List<ProductDailyRollup> products = saleItemRepository.aggregateProductsByDate(tenantId, start, end).stream()
+                .<ProductDailyRollup>map(row -> ProductDailyRollup.builder()
+                        .tenantId(tenantId)
+                        .bucketDate((LocalDate) row[0])
+                        .productId((Long) row[1])
+                        .productName((String) row[2])
+                        .quantity(((Number) row[3]).longValue())
+                        .revenue((BigDecimal) row[4])
+                        .build())
+                .toList();
+        productDailyRollupRepository.saveAll(products);
+
+        log.info("Rebuilt sales rollups for tenant {} from {} to {}: {} hourly buckets, {} product rows",
+                tenantId, from, to, buckets.size(), products.size());
+    }
+
+    private void applyDelta(Sale sale, int sign) {
+        BigDecimal factor = BigDecimal.valueOf(sign);
+        LocalDate day = sale.getSaleDate().toLocalDate();
+        BigDecimal discount = sale.getDiscountAmount() != null ? sale.getDiscountAmount() : BigDecimal.ZERO;
+
+        salesHourlyRollupRepository.addDelta(
+                sale.getTenantId(),
+                day,
+                sale.getSaleDate().getHour(),
+                sale.getPaymentMethod().name(),
+                sale.getCashier().getId(),
+                sign,
+                sale.getGrandTotal().multiply(factor),
+                sale.getTaxAmount().multiply(factor),
+                discount.multiply(factor)
+        );
+
+        // One upsert per product, however many lines it appears on
+        Map<Long, ProductDelta> byProduct = new LinkedHashMap<>();
+        for (SaleItem item : sale.getItems()) {
+            byProduct.merge(item.getProduct().getId(),
+                    new ProductDelta(item.getProductName(), item.getQuantity(), item.getSubtotal()),
+                    ProductDelta::plus);
+        }
+        byProduct.forEach((productId, delta) -> productDailyRollupRepository.addDelta(
+                sale.getTenantId(),
+                day,
+                productId,
+                delta.name(),
+                sign * delta.quantity(),
+                delta.revenue().multiply(factor)
+        ));
+    }
+
+    private record ProductDelta(String name, long quantity, BigDecimal revenue) {
+
+        ProductDelta plus(ProductDelta other) {
+            return new ProductDelta(name, quantity + other.quantity, revenue.add(other.revenue));
+        }
+    }
+}
@@ -1,21 +1,33 @@
 package com.warungku.pos.service;
 
 import com.warungku.pos.core.tenant.TenantContext;
+import com.warungku.pos.dto.CursorPage;
 import com.warungku.pos.entity.Product;
 import com.warungku.pos.entity.StockMovement;
 import com.warungku.pos.entity.User;
 import com.warungku.pos.entity.enums.MovementType;
 import com.warungku.pos.exception.BadRequestException;
+import com.warungku.pos.exception.ConflictException;
 import com.warungku.pos.exception.NotFoundException;
 import com.warungku.pos.repository.ProductRepository;
 import com.warungku.pos.repository.StockMovementRepository;
 import com.warungku.pos.repository.UserRepository;
+import com.warungku.pos.service.catalog.ProductCatalogCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 @Slf4j
 @Service
@@ -25,29 +37,92 @@ public class StockService {
     private final ProductRepository productRepository;
     private final StockMovementRepository stockMovementRepository;
     private final UserRepository userRepository;
+    private final ProductCatalogCache productCatalogCache;
 
+    /**
+     * Reduces stock for several lines at once. Products must already be loaded by the caller,
+     * and every movement is recorded against the given user in a single batch.
+     * <p>
+     * Each line is applied with a conditional {@code UPDATE ... WHERE stock >= quantity}, so two
+     * tills selling the last unit can never both succeed. The entity snapshots passed in are not
+     * modified; stock levels for the movement ledger are read back once after all updates.
+     */
     @Transactional
-    public Product reduceStock(Long productId, int quantity, String referenceType, Long referenceId, String notes) {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new NotFoundException("Product", productId));
+    public void reduceStock(List<StockLine> lines, User user, String referenceType, Long referenceId, String notes) {
+        reduceStock(List.of(new StockBatch(lines, referenceId, notes)), user, referenceType);
+    }
 
-        if (product.getStock() < quantity) {
-            throw new BadRequestException(
-                    String.format("Insufficient stock for '%s'. Available: %d, Requested: %d",
-                            product.getName(), product.getStock(), quantity));
-        }
+    /**
+     * Reduces stock for several references at once, e.g. a chunk of ingested sales: one conditional
+     * update per product across all batches, one stock read-back, and one batch of movements that
+     * still carry each batch's own reference.
+     */
+    @Transactional
+    public void reduceStock(List<StockBatch> batches, User user, String referenceType) {
+        List<StockLine> lines = batches.stream().flatMap(batch -> batch.lines().stream()).toList();
+        Map<Long, Integer> updatedStock = decrementStock(lines);
+        stockMovementRepository.saveAll(buildMovements(batches, updatedStock, MovementType.SALE, -1, user,
+                referenceType, LocalDateTime.now()));
 
-        int stockBefore = product.getStock();
-        int stockAfter = stockBefore - quantity;
+        log.debug("Stock reduced for {} lines in {} batches, reference {}", lines.size(), batches.size(), referenceType);
+    }
 
-        product.setStock(stockAfter);
-        product = productRepository.save(product);
+    /**
+     * Applies the conditional decrements of {@link #reduceStock} without writing movements, for
+     * callers that record them later through {@link #recordMovements}.
+     *
+     * @return the stock of every product on the lines right after the updates
+     */
+    @Transactional
+    public Map<Long, Integer> decrementStock(List<StockLine> lines) {
+        for (Map.Entry<Product, Integer> entry : totalsByProduct(lines).entrySet()) {
+            Product product = entry.getKey();
+            int quantity = entry.getValue();
+            if (productRepository.decrementStock(product.getId(), quantity) == 0) {
+                int available = currentStock(List.of(product.getId())).getOrDefault(product.getId(), 0);
+                throw new BadRequestException(
+                        String.format("Insufficient stock for '%s'. Available: %d, Requested: %d",
+                                product.getName(), available, quantity));
+            }
+        }
+        return readUpdatedStock(lines);
+    }
 
-        // Record movement
-        recordMovement(product, MovementType.SALE, -quantity, stockBefore, stockAfter, referenceType, referenceId, notes);
+    /**
+     * Counterpart of {@link #decrementStock} for stock coming back, e.g. a voided sale.
+     *
+     * @return the stock of every product on the lines right after the updates
+     */
+    @Transactional
+    public Map<Long, Integer> incrementStock(List<StockLine> lines) {
+        totalsByProduct(lines).forEach((product, quantity) ->
+                productRepository.incrementStock(product.getId(), quantity));
+        return readUpdatedStock(lines);
+    }
 
-        log.debug("Stock reduced for product {}: {} -> {}", product.getSku(), stockBefore, stockAfter);
-        return product;
+    /**
+     * Writes the movements of a batch whose stock updates were applied earlier, possibly in another
+     * transaction. {@code updatedStock} is the stock read back right after those updates, so the
+     * before/after values are the ones the updates produced, whatever happened to stock since.
+     * SALE movements took stock out; any other type put it back.
+     */
+    @Transactional
+    public void recordMovements(StockBatch batch, Map<Long, Integer> updatedStock, MovementType type, User user,
+                                String referenceType, LocalDateTime movementDate) {
+        int direction = type == MovementType.SALE ? -1 : 1;
+        stockMovementRepository.saveAll(buildMovements(List.of(batch), updatedStock, type, direction, user,
+                referenceType, movementDate));
+    }
+
+    /**
+     * A product's stock movements, newest first, one keyset page at a time.
+     */
+    public CursorPage<StockMovement> getMovements(Long productId, String cursor, int size) {
+        CursorPage.Cursor after = CursorPage.Cursor.decode(cursor);
+        List<StockMovement> rows = after == null
+                ? stockMovementRepository.findByProductIdOrderByMovementDateDescIdDesc(productId, CursorPage.limit(size))
+                : stockMovementRepository.findPageBefore(productId, after.date(), after.id(), CursorPage.limit(size));
+        return CursorPage.of(rows, size, movement -> new CursorPage.Cursor(movement.getMovementDate(), movement.getId()));
     }
 
     @Transactional
@@ -55,11 +130,12 @@ public class StockService {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new NotFoundException("Product", productId));
 
-        int stockBefore = product.getStock();
-        int stockAfter = stockBefore + quantity;
+        productRepository.incrementStock(productId, quantity);
+        int stockAfter = currentStock(List.of(productId)).getOrDefault(productId, 0);
+        int stockBefore = stockAfter - quantity;
 
         product.setStock(stockAfter);
-        product = productRepository.save(product);
+        productCatalogCache.updateStock(product.getTenantId(), Map.of(product.getId(), stockAfter));
 
         recordMovement(product, type, quantity, stockBefore, stockAfter, referenceType, referenceId, notes);
 
@@ -67,6 +143,11 @@ public class StockService {
         return product;
     }
 
+    /**
+     * Sets a counted stock level. The update only applies while stock is still the level the
+     * difference was worked out from; if a sale got in between, the count is refused with a
+     * conflict rather than silently undoing the sale.
+     */
     @Transactional
     public Product adjustStock(Long productId, int newStock, String notes) {
         Product product = productRepository.findById(productId)
@@ -75,8 +156,12 @@ public class StockService {
         int stockBefore = product.getStock();
         int difference = newStock - stockBefore;
 
+        if (productRepository.setStock(productId, stockBefore, newStock) == 0) {
+            throw new ConflictException(String.format(
+                    "Stock of '%s' changed while it was being adjusted; reload and count again", product.getName()));
+        }
         product.setStock(newStock);
-        product = productRepository.save(product);
+        productCatalogCache.updateStock(product.getTenantId(), Map.of(product.getId(), newStock));
 
         recordMovement(product, MovementType.ADJUSTMENT, difference, stockBefore, newStock, "ADJUSTMENT", null, notes);
 
@@ -89,25 +174,112 @@ public class StockService {
         addStock(productId, quantity, MovementType.RETURN, referenceType, referenceId, notes);
     }
 
+    /**
+     * Batch counterpart of {@link #restoreStock(Long, int, String, Long, String)}.
+     */
+    @Transactional
+    public void restoreStock(List<StockLine> lines, User user, String referenceType, Long referenceId, String notes) {
+        Map<Long, Integer> updatedStock = incrementStock(lines);
+        recordMovements(new StockBatch(lines, referenceId, notes), updatedStock, MovementType.RETURN, user,
+                referenceType, LocalDateTime.now());
+    }
+
+    /**
+     * Reads the stock of every product on the lines once all updates are applied,
+     * and hands it to the catalog cache for when the transaction commits.
+     */
+    private Map<Long, Integer> readUpdatedStock(List<StockLine> lines) {
+        Map<Long, Integer> stock = currentStock(lines.stream().map(line -> line.product().getId()).toList());
+        productCatalogCache.updateStock(TenantContext.getTenantId(), stock);
+        return stock;
+    }
+
+    /**
+     * Builds the movement rows for batches whose stock updates have already been applied.
+     * The stock after all updates is walked backwards to recover each line's before/after values.
+     */
+    private List<StockMovement> buildMovements(List<StockBatch> batches, Map<Long, Integer> updatedStock,
+                                               MovementType type, int direction, User user, String referenceType,
+                                               LocalDateTime movementDate) {
+        Map<Long, Integer> running = new HashMap<>(updatedStock);
+
+        List<StockMovement> movements = new ArrayList<>();
+        for (int b = batches.size() - 1; b >= 0; b--) {
+            StockBatch batch = batches.get(b);
+            for (int i = batch.lines().size() - 1; i >= 0; i--) {
+                StockLine line = batch.lines().get(i);
+                Long productId = line.product().getId();
+                int stockAfter = running.getOrDefault(productId, 0);
+                int stockBefore = stockAfter - direction * line.quantity();
+                running.put(productId, stockBefore);
+
+                movements.add(buildMovement(line.product(), type, line.quantity(), stockBefore, stockAfter,
+                        referenceType, batch.referenceId(), batch.notes(), user, movementDate));
+            }
+        }
+        Collections.reverse(movements);
+        return movements;
+    }
+
+    /**
+     * Sums quantities per product so a product appearing on several lines costs one update.
+     * Products come out in id order, so concurrent baskets lock their rows in the same order
+     * instead of deadlocking on each other.
+     */
+    private Map<Product, Integer> totalsByProduct(List<StockLine> lines) {
+        Map<Long, Product> products = new HashMap<>();
+        Map<Product, Integer> totals = new TreeMap<>(Comparator.comparing(Product::getId));
+        for (StockLine line : lines) {
+            Product product = products.computeIfAbsent(line.product().getId(), id -> line.product());
+            totals.merge(product, line.quantity(), Integer::sum);
+        }
+        return totals;
+    }
+
+    private Map<Long, Integer> currentStock(Collection<Long> productIds) {
+        Map<Long, Integer> stock = new HashMap<>();
+        for (Object[] row : productRepository.findStockByIds(new HashSet<>(productIds))) {
+            stock.put((Long) row[0], (Integer) row[1]);
+        }
+        return stock;
+    }
+
     private void recordMovement(Product product, MovementType type, int quantity, int stockBefore, int stockAfter,
                                 String referenceType, Long referenceId, String notes) {
         Long userId = TenantContext.getUserId();
         User user = userId != null ? userRepository.findById(userId).orElse(null) : null;
 
-        StockMovement movement = StockMovement.builder()
+        stockMovementRepository.save(buildMovement(product, type, quantity, stockBefore, stockAfter,
+                referenceType, referenceId, notes, user, LocalDateTime.now()));
+    }
+
+    private StockMovement buildMovement(Product product, MovementType type, int quantity, int stockBefore,
+                                        int stockAfter, String referenceType, Long referenceId, String notes,
+                                        User user, LocalDateTime movementDate) {
+        return StockMovement.builder()
                 .product(product)
                 .movementType(type)
                 .quantity(Math.abs(quantity))
                 .stockBefore(stockBefore)
                 .stockAfter(stockAfter)
-                .movementDate(LocalDateTime.now())
+                .movementDate(movementDate)
                 .referenceType(referenceType)
                 .referenceId(referenceId)
                 .notes(notes)
                 .createdBy(user)
                 .tenantId(TenantContext.getTenantId())
                 .build();
+    }
+
+    /**
+     * A product already loaded in the current persistence context and the quantity to move.
+     */
+    public record StockLine(Product product, int quantity) {
+    }
 
-        stockMovementRepository.save(movement);
+    /**
+     * The stock lines of one reference, e.g. one sale, with the notes its movements carry.
+     */
+    public record StockBatch(List<StockLine> lines, Long referenceId, String notes) {
     }
 }
@@ -12,6 +12,9 @@ import com.warungku.pos.exception.NotFoundException;
 import com.warungku.pos.repository.*;
 import com.warungku.pos.service.payment.PaymentGateway;
 import com.warungku.pos.service.payment.PaymentGatewayFactory;
+import com.warungku.pos.service.subscription.Entitlement;
+import com.warungku.pos.service.subscription.EntitlementCache;
+import com.warungku.pos.service.subscription.UsageMeter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -38,6 +41,8 @@ public class SubscriptionService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final PaymentGatewayFactory paymentGatewayFactory;
+    private final EntitlementCache entitlementCache;
+    private final UsageMeter usageMeter;
 
     private static final int TRIAL_DAYS = 7;
     private static final BigDecimal PRICE_PER_OUTLET = new BigDecimal("40000");
@@ -77,6 +82,7 @@ public class SubscriptionService {
                 .isActive(true)
                 .build();
         userRepository.save(admin);
+        usageMeter.recordUsers(outlet.getId(), 1);
 
         // Get trial plan or default plan
         Plan plan = planRepository.findByCode("STARTER")
@@ -100,6 +106,7 @@ public class SubscriptionService {
                 .usersUsed(1)
                 .build();
         subscription = subscriptionRepository.save(subscription);
+        entitlementCache.invalidate(outlet.getId());
 
         log.info("New tenant registered: {} with {} day trial", outlet.getName(), TRIAL_DAYS);
 
@@ -119,20 +126,20 @@ public class SubscriptionService {
         return subscriptionRepository.findActiveByTenantId(tenantId).isPresent();
     }
 
+    /**
+     * Gate for transaction APIs, answered from the tenant's entitlement snapshot.
+     */
     public void checkSubscriptionActive() {
         Long tenantId = TenantContext.getTenantId();
         if (tenantId == null)
             return;
 
-        Subscription subscription = subscriptionRepository.findByTenantId(tenantId)
+        Entitlement entitlement = entitlementCache.get(tenantId)
                 .orElseThrow(() -> new ForbiddenException("No subscription found. Please subscribe to continue."));
 
         // Check if subscription is explicitly cancelled or expired
-        if ((subscription.getStatus() != SubscriptionStatus.ACTIVE
-                && subscription.getStatus() != SubscriptionStatus.TRIAL) ||
-                (!subscription.isActive() && !subscription.isTrialActive())) {
-
-            if (subscription.isTrialExpired()) {
+        if (!entitlement.isUsable()) {
+            if (entitlement.isTrialExpired()) {
                 throw new ForbiddenException("Your free trial has ended. Please subscribe to continue.");
             }
 
@@ -261,6 +268,7 @@ public class SubscriptionService {
             subscription.setEndDate(invoice.getBillingPeriodEnd());
             subscription.setNextBillingDate(invoice.getBillingPeriodEnd().minusDays(7));
             subscriptionRepository.save(subscription);
+            entitlementCache.invalidate(subscription.getTenantId());
 
             // Activate tenant
             Outlet outlet = outletRepository.findById(subscription.getTenantId()).orElse(null);
@@ -291,6 +299,7 @@ public class SubscriptionService {
         subscription.setCancelReason(reason);
         subscription.setAutoRenew(false);
         subscription = subscriptionRepository.save(subscription);
+        entitlementCache.invalidate(tenantId);
 
         log.info("Subscription cancelled for tenant {}: {}", tenantId, reason);
 
@@ -299,26 +308,59 @@ public class SubscriptionService {
 
     // ==================== USAGE TRACKING ====================
 
-    @Transactional
-    public void incrementTransactionCount(Long tenantId) {
-        subscriptionRepository.findByTenantId(tenantId).ifPresent(sub -> {
-            sub.setTransactionsThisMonth(sub.getTransactionsThisMonth() + 1);
-            subscriptionRepository.save(sub);
+    /**
+     * Limit checks compare the metered usage with the plan limits of the entitlement snapshot.
+     */
+    public void checkTransactionLimit() {
+        checkTransactionLimit(1);
+    }
+
+    /**
+     * Checks that {@code count} more transactions fit in the month, e.g. a batch of offline sales.
+     */
+    public void checkTransactionLimit(int count) {
+        Long tenantId = TenantContext.getTenantId();
+        if (tenantId == null)
+            return;
+
+        entitlementCache.get(tenantId).ifPresent(entitlement -> {
+            if (entitlement.isTransactionLimitExceeded(usageMeter.transactions(tenantId), count)) {
+                throw new ForbiddenException("Monthly transaction limit reached. Please upgrade your plan.");
+            }
         });
     }
 
-    public void checkTransactionLimit() {
+    public void checkProductLimit() {
         Long tenantId = TenantContext.getTenantId();
         if (tenantId == null)
             return;
 
-        Subscription subscription = subscriptionRepository.findByTenantId(tenantId).orElse(null);
-        if (subscription == null)
+        entitlementCache.get(tenantId).ifPresent(entitlement -> {
+            if (entitlement.isProductLimitReached(usageMeter.products(tenantId))) {
+                throw new ForbiddenException("Product limit reached. Please upgrade your plan.");
+            }
+        });
+    }
+
+    public void checkUserLimit(Long tenantId) {
+        entitlementCache.get(tenantId).ifPresent(entitlement -> {
+            if (entitlement.isUserLimitReached(usageMeter.users(tenantId))) {
+                throw new ForbiddenException("User limit reached. Please upgrade your plan.");
+            }
+        });
+    }
+
+    /**
+     * Gate for export APIs - only plans with the export feature may download their data.
+     */
+    public void checkFeatureExport() {
+        Long tenantId = TenantContext.getTenantId();
+        if (tenantId == null)
             return;
 
-        Integer limit = subscription.getPlan().getMaxTransactionsPerMonth();
-        if (limit != null && subscription.getTransactionsThisMonth() >= limit) {
-            throw new ForbiddenException("Monthly transaction limit reached. Please upgrade your plan.");
+        boolean allowed = entitlementCache.get(tenantId).map(Entitlement::featureExport).orElse(false);
+        if (!allowed) {
+            throw new ForbiddenException("Data export is not included in your plan. Please upgrade your plan.");
         }
     }
 
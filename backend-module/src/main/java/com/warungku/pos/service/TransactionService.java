@@ -2,6 +2,7 @@ package com.warungku.pos.service;
 
 import com.warungku.pos.core.tenant.TenantContext;
 import com.warungku.pos.dto.CreateTransactionRequest;
+import com.warungku.pos.dto.CursorPage;
 import com.warungku.pos.dto.TransactionDto;
 import com.warungku.pos.entity.*;
 import com.warungku.pos.entity.enums.PaymentMethod;
@@ -12,18 +13,18 @@ import com.warungku.pos.repository.OutletRepository;
 import com.warungku.pos.repository.ProductRepository;
 import com.warungku.pos.repository.TransactionRepository;
 import com.warungku.pos.repository.UserRepository;
+import com.warungku.pos.service.catalog.ProductCatalogCache;
+import com.warungku.pos.service.pricing.PricingEngine;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -36,12 +37,17 @@ public class TransactionService {
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
     private final OutletRepository outletRepository;
+    private final ProductCatalogCache productCatalogCache;
     
     private static final AtomicLong invoiceCounter = new AtomicLong(System.currentTimeMillis() % 10000);
     
-    public Page<TransactionDto> getTransactions(Pageable pageable) {
-        return transactionRepository.findAllByOrderByCreatedAtDesc(pageable)
-                .map(TransactionDto::fromEntity);
+    public CursorPage<TransactionDto> getTransactions(String cursor, int size) {
+        CursorPage.Cursor after = CursorPage.Cursor.decode(cursor);
+        List<Transaction> rows = after == null
+                ? transactionRepository.findAllByOrderByCreatedAtDescIdDesc(CursorPage.limit(size))
+                : transactionRepository.findPageBefore(after.date(), after.id(), CursorPage.limit(size));
+        return CursorPage.of(rows.stream().map(TransactionDto::fromEntity).toList(), size,
+                trx -> new CursorPage.Cursor(trx.getCreatedAt(), trx.getId()));
     }
     
     public TransactionDto getTransaction(Long id) {
@@ -79,14 +85,13 @@ public class TransactionService {
         Transaction transaction = Transaction.builder()
                 .invoiceNumber(generateInvoiceNumber())
                 .paymentMethod(request.getPaymentMethod())
-                .discount(request.getDiscount() != null ? request.getDiscount() : BigDecimal.ZERO)
                 .notes(request.getNotes())
                 .cashier(cashier)
                 .status(TransactionStatus.COMPLETED)
                 .build();
         transaction.setTenantId(tenantId);
         
-        BigDecimal subtotal = BigDecimal.ZERO;
+        long subtotal = 0;
         
         for (CreateTransactionRequest.CartItem cartItem : request.getItems()) {
             Product product = productRepository.findById(cartItem.getProductId())
@@ -97,42 +102,49 @@ public class TransactionService {
                         ". Available: " + product.getStock());
             }
             
-            BigDecimal itemSubtotal = product.getPrice().multiply(BigDecimal.valueOf(cartItem.getQuantity()));
+            long itemSubtotal = PricingEngine.lineSubtotal(PricingEngine.toMinor(product.getPrice()), cartItem.getQuantity(), 0);
             
             TransactionItem item = TransactionItem.builder()
                     .product(product)
                     .productName(product.getName())
                     .price(product.getPrice())
                     .quantity(cartItem.getQuantity())
-                    .subtotal(itemSubtotal)
+                    .subtotal(PricingEngine.toAmount(itemSubtotal))
                     .notes(cartItem.getNotes())
                     .build();
             
             transaction.addItem(item);
-            subtotal = subtotal.add(itemSubtotal);
-            
-            // Reduce stock
-            product.setStock(product.getStock() - cartItem.getQuantity());
-            productRepository.save(product);
+            subtotal = Math.addExact(subtotal, itemSubtotal);
+        }
+        
+        // Reduce stock atomically; a concurrent sale may have taken the last units since the checks above
+        for (TransactionItem item : inProductOrder(transaction)) {
+            if (productRepository.decrementStock(item.getProduct().getId(), item.getQuantity()) == 0) {
+                throw new BadRequestException("Insufficient stock for " + item.getProduct().getName());
+            }
         }
         
-        BigDecimal tax = subtotal.multiply(outlet.getTaxRate());
-        BigDecimal total = subtotal.add(tax).subtract(transaction.getDiscount());
+        // Same rules as sales: discount before tax, tax rounded HALF_UP to 2 decimals
+        PricingEngine.Totals totals = PricingEngine.totals(subtotal, PricingEngine.toMinor(request.getDiscount()), 0,
+                PricingEngine.toRateUnits(SaleService.taxRate(outlet)));
         
-        transaction.setSubtotal(subtotal);
-        transaction.setTax(tax);
-        transaction.setTotal(total);
+        transaction.setSubtotal(PricingEngine.toAmount(totals.subtotal()));
+        transaction.setDiscount(PricingEngine.toAmount(totals.discount()));
+        transaction.setTax(PricingEngine.toAmount(totals.taxAmount()));
+        transaction.setTotal(PricingEngine.toAmount(totals.grandTotal()));
         
         // Handle cash payment
         if (request.getPaymentMethod() == PaymentMethod.CASH) {
-            if (request.getCashReceived() == null || request.getCashReceived().compareTo(total) < 0) {
+            long cashReceived = PricingEngine.toMinor(request.getCashReceived());
+            if (request.getCashReceived() == null || cashReceived < totals.grandTotal()) {
                 throw new BadRequestException("Cash received must be >= total amount");
             }
-            transaction.setCashReceived(request.getCashReceived());
-            transaction.setCashChange(request.getCashReceived().subtract(total));
+            transaction.setCashReceived(PricingEngine.toAmount(cashReceived));
+            transaction.setCashChange(PricingEngine.toAmount(cashReceived - totals.grandTotal()));
         }
         
         transaction = transactionRepository.save(transaction);
+        productCatalogCache.refreshStock(tenantId, productIds(transaction));
         log.info("Transaction created: {} for tenant: {}", transaction.getInvoiceNumber(), tenantId);
         
         return TransactionDto.fromEntity(transaction);
@@ -148,12 +160,12 @@ public class TransactionService {
         }
         
         // Restore stock
-        for (TransactionItem item : transaction.getItems()) {
-            Product product = item.getProduct();
-            product.setStock(product.getStock() + item.getQuantity());
-            productRepository.save(product);
+        for (TransactionItem item : inProductOrder(transaction)) {
+            productRepository.incrementStock(item.getProduct().getId(), item.getQuantity());
         }
         
+        productCatalogCache.refreshStock(transaction.getTenantId(), productIds(transaction));
+        
         transaction.setStatus(TransactionStatus.CANCELLED);
         transaction = transactionRepository.save(transaction);
         
@@ -161,6 +173,23 @@ public class TransactionService {
         return TransactionDto.fromEntity(transaction);
     }
     
+    /**
+     * Items in product id order, so concurrent carts lock product rows in the same order
+     * instead of deadlocking on each other.
+     */
+    private List<TransactionItem> inProductOrder(Transaction transaction) {
+        return transaction.getItems().stream()
+                .sorted(Comparator.comparing(item -> item.getProduct().getId()))
+                .toList();
+    }
+    
+    private List<Long> productIds(Transaction transaction) {
+        return transaction.getItems().stream()
+                .map(item -> item.getProduct().getId())
+                .distinct()
+                .toList();
+    }
+    
     private String generateInvoiceNumber() {
         String date = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
         long counter = invoiceCounter.incrementAndGet();
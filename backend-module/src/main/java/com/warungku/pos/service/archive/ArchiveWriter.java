@@ -0,0 +1,66 @@
+package com.warungku.pos.service.archive;
+
+import com.warungku.pos.service.export.CsvWriter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes one gzip-compressed CSV archive file. Rows go to a temporary file beside the target, which
+ * is synced and moved into place only on {@link #commit()}, so a file under its final name is
+ * always complete; closing without committing deletes the temporary file.
+ */
+class ArchiveWriter implements Closeable {
+
+    private final Path target;
+    private final Path temp;
+    private final FileChannel channel;
+    private final GZIPOutputStream gzip;
+    private final CsvWriter csv;
+    private long rows;
+    private boolean committed;
+
+    ArchiveWriter(Path target, Object... columns) throws IOException {
+        Files.createDirectories(target.getParent());
+        this.target = target;
+        this.temp = target.resolveSibling(target.getFileName() + ".tmp");
+        this.channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        this.gzip = new GZIPOutputStream(Channels.newOutputStream(channel), 64 * 1024);
+        this.csv = new CsvWriter(gzip, false);
+        csv.row(columns);
+    }
+
+    void row(Object... values) throws IOException {
+        csv.row(values);
+        rows++;
+    }
+
+    long rows() {
+        return rows;
+    }
+
+    void commit() throws IOException {
+        csv.flush();
+        gzip.finish();
+        channel.force(true);
+        channel.close();
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        committed = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!committed) {
+            channel.close();
+            Files.deleteIfExists(temp);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.warungku.pos.service.archive;
+
+import com.warungku.pos.service.export.CsvReader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Rows of archive files, read one at a time and file after file, so only one file is open and
+ * memory use does not grow with the rows. Closing it closes the open file.
+ */
+public class ArchivedRows<T> implements Iterator<T>, Closeable {
+
+    private final Iterator<Path> files;
+    private final Object[] columns;
+    private final Function<String[], T> mapper;
+    private final Predicate<T> filter;
+    private CsvReader reader;
+    private T next;
+
+    ArchivedRows(List<Path> files, Object[] columns, Function<String[], T> mapper, Predicate<T> filter) {
+        this.files = files.iterator();
+        this.columns = columns;
+        this.mapper = mapper;
+        this.filter = filter;
+    }
+
+    @Override
+    public boolean hasNext() {
+        try {
+            while (next == null) {
+                if (reader == null) {
+                    if (!files.hasNext()) {
+                        return false;
+                    }
+                    open(files.next());
+                }
+                String[] record = reader.next();
+                if (record == null) {
+                    close();
+                    continue;
+                }
+                T row = mapper.apply(record);
+                if (filter.test(row)) {
+                    next = row;
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        T row = next;
+        next = null;
+        return row;
+    }
+
+    private void open(Path file) throws IOException {
+        InputStream in = Files.newInputStream(file);
+        try {
+            reader = new CsvReader(new GZIPInputStream(in, 64 * 1024));
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        if (!Arrays.equals(reader.next(), columns)) {
+            throw new IOException("Unexpected columns in archive file " + file);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (reader != null) {
+            reader.close();
+            reader = null;
+        }
+    }
+}
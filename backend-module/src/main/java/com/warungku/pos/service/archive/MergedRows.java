@@ -0,0 +1,58 @@
+package com.warungku.pos.service.archive;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Merges two iterators that are each in order into one in that order, pulling one row at a time
+ * from each. On ties the first iterator's row comes first.
+ */
+public class MergedRows<T> implements Iterator<T> {
+
+    private final Iterator<? extends T> first;
+    private final Iterator<? extends T> second;
+    private final Comparator<? super T> order;
+    private T headOfFirst;
+    private T headOfSecond;
+
+    public MergedRows(Iterator<? extends T> first, Iterator<? extends T> second, Comparator<? super T> order) {
+        this.first = first;
+        this.second = second;
+        this.order = order;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return peekFirst() != null || peekSecond() != null;
+    }
+
+    @Override
+    public T next() {
+        T a = peekFirst();
+        T b = peekSecond();
+        if (a == null && b == null) {
+            throw new NoSuchElementException();
+        }
+        if (b == null || (a != null && order.compare(a, b) <= 0)) {
+            headOfFirst = null;
+            return a;
+        }
+        headOfSecond = null;
+        return b;
+    }
+
+    private T peekFirst() {
+        if (headOfFirst == null && first.hasNext()) {
+            headOfFirst = first.next();
+        }
+        return headOfFirst;
+    }
+
+    private T peekSecond() {
+        if (headOfSecond == null && second.hasNext()) {
+            headOfSecond = second.next();
+        }
+        return headOfSecond;
+    }
+}
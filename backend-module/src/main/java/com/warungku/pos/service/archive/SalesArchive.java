@@ -0,0 +1,128 @@
+package com.warungku.pos.service.archive;
+
+import com.warungku.pos.dto.StockMovementDto;
+import com.warungku.pos.dto.sale.SaleExportRow;
+import com.warungku.pos.entity.enums.MovementType;
+import com.warungku.pos.entity.enums.PaymentMethod;
+import com.warungku.pos.entity.enums.SaleStatus;
+import com.warungku.pos.repository.ArchivedMonthRepository;
+import com.warungku.pos.service.export.DayRange;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Archive files of closed months: per tenant and month, one gzip-compressed CSV of sale lines and
+ * one of stock movements under {@code archive.dir/<tenantId>/<yyyy-MM>/}, each in the order the
+ * exports read them. Written by {@link SalesArchiver}; read back as typed rows by the exports.
+ */
+@Component
+public class SalesArchive {
+
+    private static final String SALES_FILE = "sales.csv.gz";
+    private static final String MOVEMENTS_FILE = "stock_movements.csv.gz";
+
+    private static final Object[] SALE_COLUMNS = {"sale_id", "receipt_number", "sale_date", "status",
+            "payment_method", "cashier", "customer", "sale_subtotal", "sale_discount", "sale_tax", "grand_total",
+            "product_sku", "product_name", "quantity", "unit_price", "item_discount", "item_subtotal"};
+
+    private static final Object[] MOVEMENT_COLUMNS = {"id", "movement_date", "movement_type", "product_id",
+            "product_sku", "product_name", "quantity", "stock_before", "stock_after", "reference_type",
+            "reference_id", "notes", "created_by_id", "created_by_name"};
+
+    private final ArchivedMonthRepository archivedMonthRepository;
+    private final Path dir;
+
+    public SalesArchive(ArchivedMonthRepository archivedMonthRepository,
+                        @Value("${archive.dir:./data/archive}") String dir) {
+        this.archivedMonthRepository = archivedMonthRepository;
+        this.dir = Path.of(dir);
+    }
+
+    ArchiveWriter salesWriter(Long tenantId, YearMonth month) throws IOException {
+        return new ArchiveWriter(file(tenantId, month, SALES_FILE), SALE_COLUMNS);
+    }
+
+    ArchiveWriter movementsWriter(Long tenantId, YearMonth month) throws IOException {
+        return new ArchiveWriter(file(tenantId, month, MOVEMENTS_FILE), MOVEMENT_COLUMNS);
+    }
+
+    /**
+     * The tenant's archived sale lines in range, in sale order; none if no month in range is archived.
+     */
+    public ArchivedRows<SaleExportRow> sales(Long tenantId, DayRange days) {
+        return new ArchivedRows<>(files(tenantId, days, SALES_FILE), SALE_COLUMNS, SalesArchive::saleRow,
+                row -> days.contains(row.getSaleDate()));
+    }
+
+    /**
+     * The tenant's archived stock movements in range, oldest first; null filters are ignored.
+     * Archive files hold whole months, so a product filter still reads every movement of the month.
+     */
+    public ArchivedRows<StockMovementDto> movements(Long tenantId, Long productId, MovementType type, DayRange days) {
+        return new ArchivedRows<>(files(tenantId, days, MOVEMENTS_FILE), MOVEMENT_COLUMNS, SalesArchive::movementRow,
+                row -> days.contains(row.getMovementDate())
+                        && (productId == null || productId.equals(row.getProductId()))
+                        && (type == null || type == row.getMovementType()));
+    }
+
+    private List<Path> files(Long tenantId, DayRange days, String name) {
+        LocalDate from = days.from() != null ? days.from().withDayOfMonth(1) : null;
+        return archivedMonthRepository.findMonths(tenantId, from, days.to()).stream()
+                .map(monthStart -> file(tenantId, YearMonth.from(monthStart), name))
+                .toList();
+    }
+
+    private Path file(Long tenantId, YearMonth month, String name) {
+        return dir.resolve(tenantId.toString()).resolve(month.toString()).resolve(name);
+    }
+
+    static Object[] saleValues(SaleExportRow r) {
+        return new Object[]{r.getSaleId(), r.getReceiptNumber(), r.getSaleDate(), r.getStatus(), r.getPaymentMethod(),
+                r.getCashierName(), r.getCustomerName(), r.getSaleSubtotal(), r.getSaleDiscount(), r.getSaleTax(),
+                r.getGrandTotal(), r.getProductSku(), r.getProductName(), r.getQuantity(), r.getUnitPrice(),
+                r.getItemDiscount(), r.getItemSubtotal()};
+    }
+
+    static Object[] movementValues(StockMovementDto m) {
+        return new Object[]{m.getId(), m.getMovementDate(), m.getMovementType(), m.getProductId(), m.getProductSku(),
+                m.getProductName(), m.getQuantity(), m.getStockBefore(), m.getStockAfter(), m.getReferenceType(),
+                m.getReferenceId(), m.getNotes(), m.getCreatedById(), m.getCreatedByName()};
+    }
+
+    private static SaleExportRow saleRow(String[] f) {
+        return new SaleExportRow(toLong(f[0]), f[1], toDateTime(f[2]),
+                f[3] != null ? SaleStatus.valueOf(f[3]) : null, f[4] != null ? PaymentMethod.valueOf(f[4]) : null,
+                f[5], f[6], toDecimal(f[7]), toDecimal(f[8]), toDecimal(f[9]), toDecimal(f[10]),
+                f[11], f[12], toInt(f[13]), toDecimal(f[14]), toDecimal(f[15]), toDecimal(f[16]));
+    }
+
+    private static StockMovementDto movementRow(String[] f) {
+        return new StockMovementDto(toLong(f[0]), toDateTime(f[1]), f[2] != null ? MovementType.valueOf(f[2]) : null,
+                toLong(f[3]), f[4], f[5], toInt(f[6]), toInt(f[7]), toInt(f[8]), f[9], toLong(f[10]), f[11],
+                toLong(f[12]), f[13]);
+    }
+
+    private static Long toLong(String value) {
+        return value != null ? Long.valueOf(value) : null;
+    }
+
+    private static Integer toInt(String value) {
+        return value != null ? Integer.valueOf(value) : null;
+    }
+
+    private static BigDecimal toDecimal(String value) {
+        return value != null ? new BigDecimal(value) : null;
+    }
+
+    private static LocalDateTime toDateTime(String value) {
+        return value != null ? LocalDateTime.parse(value) : null;
+    }
+}
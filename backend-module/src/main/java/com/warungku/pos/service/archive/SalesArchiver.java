@@ -0,0 +1,218 @@
+package com.warungku.pos.service.archive;
+
+import com.warungku.pos.core.tenant.TenantContext;
+import com.warungku.pos.dto.StockMovementDto;
+import com.warungku.pos.dto.sale.SaleExportRow;
+import com.warungku.pos.entity.ArchivedMonth;
+import com.warungku.pos.repository.ArchivedMonthRepository;
+import com.warungku.pos.repository.SaleItemRepository;
+import com.warungku.pos.repository.SaleRepository;
+import com.warungku.pos.repository.StockMovementRepository;
+import com.warungku.pos.service.SalesRollupService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Moves closed months of sales and stock movements out of the live tables into the archive files,
+ * per tenant and oldest month first, once they are more than {@code archive.retain-months} old.
+ * <p>
+ * A month's rows are written to the files first. Then, in one transaction, its rollups are rebuilt
+ * from the raw sales one last time, the {@link ArchivedMonth} is recorded and the rows written are
+ * deleted by id; rows committed to the month meanwhile, e.g. synced from an offline terminal, stay
+ * live. Reports read only rollups, so they keep covering archived months; a run that fails part
+ * way leaves the month live, to be written again by the next run.
+ */
+@Slf4j
+@Service
+public class SalesArchiver {
+
+    // Ids per DELETE, to keep the IN lists bounded
+    private static final int DELETE_BATCH = 500;
+
+    private final SaleRepository saleRepository;
+    private final SaleItemRepository saleItemRepository;
+    private final StockMovementRepository stockMovementRepository;
+    private final ArchivedMonthRepository archivedMonthRepository;
+    private final SalesRollupService salesRollupService;
+    private final SalesArchive salesArchive;
+    private final TransactionTemplate tx;
+    private final TransactionTemplate readTx;
+    private final int retainMonths;
+    private final int monthsPerRun;
+
+    public SalesArchiver(SaleRepository saleRepository,
+                         SaleItemRepository saleItemRepository,
+                         StockMovementRepository stockMovementRepository,
+                         ArchivedMonthRepository archivedMonthRepository,
+                         SalesRollupService salesRollupService,
+                         SalesArchive salesArchive,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${archive.retain-months:13}") int retainMonths,
+                         @Value("${archive.months-per-run:3}") int monthsPerRun) {
+        this.saleRepository = saleRepository;
+        this.saleItemRepository = saleItemRepository;
+        this.stockMovementRepository = stockMovementRepository;
+        this.archivedMonthRepository = archivedMonthRepository;
+        this.salesRollupService = salesRollupService;
+        this.salesArchive = salesArchive;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.readTx = new TransactionTemplate(transactionManager);
+        this.readTx.setReadOnly(true);
+        this.retainMonths = Math.max(1, retainMonths);
+        this.monthsPerRun = Math.max(1, monthsPerRun);
+    }
+
+    /**
+     * Archives every tenant's oldest closed months, at most {@code archive.months-per-run} each.
+     *
+     * @return the number of months archived
+     */
+    public int archiveClosedMonths() {
+        return archiveClosedMonths(YearMonth.now());
+    }
+
+    int archiveClosedMonths(YearMonth current) {
+        YearMonth cutoff = current.minusMonths(retainMonths);
+        LocalDateTime before = cutoff.atDay(1).atStartOfDay();
+
+        // Oldest live row per tenant, sales or movements
+        Map<Long, LocalDateTime> oldest = new TreeMap<>();
+        List<Object[]> rows = new ArrayList<>(saleRepository.findOldestSaleDates(before));
+        rows.addAll(stockMovementRepository.findOldestMovementDates(before));
+        for (Object[] row : rows) {
+            oldest.merge((Long) row[0], (LocalDateTime) row[1], (a, b) -> a.isBefore(b) ? a : b);
+        }
+
+        int archived = 0;
+        for (Map.Entry<Long, LocalDateTime> entry : oldest.entrySet()) {
+            Long tenantId = entry.getKey();
+            int done = 0;
+            for (YearMonth month = YearMonth.from(entry.getValue());
+                 month.isBefore(cutoff) && done < monthsPerRun; month = month.plusMonths(1)) {
+                try {
+                    if (archiveMonth(tenantId, month)) {
+                        done++;
+                    }
+                } catch (RuntimeException e) {
+                    // Later months wait until this one is archived
+                    log.error("Failed to archive {} of tenant {}: {}", month, tenantId, e.getMessage(), e);
+                    break;
+                }
+            }
+            archived += done;
+        }
+        return archived;
+    }
+
+    /**
+     * @return whether the month was archived; false if it already was, or has no rows
+     */
+    boolean archiveMonth(Long tenantId, YearMonth month) {
+        LocalDate monthStart = month.atDay(1);
+        if (archivedMonthRepository.existsByTenantIdAndMonthStart(tenantId, monthStart)) {
+            return false;
+        }
+        LocalDateTime from = monthStart.atStartOfDay();
+        LocalDateTime until = month.plusMonths(1).atDay(1).atStartOfDay();
+
+        // The movement feed reads through the tenant filter
+        TenantContext.setTenantId(tenantId);
+        try {
+            Written written = readTx.execute(status -> write(tenantId, month, from, until));
+            if (written == null) {
+                return false;
+            }
+            tx.executeWithoutResult(status -> {
+                salesRollupService.rebuild(tenantId, monthStart, month.atEndOfMonth());
+                archivedMonthRepository.save(written.month());
+                for (List<Long> ids : batches(written.saleIds())) {
+                    saleItemRepository.deleteArchived(ids);
+                    saleRepository.deleteArchived(tenantId, ids);
+                }
+                for (List<Long> ids : batches(written.movementIds())) {
+                    stockMovementRepository.deleteArchived(tenantId, ids);
+                }
+            });
+            log.info("Archived {} of tenant {}: {} sale lines, {} stock movements",
+                    month, tenantId, written.month().getSaleRows(), written.month().getMovementRows());
+            return true;
+        } finally {
+            TenantContext.clear();
+        }
+    }
+
+    /**
+     * Writes the month's files, one query at a time.
+     *
+     * @return the month to record with the ids written, or null if it has no rows and nothing was written
+     */
+    private Written write(Long tenantId, YearMonth month, LocalDateTime from, LocalDateTime until) {
+        try (ArchiveWriter sales = salesArchive.salesWriter(tenantId, month);
+             ArchiveWriter movements = salesArchive.movementsWriter(tenantId, month)) {
+            // One row per sale line, so a sale's id repeats
+            Set<Long> saleIds = new LinkedHashSet<>();
+            try (Stream<SaleExportRow> rows = saleRepository.streamExport(tenantId, from, until)) {
+                for (Iterator<SaleExportRow> it = rows.iterator(); it.hasNext(); ) {
+                    SaleExportRow row = it.next();
+                    sales.row(SalesArchive.saleValues(row));
+                    saleIds.add(row.getSaleId());
+                }
+            }
+            List<Long> movementIds = new ArrayList<>();
+            try (Stream<StockMovementDto> rows = stockMovementRepository.streamFeed(null, null, from, until)) {
+                for (Iterator<StockMovementDto> it = rows.iterator(); it.hasNext(); ) {
+                    StockMovementDto row = it.next();
+                    movements.row(SalesArchive.movementValues(row));
+                    movementIds.add(row.getId());
+                }
+            }
+            if (sales.rows() == 0 && movements.rows() == 0) {
+                return null;
+            }
+            sales.commit();
+            movements.commit();
+            ArchivedMonth archived = ArchivedMonth.builder()
+                    .tenantId(tenantId)
+                    .monthStart(month.atDay(1))
+                    .saleRows(sales.rows())
+                    .movementRows(movements.rows())
+                    .lastSaleId(saleIds.stream().max(Long::compare).orElse(null))
+                    .lastMovementId(movementIds.stream().max(Long::compare).orElse(null))
+                    .build();
+            return new Written(archived, new ArrayList<>(saleIds), movementIds);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<List<Long>> batches(List<Long> ids) {
+        List<List<Long>> batches = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += DELETE_BATCH) {
+            batches.add(ids.subList(from, Math.min(from + DELETE_BATCH, ids.size())));
+        }
+        return batches;
+    }
+
+    /**
+     * A month written to the archive, with the ids of the rows in its files.
+     */
+    private record Written(ArchivedMonth month, List<Long> saleIds, List<Long> movementIds) {
+    }
+}
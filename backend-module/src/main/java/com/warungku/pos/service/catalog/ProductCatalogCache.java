@@ -0,0 +1,341 @@
+package com.warungku.pos.service.catalog;
+
+import com.warungku.pos.core.tenant.TenantContext;
+import com.warungku.pos.dto.ProductDto;
+import com.warungku.pos.entity.Product;
+import com.warungku.pos.repository.ProductRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * In-process cache of each tenant's active product catalog.
+ * <p>
+ * Catalogs are keyed by the tenant in {@link TenantContext} and loaded through the tenant-filtered
+ * repository; requests without a tenant always go to the database. Reads take no lock: a hit is a
+ * concurrent map lookup plus a stamp of the read time on the catalog. At most {@code maxTenants}
+ * catalogs are kept; a load that goes over drops the catalog read longest ago. Writes patch the
+ * cached catalog once their transaction commits, and every write bumps a per-tenant version so a
+ * catalog loaded concurrently with a write is never installed.
+ * <p>
+ * Each catalog also indexes its products by barcode and SKU so the scanner path resolves a code
+ * with a single hash lookup, and a {@link ProductSearchIndex} over names and codes for search.
+ * Catalogs of active outlets are warmed at startup by {@link ProductCatalogWarmer}.
+ */
+@Slf4j
+@Component
+public class ProductCatalogCache implements MeterBinder {
+
+    private final ProductRepository productRepository;
+    private final int maxTenants;
+    private final Map<Long, TenantCatalog> catalogs = new ConcurrentHashMap<>();
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+    // Serialises installs, patches and evictions; reads never take it
+    private final Object writeLock = new Object();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ProductCatalogCache(ProductRepository productRepository,
+                               @Value("${catalog.cache.max-tenants:500}") int maxTenants) {
+        this.productRepository = productRepository;
+        this.maxTenants = Math.max(1, maxTenants);
+    }
+
+    /**
+     * Active products of the current tenant ordered by id; empty when there is no tenant to cache for.
+     */
+    public Optional<List<ProductDto>> getActiveProducts() {
+        return currentCatalog().map(catalog -> List.copyOf(catalog.products.values()));
+    }
+
+    /**
+     * Active products of a category for the current tenant; empty when there is no tenant to cache for.
+     */
+    public Optional<List<ProductDto>> getActiveProductsByCategory(Long categoryId) {
+        return currentCatalog().map(catalog -> catalog.products.values().stream()
+                .filter(product -> Objects.equals(product.getCategoryId(), categoryId))
+                .toList());
+    }
+
+    /**
+     * Active product of the current tenant with the given id; empty when it is not cached.
+     */
+    public Optional<ProductDto> findById(Long productId) {
+        return currentCatalog().map(catalog -> catalog.products.get(productId));
+    }
+
+    /**
+     * Active product of the current tenant with the given barcode; empty when it is not cached.
+     */
+    public Optional<ProductDto> findByBarcode(String barcode) {
+        return currentCatalog().map(catalog -> catalog.byBarcode.get(barcode));
+    }
+
+    /**
+     * Active product of the current tenant with the given SKU; empty when it is not cached.
+     */
+    public Optional<ProductDto> findBySku(String sku) {
+        return currentCatalog().map(catalog -> catalog.bySku.get(sku));
+    }
+
+    /**
+     * Active products of the current tenant matching the query, best match first;
+     * empty when there is no tenant to cache for.
+     */
+    public Optional<List<ProductDto>> search(String query) {
+        return currentCatalog().map(catalog -> catalog.searchIndex.search(query).stream()
+                .map(catalog.products::get)
+                .filter(Objects::nonNull)
+                .toList());
+    }
+
+    /**
+     * Loads and caches a tenant's catalog ahead of its first request. Does nothing if already cached.
+     */
+    public void warm(Long tenantId) {
+        if (catalogs.containsKey(tenantId)) {
+            return;
+        }
+        long version = versions.getOrDefault(tenantId, 0L);
+        install(tenantId, version, load(tenantId));
+    }
+
+    /**
+     * Caches the new state of a product written in the current transaction.
+     * Inactive products are removed from the catalog. A product already cached keeps its cached
+     * stock level: stock is changed only by atomic updates, which patch it through
+     * {@link #updateStock}, and the entity may hold a level read before a concurrent sale.
+     */
+    public void put(Product product) {
+        ProductDto dto = ProductDto.fromEntity(product);
+        afterCommit(() -> patch(product.getTenantId(), catalog -> {
+            if (Boolean.TRUE.equals(dto.getIsActive())) {
+                ProductDto cached = catalog.products.get(dto.getId());
+                catalog.put(cached == null ? dto : dto.toBuilder()
+                        .stock(cached.getStock())
+                        .lowStock(dto.getMinStock() != null && cached.getStock() <= dto.getMinStock())
+                        .build());
+            } else {
+                catalog.remove(dto.getId());
+            }
+        }));
+    }
+
+    /**
+     * Applies stock levels written in the current transaction to the cached products.
+     */
+    public void updateStock(Long tenantId, Map<Long, Integer> stockByProduct) {
+        Map<Long, Integer> stock = Map.copyOf(stockByProduct);
+        afterCommit(() -> patch(tenantId, catalog -> stock.forEach((productId, level) -> {
+            ProductDto dto = catalog.products.get(productId);
+            if (dto != null) {
+                catalog.put(dto.toBuilder()
+                        .stock(level)
+                        .lowStock(dto.getMinStock() != null && level <= dto.getMinStock())
+                        .build());
+            }
+        })));
+    }
+
+    /**
+     * Reads back and caches the stock of products changed by bulk updates in the current transaction.
+     * Skips the read when the tenant's catalog is not cached.
+     */
+    public void refreshStock(Long tenantId, Collection<Long> productIds) {
+        if (tenantId == null || productIds.isEmpty() || !isCached(tenantId)) {
+            return;
+        }
+        Map<Long, Integer> stock = new HashMap<>();
+        for (Object[] row : productRepository.findStockByIds(productIds)) {
+            stock.put((Long) row[0], (Integer) row[1]);
+        }
+        updateStock(tenantId, stock);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", hits, LongAdder::sum)
+                .tag("cache", "productCatalog").tag("result", "hit")
+                .description("Catalog reads served from memory")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", misses, LongAdder::sum)
+                .tag("cache", "productCatalog").tag("result", "miss")
+                .description("Catalog reads that loaded the catalog from the database")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", evictions, LongAdder::sum)
+                .tag("cache", "productCatalog")
+                .description("Tenant catalogs dropped to stay within the size bound")
+                .register(registry);
+        Gauge.builder("cache.size", this, cache -> cache.size())
+                .tag("cache", "productCatalog")
+                .description("Tenant catalogs currently cached")
+                .register(registry);
+    }
+
+    int size() {
+        return catalogs.size();
+    }
+
+    private boolean isCached(Long tenantId) {
+        return catalogs.containsKey(tenantId);
+    }
+
+    private Optional<TenantCatalog> currentCatalog() {
+        Long tenantId = TenantContext.getTenantId();
+        if (tenantId == null) {
+            return Optional.empty();
+        }
+
+        TenantCatalog catalog = catalogs.get(tenantId);
+        if (catalog != null) {
+            catalog.lastRead = System.nanoTime();
+            hits.increment();
+            return Optional.of(catalog);
+        }
+
+        // Read before loading: a write committed from here on bumps it and keeps the load out
+        long version = versions.getOrDefault(tenantId, 0L);
+        misses.increment();
+        TenantCatalog loaded = load(tenantId);
+        install(tenantId, version, loaded);
+        return Optional.of(loaded);
+    }
+
+    private void install(Long tenantId, long version, TenantCatalog loaded) {
+        synchronized (writeLock) {
+            // A write committed while loading: serve this result once but do not cache it
+            if (versions.getOrDefault(tenantId, 0L) == version) {
+                catalogs.put(tenantId, loaded);
+                if (catalogs.size() > maxTenants) {
+                    evictLeastRecentlyRead();
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops the catalog read longest ago. A scan over at most {@code maxTenants} entries, run only
+     * when a load goes over the bound, so reads never have to keep an order up to date.
+     */
+    private void evictLeastRecentlyRead() {
+        Long eldest = null;
+        long eldestRead = Long.MAX_VALUE;
+        for (Map.Entry<Long, TenantCatalog> entry : catalogs.entrySet()) {
+            // Compared as a difference: nanoTime values may wrap
+            if (eldest == null || entry.getValue().lastRead - eldestRead < 0) {
+                eldest = entry.getKey();
+                eldestRead = entry.getValue().lastRead;
+            }
+        }
+        if (eldest != null && catalogs.remove(eldest) != null) {
+            evictions.increment();
+        }
+    }
+
+    private TenantCatalog load(Long tenantId) {
+        TenantCatalog catalog = new TenantCatalog();
+        for (Product product : productRepository.findActiveByTenant(tenantId)) {
+            // The query is already scoped to the tenant; never let another tenant's row in regardless
+            if (tenantId.equals(product.getTenantId())) {
+                catalog.put(ProductDto.fromEntity(product));
+            }
+        }
+        log.debug("Loaded catalog of {} products for tenant {}", catalog.products.size(), tenantId);
+        return catalog;
+    }
+
+    private void patch(Long tenantId, Consumer<TenantCatalog> change) {
+        if (tenantId == null) {
+            return;
+        }
+        synchronized (writeLock) {
+            versions.merge(tenantId, 1L, Long::sum);
+            TenantCatalog catalog = catalogs.get(tenantId);
+            if (catalog != null) {
+                change.accept(catalog);
+            }
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * One tenant's products by id, with barcode, SKU and search indexes kept in step on every put and remove.
+     * Mutated only under the write lock; readers see the concurrent maps without locking.
+     */
+    private static class TenantCatalog {
+        // When a request last read the catalog, for eviction; written by readers without a lock
+        private volatile long lastRead = System.nanoTime();
+        private final ConcurrentSkipListMap<Long, ProductDto> products = new ConcurrentSkipListMap<>();
+        private final Map<String, ProductDto> byBarcode = new ConcurrentHashMap<>();
+        private final Map<String, ProductDto> bySku = new ConcurrentHashMap<>();
+        private final ProductSearchIndex searchIndex = new ProductSearchIndex();
+
+        void put(ProductDto dto) {
+            ProductDto old = products.put(dto.getId(), dto);
+            if (old != null) {
+                unindexCodes(old);
+            }
+            if (dto.getBarcode() != null && !dto.getBarcode().isBlank()) {
+                byBarcode.put(dto.getBarcode(), dto);
+            }
+            if (dto.getSku() != null) {
+                bySku.put(dto.getSku(), dto);
+            }
+            // Stock patches leave the searchable text alone, so skip re-indexing it
+            if (old == null || !Objects.equals(old.getName(), dto.getName())
+                    || !Objects.equals(old.getSku(), dto.getSku())
+                    || !Objects.equals(old.getBarcode(), dto.getBarcode())) {
+                searchIndex.add(dto);
+            }
+        }
+
+        void remove(Long productId) {
+            ProductDto old = products.remove(productId);
+            if (old != null) {
+                unindexCodes(old);
+                searchIndex.remove(productId);
+            }
+        }
+
+        private void unindexCodes(ProductDto old) {
+            // Only drop index entries that still point at this product
+            if (old.getBarcode() != null) {
+                byBarcode.remove(old.getBarcode(), old);
+            }
+            if (old.getSku() != null) {
+                bySku.remove(old.getSku(), old);
+            }
+        }
+    }
+}
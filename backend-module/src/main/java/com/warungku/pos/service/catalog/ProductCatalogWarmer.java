@@ -0,0 +1,54 @@
+package com.warungku.pos.service.catalog;
+
+import com.warungku.pos.entity.Outlet;
+import com.warungku.pos.repository.OutletRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Loads the catalogs of active outlets once the application is ready, so the first scan
+ * at each outlet is already served from memory.
+ */
+@Slf4j
+@Component
+public class ProductCatalogWarmer {
+
+    private final OutletRepository outletRepository;
+    private final ProductCatalogCache productCatalogCache;
+    private final boolean enabled;
+    private final int maxTenants;
+
+    public ProductCatalogWarmer(OutletRepository outletRepository,
+                                ProductCatalogCache productCatalogCache,
+                                @Value("${catalog.cache.warm-on-startup:true}") boolean enabled,
+                                @Value("${catalog.cache.max-tenants:500}") int maxTenants) {
+        this.outletRepository = outletRepository;
+        this.productCatalogCache = productCatalogCache;
+        this.enabled = enabled;
+        this.maxTenants = maxTenants;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        if (!enabled) {
+            return;
+        }
+        // Warming more outlets than the cache holds would only evict the first ones again
+        List<Outlet> outlets = outletRepository.findByIsActiveTrue();
+        int warmed = 0;
+        for (Outlet outlet : outlets.subList(0, Math.min(outlets.size(), maxTenants))) {
+            try {
+                productCatalogCache.warm(outlet.getId());
+                warmed++;
+            } catch (Exception e) {
+                log.error("Failed to warm product catalog for tenant {}: {}", outlet.getId(), e.getMessage());
+            }
+        }
+        log.info("Warmed product catalogs for {} outlets.", warmed);
+    }
+}
@@ -0,0 +1,227 @@
+package com.warungku.pos.service.catalog;
+
+import com.warungku.pos.dto.ProductDto;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Trigram index over the names, SKUs and barcodes of one tenant's products.
+ * <p>
+ * Words are padded with two leading spaces before being split into trigrams, so one- and
+ * two-letter prefixes have postings of their own. A query collects candidates from the postings
+ * of its grams and ranks them: exact SKU or barcode, then name or SKU prefix, then word prefixes,
+ * then infix, then word prefixes within a small edit distance. Updated under the catalog lock;
+ * searches read the concurrent maps without locking.
+ */
+class ProductSearchIndex {
+
+    private static final int RANK_EXACT = 0;
+    private static final int RANK_PREFIX = 1;
+    private static final int RANK_WORD_PREFIX = 2;
+    private static final int RANK_INFIX = 3;
+    private static final int RANK_FUZZY = 4;
+
+    private final Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+    private final Map<Long, Document> documents = new ConcurrentHashMap<>();
+
+    void add(ProductDto product) {
+        remove(product.getId());
+        Document document = Document.of(product);
+        documents.put(product.getId(), document);
+        for (String gram : document.grams()) {
+            postings.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(product.getId());
+        }
+    }
+
+    void remove(Long productId) {
+        Document document = documents.remove(productId);
+        if (document == null) {
+            return;
+        }
+        for (String gram : document.grams()) {
+            Set<Long> ids = postings.get(gram);
+            if (ids != null) {
+                ids.remove(productId);
+                if (ids.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    /**
+     * Ids of the products matching the query, best match first; ties are ordered by name.
+     */
+    List<Long> search(String query) {
+        String text = normalize(query);
+        if (text.isEmpty()) {
+            return List.of();
+        }
+        String[] tokens = text.split(" ");
+
+        Set<Long> candidates = new LinkedHashSet<>();
+        for (String gram : queryGrams(text, tokens)) {
+            Set<Long> ids = postings.get(gram);
+            if (ids != null) {
+                candidates.addAll(ids);
+            }
+        }
+
+        List<Match> matches = new ArrayList<>();
+        for (Long id : candidates) {
+            Document document = documents.get(id);
+            if (document != null) {
+                int rank = document.rank(text, tokens);
+                if (rank >= 0) {
+                    matches.add(new Match(id, rank, document.name()));
+                }
+            }
+        }
+        matches.sort(Comparator.comparingInt(Match::rank)
+                .thenComparing(Match::name)
+                .thenComparing(Match::id));
+        return matches.stream().map(Match::id).toList();
+    }
+
+    /**
+     * Lower-cases the text and collapses everything but letters and digits into single spaces.
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{Nd}]+", " ").trim();
+    }
+
+    /**
+     * Padded grams of every token plus the inner grams of the whole query, so both prefix and
+     * infix matches become candidates.
+     */
+    private static Set<String> queryGrams(String text, String[] tokens) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (String token : tokens) {
+            addGrams(grams, token);
+        }
+        String compact = text.replace(" ", "");
+        for (int i = 0; i + 3 <= compact.length(); i++) {
+            grams.add(compact.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    private static void addGrams(Set<String> grams, String word) {
+        String padded = "  " + word;
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+    }
+
+    /**
+     * Most edits allowed between a query token and a word prefix; short tokens and codes must match exactly.
+     */
+    private static int allowedEdits(String token) {
+        if (token.length() < 3 || token.chars().anyMatch(Character::isDigit)) {
+            return 0;
+        }
+        return token.length() < 6 ? 1 : 2;
+    }
+
+    /**
+     * Smallest edit distance between the token and any prefix of the word, capped just above {@code max}.
+     */
+    private static int prefixDistance(String token, String word, int max) {
+        int[] previous = new int[word.length() + 1];
+        int[] current = new int[word.length() + 1];
+        for (int j = 0; j <= word.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= token.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= word.length(); j++) {
+                int cost = token.charAt(i - 1) == word.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        int best = Integer.MAX_VALUE;
+        for (int distance : previous) {
+            best = Math.min(best, distance);
+        }
+        return best;
+    }
+
+    private record Match(Long id, int rank, String name) {
+    }
+
+    private record Document(String name, String sku, String barcode, String[] words, Set<String> grams) {
+
+        static Document of(ProductDto product) {
+            String name = normalize(product.getName());
+            String sku = normalize(product.getSku());
+            String barcode = normalize(product.getBarcode());
+            List<String> words = new ArrayList<>();
+            for (String word : (name + " " + sku + " " + barcode).split(" ")) {
+                if (!word.isEmpty()) {
+                    words.add(word);
+                }
+            }
+            Set<String> grams = new LinkedHashSet<>();
+            words.forEach(word -> addGrams(grams, word));
+            return new Document(name, sku, barcode, words.toArray(String[]::new), Set.copyOf(grams));
+        }
+
+        /**
+         * Rank of this product for the query, or -1 when it does not match.
+         */
+        int rank(String text, String[] tokens) {
+            if (text.equals(sku) || text.equals(barcode)) {
+                return RANK_EXACT;
+            }
+            if (name.startsWith(text) || sku.startsWith(text)) {
+                return RANK_PREFIX;
+            }
+            if (allTokensMatch(tokens, 0)) {
+                return RANK_WORD_PREFIX;
+            }
+            if (name.contains(text) || sku.contains(text)) {
+                return RANK_INFIX;
+            }
+            return allTokensMatch(tokens, -1) ? RANK_FUZZY : -1;
+        }
+
+        /**
+         * Whether every token starts some word, within {@code edits} edits or the token's allowance when negative.
+         */
+        private boolean allTokensMatch(String[] tokens, int edits) {
+            for (String token : tokens) {
+                if (!anyWordMatches(token, edits >= 0 ? edits : allowedEdits(token))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean anyWordMatches(String token, int max) {
+            for (String word : words) {
+                if (max == 0 ? word.startsWith(token) : prefixDistance(token, word, max) <= max) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.warungku.pos.service.export;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads RFC 4180 CSV records one at a time, as {@link CsvWriter} writes them; quoted fields may
+ * hold commas, quotes and line breaks. Empty fields are read as null.
+ */
+public class CsvReader implements Closeable {
+
+    private final Reader in;
+    private final StringBuilder field = new StringBuilder();
+
+    public CsvReader(InputStream in) {
+        this.in = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    /**
+     * @return the next record, or null at the end of the input
+     */
+    public String[] next() throws IOException {
+        int c = in.read();
+        if (c < 0) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        field.setLength(0);
+        while (true) {
+            if (quoted) {
+                if (c < 0) {
+                    throw new IOException("Unterminated quoted field");
+                }
+                if (c == '"') {
+                    c = in.read();
+                    if (c != '"') {
+                        quoted = false;
+                        continue;
+                    }
+                }
+                field.append((char) c);
+            } else if (c == '"') {
+                quoted = true;
+                wasQuoted = true;
+            } else if (c == ',' || c == '\n' || c < 0) {
+                fields.add(field.isEmpty() && !wasQuoted ? null : field.toString());
+                field.setLength(0);
+                wasQuoted = false;
+                if (c != ',') {
+                    return fields.toArray(String[]::new);
+                }
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = in.read();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,72 @@
+package com.warungku.pos.service.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Writes RFC 4180 CSV rows to a stream as they come, holding nothing but the write buffer.
+ * By default date-times are written as {@code yyyy-MM-dd HH:mm:ss}, which spreadsheets read as dates,
+ * and text that a spreadsheet would read as a formula is prefixed with a quote. Without that
+ * spreadsheet treatment values are written exactly, e.g. for files read back by {@link CsvReader}.
+ */
+public class CsvWriter {
+
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final Writer out;
+    private final boolean forSpreadsheets;
+
+    public CsvWriter(OutputStream out) {
+        this(out, true);
+    }
+
+    /**
+     * @param forSpreadsheets false to write date-times in ISO form, to the nanosecond, and text as is
+     */
+    public CsvWriter(OutputStream out, boolean forSpreadsheets) {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        this.forSpreadsheets = forSpreadsheets;
+    }
+
+    public void row(Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            if (values[i] != null) {
+                writeField(values[i]);
+            }
+        }
+        out.write("\r\n");
+    }
+
+    private void writeField(Object value) throws IOException {
+        String text = value instanceof LocalDateTime dateTime && forSpreadsheets ? DATE_TIME.format(dateTime)
+                : value instanceof BigDecimal decimal ? decimal.toPlainString()
+                : value.toString();
+        if (forSpreadsheets && value instanceof CharSequence && !text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            out.write(text);
+            return;
+        }
+        out.write('"');
+        out.write(text.replace("\"", "\"\""));
+        out.write('"');
+    }
+
+    /**
+     * Flushes buffered rows; the stream itself is left open.
+     */
+    public void flush() throws IOException {
+        out.flush();
+    }
+}
@@ -0,0 +1,37 @@
+package com.warungku.pos.service.export;
+
+import com.warungku.pos.exception.BadRequestException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Inclusive range of days an export covers; either end may be open (null). Built from the request
+ * before any output is written, so a bad range is still answered with a plain 400.
+ */
+public record DayRange(LocalDate from, LocalDate to) {
+
+    public DayRange {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new BadRequestException("'from' must not be after 'to'");
+        }
+    }
+
+    /**
+     * @return the first instant of the range, or null when open
+     */
+    public LocalDateTime start() {
+        return from != null ? from.atStartOfDay() : null;
+    }
+
+    /**
+     * @return the first instant after the range, or null when open
+     */
+    public LocalDateTime until() {
+        return to != null ? to.plusDays(1).atStartOfDay() : null;
+    }
+
+    public boolean contains(LocalDateTime instant) {
+        return (from == null || !instant.isBefore(start())) && (to == null || instant.isBefore(until()));
+    }
+}
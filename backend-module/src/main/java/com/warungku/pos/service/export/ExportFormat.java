@@ -0,0 +1,41 @@
+package com.warungku.pos.service.export;
+
+import com.warungku.pos.exception.BadRequestException;
+
+/**
+ * Formats a streamed export can be written in.
+ */
+public enum ExportFormat {
+
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv;charset=UTF-8", "csv"),
+    XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    /**
+     * Parses a {@code format} request parameter, case-insensitively, into one of the formats an export supports.
+     */
+    public static ExportFormat of(String format, ExportFormat... supported) {
+        for (ExportFormat candidate : supported) {
+            if (candidate.name().equalsIgnoreCase(format.trim())) {
+                return candidate;
+            }
+        }
+        throw new BadRequestException("Unsupported export format: " + format);
+    }
+}
@@ -0,0 +1,78 @@
+package com.warungku.pos.service.export;
+
+import com.warungku.pos.core.tenant.TenantContext;
+import com.warungku.pos.dto.sale.SaleExportRow;
+import com.warungku.pos.exception.BadRequestException;
+import com.warungku.pos.repository.SaleRepository;
+import com.warungku.pos.service.archive.ArchivedRows;
+import com.warungku.pos.service.archive.MergedRows;
+import com.warungku.pos.service.archive.SalesArchive;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes the current tenant's sales, one row per sale line, to a stream as they are read from
+ * the database, so memory use does not grow with the number of sales. Sales of archived months are
+ * read back from the archive files and merged in, in sale order.
+ */
+@Service
+@RequiredArgsConstructor
+public class SaleExporter {
+
+    private static final Object[] HEADER = {"sale_id", "receipt_number", "sale_date", "status", "payment_method",
+            "cashier", "customer", "sale_subtotal", "sale_discount", "sale_tax", "grand_total", "product_sku",
+            "product_name", "quantity", "unit_price", "item_discount", "item_subtotal"};
+
+    private static final Comparator<SaleExportRow> SALE_ORDER =
+            Comparator.comparing(SaleExportRow::getSaleDate).thenComparing(SaleExportRow::getSaleId);
+
+    private final SaleRepository saleRepository;
+    private final SalesArchive salesArchive;
+
+    /**
+     * @param days both ends required
+     */
+    @Transactional(readOnly = true)
+    public void export(DayRange days, ExportFormat format, OutputStream out) throws IOException {
+        if (days.from() == null || days.to() == null) {
+            throw new BadRequestException("Sales export needs both 'from' and 'to'");
+        }
+        Long tenantId = TenantContext.getTenantId();
+        try (ArchivedRows<SaleExportRow> archived = salesArchive.sales(tenantId, days);
+             Stream<SaleExportRow> live = saleRepository.streamExport(tenantId, days.start(), days.until())) {
+            Iterator<SaleExportRow> it = new MergedRows<>(archived, live.iterator(), SALE_ORDER);
+            switch (format) {
+                case CSV -> {
+                    CsvWriter csv = new CsvWriter(out);
+                    csv.row(HEADER);
+                    while (it.hasNext()) {
+                        csv.row(values(it.next()));
+                    }
+                    csv.flush();
+                }
+                case XLSX -> {
+                    XlsxWriter xlsx = new XlsxWriter(out, "Sales", HEADER);
+                    while (it.hasNext()) {
+                        xlsx.row(values(it.next()));
+                    }
+                    xlsx.finish();
+                }
+                default -> throw new BadRequestException("Sales cannot be exported as " + format);
+            }
+        }
+    }
+
+    private static Object[] values(SaleExportRow r) {
+        return new Object[]{r.getSaleId(), r.getReceiptNumber(), r.getSaleDate(), r.getStatus(), r.getPaymentMethod(),
+                r.getCashierName(), r.getCustomerName(), r.getSaleSubtotal(), r.getSaleDiscount(), r.getSaleTax(),
+                r.getGrandTotal(), r.getProductSku(), r.getProductName(), r.getQuantity(), r.getUnitPrice(),
+                r.getItemDiscount(), r.getItemSubtotal()};
+    }
+}
@@ -0,0 +1,85 @@
+package com.warungku.pos.service.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.warungku.pos.core.tenant.TenantContext;
+import com.warungku.pos.dto.StockMovementDto;
+import com.warungku.pos.entity.enums.MovementType;
+import com.warungku.pos.exception.BadRequestException;
+import com.warungku.pos.repository.StockMovementRepository;
+import com.warungku.pos.service.archive.ArchivedRows;
+import com.warungku.pos.service.archive.MergedRows;
+import com.warungku.pos.service.archive.SalesArchive;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes the current tenant's stock movements to a stream as they are read from the database,
+ * so memory use does not grow with the number of movements. Movements of archived months are read
+ * back from the archive files and merged in, oldest first.
+ */
+@Service
+@RequiredArgsConstructor
+public class StockMovementExporter {
+
+    private static final Object[] CSV_HEADER = {"id", "movement_date", "movement_type", "product_id", "product_sku",
+            "product_name", "quantity", "stock_before", "stock_after", "reference_type", "reference_id", "notes",
+            "created_by_id", "created_by_name"};
+
+    private static final Comparator<StockMovementDto> FEED_ORDER =
+            Comparator.comparing(StockMovementDto::getMovementDate).thenComparing(StockMovementDto::getId);
+
+    private final StockMovementRepository stockMovementRepository;
+    private final SalesArchive salesArchive;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(readOnly = true)
+    public void export(Long productId, MovementType type, DayRange days, ExportFormat format, OutputStream out)
+            throws IOException {
+        try (ArchivedRows<StockMovementDto> archived =
+                     salesArchive.movements(TenantContext.getTenantId(), productId, type, days);
+             Stream<StockMovementDto> live =
+                     stockMovementRepository.streamFeed(productId, type, days.start(), days.until())) {
+            Iterator<StockMovementDto> rows = new MergedRows<>(archived, live.iterator(), FEED_ORDER);
+            switch (format) {
+                case NDJSON -> writeNdjson(rows, out);
+                case CSV -> writeCsv(rows, out);
+                default -> throw new BadRequestException("Stock movements cannot be exported as " + format);
+            }
+        }
+    }
+
+    private void writeNdjson(Iterator<StockMovementDto> rows, OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(StockMovementDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+        while (rows.hasNext()) {
+            writer.writeValue(generator, rows.next());
+            generator.writeRaw('\n');
+        }
+        generator.flush();
+    }
+
+    private static void writeCsv(Iterator<StockMovementDto> rows, OutputStream out) throws IOException {
+        CsvWriter csv = new CsvWriter(out);
+        csv.row(CSV_HEADER);
+        while (rows.hasNext()) {
+            StockMovementDto m = rows.next();
+            csv.row(m.getId(), m.getMovementDate(), m.getMovementType(), m.getProductId(), m.getProductSku(),
+                    m.getProductName(), m.getQuantity(), m.getStockBefore(), m.getStockAfter(), m.getReferenceType(),
+                    m.getReferenceId(), m.getNotes(), m.getCreatedById(), m.getCreatedByName());
+        }
+        csv.flush();
+    }
+}
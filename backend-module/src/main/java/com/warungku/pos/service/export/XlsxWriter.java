@@ -0,0 +1,252 @@
+package com.warungku.pos.service.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes an XLSX workbook row by row straight into the zip stream, holding nothing but the
+ * write buffers - unlike an in-memory workbook, whose size grows with the rows.
+ * <p>
+ * Text is written as inline strings, so no shared string table has to be kept. Numbers stay
+ * numbers and date-times become date cells. A sheet that reaches the Excel row limit continues
+ * on a new sheet, which repeats the header.
+ */
+public class XlsxWriter {
+
+    public static final int MAX_ROWS = 1_048_576;
+
+    private static final String MAIN_NS = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+    private static final String REL_NS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+    private static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+    private static final LocalDate EXCEL_EPOCH = LocalDate.of(1899, 12, 30);
+    private static final double SECONDS_PER_DAY = 86_400;
+
+    // Cell styles, by index into cellXfs of styles.xml
+    private static final int STYLE_DATE_TIME = 1;
+    private static final int STYLE_HEADER = 2;
+
+    private static final String STYLES = XML_DECLARATION
+            + "<styleSheet xmlns=\"" + MAIN_NS + "\">"
+            + "<numFmts count=\"1\"><numFmt numFmtId=\"164\" formatCode=\"yyyy-mm-dd hh:mm:ss\"/></numFmts>"
+            + "<fonts count=\"2\"><font><sz val=\"11\"/><name val=\"Calibri\"/></font>"
+            + "<font><b/><sz val=\"11\"/><name val=\"Calibri\"/></font></fonts>"
+            + "<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill>"
+            + "<fill><patternFill patternType=\"gray125\"/></fill></fills>"
+            + "<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>"
+            + "<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>"
+            + "<cellXfs count=\"3\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>"
+            + "<xf numFmtId=\"164\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/>"
+            + "<xf numFmtId=\"0\" fontId=\"1\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyFont=\"1\"/></cellXfs>"
+            + "<cellStyles count=\"1\"><cellStyle name=\"Normal\" xfId=\"0\" builtinId=\"0\"/></cellStyles>"
+            + "</styleSheet>";
+
+    private final ZipOutputStream zip;
+    private final Writer out;
+    private final String sheetName;
+    private final Object[] header;
+    private final int maxRows;
+    private final List<String> columns = new ArrayList<>();
+    private int sheets;
+    private int rowsInSheet;
+
+    public XlsxWriter(OutputStream out, String sheetName, Object... header) throws IOException {
+        this(out, MAX_ROWS, sheetName, header);
+    }
+
+    XlsxWriter(OutputStream out, int maxRows, String sheetName, Object... header) throws IOException {
+        this.zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        this.out = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), 64 * 1024);
+        this.sheetName = sheetName;
+        this.header = header;
+        this.maxRows = maxRows;
+        startSheet();
+    }
+
+    public void row(Object... values) throws IOException {
+        if (rowsInSheet == maxRows) {
+            endSheet();
+            startSheet();
+        }
+        writeRow(values, 0);
+    }
+
+    /**
+     * Completes the workbook; the underlying stream is flushed but left open.
+     */
+    public void finish() throws IOException {
+        endSheet();
+        writeEntry("[Content_Types].xml", contentTypes());
+        writeEntry("_rels/.rels", XML_DECLARATION
+                + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+                + "<Relationship Id=\"rId1\" Type=\"" + REL_NS + "/officeDocument\" Target=\"xl/workbook.xml\"/>"
+                + "</Relationships>");
+        writeEntry("xl/workbook.xml", workbook());
+        writeEntry("xl/_rels/workbook.xml.rels", workbookRelationships());
+        writeEntry("xl/styles.xml", STYLES);
+        zip.finish();
+        zip.flush();
+    }
+
+    private void startSheet() throws IOException {
+        sheets++;
+        rowsInSheet = 0;
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet" + sheets + ".xml"));
+        out.write(XML_DECLARATION);
+        out.write("<worksheet xmlns=\"" + MAIN_NS + "\" xmlns:r=\"" + REL_NS + "\">");
+        if (header.length > 0) {
+            // Keep the header in view while scrolling
+            out.write("<sheetViews><sheetView workbookViewId=\"0\">"
+                    + "<pane ySplit=\"1\" topLeftCell=\"A2\" activePane=\"bottomLeft\" state=\"frozen\"/>"
+                    + "</sheetView></sheetViews>");
+        }
+        out.write("<sheetData>");
+        if (header.length > 0) {
+            writeRow(header, STYLE_HEADER);
+        }
+    }
+
+    private void endSheet() throws IOException {
+        out.write("</sheetData></worksheet>");
+        out.flush();
+        zip.closeEntry();
+    }
+
+    private void writeRow(Object[] values, int style) throws IOException {
+        rowsInSheet++;
+        out.write("<row r=\"");
+        out.write(Integer.toString(rowsInSheet));
+        out.write("\">");
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                writeCell(column(i) + rowsInSheet, values[i], style);
+            }
+        }
+        out.write("</row>");
+    }
+
+    private void writeCell(String ref, Object value, int style) throws IOException {
+        out.write("<c r=\"");
+        out.write(ref);
+        if (style == 0 && value instanceof LocalDateTime) {
+            style = STYLE_DATE_TIME;
+        }
+        if (style != 0) {
+            out.write("\" s=\"");
+            out.write(Integer.toString(style));
+        }
+        if (value instanceof Number number) {
+            out.write("\"><v>");
+            out.write(number instanceof BigDecimal decimal ? decimal.toPlainString() : number.toString());
+            out.write("</v></c>");
+        } else if (value instanceof LocalDateTime dateTime) {
+            out.write("\"><v>");
+            out.write(Double.toString(serial(dateTime)));
+            out.write("</v></c>");
+        } else if (value instanceof Boolean bool) {
+            out.write("\" t=\"b\"><v>");
+            out.write(bool ? "1" : "0");
+            out.write("</v></c>");
+        } else {
+            out.write("\" t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+            writeEscaped(value.toString());
+            out.write("</t></is></c>");
+        }
+    }
+
+    /**
+     * Excel date serial: days since 1899-12-30, the time of day as the fraction.
+     */
+    private static double serial(LocalDateTime dateTime) {
+        return ChronoUnit.DAYS.between(EXCEL_EPOCH, dateTime.toLocalDate())
+                + dateTime.toLocalTime().toSecondOfDay() / SECONDS_PER_DAY;
+    }
+
+    private void writeEscaped(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&' -> out.write("&amp;");
+                case '<' -> out.write("&lt;");
+                case '>' -> out.write("&gt;");
+                case '"' -> out.write("&quot;");
+                default -> {
+                    // Control characters other than tab and line breaks are not allowed in XML
+                    if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') {
+                        out.write(c);
+                    }
+                }
+            }
+        }
+    }
+
+    private String column(int index) {
+        while (columns.size() <= index) {
+            int n = columns.size() + 1;
+            StringBuilder name = new StringBuilder();
+            while (n > 0) {
+                name.insert(0, (char) ('A' + (n - 1) % 26));
+                n = (n - 1) / 26;
+            }
+            columns.add(name.toString());
+        }
+        return columns.get(index);
+    }
+
+    private void writeEntry(String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        out.write(content);
+        out.flush();
+        zip.closeEntry();
+    }
+
+    private String contentTypes() {
+        StringBuilder xml = new StringBuilder(XML_DECLARATION)
+                .append("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">")
+                .append("<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>")
+                .append("<Default Extension=\"xml\" ContentType=\"application/xml\"/>")
+                .append("<Override PartName=\"/xl/workbook.xml\" ")
+                .append("ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>")
+                .append("<Override PartName=\"/xl/styles.xml\" ")
+                .append("ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>");
+        for (int i = 1; i <= sheets; i++) {
+            xml.append("<Override PartName=\"/xl/worksheets/sheet").append(i).append(".xml\" ")
+                    .append("ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+        }
+        return xml.append("</Types>").toString();
+    }
+
+    private String workbook() {
+        StringBuilder xml = new StringBuilder(XML_DECLARATION)
+                .append("<workbook xmlns=\"").append(MAIN_NS).append("\" xmlns:r=\"").append(REL_NS).append("\"><sheets>");
+        for (int i = 1; i <= sheets; i++) {
+            String name = i == 1 ? sheetName : sheetName + " (" + i + ")";
+            xml.append("<sheet name=\"").append(name.replace("&", "&amp;").replace("\"", "&quot;").replace("<", "&lt;"))
+                    .append("\" sheetId=\"").append(i).append("\" r:id=\"rId").append(i).append("\"/>");
+        }
+        return xml.append("</sheets></workbook>").toString();
+    }
+
+    private String workbookRelationships() {
+        StringBuilder xml = new StringBuilder(XML_DECLARATION)
+                .append("<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">");
+        for (int i = 1; i <= sheets; i++) {
+            xml.append("<Relationship Id=\"rId").append(i).append("\" Type=\"").append(REL_NS)
+                    .append("/worksheet\" Target=\"worksheets/sheet").append(i).append(".xml\"/>");
+        }
+        xml.append("<Relationship Id=\"rId").append(sheets + 1).append("\" Type=\"").append(REL_NS)
+                .append("/styles\" Target=\"styles.xml\"/>");
+        return xml.append("</Relationships>").toString();
+    }
+}
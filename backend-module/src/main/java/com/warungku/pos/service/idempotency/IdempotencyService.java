@@ -0,0 +1,295 @@
+package com.warungku.pos.service.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.warungku.pos.core.tenant.TenantContext;
+import com.warungku.pos.entity.IdempotencyRecord;
+import com.warungku.pos.exception.BadRequestException;
+import com.warungku.pos.exception.ConflictException;
+import com.warungku.pos.repository.IdempotencyRecordRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Makes POST endpoints safe to retry with an {@code Idempotency-Key} header.
+ * <p>
+ * The first request with a key runs the action and stores its response, in the same transaction,
+ * under (tenant, scope, key). Retries get the stored response back without running the action
+ * again. Recent keys are also held in memory: a retry arriving while the first attempt is still
+ * running waits for its outcome instead of racing it, and a retry shortly after is answered
+ * without a database read. At most {@code hotMaxEntries} completed keys are held, oldest dropped
+ * first; a retry for a dropped key reads the stored response instead. Failed attempts are not
+ * remembered, so they can be retried.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final IdempotencyRecordRepository recordRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate tx;
+    private final Duration ttl;
+    private final Duration hotTtl;
+    private final int hotMaxEntries;
+    private final Duration waitTimeout;
+    private final int sweepBatchSize;
+    private final ConcurrentMap<String, InFlight> hot = new ConcurrentHashMap<>();
+    // Completed entries of hot in completion order, to drop the oldest beyond the bound or the hot TTL
+    private final Queue<Completed> completed = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger completedCount = new AtomicInteger();
+
+    public IdempotencyService(IdempotencyRecordRepository recordRepository,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${idempotency.ttl:PT24H}") Duration ttl,
+                              @Value("${idempotency.hot-ttl:PT10M}") Duration hotTtl,
+                              @Value("${idempotency.hot-max-entries:10000}") int hotMaxEntries,
+                              @Value("${idempotency.wait-timeout:PT30S}") Duration waitTimeout,
+                              @Value("${idempotency.sweep.batch-size:500}") int sweepBatchSize) {
+        this.recordRepository = recordRepository;
+        this.objectMapper = objectMapper;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.ttl = ttl;
+        this.hotTtl = hotTtl;
+        this.hotMaxEntries = Math.max(0, hotMaxEntries);
+        this.waitTimeout = waitTimeout;
+        this.sweepBatchSize = Math.max(1, sweepBatchSize);
+    }
+
+    /**
+     * Runs {@code action} once per key and returns its response, or the stored response of an
+     * earlier request with the same key. Without a key the action simply runs.
+     *
+     * @param scope   the endpoint, so the same key can be used on different endpoints
+     * @param request the request body; a key reused with a different body is rejected
+     */
+    public <T> T execute(String scope, String key, Object request, Class<T> type, Supplier<T> action) {
+        if (key == null) {
+            return action.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException(HEADER + " must be 1-" + MAX_KEY_LENGTH + " characters");
+        }
+
+        Long tenantId = TenantContext.getTenantId();
+        String requestHash = hash(request);
+        String hotKey = tenantId + ":" + scope + ":" + key;
+
+        while (true) {
+            InFlight mine = new InFlight(requestHash);
+            InFlight current = hot.putIfAbsent(hotKey, mine);
+            if (current == null) {
+                return firstAttempt(tenantId, scope, key, requestHash, hotKey, mine, type, action);
+            }
+            checkSameRequest(current.requestHash, requestHash);
+            Optional<String> body = await(current);
+            if (body.isPresent()) {
+                return read(body.get(), type);
+            }
+            // The attempt we waited on failed and was forgotten; try again ourselves
+        }
+    }
+
+    private <T> T firstAttempt(Long tenantId, String scope, String key, String requestHash,
+                               String hotKey, InFlight mine, Class<T> type, Supplier<T> action) {
+        try {
+            Optional<IdempotencyRecord> stored = recordRepository.findByTenantIdAndScopeAndIdempotencyKey(tenantId, scope, key);
+            if (stored.isPresent() && stored.get().getExpiresAt().isBefore(LocalDateTime.now())) {
+                recordRepository.delete(stored.get());
+                stored = Optional.empty();
+            }
+
+            String body;
+            if (stored.isPresent()) {
+                checkSameRequest(stored.get().getRequestHash(), requestHash);
+                body = stored.get().getResponseBody();
+            } else {
+                body = runAndStore(tenantId, scope, key, requestHash, action);
+            }
+            mine.complete(body);
+            remember(hotKey, mine);
+            return read(body, type);
+        } catch (RuntimeException e) {
+            hot.remove(hotKey, mine);
+            mine.fail(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Runs the action and stores its response in one transaction. If another instance stored
+     * the same key first, this attempt rolls back and the stored response is used instead.
+     */
+    private String runAndStore(Long tenantId, String scope, String key, String requestHash, Supplier<?> action) {
+        try {
+            return tx.execute(status -> {
+                String body = write(action.get());
+                recordRepository.saveAndFlush(IdempotencyRecord.builder()
+                        .tenantId(tenantId)
+                        .scope(scope)
+                        .idempotencyKey(key)
+                        .requestHash(requestHash)
+                        .responseBody(body)
+                        .expiresAt(LocalDateTime.now().plus(ttl))
+                        .build());
+                return body;
+            });
+        } catch (DataIntegrityViolationException e) {
+            IdempotencyRecord winner = recordRepository.findByTenantIdAndScopeAndIdempotencyKey(tenantId, scope, key)
+                    .orElseThrow(() -> e);
+            log.info("Idempotency key {} for {} was stored concurrently; replaying it", key, scope);
+            checkSameRequest(winner.getRequestHash(), requestHash);
+            return winner.getResponseBody();
+        }
+    }
+
+    /**
+     * Keeps a completed entry in memory, dropping the oldest completed ones beyond the bound. A
+     * dropped key is still stored, so its retries are answered from the database.
+     */
+    private void remember(String hotKey, InFlight entry) {
+        completed.add(new Completed(hotKey, entry, System.nanoTime()));
+        if (completedCount.incrementAndGet() > hotMaxEntries) {
+            forget(completed.poll());
+        }
+    }
+
+    private void forget(Completed oldest) {
+        if (oldest != null) {
+            hot.remove(oldest.hotKey(), oldest.entry());
+            completedCount.decrementAndGet();
+        }
+    }
+
+    private Optional<String> await(InFlight current) {
+        try {
+            return Optional.of(current.response.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS));
+        } catch (ExecutionException e) {
+            return Optional.empty();
+        } catch (TimeoutException e) {
+            // Not the client's fault: the same key can be retried once the first attempt finishes
+            throw new ConflictException("A request with this " + HEADER + " is still being processed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for an earlier request", e);
+        }
+    }
+
+    /**
+     * Forgets completed in-memory entries older than the hot TTL and deletes expired stored
+     * keys, one batch per transaction.
+     *
+     * @return the number of stored keys deleted
+     */
+    public int sweepExpired() {
+        long hotCutoff = System.nanoTime() - hotTtl.toNanos();
+        for (Completed oldest = completed.peek(); oldest != null && oldest.completedAt() - hotCutoff < 0;
+             oldest = completed.peek()) {
+            // Only the entry peeked at: another thread may have dropped it meanwhile
+            if (completed.remove(oldest)) {
+                forget(oldest);
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        int deleted = 0;
+        while (true) {
+            Integer batch = tx.execute(status -> {
+                List<Long> ids = recordRepository.findExpiredIds(now, PageRequest.of(0, sweepBatchSize));
+                if (!ids.isEmpty()) {
+                    recordRepository.deleteAllByIdInBatch(ids);
+                }
+                return ids.size();
+            });
+            deleted += batch;
+            if (batch < sweepBatchSize) {
+                break;
+            }
+        }
+        if (deleted > 0) {
+            log.info("Swept {} expired idempotency keys", deleted);
+        }
+        return deleted;
+    }
+
+    private static void checkSameRequest(String storedHash, String requestHash) {
+        if (!storedHash.equals(requestHash)) {
+            throw new BadRequestException(HEADER + " was already used with a different request");
+        }
+    }
+
+    private String hash(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Cannot hash request", e);
+        }
+    }
+
+    private String write(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot store response", e);
+        }
+    }
+
+    private <T> T read(String body, Class<T> type) {
+        try {
+            return objectMapper.readValue(body, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot read stored response", e);
+        }
+    }
+
+    private record Completed(String hotKey, InFlight entry, long completedAt) {
+    }
+
+    /**
+     * An attempt for one key: its outcome, shared with the retries that arrive meanwhile.
+     */
+    private static final class InFlight {
+        private final String requestHash;
+        private final CompletableFuture<String> response = new CompletableFuture<>();
+
+        private InFlight(String requestHash) {
+            this.requestHash = requestHash;
+        }
+
+        private void complete(String body) {
+            response.complete(body);
+        }
+
+        private void fail(Throwable cause) {
+            response.completeExceptionally(cause);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.warungku.pos.service.outbox;
+
+import com.warungku.pos.core.tenant.TenantContext;
+import com.warungku.pos.entity.OutboxEvent;
+import com.warungku.pos.entity.enums.OutboxEventStatus;
+import com.warungku.pos.entity.enums.OutboxEventType;
+import com.warungku.pos.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drains outbox events into their handlers, off the request threads.
+ * <p>
+ * Each tenant is drained by at most one worker at a time, in event id order, so a tenant's events
+ * are handled in the order they were committed; a bounded pool of workers serves the tenants.
+ * Every event is claimed, by deleting it, and handled in one transaction: the delete holds the
+ * row, so when several instances reach the same event only one handles it and the others skip it
+ * once that one commits. A failed event is retried with exponential backoff, holding back that
+ * tenant's later events, until it reaches the maximum attempts and is marked {@code FAILED}.
+ * Publishers wake a tenant's worker on commit; the scheduled {@link #dispatch()} picks up anything
+ * else, e.g. retries and events left by a restart.
+ */
+@Slf4j
+@Service
+public class OutboxDispatcher implements MeterBinder {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final Map<OutboxEventType, OutboxEventHandler> handlers = new EnumMap<>(OutboxEventType.class);
+    private final TransactionTemplate tx;
+    private final ExecutorService workers;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration retryDelay;
+    private final Set<Long> draining = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong backlog = new AtomicLong();
+    private final AtomicLong lagMillis = new AtomicLong();
+    private final LongAdder dispatched = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public OutboxDispatcher(OutboxEventRepository outboxEventRepository,
+                            List<OutboxEventHandler> handlers,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${outbox.workers:4}") int workers,
+                            @Value("${outbox.batch-size:100}") int batchSize,
+                            @Value("${outbox.max-attempts:10}") int maxAttempts,
+                            @Value("${outbox.retry-delay:PT5S}") Duration retryDelay) {
+        this.outboxEventRepository = outboxEventRepository;
+        for (OutboxEventHandler handler : handlers) {
+            handler.eventTypes().forEach(type -> this.handlers.put(type, handler));
+        }
+        this.tx = new TransactionTemplate(transactionManager);
+        this.workers = Executors.newFixedThreadPool(Math.max(1, workers), Thread.ofVirtual().name("outbox-", 0).factory());
+        this.batchSize = Math.max(1, batchSize);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryDelay = retryDelay;
+    }
+
+    /**
+     * Refreshes the backlog metrics and wakes every tenant with events ready to dispatch.
+     */
+    public void dispatch() {
+        List<Object[]> rows = outboxEventRepository.findBacklog(OutboxEventStatus.PENDING);
+        Object[] row = rows.isEmpty() ? new Object[]{0L, null} : rows.get(0);
+        backlog.set(((Number) row[0]).longValue());
+        lagMillis.set(row[1] != null ? Math.max(0, Duration.between((LocalDateTime) row[1], LocalDateTime.now()).toMillis()) : 0);
+
+        for (Long tenantId : outboxEventRepository.findDispatchableTenants(OutboxEventStatus.PENDING, LocalDateTime.now())) {
+            wakeUp(tenantId);
+        }
+    }
+
+    /**
+     * Starts draining a tenant's events, unless a worker is already on it.
+     */
+    public void wakeUp(Long tenantId) {
+        if (!draining.add(tenantId)) {
+            return;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    drain(tenantId);
+                } catch (RuntimeException e) {
+                    log.error("Outbox drain for tenant {} stopped: {}", tenantId, e.getMessage(), e);
+                } finally {
+                    draining.remove(tenantId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Shutting down; the events stay pending for the next start
+            draining.remove(tenantId);
+        }
+    }
+
+    private void drain(Long tenantId) {
+        while (true) {
+            List<OutboxEvent> events = outboxEventRepository.findByTenantIdAndStatusOrderByIdAsc(
+                    tenantId, OutboxEventStatus.PENDING, PageRequest.of(0, batchSize));
+            if (events.isEmpty()) {
+                return;
+            }
+            for (OutboxEvent event : events) {
+                // Later events wait behind one that is waiting out a retry
+                if (event.getNextAttemptAt().isAfter(LocalDateTime.now()) || !handle(event)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Claims and handles one event, unless another instance has already handled it.
+     *
+     * @return whether the tenant's next event may follow, i.e. this one is done or given up on
+     */
+    private boolean handle(OutboxEvent event) {
+        TenantContext.setTenantId(event.getTenantId());
+        try {
+            OutboxEventHandler handler = handlers.get(event.getEventType());
+            if (handler == null) {
+                throw new IllegalStateException("No handler for outbox event type " + event.getEventType());
+            }
+            boolean handled = Boolean.TRUE.equals(tx.execute(status -> {
+                if (outboxEventRepository.claim(event.getId(), OutboxEventStatus.PENDING) == 0) {
+                    return false;
+                }
+                handler.handle(event);
+                return true;
+            }));
+            if (handled) {
+                dispatched.increment();
+            } else {
+                log.debug("Outbox event {} was handled by another instance", event.getId());
+            }
+            return true;
+        } catch (RuntimeException e) {
+            return recordFailure(event, e);
+        } finally {
+            TenantContext.clear();
+        }
+    }
+
+    private boolean recordFailure(OutboxEvent event, RuntimeException error) {
+        int attempts = event.getAttempts() + 1;
+        boolean giveUp = attempts >= maxAttempts;
+        Duration delay = retryDelay.multipliedBy(1L << Math.min(attempts - 1, 10));
+        String message = String.valueOf(error.getMessage());
+        if (message.length() > MAX_ERROR_LENGTH) {
+            message = message.substring(0, MAX_ERROR_LENGTH);
+        }
+
+        String lastError = message;
+        tx.executeWithoutResult(status -> outboxEventRepository.recordFailure(event.getId(),
+                giveUp ? OutboxEventStatus.FAILED : OutboxEventStatus.PENDING, attempts,
+                LocalDateTime.now().plus(delay), lastError));
+
+        if (giveUp) {
+            failed.increment();
+            log.error("Outbox event {} ({}) for tenant {} failed after {} attempts: {}",
+                    event.getId(), event.getEventType(), event.getTenantId(), attempts, lastError);
+        } else {
+            retried.increment();
+            log.warn("Outbox event {} ({}) for tenant {} failed, retrying in {}: {}",
+                    event.getId(), event.getEventType(), event.getTenantId(), delay, lastError);
+        }
+        return giveUp;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        workers.shutdown();
+        workers.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("outbox.backlog", backlog, AtomicLong::get)
+                .description("Outbox events waiting to be dispatched")
+                .register(registry);
+        Gauge.builder("outbox.lag", lagMillis, lag -> lag.get() / 1000.0)
+                .baseUnit("seconds")
+                .description("Age of the oldest outbox event waiting to be dispatched")
+                .register(registry);
+        FunctionCounter.builder("outbox.events", dispatched, LongAdder::sum)
+                .tag("result", "dispatched")
+                .description("Outbox events handled")
+                .register(registry);
+        FunctionCounter.builder("outbox.events", retried, LongAdder::sum)
+                .tag("result", "retried")
+                .description("Outbox event attempts that failed and were scheduled again")
+                .register(registry);
+        FunctionCounter.builder("outbox.events", failed, LongAdder::sum)
+                .tag("result", "failed")
+                .description("Outbox events given up on after the maximum attempts")
+                .register(registry);
+    }
+}
@@ -0,0 +1,20 @@
+package com.warungku.pos.service.outbox;
+
+import com.warungku.pos.entity.OutboxEvent;
+import com.warungku.pos.entity.enums.OutboxEventType;
+
+import java.util.Set;
+
+/**
+ * Carries out the side effects of outbox events of some types.
+ */
+public interface OutboxEventHandler {
+
+    Set<OutboxEventType> eventTypes();
+
+    /**
+     * Handles one event, in the dispatcher's transaction and with the event's tenant set.
+     * Throwing rolls the work back and schedules a retry.
+     */
+    void handle(OutboxEvent event);
+}
@@ -0,0 +1,56 @@
+package com.warungku.pos.service.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.warungku.pos.core.tenant.TenantContext;
+import com.warungku.pos.entity.OutboxEvent;
+import com.warungku.pos.entity.enums.OutboxEventType;
+import com.warungku.pos.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+
+/**
+ * Writes outbox events as part of the caller's transaction, so an event exists exactly when the
+ * change it describes was committed, and nudges the dispatcher once it is.
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxPublisher {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxDispatcher outboxDispatcher;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(OutboxEventType type, Long aggregateId, Object payload) {
+        Long tenantId = TenantContext.getTenantId();
+        outboxEventRepository.save(OutboxEvent.builder()
+                .tenantId(tenantId)
+                .eventType(type)
+                .aggregateId(aggregateId)
+                .payload(write(payload))
+                .nextAttemptAt(LocalDateTime.now())
+                .build());
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                outboxDispatcher.wakeUp(tenantId);
+            }
+        });
+    }
+
+    private String write(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize outbox payload", e);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.warungku.pos.service.pricing;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Cart arithmetic shared by sales and transactions, in minor units: hundredths of a rupiah, the
+ * scale every amount column stores. Totals are computed with long arithmetic instead of a
+ * {@link BigDecimal} per intermediate, with the same results as the decimal rules:
+ * <ul>
+ *   <li>line subtotal = unit price x quantity - line discount</li>
+ *   <li>subtotal = sum of line subtotals</li>
+ *   <li>discount = cart discount + subtotal x percent / 100, the percentage part rounded HALF_UP
+ *       to 2 decimals and only applied when positive</li>
+ *   <li>tax = (subtotal - discount) x tax rate, rounded HALF_UP to 2 decimals</li>
+ *   <li>grand total = subtotal - discount + tax</li>
+ * </ul>
+ * Inputs are taken at the scales they are stored with - amounts and percentages at 2 decimals,
+ * tax rates at 4 - rounding HALF_UP on the way in. Results that do not fit a long throw
+ * {@link ArithmeticException}.
+ */
+public final class PricingEngine {
+
+    private static final int AMOUNT_SCALE = 2;
+    private static final int PERCENT_SCALE = 2;
+    private static final int RATE_SCALE = 4;
+
+    // 100% in hundredths of a percent, and a rate of 1 in rate units
+    private static final long FULL_PERCENT = 100_00;
+    private static final long FULL_RATE = 1_0000;
+
+    private PricingEngine() {
+    }
+
+    public static long toMinor(BigDecimal amount) {
+        return amount == null ? 0 : unscaled(amount, AMOUNT_SCALE);
+    }
+
+    public static BigDecimal toAmount(long minor) {
+        return BigDecimal.valueOf(minor, AMOUNT_SCALE);
+    }
+
+    /**
+     * A percentage in hundredths of a percent, e.g. 12.5 -> 1250.
+     */
+    public static long toPercentUnits(BigDecimal percent) {
+        return percent == null ? 0 : unscaled(percent, PERCENT_SCALE);
+    }
+
+    /**
+     * A tax rate in ten-thousandths, e.g. 0.11 -> 1100.
+     */
+    public static long toRateUnits(BigDecimal rate) {
+        return rate == null ? 0 : unscaled(rate, RATE_SCALE);
+    }
+
+    public static long lineSubtotal(long unitPrice, int quantity, long discount) {
+        return Math.subtractExact(Math.multiplyExact(unitPrice, quantity), discount);
+    }
+
+    /**
+     * Applies the cart discounts and tax to a subtotal.
+     *
+     * @param discount        cart discount amount, in minor units
+     * @param discountPercent cart discount percentage, see {@link #toPercentUnits}
+     * @param taxRate         see {@link #toRateUnits}
+     */
+    public static Totals totals(long subtotal, long discount, long discountPercent, long taxRate) {
+        long totalDiscount = discount;
+        if (discountPercent > 0) {
+            totalDiscount = Math.addExact(totalDiscount,
+                    divideHalfUp(Math.multiplyExact(subtotal, discountPercent), FULL_PERCENT));
+        }
+        long afterDiscount = Math.subtractExact(subtotal, totalDiscount);
+        long tax = divideHalfUp(Math.multiplyExact(afterDiscount, taxRate), FULL_RATE);
+        return new Totals(subtotal, totalDiscount, tax, Math.addExact(afterDiscount, tax));
+    }
+
+    /**
+     * Integer division rounding half away from zero, as {@link RoundingMode#HALF_UP} does.
+     */
+    static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (Math.abs(remainder) >= divisor - Math.abs(remainder)) {
+            quotient += Long.signum(dividend);
+        }
+        return quotient;
+    }
+
+    private static long unscaled(BigDecimal value, int scale) {
+        return value.setScale(scale, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * A priced cart, in minor units.
+     */
+    public record Totals(long subtotal, long discount, long taxAmount, long grandTotal) {
+    }
+}
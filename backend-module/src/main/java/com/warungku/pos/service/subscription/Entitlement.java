@@ -0,0 +1,78 @@
+package com.warungku.pos.service.subscription;
+
+import com.warungku.pos.entity.subscription.Plan;
+import com.warungku.pos.entity.subscription.Subscription;
+import com.warungku.pos.entity.subscription.SubscriptionStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Immutable snapshot of what a tenant's subscription allows: status, end dates, plan limits and features.
+ * Current usage is not part of the snapshot; it comes from the {@link UsageMeter}.
+ */
+public record Entitlement(
+        Long tenantId,
+        SubscriptionStatus status,
+        LocalDateTime endDate,
+        LocalDateTime trialEndDate,
+        String planCode,
+        Integer maxOutlets,
+        Integer maxUsers,
+        Integer maxProducts,
+        Integer maxTransactionsPerMonth,
+        boolean featureReports,
+        boolean featureInventory,
+        boolean featureMultiOutlet,
+        boolean featureApiAccess,
+        boolean featureExport) {
+
+    public static Entitlement of(Subscription subscription) {
+        Plan plan = subscription.getPlan();
+        return new Entitlement(
+                subscription.getTenantId(),
+                subscription.getStatus(),
+                subscription.getEndDate(),
+                subscription.getTrialEndDate(),
+                plan.getCode(),
+                plan.getMaxOutlets(),
+                plan.getMaxUsers(),
+                plan.getMaxProducts(),
+                plan.getMaxTransactionsPerMonth(),
+                Boolean.TRUE.equals(plan.getFeatureReports()),
+                Boolean.TRUE.equals(plan.getFeatureInventory()),
+                Boolean.TRUE.equals(plan.getFeatureMultiOutlet()),
+                Boolean.TRUE.equals(plan.getFeatureApiAccess()),
+                Boolean.TRUE.equals(plan.getFeatureExport()));
+    }
+
+    /**
+     * Whether the tenant may use transaction APIs - only trial and active subscriptions may.
+     */
+    public boolean isUsable() {
+        return status == SubscriptionStatus.ACTIVE || status == SubscriptionStatus.TRIAL;
+    }
+
+    public boolean isTrialExpired() {
+        return status == SubscriptionStatus.TRIAL &&
+                trialEndDate != null &&
+                LocalDateTime.now().isAfter(trialEndDate);
+    }
+
+    // Usage is metered separately (see UsageMeter); a missing limit means unlimited
+
+    public boolean isTransactionLimitReached(long transactions) {
+        return maxTransactionsPerMonth != null && transactions >= maxTransactionsPerMonth;
+    }
+
+    public boolean isTransactionLimitExceeded(long transactions, int more) {
+        return maxTransactionsPerMonth != null && transactions + more > maxTransactionsPerMonth;
+    }
+
+    public boolean isProductLimitReached(long products) {
+        return maxProducts != null && products >= maxProducts;
+    }
+
+    public boolean isUserLimitReached(long users) {
+        return maxUsers != null && users >= maxUsers;
+    }
+}
@@ -0,0 +1,100 @@
+package com.warungku.pos.service.subscription;
+
+import com.warungku.pos.repository.SubscriptionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory entitlement snapshots per tenant for the subscription gate.
+ * <p>
+ * A snapshot - including "no subscription" - is loaded with one query and reused until it is
+ * {@code ttl} old, so the gate on every request is a map lookup. Subscription writes invalidate
+ * the tenant's snapshot once their transaction commits; the time-based refresh bounds how long
+ * any other change (usage counts, plan edits) takes to show.
+ */
+@Slf4j
+@Component
+public class EntitlementCache {
+
+    private final SubscriptionRepository subscriptionRepository;
+    private final long ttlNanos;
+    private final ConcurrentMap<Long, Snapshot> snapshots = new ConcurrentHashMap<>();
+    // Bumped by every invalidation, so a snapshot loaded across one is served once but not kept
+    private final AtomicLong generation = new AtomicLong();
+
+    public EntitlementCache(SubscriptionRepository subscriptionRepository,
+                            @Value("${subscription.entitlement.ttl:60s}") Duration ttl) {
+        this.subscriptionRepository = subscriptionRepository;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * Entitlement of the tenant; empty when the tenant has no subscription.
+     */
+    public Optional<Entitlement> get(Long tenantId) {
+        Snapshot snapshot = snapshots.get(tenantId);
+        if (snapshot == null || System.nanoTime() - snapshot.loadedAt() >= ttlNanos) {
+            snapshot = load(tenantId);
+        }
+        return snapshot.entitlement();
+    }
+
+    /**
+     * Drops the tenant's snapshot once the current transaction commits, or right away without one.
+     */
+    public void invalidate(Long tenantId) {
+        if (tenantId != null) {
+            afterCommit(() -> {
+                generation.incrementAndGet();
+                snapshots.remove(tenantId);
+            });
+        }
+    }
+
+    /**
+     * Drops every snapshot once the current transaction commits, for changes made in bulk.
+     */
+    public void invalidateAll() {
+        afterCommit(() -> {
+            generation.incrementAndGet();
+            snapshots.clear();
+        });
+    }
+
+    private Snapshot load(Long tenantId) {
+        long loadGeneration = generation.get();
+        Snapshot snapshot = new Snapshot(
+                subscriptionRepository.findWithPlanByTenantId(tenantId).map(Entitlement::of),
+                System.nanoTime());
+        if (generation.get() == loadGeneration) {
+            snapshots.put(tenantId, snapshot);
+        }
+        log.debug("Loaded entitlement for tenant {}", tenantId);
+        return snapshot;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private record Snapshot(Optional<Entitlement> entitlement, long loadedAt) {
+    }
+}
@@ -0,0 +1,230 @@
+package com.warungku.pos.service.subscription;
+
+import com.warungku.pos.repository.ProductRepository;
+import com.warungku.pos.repository.SubscriptionRepository;
+import com.warungku.pos.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory usage counters per tenant for the plan limits: transactions this month, active
+ * products and active users.
+ * <p>
+ * A tenant's counters are read back from the database on first read or flush, under the tenant's
+ * own lock rather than inside the map. Sales and voids only touch a striped {@link LongAdder} and
+ * never load anything, so concurrent tills never contend on the subscriptions row and no query runs
+ * after their commit; the accumulated changes are written in one batch by {@link #flush()}, which
+ * runs on an interval and at shutdown. Changes are counted once their transaction commits.
+ */
+@Slf4j
+@Component
+public class UsageMeter {
+
+    private final SubscriptionRepository subscriptionRepository;
+    private final ProductRepository productRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate flushTx;
+    private final ConcurrentMap<Long, TenantUsage> usage = new ConcurrentHashMap<>();
+    // A lock rather than synchronized: flushing writes to the database and must not pin a virtual
+    // thread
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public UsageMeter(SubscriptionRepository subscriptionRepository,
+                      ProductRepository productRepository,
+                      UserRepository userRepository,
+                      PlatformTransactionManager transactionManager) {
+        this.subscriptionRepository = subscriptionRepository;
+        this.productRepository = productRepository;
+        this.userRepository = userRepository;
+        this.flushTx = new TransactionTemplate(transactionManager);
+    }
+
+    public long transactions(Long tenantId) {
+        return usage(tenantId).transactions();
+    }
+
+    public long products(Long tenantId) {
+        return usage(tenantId).products.get();
+    }
+
+    public long users(Long tenantId) {
+        return usage(tenantId).users.get();
+    }
+
+    /**
+     * Counts a completed (+1) or voided (-1) sale once the current transaction commits.
+     */
+    public void recordTransactions(Long tenantId, int delta) {
+        afterCommit(() -> tenant(tenantId).transactionDelta.add(delta));
+    }
+
+    /**
+     * Counts an activated (+1) or deactivated (-1) product once the current transaction commits.
+     * Counters not loaded yet are left alone: loading them counts the committed rows, this one included.
+     */
+    public void recordProducts(Long tenantId, int delta) {
+        afterCommit(() -> ifLoaded(tenantId, tenant -> tenant.products.addAndGet(delta)));
+    }
+
+    /**
+     * Same as {@link #recordProducts} for users.
+     */
+    public void recordUsers(Long tenantId, int delta) {
+        afterCommit(() -> ifLoaded(tenantId, tenant -> tenant.users.addAndGet(delta)));
+    }
+
+    /**
+     * Writes the transaction counts accumulated since the last flush, and the current product and
+     * user counts, for every tenant in use. Changes stay pending if the write fails.
+     */
+    @PreDestroy
+    public void flush() {
+        flushLock.lock();
+        try {
+            writeUsage();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void writeUsage() {
+        List<Runnable> commits = new ArrayList<>();
+        try {
+            // Counters only written to so far are loaded first, so their products and users are real
+            usage.keySet().forEach(this::usage);
+            flushTx.executeWithoutResult(status -> usage.forEach((tenantId, tenant) -> {
+                if (!tenant.loaded) {
+                    return;
+                }
+                long total = tenant.transactionDelta.sum();
+                long pending = total - tenant.flushedDelta.get();
+                int updated = subscriptionRepository.updateUsage(tenantId, (int) pending,
+                        (int) tenant.products.get(), (int) tenant.users.get());
+                if (updated > 0) {
+                    commits.add(() -> tenant.flushedDelta.set(total));
+                }
+            }));
+            commits.forEach(Runnable::run);
+        } catch (Exception e) {
+            log.error("Failed to flush usage counters: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Starts a new month: pending counts are flushed and the stored monthly counts reset. The
+     * counters stay in place and only drop what was flushed, so transactions recorded while
+     * resetting count towards the new month instead of being lost.
+     */
+    public void resetMonth() {
+        flushLock.lock();
+        try {
+            writeUsage();
+            flushTx.executeWithoutResult(status -> subscriptionRepository.resetMonthlyTransactionCounts());
+            usage.values().forEach(TenantUsage::startMonth);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * A tenant's counters, loaded from the database if they are not yet.
+     */
+    private TenantUsage usage(Long tenantId) {
+        TenantUsage tenant = tenant(tenantId);
+        if (!tenant.loaded) {
+            tenant.lock.lock();
+            try {
+                if (!tenant.loaded) {
+                    load(tenantId, tenant);
+                }
+            } finally {
+                tenant.lock.unlock();
+            }
+        }
+        return tenant;
+    }
+
+    /**
+     * A tenant's counters as they are, loaded or not; never queries.
+     */
+    private TenantUsage tenant(Long tenantId) {
+        return usage.computeIfAbsent(tenantId, id -> new TenantUsage());
+    }
+
+    private void ifLoaded(Long tenantId, Consumer<TenantUsage> change) {
+        TenantUsage tenant = usage.get(tenantId);
+        if (tenant != null && tenant.loaded) {
+            change.accept(tenant);
+        }
+    }
+
+    private void load(Long tenantId, TenantUsage tenant) {
+        long transactions = subscriptionRepository.findTransactionsThisMonth(tenantId).orElse(0);
+        long products = productRepository.countActiveByTenant(tenantId);
+        long users = userRepository.countActiveByTenant(tenantId);
+        log.debug("Loaded usage for tenant {}: {} transactions, {} products, {} users",
+                tenantId, transactions, products, users);
+        tenant.storedTransactions = transactions;
+        tenant.products.set(products);
+        tenant.users.set(users);
+        tenant.loaded = true;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Transactions are the stored count plus the changes since loading; {@code flushedDelta} marks
+     * how much of those changes the database already holds. The stored count is always what the
+     * database holds minus {@code flushedDelta}, so a month reset to zero moves it to {@code -flushedDelta}.
+     * The stored counts are only meaningful once {@code loaded}; changes can be added before that.
+     */
+    private static class TenantUsage {
+        // Guards loading and the month reset, so a load that read last month's count cannot undo
+        // the reset
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile boolean loaded;
+        private volatile long storedTransactions;
+        private final LongAdder transactionDelta = new LongAdder();
+        private final AtomicLong flushedDelta = new AtomicLong();
+        private final AtomicLong products = new AtomicLong();
+        private final AtomicLong users = new AtomicLong();
+
+        long transactions() {
+            return storedTransactions + transactionDelta.sum();
+        }
+
+        void startMonth() {
+            lock.lock();
+            try {
+                storedTransactions = -flushedDelta.get();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
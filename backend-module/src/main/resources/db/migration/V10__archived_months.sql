@@ -0,0 +1,16 @@
+-- Months of sales and stock movements moved out of the live tables into archive files
+create table archived_months (
+    id bigint not null auto_increment,
+    created_at datetime(6) not null,
+    updated_at datetime(6),
+    last_movement_id bigint,
+    last_sale_id bigint,
+    month_start date not null,
+    movement_rows bigint not null,
+    sale_rows bigint not null,
+    tenant_id bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+alter table archived_months
+   add constraint uk_archived_month unique (tenant_id, month_start);
@@ -0,0 +1,13 @@
+-- Report and history queries filter on the tenant first, then on status and a date range. Add the
+-- composite index they need and drop the single-column indexes that composites already cover.
+
+-- Completed sales of a tenant in a date range (rollup rebuilds), and a tenant's sales by status
+create index idx_sale_tenant_status_date
+   on sales (tenant_id, status, sale_date);
+
+-- Covered by the tenant-prefixed composites
+alter table sales drop index idx_sale_tenant;
+alter table sales drop index idx_sale_status;
+alter table sales drop index idx_sale_date;
+alter table stock_movements drop index idx_stock_tenant;
+alter table stock_movements drop index idx_stock_date;
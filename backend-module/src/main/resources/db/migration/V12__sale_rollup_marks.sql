@@ -0,0 +1,12 @@
+-- Marks the sales counted in the report rollups, so a rebuild and a sale's outbox event do not
+-- both count it
+alter table sales add column rolled_up bit not null default false;
+
+-- Counted so far: completed sales and sales whose void or refund has yet to be taken out, except
+-- sales whose SALE_CREATED event has not been handled
+update sales s set rolled_up = true
+ where (s.status = 'COMPLETED'
+        or exists (select 1 from outbox_events e
+                    where e.aggregate_id = s.id and e.event_type in ('SALE_VOIDED', 'SALE_REFUNDED')))
+   and not exists (select 1 from outbox_events e
+                    where e.aggregate_id = s.id and e.event_type = 'SALE_CREATED');
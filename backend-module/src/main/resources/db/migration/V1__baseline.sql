@@ -0,0 +1,450 @@
+-- Baseline: the schema as Hibernate's ddl-auto: update left it before versioned migrations.
+-- Databases created that way are baselined at this version instead of running it.
+
+create table categories (
+    id bigint not null auto_increment,
+    created_at datetime(6) not null,
+    updated_at datetime(6),
+    tenant_id bigint not null,
+    icon varchar(255),
+    is_active bit,
+    name varchar(255) not null,
+    sort_order integer,
+    primary key (id)
+) engine=InnoDB;
+
+create table invoices (
+    id bigint not null auto_increment,
+    created_at datetime(6) not null,
+    updated_at datetime(6),
+    billing_cycle varchar(20),
+    billing_period_end datetime(6) not null,
+    billing_period_start datetime(6) not null,
+    currency varchar(3),
+    discount_amount decimal(12,2),
+    due_date datetime(6) not null,
+    invoice_number varchar(50) not null,
+    notes varchar(500),
+    paid_at datetime(6),
+    payment_method varchar(50),
+    payment_reference varchar(100),
+    plan_name varchar(255),
+    status enum ('DRAFT','PENDING','PAID','OVERDUE','CANCELLED','REFUNDED') not null,
+    subtotal decimal(12,2) not null,
+    tax_amount decimal(12,2),
+    tax_rate decimal(5,4),
+    tenant_id bigint not null,
+    total_amount decimal(12,2) not null,
+    subscription_id bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table outlets (
+    id bigint not null auto_increment,
+    created_at datetime(6) not null,
+    updated_at datetime(6),
+    address varchar(500),
+    currency varchar(3),
+    email varchar(255),
+    is_active bit,
+    logo varchar(255),
+    name varchar(255) not null,
+    phone varchar(20),
+    receipt_footer varchar(500),
+    receipt_header varchar(500),
+    tax_rate decimal(5,2),
+    timezone varchar(50),
+    primary key (id)
+) engine=InnoDB;
+
+create table payments (
+    id bigint not null auto_increment,
+    created_at datetime(6) not null,
+    updated_at datetime(6),
+    amount decimal(12,2) not null,
+    currency varchar(3),
+    expired_at datetime(6),
+    external_id varchar(100),
+    gateway_response varchar(2000),
+    notes varchar(500),
+    paid_at datetime(6),
+    payment_gateway varchar(50),
+    payment_method enum ('BANK_TRANSFER','VIRTUAL_ACCOUNT','CREDIT_CARD','QRIS','EWALLET_OVO','EWALLET_GOPAY','EWALLET_DANA','EWALLET_SHOPEEPAY') not null,
+    payment_number varchar(50) not null,
+    payment_url varchar(500),
+    qr_code varchar(1000),
+    status enum ('PENDING','PROCESSING','PAID','FAILED','EXPIRED','REFUNDED','CANCELLED') not null,
+    tenant_id bigint not null,
+    va_number varchar(50),
+    invoice_id bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table plans (
+    id bigint not null auto_increment,
+    created_at datetime(6) not null,
+    updated_at datetime(6),
+    code varchar(50) not null,
+    currency varchar(3),
+    description varchar(500),
+    feature_api_access bit,
+    feature_email_support bit,
+    feature_export bit,
+    feature_inventory bit,
+    feature_multi_outlet bit,
+    feature_priority_support bit,
+    feature_reports bit,
+    is_active bit,
+    is_popular bit,
+    max_outlets integer,
+    max_products integer,
+    max_transactions_per_month integer,
+    max_users integer,
+    monthly_price decimal(12,2) not null,
+    name varchar(255) not null,
+    sort_order integer,
+    trial_days integer,
+    yearly_price decimal(12,2),
+    primary key (id)
+) engine=InnoDB;
+
+create table products (
+    id bigint not null auto_increment,
+    created_at datetime(6) not null,
+    updated_at datetime(6),
+    tenant_id bigint not null,
+    barcode varchar(255),
+    cost_price decimal(12,2),
+    description varchar(500),
+    image MEDIUMTEXT,
+    is_active bit,
+    min_stock integer,
+    name varchar(255) not null,
+    price decimal(12,2) not null,
+    sku varchar(50) not null,
+    stock integer not null,
+    category_id bigint,
+    primary key (id)
+) engine=InnoDB;
+
+create table restaurant_tables (
+    id bigint not null auto_increment,
+    created_at datetime(6) not null,
+    updated_at datetime(6),
+    tenant_id bigint not null,
+    capacity integer,
+    location varchar(255),
+    name varchar(255) not null,
+    status enum ('AVAILABLE','OCCUPIED','RESERVED','DIRTY') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table sale_items (
+    id bigint not null auto_increment,
+    created_at datetime(6) not null,
+    updated_at datetime(6),
+    discount_amount decimal(12,2),
+    notes varchar(255),
+    product_name varchar(255) not null,
+    product_sku varchar(50) not null,
+    quantity integer not null,
+    subtotal decimal(14,2) not null,
+    unit_price decimal(12,2) not null,
+    product_id bigint not null,
+    sale_id bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table sales (
+    id bigint not null auto_increment,
+    created_at datetime(6) not null,
+    updated_at datetime(6),
+    tenant_id bigint not null,
+    amount_paid decimal(14,2),
+    change_amount decimal(14,2),
+    customer_name varchar(100),
+    customer_phone varchar(20),
+    discount_amount decimal(14,2),
+    discount_percent decimal(5,2),
+    grand_total decimal(14,2) not null,
+    notes varchar(500),
+    payment_method enum ('CASH','CARD','QRIS','EWALLET') not null,
+    payment_status enum ('PENDING','PAID','PARTIAL','REFUNDED','FAILED') not null,
+    receipt_number varchar(50) not null,
+    sale_date datetime(6) not null,
+    status enum ('PENDING','COMPLETED','CANCELLED','REFUNDED','VOIDED') not null,
+    subtotal decimal(14,2) not null,
+    tax_amount decimal(14,2) not null,
+    tax_rate decimal(5,4),
+    cashier_id bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table stock_movements (
+    id bigint not null auto_increment,
+    created_at datetime(6) not null,
+    updated_at datetime(6),
+    tenant_id bigint not null,
+    movement_date datetime(6) not null,
+    movement_type enum ('SALE','PURCHASE','ADJUSTMENT','RETURN','TRANSFER_IN','TRANSFER_OUT','DAMAGE','EXPIRED','INITIAL') not null,
+    notes varchar(500),
+    quantity integer not null,
+    reference_id bigint,
+    reference_type varchar(50),
+    stock_after integer not null,
+    stock_before integer not null,
+    created_by bigint,
+    product_id bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table subscriptions (
+    id bigint not null auto_increment,
+    created_at datetime(6) not null,
+    updated_at datetime(6),
+    auto_renew bit,
+    billing_cycle enum ('MONTHLY','YEARLY') not null,
+    cancel_reason varchar(500),
+    cancelled_at datetime(6),
+    current_period_end datetime(6),
+    current_period_start datetime(6),
+    end_date datetime(6) not null,
+    next_billing_date datetime(6),
+    outlets_used integer,
+    price decimal(12,2),
+    products_used integer,
+    start_date datetime(6) not null,
+    status enum ('TRIAL','ACTIVE','PAST_DUE','CANCELLED','EXPIRED','SUSPENDED') not null,
+    tenant_id bigint not null,
+    transactions_this_month integer,
+    trial_end_date datetime(6),
+    users_used integer,
+    plan_id bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table transaction_items (
+    id bigint not null auto_increment,
+    created_at datetime(6) not null,
+    updated_at datetime(6),
+    notes varchar(255),
+    price decimal(12,2) not null,
+    product_name varchar(255) not null,
+    quantity integer not null,
+    subtotal decimal(14,2) not null,
+    product_id bigint not null,
+    transaction_id bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table transactions (
+    id bigint not null auto_increment,
+    created_at datetime(6) not null,
+    updated_at datetime(6),
+    tenant_id bigint not null,
+    cash_change decimal(14,2),
+    cash_received decimal(14,2),
+    discount decimal(14,2) not null,
+    invoice_number varchar(50) not null,
+    notes varchar(500),
+    payment_method enum ('CASH','CARD','QRIS','EWALLET') not null,
+    status enum ('PENDING','COMPLETED','CANCELLED','REFUNDED') not null,
+    subtotal decimal(14,2) not null,
+    tax decimal(14,2) not null,
+    total decimal(14,2) not null,
+    cashier_id bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table users (
+    id bigint not null auto_increment,
+    created_at datetime(6) not null,
+    updated_at datetime(6),
+    tenant_id bigint not null,
+    avatar varchar(255),
+    email varchar(255) not null,
+    is_active bit,
+    name varchar(255) not null,
+    password varchar(255) not null,
+    phone varchar(20),
+    pin varchar(6),
+    role enum ('SUPERADMIN','ADMIN','CASHIER') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create index idx_category_tenant
+   on categories (tenant_id);
+
+create index idx_inv_tenant
+   on invoices (tenant_id);
+
+create index idx_inv_number
+   on invoices (invoice_number);
+
+create index idx_inv_status
+   on invoices (status);
+
+alter table invoices
+   add constraint UK_l1x55mfsay7co0r3m9ynvipd5 unique (invoice_number);
+
+create index idx_pay_tenant
+   on payments (tenant_id);
+
+create index idx_pay_invoice
+   on payments (invoice_id);
+
+create index idx_pay_status
+   on payments (status);
+
+alter table payments
+   add constraint UK_c6nxg52ow66u8ut91bytspy64 unique (payment_number);
+
+alter table plans
+   add constraint UK_bsiq2g7uq9l49v27bsijicsys unique (code);
+
+create index idx_product_sku
+   on products (sku);
+
+create index idx_product_tenant
+   on products (tenant_id);
+
+create index idx_product_category
+   on products (category_id);
+
+create index idx_table_tenant
+   on restaurant_tables (tenant_id);
+
+create index idx_sale_item_sale
+   on sale_items (sale_id);
+
+create index idx_sale_item_product
+   on sale_items (product_id);
+
+create index idx_sale_tenant
+   on sales (tenant_id);
+
+create index idx_sale_receipt
+   on sales (receipt_number);
+
+create index idx_sale_date
+   on sales (sale_date);
+
+create index idx_sale_status
+   on sales (status);
+
+alter table sales
+   add constraint UK_id16ltqx3v69oiuyjsgl46x2w unique (receipt_number);
+
+create index idx_stock_tenant
+   on stock_movements (tenant_id);
+
+create index idx_stock_product
+   on stock_movements (product_id);
+
+create index idx_stock_date
+   on stock_movements (movement_date);
+
+create index idx_stock_type
+   on stock_movements (movement_type);
+
+create index idx_sub_tenant
+   on subscriptions (tenant_id);
+
+create index idx_sub_status
+   on subscriptions (status);
+
+create index idx_sub_end_date
+   on subscriptions (end_date);
+
+create index idx_trx_tenant
+   on transactions (tenant_id);
+
+create index idx_trx_invoice
+   on transactions (invoice_number);
+
+create index idx_trx_date
+   on transactions (created_at);
+
+alter table transactions
+   add constraint UK_h0xuuo6cibonbr42nw2rq432m unique (invoice_number);
+
+create index idx_user_tenant
+   on users (tenant_id);
+
+alter table users
+   add constraint idx_user_email unique (email);
+
+alter table invoices
+   add constraint FKekyltlmwbronx3ubn5it0346p
+   foreign key (subscription_id)
+   references subscriptions (id);
+
+alter table invoices
+   add constraint FK16vn78g5v9b8u9hucj04tw609
+   foreign key (tenant_id)
+   references outlets (id);
+
+alter table payments
+   add constraint FKrbqec6be74wab8iifh8g3i50i
+   foreign key (invoice_id)
+   references invoices (id);
+
+alter table products
+   add constraint FKog2rp4qthbtt2lfyhfo32lsw9
+   foreign key (category_id)
+   references categories (id);
+
+alter table sale_items
+   add constraint FK8g0sjiqs7tg055o06p6wawu39
+   foreign key (product_id)
+   references products (id);
+
+alter table sale_items
+   add constraint FK7tcpbc5c5mpnm8fl2phl8ep7l
+   foreign key (sale_id)
+   references sales (id);
+
+alter table sales
+   add constraint FKtbqsuaq9mtds03lxuiub7m4b1
+   foreign key (cashier_id)
+   references users (id);
+
+alter table stock_movements
+   add constraint FKtarfmf9jkv9ovq74yswik0gsl
+   foreign key (created_by)
+   references users (id);
+
+alter table stock_movements
+   add constraint FKjcaag8ogfjxpwmqypi1wfdaog
+   foreign key (product_id)
+   references products (id);
+
+alter table subscriptions
+   add constraint FKb1uf5qnxi6uj95se8ykydntl1
+   foreign key (plan_id)
+   references plans (id);
+
+alter table subscriptions
+   add constraint FK3miyjsy90jvm6x82v3f8hfxhl
+   foreign key (tenant_id)
+   references outlets (id);
+
+alter table transaction_items
+   add constraint FKgsb427fg2c1bvih6av0px6seg
+   foreign key (product_id)
+   references products (id);
+
+alter table transaction_items
+   add constraint FKfaqqkmi2ahnahay1ciwffqwyp
+   foreign key (transaction_id)
+   references transactions (id);
+
+alter table transactions
+   add constraint FKld32c0oc871tmae0dse406qv
+   foreign key (cashier_id)
+   references users (id);
+
+alter table users
+   add constraint FKpg0mk98baifqcv3cyv9ue7mvi
+   foreign key (tenant_id)
+   references outlets (id);
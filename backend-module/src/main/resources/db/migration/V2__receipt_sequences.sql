@@ -0,0 +1,13 @@
+-- Receipt numbers reserved in blocks per tenant and business day, so several nodes can issue them
+create table receipt_sequences (
+    id bigint not null auto_increment,
+    created_at datetime(6) not null,
+    updated_at datetime(6),
+    business_date date not null,
+    last_number bigint not null,
+    tenant_id bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+alter table receipt_sequences
+   add constraint uk_receipt_seq_tenant_day unique (tenant_id, business_date);
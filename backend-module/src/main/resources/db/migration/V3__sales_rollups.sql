@@ -0,0 +1,36 @@
+-- Sales totals per tenant and hour, and units sold per product and day, kept up to date as sales
+-- are recorded so reports no longer aggregate the raw sales
+create table sales_hourly_rollups (
+    id bigint not null auto_increment,
+    created_at datetime(6) not null,
+    updated_at datetime(6),
+    tenant_id bigint not null,
+    bucket_date date not null,
+    bucket_hour integer not null,
+    cashier_id bigint not null,
+    discount_amount decimal(16,2) not null,
+    grand_total decimal(16,2) not null,
+    payment_method enum ('CASH','CARD','QRIS','EWALLET') not null,
+    sale_count bigint not null,
+    tax_amount decimal(16,2) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table product_daily_rollups (
+    id bigint not null auto_increment,
+    created_at datetime(6) not null,
+    updated_at datetime(6),
+    tenant_id bigint not null,
+    bucket_date date not null,
+    product_id bigint not null,
+    product_name varchar(255) not null,
+    quantity bigint not null,
+    revenue decimal(16,2) not null,
+    primary key (id)
+) engine=InnoDB;
+
+alter table sales_hourly_rollups
+   add constraint uk_sales_rollup_bucket unique (tenant_id, bucket_date, bucket_hour, payment_method, cashier_id);
+
+alter table product_daily_rollups
+   add constraint uk_product_rollup_bucket unique (tenant_id, bucket_date, product_id);
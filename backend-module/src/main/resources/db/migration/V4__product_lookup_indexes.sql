@@ -0,0 +1,8 @@
+-- Barcode and SKU lookups are per tenant; the tenant-prefixed SKU index replaces the one on sku alone
+create index idx_product_tenant_sku
+   on products (tenant_id, sku);
+
+create index idx_product_tenant_barcode
+   on products (tenant_id, barcode);
+
+alter table products drop index idx_product_sku;
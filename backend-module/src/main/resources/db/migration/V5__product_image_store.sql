@@ -0,0 +1,22 @@
+-- Product images move to a content-addressed store; products keep only a URL into it
+create table product_images (
+    id bigint not null auto_increment,
+    created_at datetime(6) not null,
+    updated_at datetime(6),
+    content_type varchar(50) not null,
+    data MEDIUMBLOB not null,
+    hash varchar(64) not null,
+    size_bytes integer not null,
+    primary key (id)
+) engine=InnoDB;
+
+alter table product_images
+   add constraint uk_product_image_hash unique (hash);
+
+-- Images uploaded as base64 data URLs wait in inline_image until the application moves them into
+-- the store at startup; the image column then only has to hold a URL
+alter table products add column inline_image MEDIUMTEXT;
+
+update products set inline_image = image, image = null where image like 'data:%';
+
+alter table products modify image varchar(500);
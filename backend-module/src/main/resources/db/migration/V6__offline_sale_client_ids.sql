@@ -0,0 +1,6 @@
+-- Sales uploaded by offline terminals carry the terminal's id for them, so a retried upload is
+-- recognised instead of stored twice
+alter table sales add column client_id varchar(64);
+
+alter table sales
+   add constraint uk_sale_tenant_client unique (tenant_id, client_id);
@@ -0,0 +1,19 @@
+-- Responses of checkouts sent with an Idempotency-Key, replayed when the same request is retried
+create table idempotency_keys (
+    id bigint not null auto_increment,
+    created_at datetime(6) not null,
+    updated_at datetime(6),
+    expires_at datetime(6) not null,
+    idempotency_key varchar(100) not null,
+    request_hash varchar(64) not null,
+    response_body MEDIUMTEXT not null,
+    scope varchar(50) not null,
+    tenant_id bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+create index idx_idempotency_expires
+   on idempotency_keys (expires_at);
+
+alter table idempotency_keys
+   add constraint uk_idempotency_key unique (tenant_id, scope, idempotency_key);
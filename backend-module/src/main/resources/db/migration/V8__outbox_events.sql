@@ -0,0 +1,21 @@
+-- Side effects of a sale, written in the sale's transaction and dispatched after it commits
+create table outbox_events (
+    id bigint not null auto_increment,
+    created_at datetime(6) not null,
+    updated_at datetime(6),
+    aggregate_id bigint not null,
+    attempts integer not null,
+    event_type enum ('SALE_CREATED','SALE_VOIDED','SALE_REFUNDED') not null,
+    last_error varchar(500),
+    next_attempt_at datetime(6) not null,
+    payload TEXT not null,
+    status enum ('PENDING','FAILED') not null,
+    tenant_id bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+create index idx_outbox_tenant_status
+   on outbox_events (tenant_id, status, id);
+
+create index idx_outbox_status_created
+   on outbox_events (status, created_at);
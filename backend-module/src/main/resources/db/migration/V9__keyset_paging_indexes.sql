@@ -0,0 +1,12 @@
+-- Sales, transactions and stock movements are paged by (date, id) within a tenant
+create index idx_sale_tenant_date_id
+   on sales (tenant_id, sale_date, id);
+
+create index idx_trx_tenant_created_id
+   on transactions (tenant_id, created_at, id);
+
+create index idx_stock_tenant_date_id
+   on stock_movements (tenant_id, movement_date, id);
+
+create index idx_stock_tenant_product_date_id
+   on stock_movements (tenant_id, product_id, movement_date, id);
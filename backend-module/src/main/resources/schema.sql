@@ -1,5 +1,5 @@
 -- Warungku POS Database Schema
--- This file is for reference only. JPA/Hibernate will create tables automatically.
+-- This file is for reference only. The schema is created by the versioned scripts in db/migration.
 
 -- =============================================
 -- OUTLETS (Tenants)
@@ -0,0 +1,55 @@
+package com.warungku.pos.controller;
+
+import com.warungku.pos.entity.ProductImage;
+import com.warungku.pos.service.ProductImageService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ImageControllerTest {
+
+    private static final String HASH = "a".repeat(64);
+
+    @Mock
+    private ProductImageService productImageService;
+
+    @InjectMocks
+    private ImageController imageController;
+
+    @Test
+    @DisplayName("should serve image bytes with an ETag and long-lived caching")
+    void shouldServeImageWithCachingHeaders() {
+        byte[] data = {1, 2, 3};
+        when(productImageService.getImage(HASH)).thenReturn(ProductImage.builder()
+                .hash(HASH).contentType("image/png").sizeBytes(data.length).data(data).build());
+
+        ResponseEntity<byte[]> response = imageController.getImage(HASH, null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(data);
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"" + HASH + "\"");
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.IMAGE_PNG);
+        assertThat(response.getHeaders().getCacheControl()).contains("immutable");
+    }
+
+    @Test
+    @DisplayName("should answer 304 for a matching ETag without reading the store")
+    void shouldAnswerNotModified() {
+        ResponseEntity<byte[]> response = imageController.getImage(HASH, "\"" + HASH + "\"");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(response.getBody()).isNull();
+        verifyNoInteractions(productImageService);
+    }
+}
@@ -0,0 +1,125 @@
+package com.warungku.pos.core.migration;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import java.sql.Connection;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Migrates a fresh in-memory database per test, in MySQL compatibility mode.
+ */
+class SchemaMigratorTest {
+
+    private JdbcDataSource dataSource;
+    private JdbcTemplate jdbc;
+    private SchemaMigrator migrator;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:migrator-" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        jdbc = new JdbcTemplate(dataSource);
+        migrator = new SchemaMigrator(dataSource);
+    }
+
+    private List<String> indexes(String table) {
+        return jdbc.queryForList("SELECT DISTINCT index_name FROM information_schema.indexes "
+                + "WHERE table_name = ?", String.class, table);
+    }
+
+    private void seedReleaseSchema() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/release-schema.sql"));
+        }
+    }
+
+    @Test
+    @DisplayName("should build an empty database from the scripts, once")
+    void shouldMigrateEmptyDatabase() throws Exception {
+        assertThat(migrator.migrate()).isEqualTo(12);
+        assertThat(migrator.migrate()).isZero();
+
+        assertThat(jdbc.queryForList("SELECT version FROM schema_migrations WHERE baseline = FALSE", Integer.class))
+                .containsExactly(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12);
+        assertThat(indexes("sales")).contains("idx_sale_tenant_status_date", "idx_sale_tenant_date_id")
+                .doesNotContain("idx_sale_tenant", "idx_sale_status", "idx_sale_date");
+        assertThat(indexes("stock_movements")).contains("idx_stock_tenant_product_date_id", "idx_stock_tenant_date_id")
+                .doesNotContain("idx_stock_tenant", "idx_stock_date");
+    }
+
+    @Test
+    @DisplayName("should baseline the schema of the last release and bring it and its rows up to date")
+    void shouldBaselineReleaseSchema() throws Exception {
+        seedReleaseSchema();
+        jdbc.update("INSERT INTO outlets (name, created_at) VALUES ('Warungku', NOW())");
+        jdbc.update("INSERT INTO products (tenant_id, name, sku, price, stock, image, created_at) VALUES "
+                + "(1, 'Es Teh', 'DRK001', 5000, 10, 'data:image/png;base64,iVBORw0KGgo=', NOW()), "
+                + "(1, 'Kopi', 'DRK002', 8000, 10, 'https://cdn.warungku.test/kopi.png', NOW())");
+        jdbc.update("INSERT INTO users (tenant_id, name, email, password, role, created_at) VALUES "
+                + "(1, 'Cashier One', 'cashier@warungku.test', 'secret', 'CASHIER', NOW())");
+        jdbc.update("INSERT INTO sales (tenant_id, receipt_number, sale_date, subtotal, tax_amount, grand_total, "
+                + "payment_method, payment_status, status, cashier_id, created_at) VALUES "
+                + "(1, 'INV-1-20260302-0001', NOW(), 5000, 500, 5500, 'CASH', 'PAID', 'COMPLETED', 1, NOW()), "
+                + "(1, 'INV-1-20260302-0002', NOW(), 5000, 500, 5500, 'CASH', 'PAID', 'VOIDED', 1, NOW())");
+
+        assertThat(migrator.migrate()).isEqualTo(11);
+
+        assertThat(jdbc.queryForObject("SELECT baseline FROM schema_migrations WHERE version = 1", Boolean.class))
+                .isTrue();
+        assertThat(jdbc.queryForList("SELECT version FROM schema_migrations WHERE baseline = FALSE", Integer.class))
+                .containsExactly(2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12);
+        assertThat(jdbc.queryForList("SELECT table_name FROM information_schema.tables", String.class))
+                .contains("receipt_sequences", "sales_hourly_rollups", "product_daily_rollups", "product_images",
+                        "idempotency_keys", "outbox_events", "archived_months");
+        assertThat(jdbc.queryForObject("SELECT character_maximum_length FROM information_schema.columns "
+                + "WHERE table_name = 'products' AND column_name = 'image'", Long.class)).isEqualTo(500);
+        assertThat(jdbc.queryForList("SELECT image, inline_image FROM products ORDER BY sku"))
+                .extracting(row -> row.get("image"), row -> row.get("inline_image"))
+                .containsExactly(
+                        tuple(null, "data:image/png;base64,iVBORw0KGgo="),
+                        tuple("https://cdn.warungku.test/kopi.png", null));
+        assertThat(indexes("sales")).contains("idx_sale_tenant_status_date", "idx_sale_tenant_date_id")
+                .doesNotContain("idx_sale_date");
+        assertThat(jdbc.queryForList("SELECT constraint_name FROM information_schema.table_constraints "
+                + "WHERE table_name = 'sales'", String.class)).contains("uk_sale_tenant_client");
+        assertThat(indexes("products")).contains("idx_product_tenant_sku").doesNotContain("idx_product_sku");
+        assertThat(jdbc.queryForList("SELECT rolled_up FROM sales ORDER BY receipt_number", Boolean.class))
+                .containsExactly(true, false);
+    }
+
+    @Test
+    @DisplayName("should refuse to baseline a schema that already has tables of later versions")
+    void shouldRejectSchemaAheadOfBaseline() throws Exception {
+        seedReleaseSchema();
+        jdbc.execute("CREATE TABLE outbox_events (id BIGINT NOT NULL PRIMARY KEY)");
+
+        assertThatThrownBy(migrator::migrate)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("does not match V1")
+                .hasMessageContaining("outbox_events");
+        assertThat(jdbc.queryForList("SELECT table_name FROM information_schema.tables", String.class))
+                .doesNotContain("schema_migrations");
+    }
+
+    @Test
+    @DisplayName("should refuse to start when an applied script was changed")
+    void shouldRejectChangedScripts() throws Exception {
+        migrator.migrate();
+        jdbc.update("UPDATE schema_migrations SET checksum = 'edited' WHERE version = 11");
+
+        assertThatThrownBy(migrator::migrate)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("V11__tenant_composite_indexes.sql");
+    }
+}
@@ -0,0 +1,91 @@
+package com.warungku.pos.core.migration;
+
+import com.warungku.pos.entity.Product;
+import com.warungku.pos.repository.ProductRepository;
+import com.warungku.pos.repository.SaleRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Starts JPA with {@code ddl-auto: validate} on a database that held the last release's schema and
+ * rows, so every entity is checked against the schema the migration scripts leave behind.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:schema_validation;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+@Import({SchemaMigrator.class, EntityManagerFactoryDependsOnSchemaMigrator.class,
+        SchemaValidationTest.ReleaseSchemaConfig.class})
+class SchemaValidationTest {
+
+    private static final String DATA_URL = "data:image/png;base64,iVBORw0KGgo=";
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private SaleRepository saleRepository;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @TestConfiguration
+    static class ReleaseSchemaConfig {
+
+        /**
+         * Fills the database as the last release left it before the migrator gets to it.
+         */
+        @Bean
+        static BeanPostProcessor releaseSchema() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource dataSource) {
+                        try (Connection connection = dataSource.getConnection()) {
+                            ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/release-schema.sql"));
+                            connection.createStatement().executeUpdate("INSERT INTO products "
+                                    + "(tenant_id, name, sku, price, stock, image, created_at) "
+                                    + "VALUES (1, 'Es Teh', 'DRK001', 5000, 10, '" + DATA_URL + "', NOW())");
+                        } catch (SQLException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+
+    @Test
+    @DisplayName("entities should match the schema migrated from the last release")
+    void entitiesShouldMatchMigratedSchema() {
+        assertThat(jdbc.queryForList("SELECT version FROM schema_migrations WHERE baseline = TRUE", Integer.class))
+                .containsExactly(1);
+
+        Product product = productRepository.findBySku("DRK001").orElseThrow();
+        assertThat(product.getImage()).isNull();
+        assertThat(product.getInlineImage()).isEqualTo(DATA_URL);
+        assertThat(saleRepository.count()).isZero();
+    }
+}
@@ -0,0 +1,103 @@
+package com.warungku.pos.core.tenant;
+
+import com.warungku.pos.entity.Outlet;
+import com.warungku.pos.entity.Product;
+import com.warungku.pos.repository.OutletRepository;
+import com.warungku.pos.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two tenants side by side: each session sees only its own tenant's rows, by query and by id.
+ * Runs without a test transaction so every block opens its own session, as a request would.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(TenantSessionInitializer.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TenantIsolationTest {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OutletRepository outletRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate tx;
+    private Long tenantA;
+    private Long tenantB;
+    private Long productA;
+    private Long productB;
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+        tenantA = outletRepository.save(Outlet.builder().name("Warung A").build()).getId();
+        tenantB = outletRepository.save(Outlet.builder().name("Warung B").build()).getId();
+        productA = asTenant(tenantA, () -> saveProduct("Nasi Goreng", "A-" + tenantA));
+        productB = asTenant(tenantB, () -> saveProduct("Mie Goreng", "B-" + tenantB));
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    private Long saveProduct(String name, String sku) {
+        return productRepository.save(Product.builder()
+                .name(name).sku(sku).price(new BigDecimal("15000")).stock(10).build()).getId();
+    }
+
+    private <T> T asTenant(Long tenantId, Supplier<T> work) {
+        TenantContext.setTenantId(tenantId);
+        try {
+            return tx.execute(status -> work.get());
+        } finally {
+            TenantContext.clear();
+        }
+    }
+
+    @Test
+    @DisplayName("queries should only return the session's tenant")
+    void queriesShouldBeScoped() {
+        assertThat(asTenant(tenantA, () -> productRepository.findAllActive()))
+                .extracting(Product::getId).containsExactly(productA);
+        assertThat(asTenant(tenantB, () -> productRepository.findBySku("A-" + tenantA))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("findById should not load another tenant's row")
+    void findByIdShouldBeScoped() {
+        assertThat(asTenant(tenantA, () -> productRepository.findById(productA))).isPresent();
+        assertThat(asTenant(tenantA, () -> productRepository.findById(productB))).isEmpty();
+        assertThat(asTenant(tenantB, () -> productRepository.existsById(productA))).isFalse();
+    }
+
+    @Test
+    @DisplayName("sessions without a tenant should see every tenant")
+    void unscopedSessionsShouldSeeAll() {
+        assertThat(asTenant(null, () -> productRepository.findById(productB))).isPresent();
+        assertThat(asTenant(null, () -> productRepository.findAllById(List.of(productA, productB)))).hasSize(2);
+    }
+}
@@ -0,0 +1,55 @@
+package com.warungku.pos.core.tenant;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TenantTaskDecoratorTest {
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    @Test
+    @DisplayName("virtual-thread tasks should run with the submitter's tenant and user")
+    void shouldPropagateToVirtualThreads() throws Exception {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("tenant-test-");
+        executor.setVirtualThreads(true);
+        executor.setTaskDecorator(new TenantTaskDecorator());
+
+        TenantContext.setTenantId(7L);
+        TenantContext.setUserId(70L);
+        Future<Long[]> seen = executor.submit(() -> new Long[]{TenantContext.getTenantId(), TenantContext.getUserId()});
+
+        assertThat(seen.get(5, TimeUnit.SECONDS)).containsExactly(7L, 70L);
+    }
+
+    @Test
+    @DisplayName("pooled threads should not keep a task's tenant afterwards")
+    void shouldNotLeakIntoPooledThreads() throws Exception {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setTaskDecorator(new TenantTaskDecorator());
+        executor.initialize();
+        try {
+            TenantContext.setTenantId(7L);
+            executor.submit(() -> assertThat(TenantContext.getTenantId()).isEqualTo(7L)).get(5, TimeUnit.SECONDS);
+            TenantContext.clear();
+
+            // Same single pool thread, submitted without a tenant
+            Future<Boolean> hasTenant = executor.submit(TenantContext::hasTenant);
+            assertThat(hasTenant.get(5, TimeUnit.SECONDS)).isFalse();
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.warungku.pos.repository;
+
+import com.warungku.pos.core.migration.EntityManagerFactoryDependsOnSchemaMigrator;
+import com.warungku.pos.core.migration.SchemaMigrator;
+import com.warungku.pos.core.tenant.TenantContext;
+import com.warungku.pos.core.tenant.TenantSessionInitializer;
+import com.warungku.pos.dto.CursorPage;
+import com.warungku.pos.entity.Outlet;
+import com.warungku.pos.entity.enums.SaleStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Query-plan regression suite: runs the report and history queries against a database built by
+ * the migration scripts and checks the index the planner picks for each. Every query is explained
+ * as issued, with its own parameters. The embedded database plans like MySQL for an equality prefix
+ * followed by a range, so an index dropped or reordered by a migration shows up here. It does not pick
+ * an index to avoid a sort, so first pages, which filter on the tenant alone, are not checked.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:query_plans;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+@Import({SchemaMigrator.class, EntityManagerFactoryDependsOnSchemaMigrator.class, TenantSessionInitializer.class,
+        QueryPlanTest.ExplainConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class QueryPlanTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 2);
+
+    @Autowired
+    private SaleRepository saleRepository;
+
+    @Autowired
+    private SaleItemRepository saleItemRepository;
+
+    @Autowired
+    private StockMovementRepository stockMovementRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private SalesHourlyRollupRepository salesHourlyRollupRepository;
+
+    @Autowired
+    private ProductDailyRollupRepository productDailyRollupRepository;
+
+    @Autowired
+    private OutletRepository outletRepository;
+
+    @Autowired
+    private ExplainingDataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Long tenantId;
+
+    @TestConfiguration
+    static class ExplainConfig {
+
+        @Bean
+        static BeanPostProcessor explainingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource && !(bean instanceof ExplainingDataSource)
+                            ? new ExplainingDataSource(dataSource) : bean;
+                }
+            };
+        }
+    }
+
+    /**
+     * Explains every query while recording, on the same connection and with the same parameters.
+     */
+    static class ExplainingDataSource extends DelegatingDataSource {
+
+        final List<String> plans = new CopyOnWriteArrayList<>();
+        volatile boolean recording;
+
+        ExplainingDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection connection = super.getConnection();
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        Object result = invoke(connection, method, args);
+                        if (method.getName().equals("prepareStatement") && args[0] instanceof String sql) {
+                            return explaining(connection, (PreparedStatement) result, sql);
+                        }
+                        return result;
+                    });
+        }
+
+        private PreparedStatement explaining(Connection connection, PreparedStatement statement, String sql) {
+            List<Object[]> parameters = new ArrayList<>();
+            return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                        if (method.getName().startsWith("set") && args != null && args.length > 1
+                                && args[0] instanceof Integer) {
+                            parameters.add(new Object[]{method, args});
+                        }
+                        if (method.getName().equals("executeQuery") && recording) {
+                            try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + sql)) {
+                                for (Object[] parameter : parameters) {
+                                    invoke(explain, (Method) parameter[0], (Object[]) parameter[1]);
+                                }
+                                try (ResultSet plan = explain.executeQuery()) {
+                                    plan.next();
+                                    plans.add(plan.getString(1));
+                                }
+                            }
+                        }
+                        return invoke(statement, method, args);
+                    });
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        tenantId = outletRepository.save(Outlet.builder().name("Warung A").build()).getId();
+        TenantContext.setTenantId(tenantId);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.recording = false;
+        TenantContext.clear();
+    }
+
+    /**
+     * @return the plans of the queries the block ran, in a tenant-scoped session
+     */
+    private String plan(Runnable queries) {
+        dataSource.plans.clear();
+        dataSource.recording = true;
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> queries.run());
+        } finally {
+            dataSource.recording = false;
+        }
+        assertThat(dataSource.plans).isNotEmpty();
+        return String.join("\n", dataSource.plans);
+    }
+
+    @Test
+    @DisplayName("rollup rebuild should read completed sales of a day by tenant, status and date")
+    void rollupRebuildShouldUseTenantStatusDateIndex() {
+        LocalDateTime start = DAY.atStartOfDay();
+        LocalDateTime end = DAY.plusDays(1).atStartOfDay();
+
+        assertThat(plan(() -> saleRepository.aggregateSalesByDate(tenantId, start, end)))
+                .contains("idx_sale_tenant_status_date");
+        assertThat(plan(() -> saleItemRepository.aggregateProductsByDate(tenantId, start, end)))
+                .contains("idx_sale_tenant_status_date").contains("idx_sale_item_sale");
+        assertThat(plan(() -> saleRepository.findByStatus(SaleStatus.VOIDED)))
+                .contains("idx_sale_tenant_status_date");
+    }
+
+    @Test
+    @DisplayName("reports should read rollup buckets by tenant and date")
+    void reportsShouldUseRollupKeys() {
+        assertThat(plan(() -> salesHourlyRollupRepository.findBuckets(tenantId, DAY, DAY.plusDays(6))))
+                .contains("uk_sales_rollup_bucket");
+        assertThat(plan(() -> productDailyRollupRepository.findBuckets(tenantId, DAY, DAY.plusDays(6))))
+                .contains("uk_product_rollup_bucket");
+    }
+
+    @Test
+    @DisplayName("sale and transaction history should seek by tenant, date and id")
+    void historyShouldUseTenantDateIdIndexes() {
+        LocalDateTime cursor = DAY.atTime(18, 0);
+
+        assertThat(plan(() -> saleRepository.findSummariesBefore(cursor, 1000L, CursorPage.limit(20))))
+                .contains("idx_sale_tenant_date_id");
+        assertThat(plan(() -> saleRepository.findSummariesBetween(DAY.atStartOfDay(), cursor)))
+                .contains("idx_sale_tenant_date_id");
+        assertThat(plan(() -> transactionRepository.findPageBefore(cursor, 1000L, CursorPage.limit(20))))
+                .contains("idx_trx_tenant_created_id");
+    }
+
+    @Test
+    @DisplayName("stock movement history should filter on the product column without joining products")
+    void stockHistoryShouldNotJoinProducts() {
+        LocalDateTime cursor = DAY.atTime(18, 0);
+        // Which stock_movements index the embedded planner takes here does not follow MySQL, which
+        // seeks idx_stock_tenant_product_date_id; the join would rule that seek out on both
+        assertThat(plan(() -> stockMovementRepository.findByProductIdOrderByMovementDateDescIdDesc(1L,
+                CursorPage.limit(20)))).doesNotContain("products");
+        assertThat(plan(() -> stockMovementRepository.findPageBefore(1L, cursor, 1000L, CursorPage.limit(20))))
+                .doesNotContain("products");
+    }
+}
@@ -0,0 +1,83 @@
+package com.warungku.pos.security.jwt;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtServiceTest {
+
+    private JwtService jwtService;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = jwtService(86_400_000L, 2);
+    }
+
+    private JwtService jwtService(long expiration, int cacheMaxEntries) {
+        JwtService service = new JwtService();
+        ReflectionTestUtils.setField(service, "secretKey", "warungku-pos-test-secret-key-minimum-256-bits-for-hs256");
+        ReflectionTestUtils.setField(service, "jwtExpiration", expiration);
+        ReflectionTestUtils.setField(service, "refreshExpiration", expiration);
+        ReflectionTestUtils.setField(service, "cacheMaxEntries", cacheMaxEntries);
+        service.init();
+        return service;
+    }
+
+    @Test
+    @DisplayName("should verify a token once and answer repeats from the cache")
+    void shouldCacheVerifiedTokens() {
+        String jwt = jwtService.generateToken(7L, 3L, "CASHIER", "kasir@warungku.id");
+
+        VerifiedToken first = jwtService.verify(jwt).orElseThrow();
+        VerifiedToken second = jwtService.verify(jwt).orElseThrow();
+
+        assertThat(first.username()).isEqualTo("kasir@warungku.id");
+        assertThat(first.userId()).isEqualTo(7L);
+        assertThat(first.tenantId()).isEqualTo(3L);
+        assertThat(first.role()).isEqualTo("CASHIER");
+        assertThat(second).isSameAs(first);
+        assertThat(jwtService.cachedTokens()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should reject tampered, foreign and malformed tokens without caching them")
+    void shouldRejectInvalidTokens() {
+        String jwt = jwtService.generateToken(7L, 3L, "CASHIER", "kasir@warungku.id");
+        String tampered = jwt.substring(0, jwt.length() - 2) + (jwt.endsWith("AA") ? "BB" : "AA");
+        JwtService otherSigner = jwtService(86_400_000L, 2);
+        ReflectionTestUtils.setField(otherSigner, "secretKey", "another-secret-key-minimum-256-bits-for-hs256-signing");
+        otherSigner.init();
+
+        assertThat(jwtService.verify(tampered)).isEmpty();
+        assertThat(jwtService.verify(otherSigner.generateToken(7L, 3L, "ADMIN", "kasir@warungku.id"))).isEmpty();
+        assertThat(jwtService.verify("not-a-jwt")).isEmpty();
+        assertThat(jwtService.cachedTokens()).isZero();
+    }
+
+    @Test
+    @DisplayName("should drop cached tokens once they expire")
+    void shouldExpireCachedTokens() throws InterruptedException {
+        JwtService shortLived = jwtService(1_000L, 2);
+        String jwt = shortLived.generateToken(7L, 3L, "CASHIER", "kasir@warungku.id");
+        assertThat(shortLived.verify(jwt)).isPresent();
+
+        Thread.sleep(1_100L);
+
+        assertThat(shortLived.verify(jwt)).isEmpty();
+        assertThat(shortLived.cachedTokens()).isZero();
+    }
+
+    @Test
+    @DisplayName("should keep verifying without caching when the cache is full of live tokens")
+    void shouldStayBoundedWhenFull() {
+        for (long user = 1; user <= 4; user++) {
+            String jwt = jwtService.generateToken(user, 3L, "CASHIER", "user" + user + "@warungku.id");
+            assertThat(jwtService.verify(jwt)).map(VerifiedToken::userId).contains(user);
+        }
+
+        assertThat(jwtService.cachedTokens()).isEqualTo(2);
+    }
+}
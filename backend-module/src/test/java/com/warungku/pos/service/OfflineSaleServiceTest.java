@@ -0,0 +1,210 @@
+package com.warungku.pos.service;
+
+import com.warungku.pos.core.tenant.TenantContext;
+import com.warungku.pos.dto.sale.CreateSaleRequest;
+import com.warungku.pos.dto.sale.OfflineSaleRequest;
+import com.warungku.pos.dto.sale.OfflineSaleResponse;
+import com.warungku.pos.dto.sale.OfflineSaleResponse.Status;
+import com.warungku.pos.entity.Outlet;
+import com.warungku.pos.entity.Product;
+import com.warungku.pos.entity.Sale;
+import com.warungku.pos.entity.User;
+import com.warungku.pos.entity.enums.PaymentMethod;
+import com.warungku.pos.exception.ForbiddenException;
+import com.warungku.pos.repository.OutletRepository;
+import com.warungku.pos.repository.ProductRepository;
+import com.warungku.pos.repository.SaleRepository;
+import com.warungku.pos.repository.StockMovementRepository;
+import com.warungku.pos.repository.UserRepository;
+import com.warungku.pos.service.catalog.ProductCatalogCache;
+import com.warungku.pos.service.outbox.OutboxPublisher;
+import com.warungku.pos.service.subscription.UsageMeter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Replays offline sales through the real repositories, in chunks of two, without a test
+ * transaction so each chunk commits or rolls back on its own.
+ */
+@DataJpaTest(properties = "sales.offline.chunk-size=2")
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({OfflineSaleService.class, SaleService.class, StockService.class, ProductCatalogCache.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OfflineSaleServiceTest {
+
+    private static final LocalDateTime OUTAGE = LocalDateTime.of(2026, 3, 2, 10, 0);
+
+    @MockBean
+    private ReceiptNumberGenerator receiptNumberGenerator;
+
+    @MockBean
+    private SalesRollupService salesRollupService;
+
+    @MockBean
+    private UsageMeter usageMeter;
+
+    @MockBean
+    private OutboxPublisher outboxPublisher;
+
+    @MockBean
+    private SubscriptionService subscriptionService;
+
+    @Autowired
+    private OfflineSaleService offlineSaleService;
+
+    @Autowired
+    private SaleRepository saleRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockMovementRepository stockMovementRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OutletRepository outletRepository;
+
+    private final AtomicInteger receipts = new AtomicInteger();
+    private String run;
+    private Product tea;
+    private Product rice;
+
+    @BeforeEach
+    void setUp() {
+        run = Long.toString(System.nanoTime());
+        Long tenantId = outletRepository.save(Outlet.builder().name("Warungku " + run).build()).getId();
+        TenantContext.setTenantId(tenantId);
+        User cashier = userRepository.save(User.builder()
+                .name("Cashier One").email("cashier" + run + "@warungku.test").password("secret").build());
+        TenantContext.setUserId(cashier.getId());
+        tea = productRepository.save(Product.builder()
+                .name("Es Teh").sku("DRK-" + run).price(new BigDecimal("5000")).stock(10).build());
+        rice = productRepository.save(Product.builder()
+                .name("Nasi Goreng").sku("FOD-" + run).price(new BigDecimal("20000")).stock(3).build());
+        when(receiptNumberGenerator.generate(any(LocalDate.class))).thenAnswer(call -> "INV-" + run + "-" + receipts.incrementAndGet());
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    private OfflineSaleRequest.OfflineSale sale(String clientId, int minute, Product product, int quantity) {
+        CreateSaleRequest.SaleItemRequest item = new CreateSaleRequest.SaleItemRequest();
+        item.setProductId(product.getId());
+        item.setQuantity(quantity);
+        OfflineSaleRequest.OfflineSale sale = new OfflineSaleRequest.OfflineSale();
+        sale.setClientId(run + "-" + clientId);
+        sale.setClientTimestamp(OUTAGE.plusMinutes(minute));
+        sale.setPaymentMethod(PaymentMethod.QRIS);
+        sale.setItems(List.of(item));
+        return sale;
+    }
+
+    private OfflineSaleRequest upload(OfflineSaleRequest.OfflineSale... sales) {
+        OfflineSaleRequest request = new OfflineSaleRequest();
+        request.setSales(new ArrayList<>(List.of(sales)));
+        return request;
+    }
+
+    private int stock(Product product) {
+        return productRepository.findById(product.getId()).orElseThrow().getStock();
+    }
+
+    @Test
+    @DisplayName("should store every sale at its client time and take stock once per product")
+    void shouldIngestInChunks() {
+        OfflineSaleResponse response = offlineSaleService.ingest(upload(
+                sale("a", 1, tea, 2), sale("b", 2, rice, 1), sale("c", 3, tea, 3)));
+
+        assertThat(response.getCreated()).isEqualTo(3);
+        assertThat(response.getResults()).extracting(OfflineSaleResponse.Result::getStatus)
+                .containsExactly(Status.CREATED, Status.CREATED, Status.CREATED);
+        Sale first = saleRepository.findWithItemsById(response.getResults().get(0).getSaleId()).orElseThrow();
+        assertThat(first.getSaleDate()).isEqualTo(OUTAGE.plusMinutes(1));
+        assertThat(first.getClientId()).isEqualTo(run + "-a");
+        assertThat(first.getGrandTotal()).isEqualByComparingTo("11000");
+        assertThat(stock(tea)).isEqualTo(5);
+        assertThat(stock(rice)).isEqualTo(2);
+        assertThat(stockMovementRepository.findByProductIdOrderByMovementDateDesc(tea.getId()))
+                .extracting(m -> m.getStockBefore() + ">" + m.getStockAfter())
+                .containsExactlyInAnyOrder("10>8", "8>5");
+        verify(usageMeter).recordTransactions(any(), eq(2));
+        verify(usageMeter).recordTransactions(any(), eq(1));
+        verify(receiptNumberGenerator, times(3)).generate(OUTAGE.toLocalDate());
+    }
+
+    @Test
+    @DisplayName("should skip sales uploaded before without pricing them again")
+    void shouldSkipStoredSales() {
+        OfflineSaleResponse first = offlineSaleService.ingest(upload(sale("a", 1, tea, 2)));
+        OfflineSaleResponse replay = offlineSaleService.ingest(upload(sale("a", 1, tea, 2), sale("b", 2, tea, 1)));
+
+        assertThat(replay.getResults()).extracting(OfflineSaleResponse.Result::getStatus)
+                .containsExactly(Status.DUPLICATE, Status.CREATED);
+        assertThat(replay.getResults().get(0).getSaleId()).isEqualTo(first.getResults().get(0).getSaleId());
+        assertThat(replay.getResults().get(0).getReceiptNumber()).isEqualTo(first.getResults().get(0).getReceiptNumber());
+        assertThat(stock(tea)).isEqualTo(7);
+        verify(receiptNumberGenerator, times(2)).generate(any(LocalDate.class));
+    }
+
+    @Test
+    @DisplayName("should fail only the sales that cannot be stored")
+    void shouldReportFailuresPerSale() {
+        OfflineSaleResponse response = offlineSaleService.ingest(upload(
+                sale("a", 1, rice, 2), sale("b", 2, rice, 2), sale("a", 3, tea, 1), sale("c", 4, tea, 1)));
+
+        assertThat(response.getResults()).extracting(OfflineSaleResponse.Result::getStatus)
+                .containsExactly(Status.CREATED, Status.FAILED, Status.DUPLICATE, Status.CREATED);
+        assertThat(response.getResults().get(1).getMessage()).contains("Insufficient stock");
+        assertThat(response.getFailed()).isEqualTo(1);
+        assertThat(stock(rice)).isEqualTo(1);
+        assertThat(stock(tea)).isEqualTo(9);
+    }
+
+    @Test
+    @DisplayName("should store only the sales that fit in the plan's transaction limit")
+    void shouldCountEverySaleAgainstTransactionLimit() {
+        AtomicInteger room = new AtomicInteger(1);
+        doAnswer(call -> {
+            int count = call.getArgument(0);
+            if (count > room.get()) {
+                throw new ForbiddenException("Monthly transaction limit reached. Please upgrade your plan.");
+            }
+            room.addAndGet(-count);
+            return null;
+        }).when(subscriptionService).checkTransactionLimit(anyInt());
+
+        OfflineSaleResponse response = offlineSaleService.ingest(upload(sale("a", 1, tea, 1), sale("b", 2, tea, 1)));
+
+        assertThat(response.getResults()).extracting(OfflineSaleResponse.Result::getStatus)
+                .containsExactly(Status.CREATED, Status.FAILED);
+        assertThat(response.getResults().get(1).getMessage()).contains("transaction limit");
+        assertThat(stock(tea)).isEqualTo(9);
+    }
+}
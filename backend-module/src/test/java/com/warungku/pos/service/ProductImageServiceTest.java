@@ -0,0 +1,101 @@
+package com.warungku.pos.service;
+
+import com.warungku.pos.entity.Product;
+import com.warungku.pos.entity.ProductImage;
+import com.warungku.pos.exception.BadRequestException;
+import com.warungku.pos.repository.ProductImageRepository;
+import com.warungku.pos.repository.ProductRepository;
+import com.warungku.pos.service.catalog.ProductCatalogCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductImageServiceTest {
+
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', 1, 2, 3};
+    private static final String PNG_DATA_URL = "data:image/png;base64," + Base64.getEncoder().encodeToString(PNG);
+
+    @Mock
+    private ProductImageRepository productImageRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ProductCatalogCache productCatalogCache;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ProductImageService productImageService;
+
+    @BeforeEach
+    void setUp() {
+        productImageService = new ProductImageService(productImageRepository, productRepository,
+                productCatalogCache, transactionManager, 1024);
+    }
+
+    @Test
+    @DisplayName("should store a data URL once and reference it by content hash")
+    void shouldStoreByContentHash() {
+        when(productImageRepository.existsByHash(any())).thenReturn(false, true);
+
+        String first = productImageService.resolve(PNG_DATA_URL);
+        String second = productImageService.resolve(PNG_DATA_URL);
+
+        assertThat(first).matches("/api/images/[0-9a-f]{64}").isEqualTo(second);
+        ArgumentCaptor<ProductImage> stored = ArgumentCaptor.forClass(ProductImage.class);
+        verify(productImageRepository, times(1)).save(stored.capture());
+        assertThat(first).endsWith(stored.getValue().getHash());
+        assertThat(stored.getValue().getContentType()).isEqualTo("image/png");
+        assertThat(stored.getValue().getData()).isEqualTo(PNG);
+    }
+
+    @Test
+    @DisplayName("should keep external URLs, clear blank images and reject bad uploads")
+    void shouldValidateImages() {
+        assertThat(productImageService.resolve("https://placehold.co/400x400.png")).isEqualTo("https://placehold.co/400x400.png");
+        assertThat(productImageService.resolve("")).isNull();
+
+        assertThatThrownBy(() -> productImageService.resolve("data:text/html;base64,PGgxPg=="))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> productImageService.resolve("data:image/png;base64,"
+                + Base64.getEncoder().encodeToString(new byte[2048])))
+                .isInstanceOf(BadRequestException.class);
+        verify(productImageRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("should move inline images of existing products into the store")
+    void shouldMigrateInlineImages() {
+        Product product = Product.builder().name("Es Teh").sku("DRK001").price(new BigDecimal("5000"))
+                .inlineImage(PNG_DATA_URL).build();
+        product.setId(7L);
+        when(productRepository.findIdsWithInlineImage()).thenReturn(List.of(7L));
+        when(productRepository.findById(7L)).thenReturn(Optional.of(product));
+        when(productRepository.save(product)).thenReturn(product);
+
+        productImageService.migrateInlineImages();
+
+        assertThat(product.getImage()).startsWith(ProductImageService.URL_PREFIX);
+        assertThat(product.getInlineImage()).isNull();
+        verify(productImageRepository).save(any(ProductImage.class));
+        verify(productCatalogCache).put(product);
+    }
+}
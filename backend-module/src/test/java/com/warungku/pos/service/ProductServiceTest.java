@@ -5,6 +5,8 @@ import com.warungku.pos.entity.Category;
 import com.warungku.pos.entity.Product;
 import com.warungku.pos.repository.CategoryRepository;
 import com.warungku.pos.repository.ProductRepository;
+import com.warungku.pos.service.catalog.ProductCatalogCache;
+import com.warungku.pos.service.subscription.UsageMeter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -13,12 +15,20 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,6 +40,18 @@ class ProductServiceTest {
     @Mock
     private CategoryRepository categoryRepository;
 
+    @Mock
+    private ProductCatalogCache productCatalogCache;
+
+    @Mock
+    private ProductImageService productImageService;
+
+    @Mock
+    private SubscriptionService subscriptionService;
+
+    @Mock
+    private UsageMeter usageMeter;
+
     @InjectMocks
     private ProductService productService;
 
@@ -192,13 +214,29 @@ class ProductServiceTest {
         @Test
         @DisplayName("should search products and return categoryId")
         void shouldSearchProductsAndReturnCategoryId() {
-            when(productRepository.search("goreng")).thenReturn(List.of(mockProducts.get(0)));
+            when(productRepository.search(eq("goreng"), any(Pageable.class)))
+                    .thenReturn(new PageImpl<>(List.of(mockProducts.get(0))));
 
-            List<ProductDto> products = productService.searchProducts("goreng");
+            Page<ProductDto> products = productService.searchProducts("goreng", PageRequest.of(0, 20));
 
-            assertThat(products).hasSize(1);
-            assertThat(products.get(0).getName()).isEqualTo("Nasi Goreng");
-            assertThat(products.get(0).getCategoryId()).isEqualTo(1L);
+            assertThat(products.getContent()).hasSize(1);
+            assertThat(products.getContent().get(0).getName()).isEqualTo("Nasi Goreng");
+            assertThat(products.getContent().get(0).getCategoryId()).isEqualTo(1L);
+        }
+
+        @Test
+        @DisplayName("should page ranked matches from the catalog index and cap the page size")
+        void shouldPageCachedMatches() {
+            List<ProductDto> matches = mockProducts.stream().map(ProductDto::fromEntity).toList();
+            when(productCatalogCache.search("e")).thenReturn(Optional.of(matches));
+
+            Page<ProductDto> page = productService.searchProducts("e", PageRequest.of(1, 1));
+            Page<ProductDto> capped = productService.searchProducts("e", PageRequest.of(0, 1000));
+
+            assertThat(page.getContent()).extracting(ProductDto::getName).containsExactly("Es Teh");
+            assertThat(page.getTotalElements()).isEqualTo(2);
+            assertThat(capped.getSize()).isEqualTo(50);
+            verifyNoInteractions(productRepository);
         }
     }
 }
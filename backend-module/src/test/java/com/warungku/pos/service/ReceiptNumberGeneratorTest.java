@@ -0,0 +1,175 @@
+package com.warungku.pos.service;
+
+import com.warungku.pos.core.tenant.TenantContext;
+import com.warungku.pos.repository.ReceiptSequenceRepository;
+import com.warungku.pos.repository.SaleRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReceiptNumberGeneratorTest {
+
+    private static final int THREADS = 16;
+    private static final int RECEIPTS_PER_THREAD = 500;
+
+    @Mock
+    private SaleRepository saleRepository;
+
+    @Mock
+    private ReceiptSequenceRepository receiptSequenceRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    private String today() {
+        return LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
+    }
+
+    private Set<String> generateConcurrently(ReceiptNumberGenerator generator, long... tenants) throws Exception {
+        Set<String> receipts = ConcurrentHashMap.newKeySet();
+        ExecutorService tills = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                long tenantId = tenants[t % tenants.length];
+                futures.add(tills.submit(() -> {
+                    TenantContext.setTenantId(tenantId);
+                    try {
+                        for (int i = 0; i < RECEIPTS_PER_THREAD; i++) {
+                            receipts.add(generator.generate());
+                        }
+                    } finally {
+                        TenantContext.clear();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            tills.shutdown();
+        }
+        return receipts;
+    }
+
+    @Test
+    @DisplayName("should continue after the last stored receipt of the tenant")
+    void shouldContinueAfterLastStoredReceipt() {
+        when(saleRepository.findLastReceiptNumberByPrefix("INV-7-" + today() + "-"))
+                .thenReturn("INV-7-" + today() + "-0041");
+        ReceiptNumberGenerator generator = new ReceiptNumberGenerator(
+                saleRepository, receiptSequenceRepository, transactionManager, 0);
+        TenantContext.setTenantId(7L);
+
+        assertThat(generator.generate()).isEqualTo("INV-7-" + today() + "-0042");
+        assertThat(generator.generate()).isEqualTo("INV-7-" + today() + "-0043");
+        verify(saleRepository, times(1)).findLastReceiptNumberByPrefix(anyString());
+    }
+
+    @Test
+    @DisplayName("a receipt for an earlier day should continue that day's sequence and keep today's")
+    void shouldNumberEarlierDayFromItsOwnSequence() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        String yesterdayPrefix = "INV-7-" + yesterday.format(DateTimeFormatter.ofPattern("yyyyMMdd")) + "-";
+        when(saleRepository.findLastReceiptNumberByPrefix(anyString()))
+                .thenAnswer(call -> yesterdayPrefix.equals(call.getArgument(0)) ? yesterdayPrefix + "0009" : null);
+        ReceiptNumberGenerator generator = new ReceiptNumberGenerator(
+                saleRepository, receiptSequenceRepository, transactionManager, 0);
+        TenantContext.setTenantId(7L);
+
+        assertThat(generator.generate()).isEqualTo("INV-7-" + today() + "-0001");
+        assertThat(generator.generate(yesterday)).isEqualTo(yesterdayPrefix + "0010");
+        assertThat(generator.generate()).isEqualTo("INV-7-" + today() + "-0002");
+    }
+
+    @Test
+    @DisplayName("an upload numbering an earlier day should keep its sequence across the first sales of today")
+    void shouldKeepEarlierDaySequenceInUseAcrossFirstSalesOfToday() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        String yesterdayPrefix = "INV-7-" + yesterday.format(DateTimeFormatter.ofPattern("yyyyMMdd")) + "-";
+        when(saleRepository.findLastReceiptNumberByPrefix(anyString()))
+                .thenAnswer(call -> yesterdayPrefix.equals(call.getArgument(0)) ? yesterdayPrefix + "0009" : null);
+        ReceiptNumberGenerator generator = new ReceiptNumberGenerator(
+                saleRepository, receiptSequenceRepository, transactionManager, 0);
+
+        // Tenant 7's upload numbers yesterday's sales before committing any of them
+        TenantContext.setTenantId(7L);
+        assertThat(generator.generate(yesterday)).isEqualTo(yesterdayPrefix + "0010");
+        TenantContext.setTenantId(8L);
+        assertThat(generator.generate()).isEqualTo("INV-8-" + today() + "-0001");
+        TenantContext.setTenantId(7L);
+        assertThat(generator.generate(yesterday)).isEqualTo(yesterdayPrefix + "0011");
+        assertThat(generator.generate()).isEqualTo("INV-7-" + today() + "-0001");
+        assertThat(generator.generate(yesterday)).isEqualTo(yesterdayPrefix + "0012");
+
+        verify(saleRepository, times(1)).findLastReceiptNumberByPrefix(yesterdayPrefix);
+    }
+
+    @Test
+    @DisplayName("interleaved tenants should each get their own gap-free sequence")
+    void interleavedTenantsShouldKeepSeparateSequences() throws Exception {
+        ReceiptNumberGenerator generator = new ReceiptNumberGenerator(
+                saleRepository, receiptSequenceRepository, transactionManager, 0);
+
+        Set<String> receipts = generateConcurrently(generator, 1L, 2L);
+
+        int perTenant = THREADS / 2 * RECEIPTS_PER_THREAD;
+        assertThat(receipts).hasSize(THREADS * RECEIPTS_PER_THREAD);
+        assertThat(receipts).contains(
+                String.format("INV-1-%s-%04d", today(), perTenant),
+                String.format("INV-2-%s-%04d", today(), perTenant));
+        assertThat(receipts).doesNotContain(
+                String.format("INV-1-%s-%04d", today(), perTenant + 1));
+        verify(saleRepository, times(2)).findLastReceiptNumberByPrefix(anyString());
+    }
+
+    @Test
+    @DisplayName("should reserve numbers in blocks from the sequence table")
+    void shouldReserveNumbersInBlocks() throws Exception {
+        long blockSize = 100;
+        AtomicLong reserved = new AtomicLong();
+        when(receiptSequenceRepository.advance(eq(1L), any(LocalDate.class), eq(blockSize)))
+                .thenAnswer(inv -> {
+                    reserved.addAndGet(blockSize);
+                    return 1;
+                });
+        when(receiptSequenceRepository.findLastNumber(eq(1L), any(LocalDate.class)))
+                .thenAnswer(inv -> reserved.get());
+        ReceiptNumberGenerator generator = new ReceiptNumberGenerator(
+                saleRepository, receiptSequenceRepository, transactionManager, blockSize);
+
+        Set<String> receipts = generateConcurrently(generator, 1L);
+
+        int total = THREADS * RECEIPTS_PER_THREAD;
+        assertThat(receipts).hasSize(total);
+        assertThat(receipts).contains(String.format("INV-1-%s-%04d", today(), total));
+        verify(receiptSequenceRepository, times((int) (total / blockSize)))
+                .advance(eq(1L), any(LocalDate.class), eq(blockSize));
+        verify(saleRepository, never()).findLastReceiptNumberByPrefix(anyString());
+    }
+}
@@ -0,0 +1,118 @@
+package com.warungku.pos.service;
+
+import com.warungku.pos.core.tenant.TenantContext;
+import com.warungku.pos.dto.report.DailySalesReport;
+import com.warungku.pos.entity.enums.PaymentMethod;
+import com.warungku.pos.repository.ProductDailyRollupRepository;
+import com.warungku.pos.repository.SalesHourlyRollupRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReportServiceTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2026, 1, 5);
+
+    @Mock
+    private SalesHourlyRollupRepository salesHourlyRollupRepository;
+
+    @Mock
+    private ProductDailyRollupRepository productDailyRollupRepository;
+
+    @InjectMocks
+    private ReportService reportService;
+
+    @BeforeEach
+    void setUp() {
+        TenantContext.setTenantId(1L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    private Object[] salesRow(LocalDate day, int hour, PaymentMethod method, long cashierId,
+                              long count, String grandTotal, String tax) {
+        return new Object[]{day, hour, method, cashierId, "Cashier " + cashierId, count,
+                new BigDecimal(grandTotal), new BigDecimal(tax), BigDecimal.ZERO};
+    }
+
+    private Object[] productRow(LocalDate day, long productId, long quantity, String revenue) {
+        return new Object[]{day, productId, "Product " + productId, quantity, new BigDecimal(revenue)};
+    }
+
+    @Test
+    @DisplayName("weekly report should read two rollup queries and fill every day")
+    void weeklyReportShouldUseConstantQueries() {
+        when(salesHourlyRollupRepository.findBuckets(eq(1L), eq(MONDAY), eq(MONDAY.plusDays(6))))
+                .thenReturn(List.of(
+                        salesRow(MONDAY, 9, PaymentMethod.CASH, 1L, 2, "30000", "3000"),
+                        salesRow(MONDAY, 9, PaymentMethod.QRIS, 1L, 1, "10000", "1000"),
+                        salesRow(MONDAY, 14, PaymentMethod.CASH, 2L, 1, "10000", "1000"),
+                        salesRow(MONDAY.plusDays(2), 10, PaymentMethod.CASH, 1L, 1, "5000", "500")));
+        when(productDailyRollupRepository.findBuckets(eq(1L), eq(MONDAY), eq(MONDAY.plusDays(6))))
+                .thenReturn(List.of(
+                        productRow(MONDAY, 1L, 3, "30000"),
+                        productRow(MONDAY, 2L, 5, "20000"),
+                        productRow(MONDAY.plusDays(2), 1L, 1, "5000")));
+
+        List<DailySalesReport> reports = reportService.getWeeklySalesReport(MONDAY);
+
+        verify(salesHourlyRollupRepository, times(1)).findBuckets(any(), any(), any());
+        verify(productDailyRollupRepository, times(1)).findBuckets(any(), any(), any());
+        verifyNoMoreInteractions(salesHourlyRollupRepository, productDailyRollupRepository);
+
+        assertThat(reports).hasSize(7);
+        DailySalesReport monday = reports.get(0);
+        assertThat(monday.getTotalRevenue()).isEqualByComparingTo("50000");
+        assertThat(monday.getNetRevenue()).isEqualByComparingTo("45000");
+        assertThat(monday.getTransactionCount()).isEqualTo(4L);
+        assertThat(monday.getAverageTransaction()).isEqualByComparingTo("12500");
+        assertThat(monday.getTotalItemsSold()).isEqualTo(8);
+        assertThat(monday.getTopProducts()).extracting(DailySalesReport.TopProduct::getProductId)
+                .containsExactly(2L, 1L);
+        assertThat(monday.getPaymentMethods()).extracting(DailySalesReport.PaymentMethodStat::getPercentage)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("80"), new BigDecimal("20"));
+        assertThat(monday.getHourlySales()).extracting(DailySalesReport.HourlyStat::getHour)
+                .containsExactly(9, 14);
+        assertThat(monday.getCashierPerformance()).hasSize(2);
+
+        assertThat(reports.get(1).getTransactionCount()).isZero();
+        assertThat(reports.get(1).getTotalRevenue()).isEqualByComparingTo("0");
+        assertThat(reports.get(2).getTotalItemsSold()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("total items sold should count every product, not only the top ten")
+    void totalItemsSoldShouldIncludeAllProducts() {
+        List<Object[]> products = new ArrayList<>();
+        for (long id = 1; id <= 15; id++) {
+            products.add(productRow(MONDAY, id, 1, "1000"));
+        }
+        when(productDailyRollupRepository.findBuckets(1L, MONDAY, MONDAY))
+                .thenReturn(products);
+
+        DailySalesReport report = reportService.getDailySalesReport(MONDAY);
+
+        assertThat(report.getTopProducts()).hasSize(10);
+        assertThat(report.getTotalItemsSold()).isEqualTo(15);
+    }
+}
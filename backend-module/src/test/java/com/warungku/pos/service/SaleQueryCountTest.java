@@ -0,0 +1,180 @@
+package com.warungku.pos.service;
+
+import com.warungku.pos.core.tenant.TenantContext;
+import com.warungku.pos.dto.CursorPage;
+import com.warungku.pos.dto.sale.SaleResponse;
+import com.warungku.pos.dto.sale.SaleSummaryResponse;
+import com.warungku.pos.entity.Outlet;
+import com.warungku.pos.entity.Product;
+import com.warungku.pos.entity.Sale;
+import com.warungku.pos.entity.SaleItem;
+import com.warungku.pos.entity.User;
+import com.warungku.pos.entity.enums.PaymentMethod;
+import com.warungku.pos.exception.BadRequestException;
+import com.warungku.pos.repository.OutletRepository;
+import com.warungku.pos.repository.ProductRepository;
+import com.warungku.pos.repository.SaleRepository;
+import com.warungku.pos.repository.UserRepository;
+import com.warungku.pos.service.outbox.OutboxPublisher;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Pins the number of SQL statements behind the sale list and detail endpoints,
+ * so they stay independent of the number of sales, items and how deep the list is read.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(SaleService.class)
+class SaleQueryCountTest {
+
+    private static final int SALES = 12;
+
+    @MockBean
+    private ReceiptNumberGenerator receiptNumberGenerator;
+
+    @MockBean
+    private StockService stockService;
+
+    @MockBean
+    private OutboxPublisher outboxPublisher;
+
+    @Autowired
+    private SaleService saleService;
+
+    @Autowired
+    private SaleRepository saleRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OutletRepository outletRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+    private Long firstSaleId;
+
+    @BeforeEach
+    void setUp() {
+        Long tenantId = outletRepository.save(Outlet.builder().name("Warungku Test").build()).getId();
+        TenantContext.setTenantId(tenantId);
+        Product tea = productRepository.save(Product.builder()
+                .name("Es Teh").sku("DRK001").price(new BigDecimal("5000")).stock(100).build());
+        for (int n = 1; n <= SALES; n++) {
+            // A cashier per sale, so a lazy cashier would cost one query per row
+            User cashier = userRepository.save(User.builder()
+                    .name("Cashier " + n).email("cashier" + n + "@warungku.test").password("secret").build());
+            Sale sale = Sale.builder()
+                    .receiptNumber("INV-TEST-" + n)
+                    // Sales share their minute in pairs, so pages must break ties on id
+                    .saleDate(LocalDate.now().atTime(12, 0).minusMinutes(n / 2))
+                    .paymentMethod(PaymentMethod.CASH)
+                    .cashier(cashier)
+                    .subtotal(new BigDecimal("10000"))
+                    .taxAmount(BigDecimal.ZERO)
+                    .grandTotal(new BigDecimal("10000"))
+                    .build();
+            for (int line = 0; line < 2; line++) {
+                sale.addItem(SaleItem.builder()
+                        .product(tea).productSku(tea.getSku()).productName(tea.getName())
+                        .unitPrice(tea.getPrice()).quantity(n).subtotal(tea.getPrice())
+                        .build());
+            }
+            Long id = saleRepository.save(sale).getId();
+            if (n == 1) {
+                firstSaleId = id;
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        statistics.setStatisticsEnabled(false);
+        TenantContext.clear();
+    }
+
+    @Test
+    @DisplayName("sale list should take a single query, without counting")
+    void saleListShouldNotLoadItemsOrCashiers() {
+        CursorPage<SaleSummaryResponse> page = saleService.getSales(null, 5);
+
+        assertThat(page.getItems()).hasSize(5);
+        assertThat(page.isHasMore()).isTrue();
+        assertThat(page.getItems().get(0).getCashierName()).isEqualTo("Cashier 1");
+        // Cashier 3's sale shares its minute with cashier 2's and was saved later
+        assertThat(page.getItems().get(1).getTotalItems()).isEqualTo(6L);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("following the cursor should visit every sale once, newest first")
+    void cursorShouldWalkEverySaleOnce() {
+        List<SaleSummaryResponse> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<SaleSummaryResponse> page = saleService.getSales(cursor, 5);
+            seen.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(seen).extracting(SaleSummaryResponse::getCashierName)
+                .containsExactly("Cashier 1", "Cashier 3", "Cashier 2", "Cashier 5", "Cashier 4", "Cashier 7",
+                        "Cashier 6", "Cashier 9", "Cashier 8", "Cashier 11", "Cashier 10", "Cashier 12");
+        // One query per page, however deep
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        assertThatThrownBy(() -> saleService.getSales("not-a-cursor", 5))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    @DisplayName("today's sales should take a single query")
+    void todaySalesShouldTakeOneQuery() {
+        List<SaleSummaryResponse> sales = saleService.getTodaySales();
+
+        assertThat(sales).isNotEmpty();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("sale detail should load cashier and items in one query")
+    void saleDetailShouldFetchInOneQuery() {
+        SaleResponse sale = saleService.getSale(firstSaleId);
+
+        assertThat(sale.getItems()).hasSize(2);
+        assertThat(sale.getCashierName()).isEqualTo("Cashier 1");
+        assertThat(sale.getTotalItems()).isEqualTo(2);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+}
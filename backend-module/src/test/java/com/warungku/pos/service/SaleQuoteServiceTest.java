@@ -0,0 +1,137 @@
+package com.warungku.pos.service;
+
+import com.warungku.pos.core.tenant.TenantContext;
+import com.warungku.pos.dto.ProductDto;
+import com.warungku.pos.dto.sale.CreateSaleRequest;
+import com.warungku.pos.dto.sale.SaleQuoteResponse;
+import com.warungku.pos.entity.Product;
+import com.warungku.pos.entity.Sale;
+import com.warungku.pos.entity.User;
+import com.warungku.pos.entity.enums.PaymentMethod;
+import com.warungku.pos.service.catalog.ProductCatalogCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SaleQuoteServiceTest {
+
+    private static final BigDecimal TAX_RATE = new BigDecimal("0.11");
+
+    @Mock
+    private ProductCatalogCache productCatalogCache;
+
+    @Mock
+    private OutletTaxRateCache outletTaxRateCache;
+
+    private SaleQuoteService saleQuoteService;
+    private SaleService saleService;
+    private final Map<Long, Product> products = new HashMap<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        saleQuoteService = new SaleQuoteService(productCatalogCache, outletTaxRateCache);
+        // Only buildSale is used, which needs no collaborators
+        saleService = new SaleService(null, null, null, null, null, null, null);
+        TenantContext.setTenantId(1L);
+        when(outletTaxRateCache.get(1L)).thenReturn(TAX_RATE);
+
+        String[] names = {"Es Teh", "Nasi Goreng", "Kopi Susu", "Kerupuk"};
+        String[] prices = {"5000", "22500", "18000.50", "1500"};
+        for (int i = 0; i < names.length; i++) {
+            Product product = Product.builder()
+                    .name(names[i]).sku("SKU" + i).price(new BigDecimal(prices[i])).stock(20).build();
+            Field id = product.getClass().getSuperclass().getSuperclass().getDeclaredField("id");
+            id.setAccessible(true);
+            id.set(product, (long) i + 1);
+            products.put(product.getId(), product);
+        }
+        lenient().when(productCatalogCache.findById(anyLong())).thenAnswer(call ->
+                Optional.ofNullable(products.get((Long) call.getArgument(0))).map(ProductDto::fromEntity));
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    private static CreateSaleRequest.SaleItemRequest item(long productId, int quantity, String discount) {
+        CreateSaleRequest.SaleItemRequest item = new CreateSaleRequest.SaleItemRequest();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        item.setDiscountAmount(discount != null ? new BigDecimal(discount) : null);
+        return item;
+    }
+
+    @Test
+    @DisplayName("quotes should match the sale checkout would build for the same cart")
+    void shouldMatchCheckout() {
+        Random random = new Random(7);
+        for (int n = 0; n < 500; n++) {
+            List<CreateSaleRequest.SaleItemRequest> items = new ArrayList<>();
+            for (int line = 0; line < 1 + random.nextInt(4); line++) {
+                items.add(item(1 + random.nextInt(4), 1 + random.nextInt(4),
+                        random.nextBoolean() ? null : String.valueOf(random.nextInt(1000))));
+            }
+            CreateSaleRequest request = new CreateSaleRequest();
+            request.setItems(items);
+            request.setPaymentMethod(random.nextBoolean() ? PaymentMethod.CASH : PaymentMethod.QRIS);
+            request.setAmountPaid(new BigDecimal("1000000"));
+            request.setDiscountAmount(random.nextBoolean() ? new BigDecimal(random.nextInt(5000)) : null);
+            request.setDiscountPercent(random.nextBoolean() ? BigDecimal.valueOf(random.nextInt(5000), 2) : null);
+
+            SaleQuoteResponse quote = saleQuoteService.quote(request);
+            Sale sale = saleService.buildSale(request, new User(), TAX_RATE, products, new HashMap<>());
+
+            assertThat(quote.getWarnings()).isEmpty();
+            assertThat(quote.getSubtotal()).isEqualByComparingTo(sale.getSubtotal());
+            assertThat(quote.getDiscountAmount()).isEqualByComparingTo(sale.getDiscountAmount());
+            assertThat(quote.getTaxAmount()).isEqualByComparingTo(sale.getTaxAmount());
+            assertThat(quote.getGrandTotal()).isEqualByComparingTo(sale.getGrandTotal());
+            assertThat(quote.getChangeAmount()).isEqualByComparingTo(sale.getChangeAmount());
+            assertThat(quote.getTotalItems()).isEqualTo(sale.getTotalItems());
+            assertThat(quote.getItems()).extracting(SaleQuoteResponse.Line::getSubtotal)
+                    .usingElementComparator(BigDecimal::compareTo)
+                    .containsExactlyElementsOf(sale.getItems().stream().map(i -> i.getSubtotal()).toList());
+        }
+    }
+
+    @Test
+    @DisplayName("should warn about what would fail the sale instead of throwing")
+    void shouldWarnInsteadOfFailing() {
+        CreateSaleRequest request = new CreateSaleRequest();
+        request.setItems(List.of(item(1, 15, null), item(1, 10, null), item(99, 1, null), item(2, 1, null)));
+        request.setPaymentMethod(PaymentMethod.CASH);
+        request.setAmountPaid(new BigDecimal("100000"));
+
+        SaleQuoteResponse quote = saleQuoteService.quote(request);
+
+        assertThat(quote.getWarnings()).containsExactly(
+                "Insufficient stock for 'Es Teh'. Available: 20, Requested: 25",
+                "Product not found with id: 99",
+                "Amount paid must be >= grand total for cash payment");
+        // 25 x 5000 + 22500, the unknown product left out, plus 11% tax
+        assertThat(quote.getSubtotal()).isEqualByComparingTo("147500");
+        assertThat(quote.getGrandTotal()).isEqualByComparingTo("163725");
+        assertThat(quote.getChangeAmount()).isNull();
+        assertThat(quote.getItems()).extracting(SaleQuoteResponse.Line::getAvailable).containsExactly(20, 20, null, 20);
+    }
+}
@@ -0,0 +1,249 @@
+package com.warungku.pos.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.warungku.pos.core.tenant.TenantContext;
+import com.warungku.pos.dto.sale.CreateSaleRequest;
+import com.warungku.pos.entity.Outlet;
+import com.warungku.pos.entity.OutboxEvent;
+import com.warungku.pos.entity.Product;
+import com.warungku.pos.entity.Sale;
+import com.warungku.pos.entity.StockMovement;
+import com.warungku.pos.entity.User;
+import com.warungku.pos.entity.enums.OutboxEventType;
+import com.warungku.pos.entity.enums.PaymentMethod;
+import com.warungku.pos.exception.BadRequestException;
+import com.warungku.pos.repository.*;
+import com.warungku.pos.service.catalog.ProductCatalogCache;
+import com.warungku.pos.service.outbox.OutboxPublisher;
+import com.warungku.pos.service.subscription.UsageMeter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SaleServiceTest {
+
+    @Mock
+    private SaleRepository saleRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private OutletRepository outletRepository;
+
+    @Mock
+    private StockMovementRepository stockMovementRepository;
+
+    @Mock
+    private ReceiptNumberGenerator receiptNumberGenerator;
+
+    @Mock
+    private SalesRollupService salesRollupService;
+
+    @Mock
+    private ProductCatalogCache productCatalogCache;
+
+    @Mock
+    private UsageMeter usageMeter;
+
+    @Mock
+    private OutboxPublisher outboxPublisher;
+
+    @Captor
+    private ArgumentCaptor<List<StockMovement>> movementsCaptor;
+
+    @Captor
+    private ArgumentCaptor<SaleEventHandler.Payload> payloadCaptor;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private SaleService saleService;
+    private SaleEventHandler saleEventHandler;
+
+    @BeforeEach
+    void setUp() {
+        StockService stockService = new StockService(productRepository, stockMovementRepository, userRepository,
+                productCatalogCache);
+        saleService = new SaleService(saleRepository, productRepository, userRepository, outletRepository,
+                receiptNumberGenerator, stockService, outboxPublisher);
+        saleEventHandler = new SaleEventHandler(saleRepository, userRepository, stockService, salesRollupService,
+                usageMeter, objectMapper);
+
+        TenantContext.setTenantId(1L);
+        TenantContext.setUserId(1L);
+
+        User cashier = User.builder().name("Cashier One").build();
+        setEntityId(cashier, 1L);
+        Outlet outlet = Outlet.builder().name("Warungku").taxRate(new BigDecimal("0.10")).build();
+        setEntityId(outlet, 1L);
+
+        lenient().when(userRepository.findById(1L)).thenReturn(Optional.of(cashier));
+        lenient().when(outletRepository.findById(1L)).thenReturn(Optional.of(outlet));
+        lenient().when(receiptNumberGenerator.generate()).thenReturn("INV-1-20260101-0001");
+        lenient().when(saleRepository.save(any(Sale.class))).thenAnswer(inv -> {
+            Sale sale = inv.getArgument(0);
+            setEntityId(sale, 100L);
+            return sale;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    private void setEntityId(Object entity, Long id) {
+        try {
+            Class<?> clazz = entity.getClass();
+            while (clazz != null) {
+                try {
+                    var field = clazz.getDeclaredField("id");
+                    field.setAccessible(true);
+                    field.set(entity, id);
+                    return;
+                } catch (NoSuchFieldException e) {
+                    clazz = clazz.getSuperclass();
+                }
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private List<Product> givenProducts(int count, int stock) {
+        List<Product> products = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            Product product = Product.builder()
+                    .name("Product " + i)
+                    .sku("SKU" + i)
+                    .price(new BigDecimal("10000"))
+                    .stock(stock)
+                    .build();
+            setEntityId(product, (long) i);
+            products.add(product);
+        }
+        when(productRepository.findAllById(anyIterable())).thenReturn(products);
+        lenient().when(productRepository.decrementStock(anyLong(), anyInt())).thenReturn(1);
+        lenient().when(productRepository.findStockByIds(anyCollection())).thenReturn(products.stream()
+                .map(p -> new Object[]{p.getId(), p.getStock() - 2})
+                .toList());
+        return products;
+    }
+
+    private CreateSaleRequest cashSale(List<Product> products, int quantity) {
+        CreateSaleRequest request = new CreateSaleRequest();
+        request.setPaymentMethod(PaymentMethod.CASH);
+        request.setAmountPaid(new BigDecimal("100000000"));
+        request.setItems(products.stream().map(product -> {
+            CreateSaleRequest.SaleItemRequest item = new CreateSaleRequest.SaleItemRequest();
+            item.setProductId(product.getId());
+            item.setQuantity(quantity);
+            return item;
+        }).toList());
+        return request;
+    }
+
+    @Nested
+    @DisplayName("createSale")
+    class CreateSale {
+
+        @ParameterizedTest(name = "basket of {0} lines")
+        @ValueSource(ints = {1, 10, 40})
+        @DisplayName("should issue a constant number of repository calls regardless of basket size")
+        void shouldIssueConstantRoundTripsPerSale(int basketSize) {
+            List<Product> products = givenProducts(basketSize, 50);
+
+            saleService.createSale(cashSale(products, 2));
+
+            verify(productRepository, times(1)).findAllById(anyIterable());
+            verify(productRepository, never()).findById(anyLong());
+            verify(userRepository, times(1)).findById(anyLong());
+            verify(productRepository, times(basketSize)).decrementStock(anyLong(), eq(2));
+            verify(productRepository, times(1)).findStockByIds(anyCollection());
+            verify(outboxPublisher, times(1)).publish(eq(OutboxEventType.SALE_CREATED), eq(100L), any());
+        }
+
+        @Test
+        @DisplayName("should leave movements, rollups and usage to the outbox event")
+        void shouldDeferSideEffectsToOutbox() throws Exception {
+            List<Product> products = givenProducts(3, 50);
+            ArgumentCaptor<Sale> saleCaptor = ArgumentCaptor.forClass(Sale.class);
+
+            saleService.createSale(cashSale(products, 2));
+
+            verify(stockMovementRepository, never()).saveAll(anyIterable());
+            verifyNoInteractions(salesRollupService, usageMeter);
+            verify(saleRepository).save(saleCaptor.capture());
+            verify(outboxPublisher).publish(eq(OutboxEventType.SALE_CREATED), eq(100L), payloadCaptor.capture());
+            assertThat(payloadCaptor.getValue().stockAfter()).containsEntry(1L, 48).hasSize(3);
+
+            // Handled later, from the stored payload
+            when(saleRepository.findWithItemsById(100L)).thenReturn(Optional.of(saleCaptor.getValue()));
+            OutboxEvent event = OutboxEvent.builder()
+                    .tenantId(1L)
+                    .eventType(OutboxEventType.SALE_CREATED)
+                    .aggregateId(100L)
+                    .payload(objectMapper.writeValueAsString(payloadCaptor.getValue()))
+                    .build();
+            saleEventHandler.handle(event);
+
+            verify(stockMovementRepository, times(1)).saveAll(movementsCaptor.capture());
+            assertThat(movementsCaptor.getValue()).hasSize(3)
+                    .allMatch(m -> m.getStockBefore() == 50 && m.getStockAfter() == 48)
+                    .allMatch(m -> "Sale: INV-1-20260101-0001".equals(m.getNotes()));
+            verify(salesRollupService).recordSale(saleCaptor.getValue());
+            verify(usageMeter).recordTransactions(1L, 1);
+        }
+
+        @Test
+        @DisplayName("should fail the sale when the conditional decrement affects no row")
+        void shouldFailWhenConditionalDecrementLosesRace() {
+            List<Product> products = givenProducts(1, 5);
+            when(productRepository.decrementStock(1L, 2)).thenReturn(0);
+
+            assertThatThrownBy(() -> saleService.createSale(cashSale(products, 2)))
+                    .isInstanceOf(BadRequestException.class)
+                    .hasMessageContaining("Insufficient stock for 'Product 1'");
+            verify(outboxPublisher, never()).publish(any(), any(), any());
+        }
+
+        @Test
+        @DisplayName("should reject a cart whose lines together exceed stock of one product")
+        void shouldRejectCombinedLinesExceedingStock() {
+            List<Product> products = givenProducts(1, 3);
+            CreateSaleRequest request = cashSale(products, 2);
+            request.setItems(List.of(request.getItems().get(0), request.getItems().get(0)));
+
+            assertThatThrownBy(() -> saleService.createSale(request))
+                    .isInstanceOf(BadRequestException.class)
+                    .hasMessageContaining("Requested: 4");
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.warungku.pos.service;
+
+import com.warungku.pos.core.tenant.TenantContext;
+import com.warungku.pos.entity.Outlet;
+import com.warungku.pos.entity.Product;
+import com.warungku.pos.entity.Sale;
+import com.warungku.pos.entity.SaleItem;
+import com.warungku.pos.entity.User;
+import com.warungku.pos.entity.enums.PaymentMethod;
+import com.warungku.pos.entity.enums.SaleStatus;
+import com.warungku.pos.repository.OutletRepository;
+import com.warungku.pos.repository.ProductDailyRollupRepository;
+import com.warungku.pos.repository.ProductRepository;
+import com.warungku.pos.repository.SaleRepository;
+import com.warungku.pos.repository.SalesHourlyRollupRepository;
+import com.warungku.pos.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that rollups maintained as deltas match a rebuild from raw sales.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(SalesRollupService.class)
+class SalesRollupServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 2);
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private SalesHourlyRollupRepository salesHourlyRollupRepository;
+
+    @Autowired
+    private ProductDailyRollupRepository productDailyRollupRepository;
+
+    @Autowired
+    private SaleRepository saleRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OutletRepository outletRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Long tenantId;
+    private User cashier;
+    private Product tea;
+    private Product rice;
+
+    @BeforeEach
+    void setUp() {
+        tenantId = outletRepository.save(Outlet.builder().name("Warungku Test").build()).getId();
+        TenantContext.setTenantId(tenantId);
+        cashier = userRepository.save(User.builder()
+                .name("Cashier One").email("cashier@warungku.test").password("secret").build());
+        tea = productRepository.save(Product.builder()
+                .name("Es Teh").sku("DRK001").price(new BigDecimal("5000")).stock(100).build());
+        rice = productRepository.save(Product.builder()
+                .name("Nasi Goreng").sku("FOD001").price(new BigDecimal("20000")).stock(100).build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    private Sale completedSale(String receipt, int hour, PaymentMethod method, int teaQty, int riceQty) {
+        Sale sale = Sale.builder()
+                .receiptNumber(receipt)
+                .saleDate(DAY.atTime(hour, 15))
+                .paymentMethod(method)
+                .cashier(cashier)
+                .build();
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (Object[] line : List.of(new Object[]{tea, teaQty}, new Object[]{rice, riceQty})) {
+            Product product = (Product) line[0];
+            int quantity = (int) line[1];
+            BigDecimal lineTotal = product.getPrice().multiply(BigDecimal.valueOf(quantity));
+            sale.addItem(SaleItem.builder()
+                    .product(product)
+                    .productSku(product.getSku())
+                    .productName(product.getName())
+                    .unitPrice(product.getPrice())
+                    .quantity(quantity)
+                    .subtotal(lineTotal)
+                    .build());
+            subtotal = subtotal.add(lineTotal);
+        }
+        BigDecimal tax = subtotal.divide(BigDecimal.TEN);
+        sale.setSubtotal(subtotal);
+        sale.setTaxAmount(tax);
+        sale.setGrandTotal(subtotal.add(tax));
+        return saleRepository.save(sale);
+    }
+
+    private List<String> snapshot() {
+        entityManager.flush();
+        entityManager.clear();
+        List<String> rows = new ArrayList<>();
+        salesHourlyRollupRepository.findBuckets(tenantId, DAY, DAY).forEach(row -> rows.add(String.format(
+                "%s %s %s %s count=%s total=%s tax=%s",
+                row[0], row[1], row[2], row[3], row[5],
+                ((BigDecimal) row[6]).stripTrailingZeros().toPlainString(),
+                ((BigDecimal) row[7]).stripTrailingZeros().toPlainString())));
+        productDailyRollupRepository.findBuckets(tenantId, DAY, DAY).forEach(row -> rows.add(String.format(
+                "%s product=%s qty=%s revenue=%s",
+                row[0], row[1], row[3], ((BigDecimal) row[4]).stripTrailingZeros().toPlainString())));
+        rows.sort(null);
+        return rows;
+    }
+
+    @Test
+    @DisplayName("deltas from sales, voids and refunds should equal a rebuild from raw sales")
+    void deltasShouldMatchRebuild() {
+        Sale first = completedSale("INV-1-20260302-0001", 9, PaymentMethod.CASH, 2, 1);
+        salesRollupService.recordSale(first);
+        Sale second = completedSale("INV-1-20260302-0002", 9, PaymentMethod.CASH, 1, 0);
+        salesRollupService.recordSale(second);
+        Sale third = completedSale("INV-1-20260302-0003", 13, PaymentMethod.QRIS, 0, 2);
+        salesRollupService.recordSale(third);
+        Sale voided = completedSale("INV-1-20260302-0004", 13, PaymentMethod.CASH, 3, 0);
+        salesRollupService.recordSale(voided);
+
+        salesRollupService.reverseSale(voided);
+        voided.setStatus(SaleStatus.VOIDED);
+        saleRepository.save(voided);
+
+        List<String> fromDeltas = snapshot();
+        assertThat(fromDeltas).contains(
+                "2026-03-02 9 CASH " + cashier.getId() + " count=2 total=38500 tax=3500",
+                "2026-03-02 product=" + tea.getId() + " qty=3 revenue=15000");
+
+        salesRollupService.rebuild(tenantId, DAY, DAY);
+
+        assertThat(snapshot()).isEqualTo(fromDeltas);
+    }
+
+    @Test
+    @DisplayName("a SALE_CREATED event still pending at a rebuild should not count the sale again")
+    void pendingCreatedEventShouldNotCountRebuiltSaleTwice() {
+        Sale sale = completedSale("INV-1-20260302-0001", 9, PaymentMethod.CASH, 2, 1);
+
+        salesRollupService.rebuild(tenantId, DAY, DAY);
+        List<String> rebuilt = snapshot();
+        salesRollupService.recordSale(sale);
+
+        assertThat(rebuilt).contains("2026-03-02 9 CASH " + cashier.getId() + " count=1 total=33000 tax=3000");
+        assertThat(snapshot()).isEqualTo(rebuilt);
+    }
+
+    @Test
+    @DisplayName("a SALE_VOIDED event still pending at a rebuild should not take the sale out again")
+    void pendingVoidedEventShouldNotReverseRebuiltSaleTwice() {
+        Sale kept = completedSale("INV-1-20260302-0001", 9, PaymentMethod.CASH, 1, 0);
+        salesRollupService.recordSale(kept);
+        Sale voided = completedSale("INV-1-20260302-0002", 9, PaymentMethod.CASH, 2, 1);
+        salesRollupService.recordSale(voided);
+        voided.setStatus(SaleStatus.VOIDED);
+        saleRepository.save(voided);
+
+        salesRollupService.rebuild(tenantId, DAY, DAY);
+        List<String> rebuilt = snapshot();
+        salesRollupService.reverseSale(voided);
+
+        assertThat(rebuilt).contains("2026-03-02 9 CASH " + cashier.getId() + " count=1 total=5500 tax=500");
+        assertThat(snapshot()).isEqualTo(rebuilt);
+    }
+}
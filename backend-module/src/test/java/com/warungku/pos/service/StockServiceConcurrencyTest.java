@@ -0,0 +1,224 @@
+package com.warungku.pos.service;
+
+import com.warungku.pos.core.tenant.TenantContext;
+import com.warungku.pos.entity.Product;
+import com.warungku.pos.entity.enums.MovementType;
+import com.warungku.pos.exception.BadRequestException;
+import com.warungku.pos.exception.ConflictException;
+import com.warungku.pos.repository.ProductRepository;
+import com.warungku.pos.repository.StockMovementRepository;
+import com.warungku.pos.service.catalog.ProductCatalogCache;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs many concurrent sales against a single SKU to prove stock can never be oversold,
+ * baskets holding the same products in opposite orders to prove they do not deadlock, and
+ * stock writes made from a stale product to prove they never undo a concurrent sale.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({StockService.class, ProductCatalogCache.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StockServiceConcurrencyTest {
+
+    private static final long TENANT_ID = 1L;
+    private static final int INITIAL_STOCK = 100;
+    private static final int SALE_ATTEMPTS = 300;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockMovementRepository stockMovementRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Long saveProduct(TransactionTemplate tx, String sku, int stock) {
+        Product product = Product.builder()
+                .name("Product " + sku)
+                .sku(sku)
+                .price(new BigDecimal("5000"))
+                .stock(stock)
+                .build();
+        product.setTenantId(TENANT_ID);
+        return tx.execute(status -> productRepository.save(product).getId());
+    }
+
+    @Test
+    @DisplayName("parallel sales of one SKU should never oversell")
+    void parallelSalesShouldNeverOversell() throws Exception {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Long productId = saveProduct(tx, "DRK001", INITIAL_STOCK);
+
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService tills = Executors.newFixedThreadPool(32);
+        List<Future<?>> sales = new ArrayList<>();
+
+        for (int i = 0; i < SALE_ATTEMPTS; i++) {
+            sales.add(tills.submit(() -> {
+                TenantContext.setTenantId(TENANT_ID);
+                try {
+                    tx.executeWithoutResult(status -> {
+                        Product loaded = productRepository.findAllById(List.of(productId)).get(0);
+                        stockService.reduceStock(List.of(new StockService.StockLine(loaded, 1)),
+                                null, "SALE", null, "Concurrent sale");
+                    });
+                    sold.incrementAndGet();
+                } catch (BadRequestException e) {
+                    rejected.incrementAndGet();
+                } finally {
+                    TenantContext.clear();
+                }
+            }));
+        }
+        for (Future<?> sale : sales) {
+            sale.get();
+        }
+        tills.shutdown();
+        assertThat(tills.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        int finalStock = productRepository.findById(productId).orElseThrow().getStock();
+        assertThat(finalStock).isGreaterThanOrEqualTo(0);
+        assertThat(sold.get()).isEqualTo(INITIAL_STOCK);
+        assertThat(rejected.get()).isEqualTo(SALE_ATTEMPTS - INITIAL_STOCK);
+        assertThat(finalStock).isZero();
+        assertThat(stockMovementRepository.count()).isEqualTo(INITIAL_STOCK);
+    }
+
+    @Test
+    @DisplayName("baskets with the same products in opposite orders should not deadlock")
+    void mirroredBasketsShouldNotDeadlock() throws Exception {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Long first = saveProduct(tx, "SNK001", SALE_ATTEMPTS);
+        Long second = saveProduct(tx, "SNK002", SALE_ATTEMPTS);
+
+        ExecutorService tills = Executors.newFixedThreadPool(16);
+        List<Future<?>> sales = new ArrayList<>();
+        for (int i = 0; i < SALE_ATTEMPTS; i++) {
+            List<Long> basket = i % 2 == 0 ? List.of(first, second) : List.of(second, first);
+            sales.add(tills.submit(() -> {
+                TenantContext.setTenantId(TENANT_ID);
+                try {
+                    tx.executeWithoutResult(status -> {
+                        List<StockService.StockLine> lines = basket.stream()
+                                .map(id -> new StockService.StockLine(productRepository.findById(id).orElseThrow(), 1))
+                                .toList();
+                        stockService.reduceStock(lines, null, "SALE", null, "Mirrored basket");
+                    });
+                } finally {
+                    TenantContext.clear();
+                }
+            }));
+        }
+        for (Future<?> sale : sales) {
+            sale.get();
+        }
+        tills.shutdown();
+        assertThat(tills.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(productRepository.findAllById(List.of(first, second)))
+                .allSatisfy(product -> assertThat(product.getStock()).isZero());
+    }
+
+    /**
+     * Loads the product in a transaction, then sells {@code sold} units from another one before
+     * running {@code write} with the now stale entity.
+     */
+    private void afterConcurrentSale(TransactionTemplate tx, Long productId, int sold, Consumer<Product> write) {
+        TenantContext.setTenantId(TENANT_ID);
+        try {
+            tx.executeWithoutResult(status -> {
+                Product stale = productRepository.findById(productId).orElseThrow();
+                CompletableFuture.runAsync(() -> {
+                    TenantContext.setTenantId(TENANT_ID);
+                    try {
+                        tx.executeWithoutResult(s -> productRepository.decrementStock(productId, sold));
+                    } finally {
+                        TenantContext.clear();
+                    }
+                }).join();
+                write.accept(stale);
+            });
+        } finally {
+            TenantContext.clear();
+        }
+    }
+
+    @Test
+    @DisplayName("saving a product read before a sale should keep the sale")
+    void staleProductSaveShouldKeepSale() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Long productId = saveProduct(tx, "FOOD001", 10);
+
+        afterConcurrentSale(tx, productId, 3, stale -> {
+            stale.setName("Nasi Goreng Spesial");
+            productRepository.save(stale);
+        });
+
+        Product saved = productRepository.findById(productId).orElseThrow();
+        assertThat(saved.getName()).isEqualTo("Nasi Goreng Spesial");
+        assertThat(saved.getStock()).isEqualTo(7);
+    }
+
+    @Test
+    @DisplayName("restocking after a sale should add to the stock left by the sale")
+    void restockShouldAddToCurrentStock() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Long productId = saveProduct(tx, "FOOD002", 10);
+
+        afterConcurrentSale(tx, productId, 3, stale ->
+                stockService.addStock(productId, 5, MovementType.PURCHASE, "PURCHASE", null, null));
+
+        assertThat(productRepository.findById(productId).orElseThrow().getStock()).isEqualTo(12);
+        assertThat(stockMovementRepository.findAll())
+                .filteredOn(movement -> movement.getProduct().getId().equals(productId))
+                .singleElement()
+                .satisfies(movement -> {
+                    assertThat(movement.getStockBefore()).isEqualTo(7);
+                    assertThat(movement.getStockAfter()).isEqualTo(12);
+                });
+    }
+
+    @Test
+    @DisplayName("an adjustment counted before a sale should be refused, not undo the sale")
+    void staleAdjustmentShouldConflict() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Long productId = saveProduct(tx, "FOOD003", 10);
+
+        assertThatThrownBy(() -> afterConcurrentSale(tx, productId, 3, stale ->
+                stockService.adjustStock(productId, 20, "Stock opname")))
+                .isInstanceOf(ConflictException.class);
+
+        assertThat(productRepository.findById(productId).orElseThrow().getStock()).isEqualTo(7);
+    }
+}
@@ -0,0 +1,328 @@
+package com.warungku.pos.service.archive;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.warungku.pos.core.tenant.TenantContext;
+import com.warungku.pos.core.tenant.TenantSessionInitializer;
+import com.warungku.pos.dto.report.DailySalesReport;
+import com.warungku.pos.entity.Outlet;
+import com.warungku.pos.entity.Product;
+import com.warungku.pos.entity.Sale;
+import com.warungku.pos.entity.SaleItem;
+import com.warungku.pos.entity.StockMovement;
+import com.warungku.pos.entity.User;
+import com.warungku.pos.entity.enums.MovementType;
+import com.warungku.pos.entity.enums.PaymentMethod;
+import com.warungku.pos.exception.BadRequestException;
+import com.warungku.pos.repository.ArchivedMonthRepository;
+import com.warungku.pos.repository.OutletRepository;
+import com.warungku.pos.repository.ProductRepository;
+import com.warungku.pos.repository.SaleRepository;
+import com.warungku.pos.repository.StockMovementRepository;
+import com.warungku.pos.repository.UserRepository;
+import com.warungku.pos.service.ReportService;
+import com.warungku.pos.service.SalesRollupService;
+import com.warungku.pos.service.export.DayRange;
+import com.warungku.pos.service.export.ExportFormat;
+import com.warungku.pos.service.export.SaleExporter;
+import com.warungku.pos.service.export.StockMovementExporter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Archives a closed month of one tenant next to another's and reads it back through the reports
+ * and exports. Runs without a test transaction, as the scheduler would.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({SalesArchiver.class, SalesArchive.class, SalesRollupService.class, ReportService.class,
+        SaleExporter.class, StockMovementExporter.class, TenantSessionInitializer.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SalesArchiverTest {
+
+    private static final YearMonth JANUARY = YearMonth.of(2019, 1);
+
+    @TempDir
+    static Path archiveDir;
+
+    @DynamicPropertySource
+    static void archiveProperties(DynamicPropertyRegistry registry) {
+        registry.add("archive.dir", archiveDir::toString);
+        registry.add("archive.retain-months", () -> 13);
+    }
+
+    @Autowired
+    private SalesArchiver salesArchiver;
+
+    @SpyBean
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private SaleExporter saleExporter;
+
+    @Autowired
+    private StockMovementExporter stockMovementExporter;
+
+    @Autowired
+    private ArchivedMonthRepository archivedMonthRepository;
+
+    @Autowired
+    private SaleRepository saleRepository;
+
+    @Autowired
+    private StockMovementRepository stockMovementRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OutletRepository outletRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate tx;
+    private Long tenantA;
+    private Long tenantB;
+    private User cashier;
+    private Product tea;
+    private Product rice;
+    private Long archivedSale;
+    private Long liveSale;
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+        tenantA = outletRepository.save(Outlet.builder().name("Warung A").build()).getId();
+        tenantB = outletRepository.save(Outlet.builder().name("Warung B").build()).getId();
+
+        TenantContext.setTenantId(tenantB);
+        tx.executeWithoutResult(status -> {
+            cashier = userRepository.save(User.builder()
+                    .name("Budi").email("budi" + tenantB + "@warungku.test").password("secret").build());
+            Product noodles = saveProduct("Mie Goreng", "B-" + tenantB);
+            saveSale("INV-B-" + tenantB, at(12, 10), noodles, 1);
+        });
+
+        TenantContext.setTenantId(tenantA);
+        tx.executeWithoutResult(status -> {
+            tea = saveProduct("Es Teh", "TEA-" + tenantA);
+            rice = saveProduct("Nasi Goreng, pedas", "RICE-" + tenantA);
+            archivedSale = saveSale("INV-1-" + tenantA, at(10, 10), rice, 2, tea, 1);
+            saveSale("INV-2-" + tenantA, at(20, 10), tea, 1);
+            liveSale = saveSale("INV-3-" + tenantA, LocalDateTime.of(2019, 3, 5, 10, 0), tea, 3);
+            saveMovement(tea, MovementType.SALE, at(10, 10), "Sale: INV-1");
+            saveMovement(rice, MovementType.PURCHASE, at(15, 9), "=restock, \"supplier\"");
+            saveMovement(tea, MovementType.SALE, LocalDateTime.of(2019, 3, 5, 10, 0), "Sale: INV-3");
+        });
+        TenantContext.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    private static LocalDateTime at(int day, int hour) {
+        return JANUARY.atDay(day).atTime(hour, 0);
+    }
+
+    private Product saveProduct(String name, String sku) {
+        return productRepository.save(Product.builder()
+                .name(name).sku(sku).price(new BigDecimal("5000")).stock(100).build());
+    }
+
+    private Long saveSale(String receipt, LocalDateTime date, Object... lines) {
+        Sale sale = Sale.builder()
+                .receiptNumber(receipt)
+                .saleDate(date)
+                .paymentMethod(PaymentMethod.CASH)
+                .cashier(cashier)
+                .subtotal(new BigDecimal("10000"))
+                .taxAmount(new BigDecimal("1000"))
+                .grandTotal(new BigDecimal("11000"))
+                .build();
+        for (int i = 0; i < lines.length; i += 2) {
+            Product product = (Product) lines[i];
+            int quantity = (Integer) lines[i + 1];
+            sale.addItem(SaleItem.builder()
+                    .product(product).productSku(product.getSku()).productName(product.getName())
+                    .unitPrice(product.getPrice()).quantity(quantity)
+                    .subtotal(product.getPrice().multiply(BigDecimal.valueOf(quantity)))
+                    .build());
+        }
+        return saleRepository.save(sale).getId();
+    }
+
+    private void saveMovement(Product product, MovementType type, LocalDateTime date, String notes) {
+        stockMovementRepository.save(StockMovement.builder()
+                .product(product).movementType(type).quantity(type == MovementType.SALE ? -1 : 5)
+                .stockBefore(10).stockAfter(type == MovementType.SALE ? 9 : 15)
+                .movementDate(date)
+                .notes(notes)
+                .build());
+    }
+
+    private List<String> exportSales(LocalDate from, LocalDate to) throws IOException {
+        TenantContext.setTenantId(tenantA);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        saleExporter.export(new DayRange(from, to), ExportFormat.CSV, out);
+        return out.toString(StandardCharsets.UTF_8).lines().toList();
+    }
+
+    private List<JsonNode> exportMovements(MovementType type) throws IOException {
+        TenantContext.setTenantId(tenantA);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        stockMovementExporter.export(null, type, new DayRange(null, null), ExportFormat.NDJSON, out);
+        List<JsonNode> movements = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).lines().toList()) {
+            movements.add(objectMapper.readTree(line));
+        }
+        return movements;
+    }
+
+    @Test
+    @DisplayName("should move months past retention out of the live tables, per tenant")
+    void shouldArchiveClosedMonths() {
+        // 13 months kept before March 2020: January 2019 is due, March 2019 is not
+        salesArchiver.archiveClosedMonths(YearMonth.of(2020, 3));
+
+        assertThat(archivedMonthRepository.existsByTenantIdAndMonthStart(tenantA, JANUARY.atDay(1))).isTrue();
+        assertThat(archivedMonthRepository.existsByTenantIdAndMonthStart(tenantB, JANUARY.atDay(1))).isTrue();
+        assertThat(archiveDir.resolve(tenantA + "/2019-01/sales.csv.gz")).isRegularFile();
+        assertThat(archiveDir.resolve(tenantA + "/2019-01/stock_movements.csv.gz")).isRegularFile();
+        assertThat(archiveDir.resolve(tenantA + "/2019-03")).doesNotExist();
+
+        assertThat(saleRepository.findById(archivedSale)).isEmpty();
+        assertThat(saleRepository.findById(liveSale)).isPresent();
+        assertThat(stockMovementRepository.findOldestMovementDates(LocalDateTime.of(2019, 2, 1, 0, 0)))
+                .noneMatch(row -> tenantA.equals(row[0]));
+
+        // Already archived months are skipped
+        assertThat(salesArchiver.archiveMonth(tenantA, JANUARY)).isFalse();
+    }
+
+    @Test
+    @DisplayName("reports and exports should read archived months as before")
+    void shouldReadArchivedMonths() throws IOException {
+        salesArchiver.archiveMonth(tenantA, JANUARY);
+
+        TenantContext.setTenantId(tenantA);
+        DailySalesReport report = reportService.getDailySalesReport(JANUARY.atDay(10));
+        assertThat(report.getTransactionCount()).isEqualTo(1);
+        assertThat(report.getTotalRevenue()).isEqualByComparingTo("11000");
+
+        List<String> lines = exportSales(JANUARY.atDay(1), LocalDate.of(2019, 3, 31));
+        assertThat(lines).hasSize(1 + 4);
+        assertThat(lines.get(1)).contains("INV-1-").contains(",2019-01-10 10:00:00,")
+                .contains(",\"Nasi Goreng, pedas\",2,5000.00,");
+        assertThat(lines.get(3)).contains("INV-2-");
+        assertThat(lines.get(4)).contains("INV-3-");
+        assertThat(exportSales(JANUARY.atDay(11), JANUARY.atDay(31))).hasSize(1 + 1);
+
+        List<JsonNode> movements = exportMovements(null);
+        assertThat(movements).extracting(m -> m.get("notes").asText())
+                .containsExactly("Sale: INV-1", "=restock, \"supplier\"", "Sale: INV-3");
+        assertThat(movements.get(1).get("productId").asLong()).isEqualTo(rice.getId());
+        assertThat(exportMovements(MovementType.PURCHASE)).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("rows added to an archived month should stay live and be merged in order")
+    void shouldMergeLateRowsOfArchivedMonths() throws IOException {
+        salesArchiver.archiveMonth(tenantA, JANUARY);
+
+        // Synced late from an offline terminal
+        TenantContext.setTenantId(tenantA);
+        tx.executeWithoutResult(status -> saveSale("INV-LATE-" + tenantA, at(15, 10), tea, 2));
+
+        List<String> lines = exportSales(JANUARY.atDay(1), JANUARY.atDay(31));
+        assertThat(lines).hasSize(1 + 4);
+        assertThat(lines.get(3)).contains("INV-LATE-");
+        assertThat(lines.get(4)).contains("INV-2-");
+
+        assertThatThrownBy(() -> salesRollupService.rebuild(tenantA, JANUARY.atDay(1), JANUARY.atDay(31)))
+                .isInstanceOf(BadRequestException.class);
+        salesRollupService.rebuild(tenantA, LocalDate.of(2019, 3, 1), LocalDate.of(2019, 3, 31));
+    }
+
+    @Test
+    @DisplayName("a sale committed while the month is written should stay live, even with a lower id")
+    void shouldKeepRowsCommittedWhileWriting() {
+        // An upload that took its id first but commits only after the month's files are written
+        CompletableFuture<Long> inserted = new CompletableFuture<>();
+        CompletableFuture<Void> release = new CompletableFuture<>();
+        CompletableFuture<Void> slowUpload = CompletableFuture.runAsync(() -> {
+            TenantContext.setTenantId(tenantA);
+            try {
+                tx.executeWithoutResult(status -> {
+                    inserted.complete(saveSale("INV-SLOW-" + tenantA, at(25, 10), tea, 1));
+                    release.join();
+                });
+            } finally {
+                TenantContext.clear();
+            }
+        });
+        Long slowSale = inserted.join();
+        TenantContext.setTenantId(tenantA);
+        Long laterSale = tx.execute(status -> saveSale("INV-4-" + tenantA, at(26, 10), tea, 1));
+        TenantContext.clear();
+        doAnswer(call -> {
+            release.complete(null);
+            slowUpload.join();
+            return call.callRealMethod();
+        }).when(salesRollupService).rebuild(eq(tenantA), any(), any());
+
+        assertThat(salesArchiver.archiveMonth(tenantA, JANUARY)).isTrue();
+
+        assertThat(slowSale).isLessThan(laterSale);
+        assertThat(saleRepository.findById(laterSale)).isEmpty();
+        assertThat(saleRepository.findById(slowSale)).isPresent();
+    }
+}
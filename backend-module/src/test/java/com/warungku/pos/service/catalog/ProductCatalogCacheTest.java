@@ -0,0 +1,196 @@
+package com.warungku.pos.service.catalog;
+
+import com.warungku.pos.core.tenant.TenantContext;
+import com.warungku.pos.dto.ProductDto;
+import com.warungku.pos.entity.Product;
+import com.warungku.pos.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductCatalogCacheTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private ProductCatalogCache cache;
+    private SimpleMeterRegistry registry;
+
+    /** Active products per tenant, served to the mocked tenant-scoped query. */
+    private final Map<Long, List<Product>> database = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        cache = new ProductCatalogCache(productRepository, 2);
+        registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+        lenient().when(productRepository.findActiveByTenant(any()))
+                .thenAnswer(inv -> new ArrayList<>(database.getOrDefault(inv.<Long>getArgument(0), List.of())));
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    private Product product(long tenantId, long id, String name, int stock) {
+        Product product = Product.builder()
+                .name(name)
+                .sku("SKU" + id)
+                .price(new BigDecimal("10000"))
+                .stock(stock)
+                .minStock(5)
+                .isActive(true)
+                .build();
+        product.setId(id);
+        product.setTenantId(tenantId);
+        database.computeIfAbsent(tenantId, t -> new ArrayList<>()).add(product);
+        return product;
+    }
+
+    private double meter(String name, String result) {
+        var search = registry.find(name).tag("cache", "productCatalog");
+        return result != null ? search.tag("result", result).functionCounter().count()
+                : search.functionCounter().count();
+    }
+
+    @Test
+    @DisplayName("should load a tenant catalog once and serve later reads from memory")
+    void shouldServeRepeatedReadsFromMemory() {
+        product(1L, 1L, "Nasi Goreng", 20);
+        TenantContext.setTenantId(1L);
+
+        cache.getActiveProducts();
+        cache.getActiveProducts();
+        cache.getActiveProductsByCategory(null);
+
+        verify(productRepository, times(1)).findActiveByTenant(any());
+        assertThat(meter("cache.gets", "hit")).isEqualTo(2);
+        assertThat(meter("cache.gets", "miss")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should keep catalogs of different tenants apart")
+    void shouldNeverServeAnotherTenantsCatalog() {
+        product(1L, 1L, "Nasi Goreng", 20);
+        product(2L, 2L, "Es Teh", 50);
+
+        TenantContext.setTenantId(1L);
+        assertThat(cache.getActiveProducts().orElseThrow()).extracting(ProductDto::getName).containsExactly("Nasi Goreng");
+        TenantContext.setTenantId(2L);
+        assertThat(cache.getActiveProducts().orElseThrow()).extracting(ProductDto::getName).containsExactly("Es Teh");
+        TenantContext.setTenantId(1L);
+        assertThat(cache.getActiveProducts().orElseThrow()).extracting(ProductDto::getName).containsExactly("Nasi Goreng");
+    }
+
+    @Test
+    @DisplayName("should bypass the cache when there is no tenant")
+    void shouldBypassWithoutTenant() {
+        assertThat(cache.getActiveProducts()).isEmpty();
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    @DisplayName("should patch the cached catalog on product and stock writes")
+    void shouldPatchOnWrites() {
+        Product rice = product(1L, 1L, "Nasi Goreng", 20);
+        TenantContext.setTenantId(1L);
+        cache.getActiveProducts();
+
+        rice.setName("Nasi Goreng Spesial");
+        cache.put(rice);
+        cache.updateStock(1L, Map.of(1L, 3));
+        assertThat(cache.getActiveProducts().orElseThrow()).singleElement().satisfies(dto -> {
+            assertThat(dto.getName()).isEqualTo("Nasi Goreng Spesial");
+            assertThat(dto.getStock()).isEqualTo(3);
+            assertThat(dto.getLowStock()).isTrue();
+        });
+
+        rice.setIsActive(false);
+        cache.put(rice);
+        assertThat(cache.getActiveProducts().orElseThrow()).isEmpty();
+        verify(productRepository, times(1)).findActiveByTenant(any());
+    }
+
+    @Test
+    @DisplayName("should evict the least recently used tenant beyond the size bound")
+    void shouldEvictBeyondBound() {
+        for (long tenant = 1; tenant <= 3; tenant++) {
+            product(tenant, tenant, "Product " + tenant, 10);
+            TenantContext.setTenantId(tenant);
+            cache.getActiveProducts();
+        }
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(meter("cache.evictions", null)).isEqualTo(1);
+
+        TenantContext.setTenantId(1L);
+        cache.getActiveProducts();
+        verify(productRepository, times(4)).findActiveByTenant(any());
+    }
+
+    @Test
+    @DisplayName("a catalog read since it was loaded should outlive one that was not")
+    void shouldEvictCatalogReadLongestAgo() {
+        for (long tenant = 1; tenant <= 3; tenant++) {
+            product(tenant, tenant, "Product " + tenant, 10);
+        }
+        TenantContext.setTenantId(1L);
+        cache.getActiveProducts();
+        TenantContext.setTenantId(2L);
+        cache.getActiveProducts();
+        TenantContext.setTenantId(1L);
+        cache.getActiveProducts();
+
+        TenantContext.setTenantId(3L);
+        cache.getActiveProducts();
+        TenantContext.setTenantId(1L);
+        cache.getActiveProducts();
+
+        assertThat(cache.size()).isEqualTo(2);
+        verify(productRepository, times(1)).findActiveByTenant(1L);
+    }
+
+    @Test
+    @DisplayName("should resolve barcodes and SKUs from the index and follow code changes")
+    void shouldResolveCodesFromIndex() {
+        Product rice = product(1L, 1L, "Nasi Goreng", 20);
+        rice.setBarcode("8990001");
+        product(2L, 2L, "Es Teh", 50).setBarcode("8990002");
+        cache.warm(1L);
+        TenantContext.setTenantId(1L);
+
+        assertThat(cache.findByBarcode("8990001")).map(ProductDto::getId).contains(1L);
+        assertThat(cache.findBySku("SKU1")).map(ProductDto::getId).contains(1L);
+        assertThat(cache.findByBarcode("8990002")).isEmpty();
+
+        rice.setBarcode("8990003");
+        cache.put(rice);
+        cache.updateStock(1L, Map.of(1L, 7));
+        assertThat(cache.findByBarcode("8990001")).isEmpty();
+        assertThat(cache.findByBarcode("8990003")).map(ProductDto::getStock).contains(7);
+        assertThat(cache.findBySku("SKU1")).map(ProductDto::getStock).contains(7);
+
+        rice.setIsActive(false);
+        cache.put(rice);
+        assertThat(cache.findByBarcode("8990003")).isEmpty();
+        assertThat(cache.findBySku("SKU1")).isEmpty();
+        verify(productRepository, times(1)).findActiveByTenant(1L);
+    }
+}
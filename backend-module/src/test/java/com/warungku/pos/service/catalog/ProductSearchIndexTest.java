@@ -0,0 +1,63 @@
+package com.warungku.pos.service.catalog;
+
+import com.warungku.pos.dto.ProductDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductSearchIndexTest {
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductSearchIndex();
+        add(1L, "Nasi Goreng", "FOD001", "8990001");
+        add(2L, "Nasi Uduk", "FOD002", null);
+        add(3L, "Mie Goreng", "FOD003", null);
+        add(4L, "Es Teh Manis", "DRK001", null);
+        add(5L, "Kerupuk Nasi", "SNK001", null);
+    }
+
+    private void add(long id, String name, String sku, String barcode) {
+        index.add(ProductDto.builder().id(id).name(name).sku(sku).barcode(barcode).build());
+    }
+
+    @Test
+    @DisplayName("should rank exact SKU, then prefix, then word prefix, then infix")
+    void shouldRankMatches() {
+        assertThat(index.search("FOD002")).containsExactly(2L);
+        assertThat(index.search("nasi")).containsExactly(1L, 2L, 5L);
+        assertThat(index.search("goreng")).containsExactly(3L, 1L);
+        assertThat(index.search("oren")).containsExactly(3L, 1L);
+        assertThat(index.search("8990001")).containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("should match every query word in any order")
+    void shouldMatchAllWords() {
+        assertThat(index.search("goreng nasi")).containsExactly(1L);
+        assertThat(index.search("es man")).containsExactly(4L);
+    }
+
+    @Test
+    @DisplayName("should tolerate a typo in longer words but not in short ones")
+    void shouldTolerateTypos() {
+        assertThat(index.search("nasu goreng")).containsExactly(1L);
+        assertThat(index.search("krupuk")).containsExactly(5L);
+        assertThat(index.search("xs")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should follow renames and removals")
+    void shouldUpdateIncrementally() {
+        add(3L, "Bihun Goreng", "FOD003", null);
+        index.remove(1L);
+
+        assertThat(index.search("mie")).isEmpty();
+        assertThat(index.search("goreng")).containsExactly(3L);
+        assertThat(index.search("bihun")).containsExactly(3L);
+    }
+}
@@ -0,0 +1,160 @@
+package com.warungku.pos.service.export;
+
+import com.warungku.pos.core.tenant.TenantContext;
+import com.warungku.pos.entity.Outlet;
+import com.warungku.pos.entity.Product;
+import com.warungku.pos.entity.Sale;
+import com.warungku.pos.entity.SaleItem;
+import com.warungku.pos.entity.User;
+import com.warungku.pos.entity.enums.PaymentMethod;
+import com.warungku.pos.exception.BadRequestException;
+import com.warungku.pos.repository.OutletRepository;
+import com.warungku.pos.repository.ProductRepository;
+import com.warungku.pos.repository.SaleRepository;
+import com.warungku.pos.repository.UserRepository;
+import com.warungku.pos.service.archive.SalesArchive;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({SaleExporter.class, SalesArchive.class})
+class SaleExporterTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 2);
+
+    @Autowired
+    private SaleExporter saleExporter;
+
+    @Autowired
+    private SaleRepository saleRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OutletRepository outletRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private User cashier;
+    private Product tea;
+    private Product rice;
+
+    @BeforeEach
+    void setUp() {
+        long run = ThreadLocalRandom.current().nextLong(1_000_000);
+        Long otherTenant = outletRepository.save(Outlet.builder().name("Warung B").build()).getId();
+        Long tenantId = outletRepository.save(Outlet.builder().name("Warung A").build()).getId();
+
+        TenantContext.setTenantId(otherTenant);
+        cashier = userRepository.save(User.builder()
+                .name("Budi").email("budi" + run + "@warungku.test").password("secret").build());
+        tea = productRepository.save(Product.builder()
+                .name("Es Teh").sku("TEA-" + run).price(new BigDecimal("5000")).stock(100).build());
+        saveSale("INV-B-" + run, 0, tea, 1);
+
+        TenantContext.setTenantId(tenantId);
+        rice = productRepository.save(Product.builder()
+                .name("Nasi Goreng, pedas").sku("RICE-" + run).price(new BigDecimal("22500")).stock(100).build());
+        saveSale("INV-3-" + run, 2, tea, 1);
+        saveSale("INV-1-" + run, 0, rice, 2, tea, 3);
+        saveSale("INV-2-" + run, 1, rice, 1);
+        saveSale("INV-0-" + run, -1, tea, 1);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    private void saveSale(String receipt, int day, Object... lines) {
+        Sale sale = Sale.builder()
+                .receiptNumber(receipt)
+                .saleDate(DAY.plusDays(day).atTime(18, 0))
+                .paymentMethod(PaymentMethod.CASH)
+                .cashier(cashier)
+                .subtotal(new BigDecimal("10000"))
+                .taxAmount(new BigDecimal("1000"))
+                .grandTotal(new BigDecimal("11000"))
+                .build();
+        for (int i = 0; i < lines.length; i += 2) {
+            Product product = (Product) lines[i];
+            int quantity = (Integer) lines[i + 1];
+            sale.addItem(SaleItem.builder()
+                    .product(product).productSku(product.getSku()).productName(product.getName())
+                    .unitPrice(product.getPrice()).quantity(quantity)
+                    .subtotal(product.getPrice().multiply(BigDecimal.valueOf(quantity)))
+                    .build());
+        }
+        saleRepository.save(sale);
+    }
+
+    private byte[] export(LocalDate from, LocalDate to, ExportFormat format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        saleExporter.export(new DayRange(from, to), format, out);
+        return out.toByteArray();
+    }
+
+    @Test
+    @DisplayName("CSV should hold one row per sale line of the tenant's sales in range, in sale order")
+    void shouldExportCsv() throws IOException {
+        List<String> lines = new String(export(DAY, DAY.plusDays(1), ExportFormat.CSV), StandardCharsets.UTF_8)
+                .lines().toList();
+
+        assertThat(lines).hasSize(1 + 3);
+        assertThat(lines.get(0)).startsWith("sale_id,receipt_number,sale_date,status,payment_method,cashier");
+        assertThat(lines.get(1)).contains(",2026-03-02 18:00:00,COMPLETED,CASH,Budi,,10000.00,")
+                .contains(",\"Nasi Goreng, pedas\",2,22500.00,")
+                .startsWith(lines.get(2).substring(0, lines.get(2).indexOf(",2026")));
+        assertThat(lines.get(2)).contains(",Es Teh,3,5000.00,");
+        assertThat(lines.get(3)).contains("INV-2-");
+    }
+
+    @Test
+    @DisplayName("XLSX should hold the same rows as a well-formed workbook")
+    void shouldExportXlsx() throws Exception {
+        Map<String, Document> parts = XlsxWriterTest.parts(export(DAY, DAY.plusDays(2), ExportFormat.XLSX));
+
+        Document sheet = parts.get("xl/worksheets/sheet1.xml");
+        NodeList rows = XlsxWriterTest.elements(sheet, "row");
+        assertThat(rows.getLength()).isEqualTo(1 + 4);
+        assertThat(rows.item(4).getTextContent()).contains("INV-3-").contains("Es Teh");
+    }
+
+    @Test
+    @DisplayName("should need both ends of the range")
+    void shouldRequireClosedRange() {
+        assertThatThrownBy(() -> export(DAY, null, ExportFormat.CSV)).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> export(null, null, ExportFormat.NDJSON)).isInstanceOf(BadRequestException.class);
+    }
+}
@@ -0,0 +1,179 @@
+package com.warungku.pos.service.export;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.warungku.pos.core.tenant.TenantContext;
+import com.warungku.pos.core.tenant.TenantSessionInitializer;
+import com.warungku.pos.entity.Outlet;
+import com.warungku.pos.entity.Product;
+import com.warungku.pos.entity.StockMovement;
+import com.warungku.pos.entity.enums.MovementType;
+import com.warungku.pos.exception.BadRequestException;
+import com.warungku.pos.repository.OutletRepository;
+import com.warungku.pos.repository.ProductRepository;
+import com.warungku.pos.repository.StockMovementRepository;
+import com.warungku.pos.service.archive.SalesArchive;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Streams real movement rows of one tenant next to another's. Runs without a test transaction so
+ * each export opens its own tenant-scoped session, as a request would.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({StockMovementExporter.class, SalesArchive.class, TenantSessionInitializer.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StockMovementExporterTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 2);
+
+    @Autowired
+    private StockMovementExporter exporter;
+
+    @Autowired
+    private StockMovementRepository stockMovementRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OutletRepository outletRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Long tenantA;
+    private Long tea;
+    private Long rice;
+
+    @BeforeEach
+    void setUp() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tenantA = outletRepository.save(Outlet.builder().name("Warung A").build()).getId();
+        Long tenantB = outletRepository.save(Outlet.builder().name("Warung B").build()).getId();
+
+        TenantContext.setTenantId(tenantB);
+        tx.executeWithoutResult(status -> {
+            Product other = saveProduct("Mie Goreng", "B-" + tenantB);
+            saveMovement(other, MovementType.SALE, 0, "other tenant");
+        });
+
+        TenantContext.setTenantId(tenantA);
+        tx.executeWithoutResult(status -> {
+            Product teaProduct = saveProduct("Es Teh", "TEA-" + tenantA);
+            Product riceProduct = saveProduct("Nasi Goreng", "RICE-" + tenantA);
+            tea = teaProduct.getId();
+            rice = riceProduct.getId();
+            // Saved out of date order, to check the feed sorts
+            saveMovement(teaProduct, MovementType.SALE, 2, "Sale: INV-3");
+            saveMovement(teaProduct, MovementType.PURCHASE, 0, "Restock, \"supplier\" A");
+            saveMovement(riceProduct, MovementType.SALE, 1, "=SUM(A1)");
+            saveMovement(teaProduct, MovementType.SALE, 1, "Sale: INV-2");
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    private Product saveProduct(String name, String sku) {
+        return productRepository.save(Product.builder()
+                .name(name).sku(sku).price(new BigDecimal("5000")).stock(10).build());
+    }
+
+    private void saveMovement(Product product, MovementType type, int day, String notes) {
+        stockMovementRepository.save(StockMovement.builder()
+                .product(product).movementType(type).quantity(type == MovementType.SALE ? -1 : 5)
+                .stockBefore(10).stockAfter(type == MovementType.SALE ? 9 : 15)
+                .movementDate(DAY.plusDays(day).atTime(9, 0))
+                .notes(notes)
+                .build());
+    }
+
+    private String export(Long productId, MovementType type, LocalDate from, LocalDate to, ExportFormat format)
+            throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exporter.export(productId, type, new DayRange(from, to), format, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("NDJSON feed should hold one object per movement of the tenant, oldest first")
+    void shouldStreamNdjson() throws IOException {
+        String body = export(null, null, null, null, ExportFormat.NDJSON);
+
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        assertThat(body).endsWith("\n");
+        assertThat(lines).extracting(line -> line.get("notes").asText())
+                .containsExactly("Restock, \"supplier\" A", "=SUM(A1)", "Sale: INV-2", "Sale: INV-3");
+        assertThat(lines.get(1).get("productName").asText()).isEqualTo("Nasi Goreng");
+        assertThat(lines.get(1).get("movementDate").asText()).isEqualTo("2026-03-03T09:00:00");
+    }
+
+    @Test
+    @DisplayName("filters should narrow the feed by product, type and an inclusive day range")
+    void shouldFilter() throws IOException {
+        assertThat(export(tea, MovementType.SALE, null, null, ExportFormat.NDJSON).lines()).hasSize(2);
+        assertThat(export(rice, null, null, null, ExportFormat.NDJSON).lines()).hasSize(1);
+        assertThat(export(null, null, DAY.plusDays(1), DAY.plusDays(1), ExportFormat.NDJSON).lines())
+                .hasSize(2)
+                .allMatch(line -> line.contains("\"movementDate\":\"2026-03-03T09:00:00\""));
+        assertThat(export(null, MovementType.ADJUSTMENT, null, null, ExportFormat.NDJSON)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("CSV feed should have a header, quote special text and defuse formulas")
+    void shouldStreamCsv() throws IOException {
+        List<String> lines = export(tea, null, DAY, DAY, ExportFormat.CSV).lines().toList();
+
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(0)).startsWith("id,movement_date,movement_type,product_id,product_sku");
+        assertThat(lines.get(1)).contains(",2026-03-02 09:00:00,PURCHASE," + tea + ",TEA-" + tenantA + ",Es Teh,5,10,15,,,")
+                .contains(",\"Restock, \"\"supplier\"\" A\",");
+        assertThat(export(rice, null, null, null, ExportFormat.CSV)).contains(",'=SUM(A1),");
+    }
+
+    @Test
+    @DisplayName("should reject an inverted day range and an unsupported format")
+    void shouldRejectBadRequests() {
+        assertThatThrownBy(() -> export(null, null, DAY.plusDays(1), DAY, ExportFormat.CSV))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> ExportFormat.of("xlsx", ExportFormat.NDJSON, ExportFormat.CSV))
+                .isInstanceOf(BadRequestException.class);
+        assertThat(ExportFormat.of("csv", ExportFormat.NDJSON, ExportFormat.CSV)).isEqualTo(ExportFormat.CSV);
+    }
+}
@@ -0,0 +1,88 @@
+package com.warungku.pos.service.export;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reads the written workbook back as a zip of XML parts.
+ */
+class XlsxWriterTest {
+
+    static Map<String, Document> parts(byte[] xlsx) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        Map<String, Document> parts = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(xlsx))) {
+            for (ZipEntry entry; (entry = zip.getNextEntry()) != null; ) {
+                // Parsing fails on any part that is not well-formed XML
+                parts.put(entry.getName(), factory.newDocumentBuilder().parse(new ByteArrayInputStream(zip.readAllBytes())));
+            }
+        }
+        return parts;
+    }
+
+    static NodeList elements(Document part, String name) {
+        return part.getElementsByTagNameNS("*", name);
+    }
+
+    @Test
+    @DisplayName("should write typed cells and escape text")
+    void shouldWriteTypedCells() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        XlsxWriter xlsx = new XlsxWriter(out, "Sales", "receipt", "date", "total", "note");
+        xlsx.row("INV-1", LocalDateTime.of(2026, 3, 2, 18, 0), new BigDecimal("15000.50"), "Teh <manis> & \"dingin\"\u0001");
+        xlsx.row("INV-2", null, 7, null);
+        xlsx.finish();
+
+        Map<String, Document> parts = parts(out.toByteArray());
+        assertThat(parts).containsKeys("[Content_Types].xml", "_rels/.rels", "xl/workbook.xml",
+                "xl/_rels/workbook.xml.rels", "xl/styles.xml", "xl/worksheets/sheet1.xml");
+
+        NodeList cells = elements(parts.get("xl/worksheets/sheet1.xml"), "c");
+        assertThat(cells.getLength()).isEqualTo(4 + 4 + 2);
+        Element date = (Element) cells.item(5);
+        assertThat(date.getAttribute("r")).isEqualTo("B2");
+        assertThat(date.getAttribute("s")).isEqualTo("1");
+        // 2026-03-02 is day 46083 since 1899-12-30; 18:00 is three quarters of a day
+        assertThat(date.getTextContent()).isEqualTo("46083.75");
+        assertThat(cells.item(6).getTextContent()).isEqualTo("15000.50");
+        assertThat(cells.item(7).getTextContent()).isEqualTo("Teh <manis> & \"dingin\"");
+        assertThat(((Element) cells.item(9)).getAttribute("r")).isEqualTo("C3");
+    }
+
+    @Test
+    @DisplayName("should continue on a new sheet, with the header, when a sheet is full")
+    void shouldRollOverFullSheets() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        XlsxWriter xlsx = new XlsxWriter(out, 3, "Sales", "n");
+        for (int n = 1; n <= 5; n++) {
+            xlsx.row(n);
+        }
+        xlsx.finish();
+
+        Map<String, Document> parts = parts(out.toByteArray());
+        assertThat(elements(parts.get("xl/worksheets/sheet1.xml"), "row").getLength()).isEqualTo(3);
+        assertThat(elements(parts.get("xl/worksheets/sheet2.xml"), "row").getLength()).isEqualTo(3);
+        assertThat(elements(parts.get("xl/worksheets/sheet3.xml"), "row").getLength()).isEqualTo(2);
+        assertThat(elements(parts.get("xl/worksheets/sheet3.xml"), "c").item(0).getTextContent()).isEqualTo("n");
+
+        NodeList sheets = elements(parts.get("xl/workbook.xml"), "sheet");
+        assertThat(sheets.getLength()).isEqualTo(3);
+        assertThat(((Element) sheets.item(2)).getAttribute("name")).isEqualTo("Sales (3)");
+    }
+}
@@ -0,0 +1,252 @@
+package com.warungku.pos.service.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.warungku.pos.core.tenant.TenantContext;
+import com.warungku.pos.dto.sale.CreateSaleRequest;
+import com.warungku.pos.dto.sale.SaleResponse;
+import com.warungku.pos.entity.IdempotencyRecord;
+import com.warungku.pos.entity.enums.PaymentMethod;
+import com.warungku.pos.exception.BadRequestException;
+import com.warungku.pos.exception.ConflictException;
+import com.warungku.pos.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+    @Mock
+    private IdempotencyRecordRepository recordRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final AtomicInteger checkouts = new AtomicInteger();
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new IdempotencyService(recordRepository, objectMapper, transactionManager,
+                Duration.ofHours(24), Duration.ofMinutes(10), 100, Duration.ofSeconds(5), 2);
+        TenantContext.setTenantId(1L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    private CreateSaleRequest request(int quantity) {
+        CreateSaleRequest.SaleItemRequest item = new CreateSaleRequest.SaleItemRequest();
+        item.setProductId(10L);
+        item.setQuantity(quantity);
+        CreateSaleRequest request = new CreateSaleRequest();
+        request.setPaymentMethod(PaymentMethod.CASH);
+        request.setItems(List.of(item));
+        return request;
+    }
+
+    private SaleResponse checkout() {
+        int n = checkouts.incrementAndGet();
+        return SaleResponse.builder()
+                .id((long) n)
+                .receiptNumber("INV-" + n)
+                .saleDate(LocalDateTime.of(2026, 3, 2, 10, 0))
+                .grandTotal(new BigDecimal("11000"))
+                .build();
+    }
+
+    private SaleResponse sell(String key, CreateSaleRequest request) {
+        return idempotencyService.execute("sales", key, request, SaleResponse.class, this::checkout);
+    }
+
+    @Test
+    @DisplayName("should replay the first response to retries with the same key")
+    void shouldReplayRetries() {
+        SaleResponse first = sell("till-1-0001", request(2));
+        SaleResponse retry = sell("till-1-0001", request(2));
+
+        assertThat(checkouts).hasValue(1);
+        assertThat(retry).isEqualTo(first);
+        assertThat(sell(null, request(2)).getReceiptNumber()).isEqualTo("INV-2");
+
+        ArgumentCaptor<IdempotencyRecord> stored = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        verify(recordRepository).saveAndFlush(stored.capture());
+        assertThat(stored.getValue().getTenantId()).isEqualTo(1L);
+        assertThat(stored.getValue().getResponseBody()).contains("INV-1");
+        verify(recordRepository, times(1)).findByTenantIdAndScopeAndIdempotencyKey(1L, "sales", "till-1-0001");
+    }
+
+    @Test
+    @DisplayName("retries arriving while the first attempt runs should wait for its response")
+    void shouldWaitForInFlightAttempt() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService tills = Executors.newFixedThreadPool(4);
+        try {
+            Future<SaleResponse> first = tills.submit(() -> {
+                TenantContext.setTenantId(1L);
+                return idempotencyService.execute("sales", "k", request(1), SaleResponse.class, () -> {
+                    started.countDown();
+                    await(release);
+                    return checkout();
+                });
+            });
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            List<Future<SaleResponse>> retries = List.of(
+                    tills.submit(() -> { TenantContext.setTenantId(1L); return sell("k", request(1)); }),
+                    tills.submit(() -> { TenantContext.setTenantId(1L); return sell("k", request(1)); }));
+            release.countDown();
+
+            SaleResponse response = first.get(5, TimeUnit.SECONDS);
+            for (Future<SaleResponse> retry : retries) {
+                assertThat(retry.get(5, TimeUnit.SECONDS)).isEqualTo(response);
+            }
+            assertThat(checkouts).hasValue(1);
+        } finally {
+            tills.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("a retry that outwaits the first attempt should be told to retry later")
+    void shouldConflictWhenFirstAttemptOutlastsWait() throws Exception {
+        idempotencyService = new IdempotencyService(recordRepository, objectMapper, transactionManager,
+                Duration.ofHours(24), Duration.ofMinutes(10), 100, Duration.ofMillis(50), 2);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService tills = Executors.newSingleThreadExecutor();
+        try {
+            Future<SaleResponse> first = tills.submit(() -> {
+                TenantContext.setTenantId(1L);
+                return idempotencyService.execute("sales", "k", request(1), SaleResponse.class, () -> {
+                    started.countDown();
+                    await(release);
+                    return checkout();
+                });
+            });
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            assertThatThrownBy(() -> sell("k", request(1)))
+                    .isInstanceOf(ConflictException.class)
+                    .hasMessageContaining("still being processed");
+
+            release.countDown();
+            assertThat(sell("k", request(1))).isEqualTo(first.get(5, TimeUnit.SECONDS));
+            assertThat(checkouts).hasValue(1);
+        } finally {
+            tills.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("completed keys beyond the in-memory bound should be answered from the store")
+    void shouldDropOldestCompletedKeysBeyondBound() {
+        idempotencyService = new IdempotencyService(recordRepository, objectMapper, transactionManager,
+                Duration.ofHours(24), Duration.ofMinutes(10), 1, Duration.ofSeconds(5), 2);
+        SaleResponse first = sell("till-1-0001", request(2));
+        SaleResponse second = sell("till-1-0002", request(2));
+        ArgumentCaptor<IdempotencyRecord> stored = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        verify(recordRepository, times(2)).saveAndFlush(stored.capture());
+        when(recordRepository.findByTenantIdAndScopeAndIdempotencyKey(1L, "sales", "till-1-0001"))
+                .thenReturn(Optional.of(stored.getAllValues().get(0)));
+
+        assertThat(sell("till-1-0002", request(2))).isEqualTo(second);
+        assertThat(sell("till-1-0001", request(2))).isEqualTo(first);
+
+        assertThat(checkouts).hasValue(2);
+        verify(recordRepository, times(2)).findByTenantIdAndScopeAndIdempotencyKey(1L, "sales", "till-1-0001");
+        verify(recordRepository, times(1)).findByTenantIdAndScopeAndIdempotencyKey(1L, "sales", "till-1-0002");
+    }
+
+    @Test
+    @DisplayName("should replay a response stored by an earlier instance")
+    void shouldReplayStoredResponse() throws Exception {
+        SaleResponse earlier = checkout();
+        String hash = hashOf(request(3));
+        when(recordRepository.findByTenantIdAndScopeAndIdempotencyKey(1L, "sales", "k")).thenReturn(Optional.of(
+                IdempotencyRecord.builder().tenantId(1L).scope("sales").idempotencyKey("k").requestHash(hash)
+                        .responseBody(objectMapper.writeValueAsString(earlier))
+                        .expiresAt(LocalDateTime.now().plusHours(1)).build()));
+
+        assertThat(sell("k", request(3))).isEqualTo(earlier);
+        assertThat(checkouts).hasValue(1);
+        verify(recordRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    @DisplayName("should reject a key reused with a different request")
+    void shouldRejectDifferentRequest() {
+        sell("k", request(1));
+
+        assertThatThrownBy(() -> sell("k", request(5)))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("different request");
+        assertThat(checkouts).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("should not remember failed attempts")
+    void shouldForgetFailures() {
+        assertThatThrownBy(() -> idempotencyService.execute("sales", "k", request(1), SaleResponse.class,
+                () -> { throw new BadRequestException("Insufficient stock"); }))
+                .hasMessage("Insufficient stock");
+
+        assertThat(sell("k", request(1)).getReceiptNumber()).isEqualTo("INV-1");
+        verify(recordRepository, times(1)).saveAndFlush(any());
+    }
+
+    @Test
+    @DisplayName("should sweep expired keys in batches")
+    void shouldSweepInBatches() {
+        when(recordRepository.findExpiredIds(any(), any(Pageable.class)))
+                .thenReturn(List.of(1L, 2L), List.of(3L, 4L), List.of(5L));
+
+        assertThat(idempotencyService.sweepExpired()).isEqualTo(5);
+        verify(recordRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        verify(recordRepository).deleteAllByIdInBatch(List.of(5L));
+        verify(recordRepository, times(3)).findExpiredIds(any(), any(Pageable.class));
+    }
+
+    private String hashOf(CreateSaleRequest request) throws Exception {
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+        return HexFormat.of().formatHex(digest);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
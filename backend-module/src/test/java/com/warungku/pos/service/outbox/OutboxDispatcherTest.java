@@ -0,0 +1,212 @@
+package com.warungku.pos.service.outbox;
+
+import com.warungku.pos.core.tenant.TenantContext;
+import com.warungku.pos.entity.OutboxEvent;
+import com.warungku.pos.entity.enums.OutboxEventStatus;
+import com.warungku.pos.entity.enums.OutboxEventType;
+import com.warungku.pos.repository.OutboxEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Drains real outbox rows through a recording handler, without a test transaction so the
+ * dispatcher's workers see committed events.
+ */
+@DataJpaTest(properties = {"outbox.retry-delay=PT0.2S", "outbox.max-attempts=3"})
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({OutboxDispatcher.class, OutboxDispatcherTest.RecordingHandler.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OutboxDispatcherTest {
+
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private RecordingHandler handler;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Long tenantA;
+    private Long tenantB;
+
+    @BeforeEach
+    void setUp() {
+        handler.reset();
+        tenantA = ThreadLocalRandom.current().nextLong(1_000_000, Long.MAX_VALUE);
+        tenantB = tenantA - 1;
+    }
+
+    private Long event(Long tenantId) {
+        return outboxEventRepository.save(OutboxEvent.builder()
+                .tenantId(tenantId)
+                .eventType(OutboxEventType.SALE_CREATED)
+                .aggregateId(1L)
+                .payload("{}")
+                .nextAttemptAt(LocalDateTime.now())
+                .build()).getId();
+    }
+
+    private List<OutboxEvent> pending(Long tenantId) {
+        return outboxEventRepository.findByTenantIdAndStatusOrderByIdAsc(tenantId, OutboxEventStatus.PENDING,
+                PageRequest.of(0, 100));
+    }
+
+    private void dispatchUntilDrained(Long... tenants) {
+        await().atMost(Duration.ofSeconds(10)).pollInterval(Duration.ofMillis(50)).until(() -> {
+            outboxDispatcher.dispatch();
+            return List.of(tenants).stream().allMatch(tenant -> pending(tenant).isEmpty());
+        });
+    }
+
+    @Test
+    @DisplayName("should handle each tenant's events in order under that tenant, then delete them")
+    void shouldDispatchInOrderPerTenant() {
+        List<Long> eventsA = new ArrayList<>();
+        List<Long> eventsB = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            eventsA.add(event(tenantA));
+            eventsB.add(event(tenantB));
+        }
+
+        dispatchUntilDrained(tenantA, tenantB);
+
+        assertThat(handler.handled(tenantA)).containsExactlyElementsOf(eventsA);
+        assertThat(handler.handled(tenantB)).containsExactlyElementsOf(eventsB);
+        assertThat(handler.wrongTenant).isEmpty();
+        assertThat(outboxEventRepository.findAllById(eventsA)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("a failed event should be retried before the tenant's later events")
+    void shouldRetryBeforeLaterEvents() {
+        Long first = event(tenantA);
+        Long second = event(tenantA);
+        Long other = event(tenantB);
+        handler.failures.put(first, 1);
+
+        outboxDispatcher.dispatch();
+        await().atMost(Duration.ofSeconds(5)).until(() -> handler.handled(tenantB).contains(other)
+                && outboxEventRepository.findById(first).map(e -> e.getAttempts() == 1).orElse(false));
+        assertThat(handler.handled(tenantA)).isEmpty();
+        assertThat(outboxEventRepository.findById(first).orElseThrow().getLastError()).isEqualTo("boom " + first);
+
+        dispatchUntilDrained(tenantA);
+
+        assertThat(handler.handled(tenantA)).containsExactly(first, second);
+    }
+
+    @Test
+    @DisplayName("should give up on an event after the maximum attempts and move on")
+    void shouldGiveUpAfterMaxAttempts() {
+        Long poisoned = event(tenantA);
+        Long next = event(tenantA);
+        handler.failures.put(poisoned, Integer.MAX_VALUE);
+
+        dispatchUntilDrained(tenantA);
+
+        OutboxEvent failed = outboxEventRepository.findById(poisoned).orElseThrow();
+        assertThat(failed.getStatus()).isEqualTo(OutboxEventStatus.FAILED);
+        assertThat(failed.getAttempts()).isEqualTo(3);
+        assertThat(handler.handled(tenantA)).containsExactly(next);
+    }
+
+    @Test
+    @DisplayName("two instances draining the same tenant should handle each event once")
+    void shouldHandleEachEventOnceAcrossInstances() throws Exception {
+        List<Long> events = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            events.add(event(tenantA));
+        }
+        handler.delayMillis = 5;
+        OutboxDispatcher otherInstance = new OutboxDispatcher(outboxEventRepository, List.of(handler),
+                transactionManager, 4, 100, 3, Duration.ofMillis(200));
+        try {
+            await().atMost(Duration.ofSeconds(10)).pollInterval(Duration.ofMillis(50)).until(() -> {
+                outboxDispatcher.dispatch();
+                otherInstance.dispatch();
+                return pending(tenantA).isEmpty();
+            });
+        } finally {
+            otherInstance.shutdown();
+        }
+
+        assertThat(handler.handled(tenantA)).containsExactlyElementsOf(events);
+    }
+
+    /**
+     * Records handled event ids per tenant, failing the configured events a number of times.
+     */
+    static class RecordingHandler implements OutboxEventHandler {
+
+        final Map<Long, List<Long>> handled = new ConcurrentHashMap<>();
+        final Map<Long, Integer> failures = new ConcurrentHashMap<>();
+        final List<Long> wrongTenant = Collections.synchronizedList(new ArrayList<>());
+        volatile long delayMillis;
+
+        void reset() {
+            delayMillis = 0;
+            handled.clear();
+            failures.clear();
+            wrongTenant.clear();
+        }
+
+        List<Long> handled(Long tenantId) {
+            return handled.getOrDefault(tenantId, List.of());
+        }
+
+        @Override
+        public Set<OutboxEventType> eventTypes() {
+            return EnumSet.allOf(OutboxEventType.class);
+        }
+
+        @Override
+        public void handle(OutboxEvent event) {
+            if (!event.getTenantId().equals(TenantContext.getTenantId())) {
+                wrongTenant.add(event.getId());
+            }
+            if (delayMillis > 0) {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            Integer failuresLeft = failures.get(event.getId());
+            if (failuresLeft != null && failuresLeft > 0) {
+                failures.put(event.getId(), failuresLeft - 1);
+                throw new IllegalStateException("boom " + event.getId());
+            }
+            handled.computeIfAbsent(event.getTenantId(), id -> Collections.synchronizedList(new ArrayList<>()))
+                    .add(event.getId());
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.warungku.pos.service.pricing;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks the long arithmetic against the decimal rules it replaces, on fixed edge cases and on
+ * randomly generated carts (seeded, so a failure reproduces).
+ */
+class PricingEngineTest {
+
+    private static final long SEED = 20260301L;
+    private static final int CARTS = 20_000;
+
+    /**
+     * The decimal rules as SaleService applied them before, kept as the reference.
+     */
+    private static BigDecimal[] reference(BigDecimal[] prices, int[] quantities, BigDecimal[] lineDiscounts,
+                                          BigDecimal discount, BigDecimal percent, BigDecimal taxRate) {
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (int i = 0; i < prices.length; i++) {
+            subtotal = subtotal.add(prices[i].multiply(BigDecimal.valueOf(quantities[i])).subtract(lineDiscounts[i]));
+        }
+        BigDecimal totalDiscount = discount;
+        if (percent.compareTo(BigDecimal.ZERO) > 0) {
+            totalDiscount = totalDiscount.add(
+                    subtotal.multiply(percent).divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP));
+        }
+        BigDecimal afterDiscount = subtotal.subtract(totalDiscount);
+        BigDecimal tax = afterDiscount.multiply(taxRate).setScale(2, RoundingMode.HALF_UP);
+        return new BigDecimal[]{subtotal, totalDiscount, tax, afterDiscount.add(tax)};
+    }
+
+    private static PricingEngine.Totals engine(BigDecimal[] prices, int[] quantities, BigDecimal[] lineDiscounts,
+                                               BigDecimal discount, BigDecimal percent, BigDecimal taxRate) {
+        long subtotal = 0;
+        for (int i = 0; i < prices.length; i++) {
+            subtotal += PricingEngine.lineSubtotal(PricingEngine.toMinor(prices[i]), quantities[i],
+                    PricingEngine.toMinor(lineDiscounts[i]));
+        }
+        return PricingEngine.totals(subtotal, PricingEngine.toMinor(discount),
+                PricingEngine.toPercentUnits(percent), PricingEngine.toRateUnits(taxRate));
+    }
+
+    private static void assertSame(PricingEngine.Totals totals, BigDecimal[] expected, String cart) {
+        assertThat(PricingEngine.toAmount(totals.subtotal())).as("subtotal of %s", cart).isEqualByComparingTo(expected[0]);
+        assertThat(PricingEngine.toAmount(totals.discount())).as("discount of %s", cart).isEqualByComparingTo(expected[1]);
+        assertThat(PricingEngine.toAmount(totals.taxAmount())).as("tax of %s", cart).isEqualByComparingTo(expected[2]);
+        assertThat(PricingEngine.toAmount(totals.grandTotal())).as("grand total of %s", cart).isEqualByComparingTo(expected[3]);
+    }
+
+    private static BigDecimal amount(Random random, long maxMinor) {
+        return BigDecimal.valueOf(random.nextLong(maxMinor + 1), 2);
+    }
+
+    @Test
+    @DisplayName("random carts should price exactly as the decimal rules")
+    void shouldMatchDecimalReference() {
+        Random random = new Random(SEED);
+        for (int n = 0; n < CARTS; n++) {
+            int lines = 1 + random.nextInt(12);
+            BigDecimal[] prices = new BigDecimal[lines];
+            int[] quantities = new int[lines];
+            BigDecimal[] lineDiscounts = new BigDecimal[lines];
+            for (int i = 0; i < lines; i++) {
+                // Mostly whole rupiah, as IDR prices are, with some sen to exercise rounding
+                prices[i] = random.nextInt(4) == 0 ? amount(random, 50_000_000)
+                        : BigDecimal.valueOf(random.nextInt(500_000) * 100L, 2);
+                quantities[i] = 1 + random.nextInt(random.nextBoolean() ? 5 : 500);
+                lineDiscounts[i] = random.nextInt(3) == 0 ? amount(random, 1_000_000) : BigDecimal.ZERO;
+            }
+            BigDecimal discount = random.nextBoolean() ? amount(random, 5_000_000) : BigDecimal.ZERO;
+            BigDecimal percent = random.nextBoolean() ? BigDecimal.valueOf(random.nextInt(10_001), 2) : BigDecimal.ZERO;
+            BigDecimal taxRate = BigDecimal.valueOf(random.nextInt(3_001), 4);
+
+            String cart = "cart " + n;
+            assertSame(engine(prices, quantities, lineDiscounts, discount, percent, taxRate),
+                    reference(prices, quantities, lineDiscounts, discount, percent, taxRate), cart);
+        }
+    }
+
+    @ParameterizedTest(name = "{0} x {1}, -{2} -{3}%, tax {4}")
+    @CsvSource({
+            // price, quantity, discount, percent, tax rate, expected discount, tax, grand total
+            "10000.00, 3, 0,    0,     0.10,   0.00,    3000.00, 33000.00",
+            "0.05,     1, 0,    0,     0.10,   0.00,    0.01,    0.06",     // 0.005 tax rounds up
+            "0.15,     1, 0,    10,    0.10,   0.02,    0.01,    0.14",     // 0.015 discount rounds up
+            "15000.00, 1, 0,    12.5,  0.11,   1875.00, 1443.75, 14568.75",
+            "999.99,   7, 50,   33.33, 0.0725, 2383.08, 334.72,  4951.57",
+            "5000.00,  1, 6000, 0,     0.10,   6000.00, -100.00, -1100.00"  // negative totals round half away from zero
+    })
+    @DisplayName("edge cases should round HALF_UP like the decimal rules")
+    void shouldRoundHalfUp(BigDecimal price, int quantity, BigDecimal discount, BigDecimal percent, BigDecimal taxRate,
+                           BigDecimal expectedDiscount, BigDecimal expectedTax, BigDecimal expectedTotal) {
+        BigDecimal[] prices = {price};
+        int[] quantities = {quantity};
+        BigDecimal[] noLineDiscount = {BigDecimal.ZERO};
+        PricingEngine.Totals totals = engine(prices, quantities, noLineDiscount, discount, percent, taxRate);
+
+        assertSame(totals, reference(prices, quantities, noLineDiscount, discount, percent, taxRate), "edge case");
+        assertThat(PricingEngine.toAmount(totals.discount())).isEqualByComparingTo(expectedDiscount);
+        assertThat(PricingEngine.toAmount(totals.taxAmount())).isEqualByComparingTo(expectedTax);
+        assertThat(PricingEngine.toAmount(totals.grandTotal())).isEqualByComparingTo(expectedTotal);
+    }
+
+    @Test
+    @DisplayName("division should round half away from zero on both signs")
+    void shouldDivideHalfUp() {
+        assertThat(PricingEngine.divideHalfUp(15, 10)).isEqualTo(2);
+        assertThat(PricingEngine.divideHalfUp(14, 10)).isEqualTo(1);
+        assertThat(PricingEngine.divideHalfUp(-15, 10)).isEqualTo(-2);
+        assertThat(PricingEngine.divideHalfUp(-14, 10)).isEqualTo(-1);
+        assertThat(PricingEngine.divideHalfUp(Long.MAX_VALUE, 10_000))
+                .isEqualTo(BigDecimal.valueOf(Long.MAX_VALUE).divide(BigDecimal.valueOf(10_000), 0, RoundingMode.HALF_UP).longValue());
+    }
+
+    @Test
+    @DisplayName("should refuse amounts that overflow instead of wrapping")
+    void shouldFailOnOverflow() {
+        assertThatThrownBy(() -> PricingEngine.lineSubtotal(Long.MAX_VALUE / 2, 3, 0))
+                .isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> PricingEngine.totals(Long.MAX_VALUE / 2, 0, 0, 1100))
+                .isInstanceOf(ArithmeticException.class);
+    }
+}
@@ -0,0 +1,97 @@
+package com.warungku.pos.service.subscription;
+
+import com.warungku.pos.entity.subscription.Plan;
+import com.warungku.pos.entity.subscription.Subscription;
+import com.warungku.pos.entity.subscription.SubscriptionStatus;
+import com.warungku.pos.repository.SubscriptionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EntitlementCacheTest {
+
+    @Mock
+    private SubscriptionRepository subscriptionRepository;
+
+    private EntitlementCache entitlementCache;
+
+    @BeforeEach
+    void setUp() {
+        entitlementCache = new EntitlementCache(subscriptionRepository, Duration.ofMinutes(1));
+    }
+
+    private Subscription subscription(SubscriptionStatus status, int maxTransactions) {
+        Plan plan = Plan.builder().code("STARTER").maxTransactionsPerMonth(maxTransactions).featureExport(false).build();
+        return Subscription.builder()
+                .tenantId(1L)
+                .plan(plan)
+                .status(status)
+                .endDate(LocalDateTime.now().plusDays(7))
+                .build();
+    }
+
+    @Test
+    @DisplayName("should load a tenant's entitlement once and answer repeats from memory")
+    void shouldServeRepeatsFromMemory() {
+        when(subscriptionRepository.findWithPlanByTenantId(1L))
+                .thenReturn(Optional.of(subscription(SubscriptionStatus.ACTIVE, 1000)));
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(entitlementCache.get(1L)).get().satisfies(entitlement -> {
+                assertThat(entitlement.isUsable()).isTrue();
+                assertThat(entitlement.maxTransactionsPerMonth()).isEqualTo(1000);
+                assertThat(entitlement.featureExport()).isFalse();
+            });
+        }
+
+        verify(subscriptionRepository, times(1)).findWithPlanByTenantId(1L);
+    }
+
+    @Test
+    @DisplayName("should remember tenants without a subscription too")
+    void shouldCacheMissingSubscription() {
+        when(subscriptionRepository.findWithPlanByTenantId(2L)).thenReturn(Optional.empty());
+
+        assertThat(entitlementCache.get(2L)).isEmpty();
+        assertThat(entitlementCache.get(2L)).isEmpty();
+
+        verify(subscriptionRepository, times(1)).findWithPlanByTenantId(2L);
+    }
+
+    @Test
+    @DisplayName("should reload after invalidation")
+    void shouldReloadAfterInvalidation() {
+        when(subscriptionRepository.findWithPlanByTenantId(1L))
+                .thenReturn(Optional.of(subscription(SubscriptionStatus.ACTIVE, 1000)))
+                .thenReturn(Optional.of(subscription(SubscriptionStatus.CANCELLED, 1000)));
+
+        assertThat(entitlementCache.get(1L).orElseThrow().isUsable()).isTrue();
+        entitlementCache.invalidate(1L);
+        assertThat(entitlementCache.get(1L).orElseThrow().isUsable()).isFalse();
+
+        verify(subscriptionRepository, times(2)).findWithPlanByTenantId(1L);
+    }
+
+    @Test
+    @DisplayName("should refresh snapshots older than the time to live")
+    void shouldRefreshAfterTtl() {
+        entitlementCache = new EntitlementCache(subscriptionRepository, Duration.ZERO);
+        when(subscriptionRepository.findWithPlanByTenantId(1L))
+                .thenReturn(Optional.of(subscription(SubscriptionStatus.ACTIVE, 1000)))
+                .thenReturn(Optional.of(subscription(SubscriptionStatus.ACTIVE, 500)));
+
+        assertThat(entitlementCache.get(1L).orElseThrow().isTransactionLimitReached(600)).isFalse();
+        assertThat(entitlementCache.get(1L).orElseThrow().isTransactionLimitReached(600)).isTrue();
+    }
+}
@@ -0,0 +1,144 @@
+package com.warungku.pos.service.subscription;
+
+import com.warungku.pos.repository.ProductRepository;
+import com.warungku.pos.repository.SubscriptionRepository;
+import com.warungku.pos.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UsageMeterTest {
+
+    @Mock
+    private SubscriptionRepository subscriptionRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private UsageMeter usageMeter;
+
+    @BeforeEach
+    void setUp() {
+        usageMeter = new UsageMeter(subscriptionRepository, productRepository, userRepository, transactionManager);
+        when(subscriptionRepository.findTransactionsThisMonth(1L)).thenReturn(Optional.of(40));
+        when(productRepository.countActiveByTenant(1L)).thenReturn(7L);
+        when(userRepository.countActiveByTenant(1L)).thenReturn(2L);
+    }
+
+    @Test
+    @DisplayName("should read stored usage once and count changes in memory")
+    void shouldCountOnTopOfStoredUsage() throws InterruptedException {
+        assertThat(usageMeter.transactions(1L)).isEqualTo(40);
+        ExecutorService tills = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 100; i++) {
+            tills.submit(() -> usageMeter.recordTransactions(1L, 1));
+        }
+        tills.shutdown();
+        assertThat(tills.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        usageMeter.recordTransactions(1L, -1);
+        usageMeter.recordProducts(1L, 1);
+        usageMeter.recordUsers(1L, 1);
+
+        assertThat(usageMeter.transactions(1L)).isEqualTo(139);
+        assertThat(usageMeter.products(1L)).isEqualTo(8);
+        assertThat(usageMeter.users(1L)).isEqualTo(3);
+        verify(subscriptionRepository, times(1)).findTransactionsThisMonth(1L);
+        verify(subscriptionRepository, never()).updateUsage(anyLong(), anyInt(), anyInt(), anyInt());
+    }
+
+    @Test
+    @DisplayName("should write only the transactions recorded since the last flush")
+    void shouldFlushDeltas() {
+        when(subscriptionRepository.updateUsage(anyLong(), anyInt(), anyInt(), anyInt())).thenReturn(1);
+        usageMeter.recordTransactions(1L, 1);
+        usageMeter.recordTransactions(1L, 1);
+
+        usageMeter.flush();
+        usageMeter.recordTransactions(1L, 1);
+        usageMeter.flush();
+
+        verify(subscriptionRepository).updateUsage(1L, 2, 7, 2);
+        verify(subscriptionRepository).updateUsage(1L, 1, 7, 2);
+        assertThat(usageMeter.transactions(1L)).isEqualTo(43);
+    }
+
+    @Test
+    @DisplayName("counting a sale should not query; the next flush loads the counters and writes it")
+    void shouldCountSalesWithoutLoading() {
+        when(subscriptionRepository.updateUsage(anyLong(), anyInt(), anyInt(), anyInt())).thenReturn(1);
+        usageMeter.recordTransactions(1L, 1);
+        usageMeter.recordTransactions(1L, 1);
+
+        verifyNoInteractions(subscriptionRepository, productRepository, userRepository);
+
+        usageMeter.flush();
+        verify(subscriptionRepository).updateUsage(1L, 2, 7, 2);
+        assertThat(usageMeter.transactions(1L)).isEqualTo(42);
+    }
+
+    @Test
+    @DisplayName("should keep changes pending when a flush fails")
+    void shouldRetryFailedFlush() {
+        when(subscriptionRepository.updateUsage(anyLong(), anyInt(), anyInt(), anyInt()))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(1);
+        usageMeter.recordTransactions(1L, 1);
+
+        usageMeter.flush();
+        usageMeter.flush();
+
+        verify(subscriptionRepository, times(2)).updateUsage(1L, 1, 7, 2);
+    }
+
+    @Test
+    @DisplayName("a product or user committed before the counters load should be counted once")
+    void shouldNotCountCommittedRowsTwice() {
+        usageMeter.recordUsers(1L, 1);
+        usageMeter.recordProducts(1L, 1);
+
+        assertThat(usageMeter.users(1L)).isEqualTo(2);
+        assertThat(usageMeter.products(1L)).isEqualTo(7);
+    }
+
+    @Test
+    @DisplayName("transactions recorded while the month resets should count towards the new month")
+    void shouldKeepTransactionsRecordedDuringReset() {
+        when(subscriptionRepository.updateUsage(anyLong(), anyInt(), anyInt(), anyInt())).thenReturn(1);
+        usageMeter.recordTransactions(1L, 1);
+        usageMeter.recordTransactions(1L, 1);
+        doAnswer(invocation -> {
+            usageMeter.recordTransactions(1L, 1);
+            return null;
+        }).when(subscriptionRepository).resetMonthlyTransactionCounts();
+
+        usageMeter.resetMonth();
+
+        assertThat(usageMeter.transactions(1L)).isEqualTo(1);
+        usageMeter.flush();
+        verify(subscriptionRepository).updateUsage(1L, 2, 7, 2);
+        verify(subscriptionRepository).updateUsage(1L, 1, 7, 2);
+        verify(subscriptionRepository, times(1)).findTransactionsThisMonth(1L);
+    }
+}
@@ -1,4 +1,4 @@
-import { api } from './api'
+import { api, API_BASE_URL } from './api'
 import { Product } from '@/store/products'
 
 export interface ProductDto {
@@ -23,6 +23,26 @@ export interface ApiResponse<T> {
   data: T
 }
 
+export interface PageDto<T> {
+  content: T[]
+  totalElements: number
+  totalPages: number
+  number: number
+  size: number
+}
+
+// Stored images come back as /api/images/{hash} paths on the backend
+function toImageUrl(image?: string): string | undefined {
+  if (!image) return undefined
+  return image.startsWith('/api/') ? `${API_BASE_URL}${image}` : image
+}
+
+// Send stored images back as paths so the backend keeps its own reference
+function fromImageUrl(image?: string): string | undefined {
+  if (!image) return undefined
+  return image.startsWith(`${API_BASE_URL}/api/`) ? image.slice(API_BASE_URL.length) : image
+}
+
 // Convert API response to frontend Product type
 function toProduct(dto: ProductDto): Product {
   return {
@@ -33,7 +53,7 @@ function toProduct(dto: ProductDto): Product {
     sku: dto.sku,
     stock: dto.stock,
     isActive: dto.isActive,
-    image: dto.image || undefined,
+    image: toImageUrl(dto.image),
   }
 }
 
@@ -44,7 +64,7 @@ function toProductDto(product: Partial<Product> & { categoryId?: number }): Part
     sku: product.sku,
     price: product.price,
     stock: product.stock,
-    image: product.image || undefined,
+    image: fromImageUrl(product.image),
     categoryId: product.categoryId,
     isActive: product.isActive,
   }
@@ -61,9 +81,9 @@ export const productService = {
     return toProduct(response.data)
   },
 
-  async search(query: string): Promise<Product[]> {
-    const response = await api.get<ApiResponse<ProductDto[]>>('/api/products/search', { q: query })
-    return response.data.map(toProduct)
+  async search(query: string, page = 0, size = 20): Promise<Product[]> {
+    const response = await api.get<ApiResponse<PageDto<ProductDto>>>('/api/products/search', { q: query, page: String(page), size: String(size) })
+    return response.data.content.map(toProduct)
   },
 
   async create(product: Omit<Product, 'id'> & { categoryId?: number }): Promise<Product> {